@@ -20,11 +20,32 @@ repositories {
     }
 }
 
+// JMH benchmarks live in src/jmh and run against the plugin's classes with ./gradlew jmh.
+sourceSets {
+    create("jmh") {
+        compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+        runtimeClasspath += output + compileClasspath
+    }
+}
+
+// Tests run against the same APIs the plugin is compiled against, since the server provides them at runtime.
+configurations.testImplementation {
+    extendsFrom(configurations.compileOnly.get())
+}
+
 dependencies {
     compileOnly("io.papermc.paper:paper-api:1.21.9-R0.1-SNAPSHOT")
     compileOnly("com.arcaniax:HeadDatabase-API:1.3.2")
     compileOnly("com.github.MilkBowl:VaultAPI:1.7.1")
     compileOnly("com.github.lukesky19:SkyLib:1.3.1.0")
+
+    testImplementation(platform("org.junit:junit-bom:5.13.4"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+    testImplementation("com.h2database:h2:2.3.232")
+
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 java {
@@ -52,4 +73,16 @@ tasks {
     build {
         dependsOn(javadoc)
     }
+
+    test {
+        useJUnitPlatform()
+    }
+
+    register<JavaExec>("jmh") {
+        group = "benchmark"
+        description = "Runs the JMH benchmarks. Extra JMH arguments can be passed with -Pjmh.args=\"...\"."
+        classpath = sourceSets["jmh"].runtimeClasspath
+        mainClass.set("org.openjdk.jmh.Main")
+        args(providers.gradleProperty("jmh.args").getOrElse("").split(" ").filter { it.isNotBlank() })
+    }
 }
\ No newline at end of file
@@ -0,0 +1,265 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.data.player;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * The {@link ConcurrentHashMap} backed cache that {@link PlayerDataCache} replaced, kept unchanged as the baseline for {@link PlayerDataCacheBenchmark}.
+ * Each entry costs a boxed {@link UUID} key, an {@link Entry}, an {@link AtomicReference}, an {@link AtomicLong} and a {@link PlayerData}.
+ */
+public class ConcurrentHashMapPlayerDataCache {
+    private final @NotNull Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final @NotNull LongAdder hits = new LongAdder();
+    private final @NotNull LongAdder misses = new LongAdder();
+    private final @NotNull LongAdder evictions = new LongAdder();
+    private volatile int maximumSize;
+
+    /**
+     * Constructor
+     * @param maximumSize The maximum number of entries to keep in the cache.
+     */
+    public ConcurrentHashMapPlayerDataCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Get the cached {@link PlayerData} for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @return The cached {@link PlayerData} or null if not cached.
+     */
+    public @Nullable PlayerData get(@NotNull UUID uuid) {
+        Entry entry = entries.get(uuid);
+        if(entry == null) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return entry.playerData.get();
+    }
+
+    /**
+     * Get the cached {@link PlayerData} for the {@link UUID} provided without counting a hit or miss.
+     * @param uuid The {@link UUID} of the player.
+     * @return The cached {@link PlayerData} or null if not cached.
+     */
+    public @Nullable PlayerData peek(@NotNull UUID uuid) {
+        Entry entry = entries.get(uuid);
+        if(entry == null) return null;
+
+        return entry.playerData.get();
+    }
+
+    /**
+     * Atomically replaces the cached {@link PlayerData} for the {@link UUID} provided with the result of the update function.
+     * The function may be called more than once if another thread updates the data at the same time, so it must not have side effects.
+     * @param uuid The {@link UUID} of the player.
+     * @param updateFunction The {@link UnaryOperator} that creates the new {@link PlayerData} from the current {@link PlayerData}.
+     * @return The new {@link PlayerData} or null if the player's data is not cached.
+     */
+    public @Nullable PlayerData update(@NotNull UUID uuid, @NotNull UnaryOperator<PlayerData> updateFunction) {
+        Entry entry = entries.get(uuid);
+        if(entry == null) return null;
+
+        return entry.playerData.updateAndGet(updateFunction);
+    }
+
+    /**
+     * Records that the version provided of a player's {@link PlayerData} has been saved.
+     * @param uuid The {@link UUID} of the player.
+     * @param version The version of the {@link PlayerData} that was saved.
+     */
+    public void markSaved(@NotNull UUID uuid, long version) {
+        Entry entry = entries.get(uuid);
+        if(entry == null) return;
+
+        entry.savedVersion.accumulateAndGet(version, Math::max);
+    }
+
+    /**
+     * Cache the {@link PlayerData} for the {@link UUID} provided.
+     * The entry will be retained until {@link #scheduleEviction(UUID, long)} is called.
+     * @param uuid The {@link UUID} of the player.
+     * @param playerData The {@link PlayerData} to cache.
+     */
+    public void put(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        entries.put(uuid, new Entry(playerData));
+
+        if(entries.size() > maximumSize) enforceMaximumSize();
+    }
+
+    /**
+     * Cache the {@link PlayerData} for the {@link UUID} provided unless the player already has an entry in the cache.
+     * @param uuid The {@link UUID} of the player.
+     * @param playerData The {@link PlayerData} to cache.
+     * @return The {@link PlayerData} now in the cache. This is the existing {@link PlayerData} if one was already cached.
+     */
+    public @NotNull PlayerData putIfAbsent(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        Entry newEntry = new Entry(playerData);
+        Entry entry = entries.putIfAbsent(uuid, newEntry);
+        if(entry != null) return entry.playerData.get();
+
+        if(entries.size() > maximumSize) enforceMaximumSize();
+        return playerData;
+    }
+
+    /**
+     * Cancels any scheduled eviction for the {@link UUID} provided. Used when a player reconnects.
+     * @param uuid The {@link UUID} of the player.
+     * @return true if the player had an entry in the cache, otherwise false.
+     */
+    public boolean retain(@NotNull UUID uuid) {
+        Entry entry = entries.get(uuid);
+        if(entry == null) return false;
+
+        entry.evictAt = 0L;
+        return true;
+    }
+
+    /**
+     * Schedules the eviction of the entry for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @param delayMillis The number of milliseconds to wait before the entry is evicted. If 0 or less, the entry is evicted immediately unless it has unsaved changes.
+     */
+    public void scheduleEviction(@NotNull UUID uuid, long delayMillis) {
+        Entry entry = entries.get(uuid);
+        if(entry == null) return;
+
+        if(delayMillis <= 0L && !entry.isDirty()) {
+            if(entries.remove(uuid, entry)) evictions.increment();
+            return;
+        }
+
+        entry.evictAt = System.currentTimeMillis() + Math.max(delayMillis, 0L);
+    }
+
+    /**
+     * Evicts all entries whose eviction time has passed. Entries with unsaved changes are kept until they are saved.
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+
+        entries.forEach((uuid, entry) -> {
+            long evictAt = entry.evictAt;
+            if(evictAt != 0L && evictAt <= now && !entry.isDirty() && entries.remove(uuid, entry)) {
+                evictions.increment();
+            }
+        });
+    }
+
+    /**
+     * Removes the entry for the {@link UUID} provided without counting it as an eviction.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public void invalidate(@NotNull UUID uuid) {
+        entries.remove(uuid);
+    }
+
+    /**
+     * Set the maximum number of entries to keep in the cache.
+     * Entries scheduled for eviction are removed early, soonest first, to stay under this size.
+     * Entries for online players are never removed to satisfy the maximum size.
+     * @param maximumSize The maximum number of entries.
+     */
+    public void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+
+        if(entries.size() > maximumSize) enforceMaximumSize();
+    }
+
+    /**
+     * Get the number of entries in the cache.
+     * @return The number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get the number of cache hits since the cache was created.
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of cache misses since the cache was created.
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of evicted entries since the cache was created.
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Removes entries scheduled for eviction, soonest first, until the cache is no larger than the maximum size.
+     */
+    private void enforceMaximumSize() {
+        List<Map.Entry<UUID, Entry>> pending = new ArrayList<>();
+        entries.entrySet().forEach(mapEntry -> {
+            if(mapEntry.getValue().evictAt != 0L && !mapEntry.getValue().isDirty()) pending.add(Map.entry(mapEntry.getKey(), mapEntry.getValue()));
+        });
+        pending.sort(Comparator.comparingLong(mapEntry -> mapEntry.getValue().evictAt));
+
+        for(Map.Entry<UUID, Entry> mapEntry : pending) {
+            if(entries.size() <= maximumSize) return;
+
+            if(entries.remove(mapEntry.getKey(), mapEntry.getValue())) evictions.increment();
+        }
+    }
+
+    /**
+     * A cached {@link PlayerData}, the last saved version of it, and the time it should be evicted at.
+     */
+    private static final class Entry {
+        private final @NotNull AtomicReference<PlayerData> playerData;
+        private final @NotNull AtomicLong savedVersion;
+        // 0 means the entry is retained (the player is online).
+        private volatile long evictAt = 0L;
+
+        private Entry(@NotNull PlayerData playerData) {
+            this.playerData = new AtomicReference<>(playerData);
+            this.savedVersion = new AtomicLong(playerData.getVersion());
+        }
+
+        private boolean isDirty() {
+            return playerData.get().getVersion() > savedVersion.get();
+        }
+    }
+}
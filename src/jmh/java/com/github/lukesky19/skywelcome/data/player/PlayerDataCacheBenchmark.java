@@ -0,0 +1,169 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.data.player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link PlayerDataCache} against the {@link ConcurrentHashMapPlayerDataCache} it replaced.
+ * Each benchmark runs the same operations on both caches, pre-filled with the same online players:
+ * reads of cached players, toggles of a player's data, and players joining and quitting.
+ * Run with {@code ./gradlew jmh}. Pass {@code -Pjmh.args="-prof gc"} to also compare the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerDataCacheBenchmark {
+    @Param({"100", "10000"})
+    private int onlinePlayers;
+
+    private PlayerDataCache tableCache;
+    private ConcurrentHashMapPlayerDataCache mapCache;
+    private UUID[] uuids;
+    // Players that aren't cached, which join and quit in the churn benchmarks.
+    private UUID[] joiningUuids;
+    private final PlayerData playerData = new PlayerData(true, true, true, 1, 1);
+
+    /**
+     * Fills both caches with the same online players.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Large enough that neither cache evicts anything during the benchmark.
+        int maximumSize = onlinePlayers * 4;
+        tableCache = new PlayerDataCache(maximumSize);
+        mapCache = new ConcurrentHashMapPlayerDataCache(maximumSize);
+
+        uuids = new UUID[onlinePlayers];
+        for(int i = 0; i < onlinePlayers; i++) {
+            uuids[i] = UUID.randomUUID();
+            tableCache.put(uuids[i], playerData);
+            mapCache.put(uuids[i], playerData);
+        }
+
+        joiningUuids = new UUID[onlinePlayers];
+        for(int i = 0; i < onlinePlayers; i++) {
+            joiningUuids[i] = UUID.randomUUID();
+        }
+    }
+
+    /**
+     * The state of each benchmark thread, so threads walk through the players independently.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next = 0;
+
+        /**
+         * Get the index of the next player.
+         * @param bound The number of players.
+         * @return The index.
+         */
+        private int next(int bound) {
+            int index = next;
+            next = index + 1 == bound ? 0 : index + 1;
+            return index;
+        }
+    }
+
+    /**
+     * Reads a cached player from the primitive table cache.
+     * @param cursor The thread's {@link Cursor}.
+     * @return The {@link PlayerData}, so the read isn't optimized away.
+     */
+    @Benchmark
+    @Threads(4)
+    public PlayerData getTable(Cursor cursor) {
+        return tableCache.get(uuids[cursor.next(onlinePlayers)]);
+    }
+
+    /**
+     * Reads a cached player from the {@link java.util.concurrent.ConcurrentHashMap} cache.
+     * @param cursor The thread's {@link Cursor}.
+     * @return The {@link PlayerData}, so the read isn't optimized away.
+     */
+    @Benchmark
+    @Threads(4)
+    public PlayerData getMap(Cursor cursor) {
+        return mapCache.get(uuids[cursor.next(onlinePlayers)]);
+    }
+
+    /**
+     * Toggles a cached player's join message in the primitive table cache.
+     * @param cursor The thread's {@link Cursor}.
+     * @return The new {@link PlayerData}, so the update isn't optimized away.
+     */
+    @Benchmark
+    public PlayerData updateTable(Cursor cursor) {
+        return tableCache.update(uuids[cursor.next(onlinePlayers)], current -> current.withSendJoin(!current.isSendJoin()));
+    }
+
+    /**
+     * Toggles a cached player's join message in the {@link java.util.concurrent.ConcurrentHashMap} cache.
+     * @param cursor The thread's {@link Cursor}.
+     * @return The new {@link PlayerData}, so the update isn't optimized away.
+     */
+    @Benchmark
+    public PlayerData updateMap(Cursor cursor) {
+        return mapCache.update(uuids[cursor.next(onlinePlayers)], current -> current.withSendJoin(!current.isSendJoin()));
+    }
+
+    /**
+     * Caches a joining player and evicts them again as they quit, in the primitive table cache.
+     * @param cursor The thread's {@link Cursor}.
+     * @return The cache's size, so the churn isn't optimized away.
+     */
+    @Benchmark
+    public int churnTable(Cursor cursor) {
+        UUID uuid = joiningUuids[cursor.next(onlinePlayers)];
+        tableCache.put(uuid, playerData);
+        tableCache.scheduleEviction(uuid, 0L);
+        return tableCache.size();
+    }
+
+    /**
+     * Caches a joining player and evicts them again as they quit, in the {@link java.util.concurrent.ConcurrentHashMap} cache.
+     * @param cursor The thread's {@link Cursor}.
+     * @return The cache's size, so the churn isn't optimized away.
+     */
+    @Benchmark
+    public int churnMap(Cursor cursor) {
+        UUID uuid = joiningUuids[cursor.next(onlinePlayers)];
+        mapCache.put(uuid, playerData);
+        mapCache.scheduleEviction(uuid, 0L);
+        return mapCache.size();
+    }
+}
@@ -28,16 +28,25 @@ import com.github.lukesky19.skywelcome.listener.InventoryListener;
 import com.github.lukesky19.skywelcome.listener.JoinListener;
 import com.github.lukesky19.skywelcome.listener.QuitListener;
 import com.github.lukesky19.skywelcome.listener.RewardListener;
+import com.github.lukesky19.skywelcome.manager.DataTransferManager;
 import com.github.lukesky19.skywelcome.manager.GUIManager;
 import com.github.lukesky19.skywelcome.manager.HeadDatabaseManager;
 import com.github.lukesky19.skywelcome.manager.PlayerDataManager;
 import com.github.lukesky19.skywelcome.manager.RewardManager;
+import com.github.lukesky19.skywelcome.manager.database.CircuitBreaker;
 import com.github.lukesky19.skywelcome.manager.database.ConnectionManager;
 import com.github.lukesky19.skywelcome.manager.database.DatabaseManager;
+import com.github.lukesky19.skywelcome.manager.database.MaintenanceManager;
 import com.github.lukesky19.skywelcome.manager.database.QueueManager;
+import com.github.lukesky19.skywelcome.manager.database.invalidation.InvalidationBus;
+import com.github.lukesky19.skywelcome.manager.network.HandoffManager;
+import com.github.lukesky19.skywelcome.manager.network.NetworkManager;
+import com.github.lukesky19.skywelcome.manager.network.NetworkSessionManager;
+import com.github.lukesky19.skywelcome.manager.database.metrics.QueryMetrics;
 import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import net.milkbowl.vault.economy.Economy;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.RegisteredServiceProvider;
@@ -52,6 +61,13 @@ public class SkyWelcome extends JavaPlugin {
     private PlayerDataManager playerDataManager;
     private GUIConfigManager guiConfigManager;
     private DatabaseManager databaseManager;
+    private MaintenanceManager maintenanceManager;
+    private QueryMetrics queryMetrics;
+    private CircuitBreaker circuitBreaker;
+    private InvalidationBus invalidationBus;
+    private NetworkManager networkManager;
+    private HandoffManager handoffManager;
+    private NetworkSessionManager networkSessionManager;
     private GUIManager guiManager;
 
     private Economy economy;
@@ -83,11 +99,22 @@ public class SkyWelcome extends JavaPlugin {
         localeManager = new LocaleManager(this, settingsManager);
         guiConfigManager = new GUIConfigManager(this);
 
-        ConnectionManager connectionManager = new ConnectionManager(this);
-        QueueManager queueManager = new QueueManager(connectionManager);
-        databaseManager = new DatabaseManager(connectionManager, queueManager);
+        // The storage settings are needed to open the database, so the settings are loaded before everything else.
+        settingsManager.reload();
+
+        ConnectionManager connectionManager = new ConnectionManager(this, settingsManager);
+        queryMetrics = new QueryMetrics(this, settingsManager);
+        QueueManager queueManager = new QueueManager(connectionManager, queryMetrics);
+        databaseManager = new DatabaseManager(this, settingsManager, connectionManager, queueManager);
+        maintenanceManager = new MaintenanceManager(this, settingsManager, databaseManager);
+        circuitBreaker = new CircuitBreaker(this, settingsManager, databaseManager);
+        invalidationBus = new InvalidationBus(this, settingsManager, databaseManager);
+        networkManager = new NetworkManager(this, settingsManager);
+        handoffManager = new HandoffManager(this, settingsManager, invalidationBus, networkManager);
+        networkSessionManager = new NetworkSessionManager(this, settingsManager, networkManager);
 
-        playerDataManager = new PlayerDataManager(this, settingsManager, databaseManager);
+        playerDataManager = new PlayerDataManager(this, settingsManager, databaseManager, circuitBreaker, invalidationBus, handoffManager);
+        DataTransferManager dataTransferManager = new DataTransferManager(this, playerDataManager, databaseManager);
 
         RewardManager rewardManager = new RewardManager(this, settingsManager, localeManager);
 
@@ -97,7 +124,7 @@ public class SkyWelcome extends JavaPlugin {
 
         this.getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS,
                 commands -> {
-                    SkyWelcomeCommand skyWelcomeCommand = new SkyWelcomeCommand(this, settingsManager, localeManager, guiConfigManager, playerDataManager, headDatabaseManager, guiManager);
+                    SkyWelcomeCommand skyWelcomeCommand = new SkyWelcomeCommand(this, settingsManager, localeManager, guiConfigManager, playerDataManager, headDatabaseManager, guiManager, dataTransferManager, queueManager);
                     commands.registrar().register(skyWelcomeCommand.createCommand(), "Command to manage and use the SkyWelcome plugin.");
 
                     ToggleCommand toggleCommand = new ToggleCommand(this, localeManager, playerDataManager);
@@ -109,22 +136,32 @@ public class SkyWelcome extends JavaPlugin {
             this.getServer().getPluginManager().registerEvents(headDatabaseManager, this);
         }
         this.getServer().getPluginManager().registerEvents(new InventoryListener(guiManager), this);
-        this.getServer().getPluginManager().registerEvents(new JoinListener(this, settingsManager, playerDataManager), this);
-        this.getServer().getPluginManager().registerEvents(new QuitListener(this, settingsManager, playerDataManager), this);
+        this.getServer().getPluginManager().registerEvents(new JoinListener(this, settingsManager, playerDataManager, networkSessionManager), this);
+        this.getServer().getPluginManager().registerEvents(new QuitListener(this, settingsManager, playerDataManager, networkSessionManager), this);
         this.getServer().getPluginManager().registerEvents(new RewardListener(this, settingsManager, localeManager, rewardManager), this);
 
+        reload();
+
         // Load player data for any online players that joined before the plugin was fully enabled.
         // This is mostly for plugman edge cases, but 99% of the time is not necessary.
-        this.getServer().getOnlinePlayers().forEach(player -> playerDataManager.loadPlayerData(player.getUniqueId()));
-
-        reload();
+        playerDataManager.warmUp(this.getServer().getOnlinePlayers().stream().map(Player::getUniqueId).toList());
     }
 
     @Override
     public void onDisable() {
         if(guiManager != null) guiManager.closeOpenGUIs(true);
 
+        if(playerDataManager != null) playerDataManager.flushPlayerData();
+
+        if(networkSessionManager != null) networkSessionManager.shutdown();
+
+        if(networkManager != null) networkManager.shutdown();
+
+        if(invalidationBus != null) invalidationBus.shutdown();
+
         if(databaseManager != null) databaseManager.handlePluginDisable();
+
+        if(playerDataManager != null) playerDataManager.closeJournal();
     }
 
     /**
@@ -136,6 +173,14 @@ public class SkyWelcome extends JavaPlugin {
         settingsManager.reload();
         localeManager.reload();
         guiConfigManager.reload();
+        playerDataManager.reload();
+        maintenanceManager.reload();
+        queryMetrics.reload();
+        circuitBreaker.reload();
+        invalidationBus.reload();
+        networkManager.reload();
+        handoffManager.reload();
+        networkSessionManager.reload();
         playerDataManager.migrateLegacyPlayerSettings();
     }
 
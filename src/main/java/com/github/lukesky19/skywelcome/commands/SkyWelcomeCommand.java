@@ -18,16 +18,20 @@
 package com.github.lukesky19.skywelcome.commands;
 
 import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.commands.arguments.DataCommand;
 import com.github.lukesky19.skywelcome.commands.arguments.GuiCommand;
 import com.github.lukesky19.skywelcome.commands.arguments.HelpCommand;
 import com.github.lukesky19.skywelcome.commands.arguments.ReloadCommand;
+import com.github.lukesky19.skywelcome.commands.arguments.StatsCommand;
 import com.github.lukesky19.skywelcome.commands.arguments.ToggleCommand;
 import com.github.lukesky19.skywelcome.config.gui.GUIConfigManager;
 import com.github.lukesky19.skywelcome.config.locale.LocaleManager;
 import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.manager.DataTransferManager;
 import com.github.lukesky19.skywelcome.manager.GUIManager;
 import com.github.lukesky19.skywelcome.manager.HeadDatabaseManager;
 import com.github.lukesky19.skywelcome.manager.PlayerDataManager;
+import com.github.lukesky19.skywelcome.manager.database.QueueManager;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.tree.LiteralCommandNode;
 import io.papermc.paper.command.brigadier.CommandSourceStack;
@@ -45,6 +49,8 @@ public class SkyWelcomeCommand {
     private final @NotNull PlayerDataManager playerDataManager;
     private final @NotNull HeadDatabaseManager headDatabaseManager;
     private final @NotNull GUIManager guiManager;
+    private final @NotNull DataTransferManager dataTransferManager;
+    private final @NotNull QueueManager queueManager;
 
     /**
      * Constructor
@@ -55,6 +61,8 @@ public class SkyWelcomeCommand {
      * @param playerDataManager A {@link PlayerDataManager} instance.
      * @param headDatabaseManager A {@link HeadDatabaseManager} instance.
      * @param guiManager A {@link GUIManager} instance.
+     * @param dataTransferManager A {@link DataTransferManager} instance.
+     * @param queueManager A {@link QueueManager} instance.
      */
     public SkyWelcomeCommand(
             @NotNull SkyWelcome skyWelcome,
@@ -63,7 +71,9 @@ public class SkyWelcomeCommand {
             @NotNull GUIConfigManager guiConfigManager,
             @NotNull PlayerDataManager playerDataManager,
             @NotNull HeadDatabaseManager headDatabaseManager,
-            @NotNull GUIManager guiManager) {
+            @NotNull GUIManager guiManager,
+            @NotNull DataTransferManager dataTransferManager,
+            @NotNull QueueManager queueManager) {
         this.skyWelcome = skyWelcome;
         this.settingsManager = settingsManager;
         this.localeManager = localeManager;
@@ -71,6 +81,8 @@ public class SkyWelcomeCommand {
         this.playerDataManager = playerDataManager;
         this.headDatabaseManager = headDatabaseManager;
         this.guiManager = guiManager;
+        this.dataTransferManager = dataTransferManager;
+        this.queueManager = queueManager;
     }
 
     /**
@@ -81,14 +93,18 @@ public class SkyWelcomeCommand {
         LiteralArgumentBuilder<CommandSourceStack> builder = Commands.literal("skywelcome")
                 .requires(ctx -> ctx.getSender().hasPermission("skywelcome.commands.skywelcome"));
 
+        DataCommand dataCommand = new DataCommand(skyWelcome, localeManager, dataTransferManager);
         GuiCommand guiCommand = new GuiCommand(skyWelcome, settingsManager, localeManager, guiConfigManager, playerDataManager, headDatabaseManager, guiManager);
         HelpCommand helpCommand = new HelpCommand(localeManager);
         ReloadCommand reloadCommand = new ReloadCommand(skyWelcome, localeManager);
+        StatsCommand statsCommand = new StatsCommand(localeManager, queueManager);
         ToggleCommand toggleCommand = new ToggleCommand(skyWelcome, localeManager, playerDataManager);
 
+        builder.then(dataCommand.createCommand());
         builder.then(guiCommand.createCommand());
         builder.then(helpCommand.createCommand());
         builder.then(reloadCommand.createCommand());
+        builder.then(statsCommand.createCommand());
         builder.then(toggleCommand.createCommand());
 
         return builder.build();
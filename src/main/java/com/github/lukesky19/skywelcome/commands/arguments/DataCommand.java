@@ -0,0 +1,182 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.commands.arguments;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.locale.Locale;
+import com.github.lukesky19.skywelcome.config.locale.LocaleManager;
+import com.github.lukesky19.skywelcome.manager.DataTransferManager;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * This class is used to create the data command argument, which exports and imports player data.
+ */
+public class DataCommand {
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull LocaleManager localeManager;
+    private final @NotNull DataTransferManager dataTransferManager;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #DataCommand(SkyWelcome, LocaleManager, DataTransferManager)} instead.
+     * @deprecated You should use {@link #DataCommand(SkyWelcome, LocaleManager, DataTransferManager)} instead.
+     * @throws RuntimeException if used.
+     */
+    @Deprecated
+    public DataCommand() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param dataTransferManager A {@link DataTransferManager} instance.
+     */
+    public DataCommand(@NotNull SkyWelcome skyWelcome, @NotNull LocaleManager localeManager, @NotNull DataTransferManager dataTransferManager) {
+        this.logger = skyWelcome.getComponentLogger();
+        this.localeManager = localeManager;
+        this.dataTransferManager = dataTransferManager;
+    }
+
+    /**
+     * Creates the {@link LiteralCommandNode} of type {@link CommandSourceStack} for the data command argument.
+     * @return A {@link LiteralCommandNode} of type {@link CommandSourceStack} for the data command argument.
+     */
+    public @NotNull LiteralCommandNode<CommandSourceStack> createCommand() {
+        LiteralArgumentBuilder<CommandSourceStack> builder = Commands.literal("data")
+                .requires(ctx -> ctx.getSender().hasPermission("skywelcome.commands.skywelcome.data"));
+
+        builder.then(Commands.literal("export")
+                .then(Commands.argument("file", StringArgumentType.word())
+                        .executes(ctx -> {
+                            Locale locale = localeManager.getLocale();
+                            CommandSender sender = ctx.getSource().getSender();
+                            String fileName = StringArgumentType.getString(ctx, "file");
+
+                            Path path = dataTransferManager.getExportPath(fileName);
+                            if(path == null) {
+                                sender.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.dataInvalidFile()));
+                                return 0;
+                            }
+
+                            CompletableFuture<Long> future = dataTransferManager.exportPlayerData(path, count -> sendMessage(sender, locale.dataProgress(), fileName, count, 0L));
+                            return handleTransfer(sender, locale, fileName, future, locale.dataExportStarted(), locale.dataExportFinished());
+                        })));
+
+        builder.then(Commands.literal("import")
+                .then(Commands.argument("file", StringArgumentType.word())
+                        .executes(ctx -> {
+                            Locale locale = localeManager.getLocale();
+                            CommandSender sender = ctx.getSource().getSender();
+                            String fileName = StringArgumentType.getString(ctx, "file");
+
+                            Path path = dataTransferManager.getExportPath(fileName);
+                            if(path == null) {
+                                sender.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.dataInvalidFile()));
+                                return 0;
+                            }
+                            if(!Files.isRegularFile(path)) {
+                                sendMessage(sender, locale.dataFileNotFound(), fileName, 0L, 0L);
+                                return 0;
+                            }
+
+                            CompletableFuture<Long> future = dataTransferManager.importPlayerData(path, count -> sendMessage(sender, locale.dataProgress(), fileName, count, 0L));
+                            return handleTransfer(sender, locale, fileName, future, locale.dataImportStarted(), locale.dataImportFinished());
+                        })));
+
+        return builder.build();
+    }
+
+    /**
+     * Reports the start of a transfer, and its result once it finishes.
+     * @param sender The {@link CommandSender} that started the transfer.
+     * @param locale The plugin's {@link Locale}.
+     * @param fileName The name of the file being transferred.
+     * @param future The {@link CompletableFuture} of the transfer.
+     * @param startedMessage The message to send when the transfer starts.
+     * @param finishedMessage The message to send when the transfer finishes.
+     * @return 1 if the transfer was started, 0 if another transfer was already running.
+     */
+    private int handleTransfer(
+            @NotNull CommandSender sender,
+            @NotNull Locale locale,
+            @NotNull String fileName,
+            @NotNull CompletableFuture<Long> future,
+            @NotNull String startedMessage,
+            @NotNull String finishedMessage) {
+        if(future.isCompletedExceptionally() && future.exceptionNow() instanceof IllegalStateException) {
+            sender.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.dataTransferRunning()));
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        sendMessage(sender, startedMessage, fileName, 0L, 0L);
+
+        future.whenComplete((count, throwable) -> {
+            if(throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                logger.warn(AdventureUtil.serialize("Player data transfer using " + fileName + " failed. Error: " + cause.getMessage()));
+
+                TagResolver placeholders = TagResolver.resolver(
+                        Placeholder.unparsed("count", String.valueOf(dataTransferManager.getProcessedCount())),
+                        Placeholder.unparsed("error", String.valueOf(cause.getMessage())));
+                sender.sendMessage(MiniMessage.miniMessage().deserialize(locale.prefix() + locale.dataTransferFailed(), placeholders));
+                return;
+            }
+
+            sendMessage(sender, finishedMessage, fileName, count, System.currentTimeMillis() - startTime);
+        });
+
+        return 1;
+    }
+
+    /**
+     * Sends a transfer message with the file, count, and time placeholders filled in.
+     * @param sender The {@link CommandSender} to send the message to.
+     * @param message The message.
+     * @param fileName The name of the file being transferred.
+     * @param count The number of players processed.
+     * @param time The number of milliseconds the transfer took.
+     */
+    private void sendMessage(@NotNull CommandSender sender, @NotNull String message, @NotNull String fileName, long count, long time) {
+        Locale locale = localeManager.getLocale();
+        TagResolver placeholders = TagResolver.resolver(
+                Placeholder.unparsed("file", fileName),
+                Placeholder.unparsed("count", String.valueOf(count)),
+                Placeholder.unparsed("time", String.valueOf(time)));
+
+        sender.sendMessage(MiniMessage.miniMessage().deserialize(locale.prefix() + message, placeholders));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.commands.arguments;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.config.locale.Locale;
+import com.github.lukesky19.skywelcome.config.locale.LocaleManager;
+import com.github.lukesky19.skywelcome.enums.QueryType;
+import com.github.lukesky19.skywelcome.manager.database.QueueManager;
+import com.github.lukesky19.skywelcome.manager.database.metrics.LatencyHistogram;
+import com.github.lukesky19.skywelcome.manager.database.metrics.QueryMetrics;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.command.CommandSender;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This class is used to create the stats command argument, which shows the database latency percentiles.
+ */
+public class StatsCommand {
+    private final @NotNull LocaleManager localeManager;
+    private final @NotNull QueueManager queueManager;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #StatsCommand(LocaleManager, QueueManager)} instead.
+     * @deprecated You should use {@link #StatsCommand(LocaleManager, QueueManager)} instead.
+     * @throws RuntimeException if used.
+     */
+    @Deprecated
+    public StatsCommand() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param localeManager A {@link LocaleManager} instance.
+     * @param queueManager A {@link QueueManager} instance.
+     */
+    public StatsCommand(@NotNull LocaleManager localeManager, @NotNull QueueManager queueManager) {
+        this.localeManager = localeManager;
+        this.queueManager = queueManager;
+    }
+
+    /**
+     * Creates the {@link LiteralCommandNode} of type {@link CommandSourceStack} for the stats command argument.
+     * @return A {@link LiteralCommandNode} of type {@link CommandSourceStack} for the stats command argument.
+     */
+    public @NotNull LiteralCommandNode<CommandSourceStack> createCommand() {
+        LiteralArgumentBuilder<CommandSourceStack> builder = Commands.literal("stats")
+                .requires(ctx -> ctx.getSender().hasPermission("skywelcome.commands.skywelcome.stats"))
+                .executes(ctx -> {
+                    sendStats(ctx.getSource().getSender());
+
+                    return 1;
+                });
+
+        builder.then(Commands.literal("reset")
+                .executes(ctx -> {
+                    Locale locale = localeManager.getLocale();
+
+                    queueManager.getQueryMetrics().reset();
+
+                    ctx.getSource().getSender().sendMessage(AdventureUtil.serialize(locale.prefix() + locale.statsReset()));
+
+                    return 1;
+                }));
+
+        return builder.build();
+    }
+
+    /**
+     * Sends the latency percentiles of each kind of query that has been recorded, followed by the state of the queue.
+     * @param sender The {@link CommandSender} to send the statistics to.
+     */
+    private void sendStats(@NotNull CommandSender sender) {
+        Locale locale = localeManager.getLocale();
+        QueryMetrics queryMetrics = queueManager.getQueryMetrics();
+
+        sender.sendMessage(AdventureUtil.serialize(locale.prefix() + locale.statsHeader()));
+
+        for(QueryType queryType : QueryType.values()) {
+            LatencyHistogram queueWait = queryMetrics.getQueueWaitHistogram(queryType);
+            LatencyHistogram execution = queryMetrics.getExecutionHistogram(queryType);
+            if(execution.getCount() == 0) continue;
+
+            TagResolver placeholders = TagResolver.resolver(
+                    Placeholder.unparsed("type", queryType.name().toLowerCase(java.util.Locale.ROOT)),
+                    Placeholder.unparsed("count", String.valueOf(execution.getCount())),
+                    Placeholder.unparsed("wait_p50", formatMillis(queueWait.getValueAtPercentile(50))),
+                    Placeholder.unparsed("wait_p99", formatMillis(queueWait.getValueAtPercentile(99))),
+                    Placeholder.unparsed("exec_p50", formatMillis(execution.getValueAtPercentile(50))),
+                    Placeholder.unparsed("exec_p90", formatMillis(execution.getValueAtPercentile(90))),
+                    Placeholder.unparsed("exec_p99", formatMillis(execution.getValueAtPercentile(99))),
+                    Placeholder.unparsed("exec_max", formatMillis(execution.getMax())));
+            sender.sendMessage(MiniMessage.miniMessage().deserialize(locale.statsLine(), placeholders));
+        }
+
+        TagResolver placeholders = TagResolver.resolver(
+                Placeholder.unparsed("reads", String.valueOf(queueManager.getReadQueueDepth())),
+                Placeholder.unparsed("writes", String.valueOf(queueManager.getWriteQueueDepth())),
+                Placeholder.unparsed("rejected_reads", String.valueOf(queueManager.getRejectedReadCount())),
+                Placeholder.unparsed("rejected_writes", String.valueOf(queueManager.getRejectedWriteCount())),
+                Placeholder.unparsed("transactions", String.valueOf(queueManager.getWriteTransactionCount())),
+                Placeholder.unparsed("coalesced", String.valueOf(queueManager.getCoalescedWriteCount())));
+        sender.sendMessage(MiniMessage.miniMessage().deserialize(locale.statsQueue(), placeholders));
+    }
+
+    /**
+     * Formats a duration in microseconds as milliseconds with two decimal places.
+     * @param micros The duration in microseconds.
+     * @return The formatted duration.
+     */
+    private static @NotNull String formatMillis(long micros) {
+        return String.format(java.util.Locale.ROOT, "%.2f", micros / 1000D);
+    }
+}
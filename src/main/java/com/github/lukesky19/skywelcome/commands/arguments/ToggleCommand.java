@@ -82,7 +82,7 @@ public class ToggleCommand {
                     Locale locale = localeManager.getLocale();
                     Player player = (Player) ctx.getSource().getSender();
                     UUID uuid = player.getUniqueId();
-                    @Nullable PlayerData playerData = playerDataManager.getPlayerData(uuid);
+                    @Nullable PlayerData playerData = playerDataManager.toggleSendJoin(uuid);
 
                     if(playerData == null) {
                         player.sendMessage(AdventureUtil.serialize(locale.prefix() + "<red>Unable to toggle the sending of your join message due to invalid player data.</red>"));
@@ -90,8 +90,6 @@ public class ToggleCommand {
                         return 0;
                     }
 
-                    playerData.setSendJoin(!playerData.isSendJoin());
-
                     if(player.isOnline() && player.isConnected()) {
                         if(playerData.isSendJoin()) {
                             player.sendMessage(AdventureUtil.serialize(player, locale.prefix() + locale.joinEnabled()));
@@ -100,8 +98,6 @@ public class ToggleCommand {
                         }
                     }
 
-                    playerDataManager.savePlayerData(uuid, playerData);
-
                     return 1;
                 }));
 
@@ -111,7 +107,7 @@ public class ToggleCommand {
                     Locale locale = localeManager.getLocale();
                     Player player = (Player) ctx.getSource().getSender();
                     UUID uuid = player.getUniqueId();
-                    @Nullable PlayerData playerData = playerDataManager.getPlayerData(uuid);
+                    @Nullable PlayerData playerData = playerDataManager.toggleSendMotd(uuid);
 
                     if(playerData == null) {
                         player.sendMessage(AdventureUtil.serialize(locale.prefix() + "<red>Unable to toggle the sending of the motd message due to invalid player data.</red>"));
@@ -119,8 +115,6 @@ public class ToggleCommand {
                         return 0;
                     }
 
-                    playerData.setSendMotd(!playerData.isSendMotd());
-
                     if(player.isOnline() && player.isConnected()) {
                         if(playerData.isSendMotd()) {
                             player.sendMessage(AdventureUtil.serialize(player, locale.prefix() + locale.motdEnabled()));
@@ -129,8 +123,6 @@ public class ToggleCommand {
                         }
                     }
 
-                    playerDataManager.savePlayerData(uuid, playerData);
-
                     return 1;
                 }));
 
@@ -140,7 +132,7 @@ public class ToggleCommand {
                     Locale locale = localeManager.getLocale();
                     Player player = (Player) ctx.getSource().getSender();
                     UUID uuid = player.getUniqueId();
-                    @Nullable PlayerData playerData = playerDataManager.getPlayerData(uuid);
+                    @Nullable PlayerData playerData = playerDataManager.toggleSendLeave(uuid);
 
                     if(playerData == null) {
                         player.sendMessage(AdventureUtil.serialize(locale.prefix() + "<red>Unable to toggle the sending of your leave message due to invalid player data.</red>"));
@@ -148,8 +140,6 @@ public class ToggleCommand {
                         return 0;
                     }
 
-                    playerData.setSendLeave(!playerData.isSendLeave());
-
                     if(player.isOnline() && player.isConnected()) {
                         if(playerData.isSendLeave()) {
                             player.sendMessage(AdventureUtil.serialize(player, locale.prefix() + locale.quitEnabled()));
@@ -158,8 +148,6 @@ public class ToggleCommand {
                         }
                     }
 
-                    playerDataManager.savePlayerData(uuid, playerData);
-
                     return 1;
                 }));
 
@@ -169,7 +157,7 @@ public class ToggleCommand {
                     Locale locale = localeManager.getLocale();
                     Player player = (Player) ctx.getSource().getSender();
                     UUID uuid = player.getUniqueId();
-                    @Nullable PlayerData playerData = playerDataManager.getPlayerData(uuid);
+                    @Nullable PlayerData playerData = playerDataManager.toggleSendLeave(uuid);
 
                     if(playerData == null) {
                         player.sendMessage(AdventureUtil.serialize(locale.prefix() + "<red>Unable to toggle the sending of your leave message due to invalid player data.</red>"));
@@ -177,8 +165,6 @@ public class ToggleCommand {
                         return 0;
                     }
 
-                    playerData.setSendLeave(!playerData.isSendLeave());
-
                     if(player.isOnline() && player.isConnected()) {
                         if(playerData.isSendLeave()) {
                             player.sendMessage(AdventureUtil.serialize(player, locale.prefix() + locale.quitEnabled()));
@@ -187,8 +173,6 @@ public class ToggleCommand {
                         }
                     }
 
-                    playerDataManager.savePlayerData(uuid, playerData);
-
                     return 1;
                 }));
 
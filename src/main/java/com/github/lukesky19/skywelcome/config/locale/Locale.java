@@ -35,6 +35,19 @@ import java.util.List;
  * @param motdEnabled The message sent when the sending of the server's motd messages is enabled.
  * @param motdDisabled The message sent when the sending of the server's motd messages is disabled.
  * @param welcomeBroadcast The message sent when a player welcomes a new player.
+ * @param dataTransferRunning The message sent when a player data export or import is started while another is running.
+ * @param dataInvalidFile The message sent when the file name given to the data command is invalid.
+ * @param dataFileNotFound The message sent when the file to import does not exist.
+ * @param dataExportStarted The message sent when a player data export starts.
+ * @param dataImportStarted The message sent when a player data import starts.
+ * @param dataProgress The message sent periodically while player data is exported or imported.
+ * @param dataExportFinished The message sent when a player data export finishes.
+ * @param dataImportFinished The message sent when a player data import finishes.
+ * @param dataTransferFailed The message sent when a player data export or import fails.
+ * @param statsHeader The first line of the database latency statistics.
+ * @param statsLine The line of the database latency statistics sent for each kind of query.
+ * @param statsQueue The last line of the database latency statistics, containing the queue's state.
+ * @param statsReset The message sent when the database latency statistics are reset.
  */
 @ConfigSerializable
 public record Locale(
@@ -49,4 +62,17 @@ public record Locale(
         String quitDisabled,
         String motdEnabled,
         String motdDisabled,
-        String welcomeBroadcast) {}
+        String welcomeBroadcast,
+        String dataTransferRunning,
+        String dataInvalidFile,
+        String dataFileNotFound,
+        String dataExportStarted,
+        String dataImportStarted,
+        String dataProgress,
+        String dataExportFinished,
+        String dataImportFinished,
+        String dataTransferFailed,
+        String statsHeader,
+        String statsLine,
+        String statsQueue,
+        String statsReset) {}
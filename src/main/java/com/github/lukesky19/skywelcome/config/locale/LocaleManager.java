@@ -31,6 +31,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -40,7 +41,7 @@ public class LocaleManager {
     private final @NotNull SkyWelcome skyWelcome;
     private final @NotNull SettingsManager settingsManager;
     private final @NotNull Locale DEFAULT_LOCALE = new Locale(
-            "1.5.0.0",
+            "1.6.0.0",
             "<gray>[</gray><aqua><bold>SkyWelcome</bold></aqua><gray>]</gray> ",
             List.of(
                     "<aqua>SkyWelcome is developed by <white><bold>lukeskywlker19</bold></white>.</aqua>",
@@ -50,7 +51,9 @@ public class LocaleManager {
                     "<white>/<aqua>skywelcome <yellow>help</yellow></white>",
                     "<white>/<aqua>skywelcome <yellow>reload</yellow></white>",
                     "<white>/<aqua>skywelcome <yellow>toggle</yellow> <yellow><join | leave | quit | motd></yellow></white>",
-                    "<white>/<aqua>skywelcome <yellow>gui</yellow> <yellow><join | leave | quit></yellow></white>"),
+                    "<white>/<aqua>skywelcome <yellow>gui</yellow> <yellow><join | leave | quit></yellow></white>",
+                    "<white>/<aqua>skywelcome <yellow>data</yellow> <yellow><export | import></yellow> <yellow><file></yellow></white>",
+                    "<white>/<aqua>skywelcome <yellow>stats</yellow> <yellow>[reset]</yellow></white>"),
             "<aqua>Plugin configuration reloaded.</aqua>",
             "<red>Unable to open this GUI because of a configuration error.</red>",
             "<aqua>You have enabled your join message.</aqua>",
@@ -59,7 +62,20 @@ public class LocaleManager {
             "<aqua>You have disabled your leave message.</aqua>",
             "<aqua>You have enabled your MOTD message.</aqua>",
             "<aqua>You have disabled your MOTD message.</aqua>",
-            "<aqua><white><welcome_player></white> welcomed <white><new_player></white> to the server!</aqua>");
+            "<aqua><white><welcome_player></white> welcomed <white><new_player></white> to the server!</aqua>",
+            "<red>A player data export or import is already running.</red>",
+            "<red>Invalid file name. Use a plain file name like <white>backup.swpd</white>.</red>",
+            "<red>The file <white><file></white> does not exist in the plugin's exports folder.</red>",
+            "<aqua>Exporting player data to <white><file></white>...</aqua>",
+            "<aqua>Importing player data from <white><file></white>...</aqua>",
+            "<aqua>Processed <white><count></white> players so far.</aqua>",
+            "<aqua>Exported <white><count></white> players to <white><file></white> in <white><time></white>ms.</aqua>",
+            "<aqua>Imported <white><count></white> players from <white><file></white> in <white><time></white>ms.</aqua>",
+            "<red>The player data transfer failed after <white><count></white> players. Error: <white><error></white></red>",
+            "<aqua><bold>Database Latency</bold> <gray>(queue wait / execution, ms)</gray></aqua>",
+            "<white><type></white> <gray>x<count></gray> <aqua>wait p50 <white><wait_p50></white> p99 <white><wait_p99></white> <gray>|</gray> exec p50 <white><exec_p50></white> p90 <white><exec_p90></white> p99 <white><exec_p99></white> max <white><exec_max></white></aqua>",
+            "<aqua>Queued reads: <white><reads></white> Queued writes: <white><writes></white> Rejected: <white><rejected_reads></white>/<white><rejected_writes></white> Transactions: <white><transactions></white> Coalesced: <white><coalesced></white></aqua>",
+            "<aqua>Database latency statistics have been reset.</aqua>");
     private @Nullable Locale locale;
 
     /**
@@ -213,6 +229,84 @@ public class LocaleManager {
         if(locale.welcomeBroadcast() == null) {
             logger.warn(AdventureUtil.serialize("The welcome broadcast message is invalid. The default locale will be used."));
             locale = null;
+            return;
+        }
+
+        if(locale.dataTransferRunning() == null) {
+            logger.warn(AdventureUtil.serialize("The data transfer running message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataInvalidFile() == null) {
+            logger.warn(AdventureUtil.serialize("The data invalid file message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataFileNotFound() == null) {
+            logger.warn(AdventureUtil.serialize("The data file not found message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataExportStarted() == null) {
+            logger.warn(AdventureUtil.serialize("The data export started message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataImportStarted() == null) {
+            logger.warn(AdventureUtil.serialize("The data import started message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataProgress() == null) {
+            logger.warn(AdventureUtil.serialize("The data progress message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataExportFinished() == null) {
+            logger.warn(AdventureUtil.serialize("The data export finished message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataImportFinished() == null) {
+            logger.warn(AdventureUtil.serialize("The data import finished message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.dataTransferFailed() == null) {
+            logger.warn(AdventureUtil.serialize("The data transfer failed message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.statsHeader() == null) {
+            logger.warn(AdventureUtil.serialize("The stats header message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.statsLine() == null) {
+            logger.warn(AdventureUtil.serialize("The stats line message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.statsQueue() == null) {
+            logger.warn(AdventureUtil.serialize("The stats queue message is invalid. The default locale will be used."));
+            locale = null;
+            return;
+        }
+
+        if(locale.statsReset() == null) {
+            logger.warn(AdventureUtil.serialize("The stats reset message is invalid. The default locale will be used."));
+            locale = null;
         }
     }
 
@@ -232,15 +326,62 @@ public class LocaleManager {
         }
 
         switch(locale.configVersion()) {
-            case "1.5.0.0" -> {
+            case "1.6.0.0" -> {
                 // Latest version, do nothing.
             }
 
+            case "1.5.0.0" -> {
+                Locale newLocale = new Locale(
+                        "1.6.0.0",
+                        locale.prefix(),
+                        migrateHelp(locale.help()),
+                        locale.reload(),
+                        locale.guiOpenError(),
+                        locale.joinEnabled(),
+                        locale.joinDisabled(),
+                        locale.quitEnabled(),
+                        locale.quitDisabled(),
+                        locale.motdEnabled(),
+                        locale.motdDisabled(),
+                        locale.welcomeBroadcast(),
+                        "<red>A player data export or import is already running.</red>",
+                        "<red>Invalid file name. Use a plain file name like <white>backup.swpd</white>.</red>",
+                        "<red>The file <white><file></white> does not exist in the plugin's exports folder.</red>",
+                        "<aqua>Exporting player data to <white><file></white>...</aqua>",
+                        "<aqua>Importing player data from <white><file></white>...</aqua>",
+                        "<aqua>Processed <white><count></white> players so far.</aqua>",
+                        "<aqua>Exported <white><count></white> players to <white><file></white> in <white><time></white>ms.</aqua>",
+                        "<aqua>Imported <white><count></white> players from <white><file></white> in <white><time></white>ms.</aqua>",
+                        "<red>The player data transfer failed after <white><count></white> players. Error: <white><error></white></red>",
+                        "<aqua><bold>Database Latency</bold> <gray>(queue wait / execution, ms)</gray></aqua>",
+                        "<white><type></white> <gray>x<count></gray> <aqua>wait p50 <white><wait_p50></white> p99 <white><wait_p99></white> <gray>|</gray> exec p50 <white><exec_p50></white> p90 <white><exec_p90></white> p99 <white><exec_p99></white> max <white><exec_max></white></aqua>",
+                        "<aqua>Queued reads: <white><reads></white> Queued writes: <white><writes></white> Rejected: <white><rejected_reads></white>/<white><rejected_writes></white> Transactions: <white><transactions></white> Coalesced: <white><coalesced></white></aqua>",
+                        "<aqua>Database latency statistics have been reset.</aqua>");
+
+                Path path = Path.of(
+                        skyWelcome.getDataFolder()
+                                + File.separator
+                                + "locale"
+                                + File.separator
+                                + settingsManager.getSettings().locale()
+                                + ".yml");
+                YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
+
+                CommentedConfigurationNode node = loader.createNode();
+                try {
+                    node.set(newLocale);
+                    loader.save(node);
+                    locale = newLocale;
+                } catch (ConfigurateException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
             case "1.2.0" -> {
                 Locale newLocale = new Locale(
-                        "1.5.0.0",
+                        "1.6.0.0",
                         locale.prefix(),
-                        locale.help(),
+                        migrateHelp(locale.help()),
                         locale.reload(),
                         "<red>Unable to open this GUI because of a configuration error.</red>",
                         locale.joinEnabled(),
@@ -249,7 +390,20 @@ public class LocaleManager {
                         locale.quitDisabled(),
                         locale.motdEnabled(),
                         locale.motdDisabled(),
-                        locale.welcomeBroadcast());
+                        locale.welcomeBroadcast(),
+                        "<red>A player data export or import is already running.</red>",
+                        "<red>Invalid file name. Use a plain file name like <white>backup.swpd</white>.</red>",
+                        "<red>The file <white><file></white> does not exist in the plugin's exports folder.</red>",
+                        "<aqua>Exporting player data to <white><file></white>...</aqua>",
+                        "<aqua>Importing player data from <white><file></white>...</aqua>",
+                        "<aqua>Processed <white><count></white> players so far.</aqua>",
+                        "<aqua>Exported <white><count></white> players to <white><file></white> in <white><time></white>ms.</aqua>",
+                        "<aqua>Imported <white><count></white> players from <white><file></white> in <white><time></white>ms.</aqua>",
+                        "<red>The player data transfer failed after <white><count></white> players. Error: <white><error></white></red>",
+                        "<aqua><bold>Database Latency</bold> <gray>(queue wait / execution, ms)</gray></aqua>",
+                        "<white><type></white> <gray>x<count></gray> <aqua>wait p50 <white><wait_p50></white> p99 <white><wait_p99></white> <gray>|</gray> exec p50 <white><exec_p50></white> p90 <white><exec_p90></white> p99 <white><exec_p99></white> max <white><exec_max></white></aqua>",
+                        "<aqua>Queued reads: <white><reads></white> Queued writes: <white><writes></white> Rejected: <white><rejected_reads></white>/<white><rejected_writes></white> Transactions: <white><transactions></white> Coalesced: <white><coalesced></white></aqua>",
+                        "<aqua>Database latency statistics have been reset.</aqua>");
 
                 Path path = Path.of(
                         skyWelcome.getDataFolder()
@@ -272,9 +426,9 @@ public class LocaleManager {
 
             case "1.1.0", "1.0.0" -> {
                 Locale newLocale = new Locale(
-                        "1.5.0.0",
+                        "1.6.0.0",
                         locale.prefix(),
-                        locale.help(),
+                        migrateHelp(locale.help()),
                         locale.reload(),
                         "<red>Unable to open this GUI because of a configuration error.</red>",
                         locale.joinEnabled(),
@@ -283,7 +437,20 @@ public class LocaleManager {
                         locale.quitDisabled(),
                         locale.motdEnabled(),
                         locale.motdDisabled(),
-                        "<aqua><white><welcome_player></white> welcomed <white><new_player></white> to the server!</aqua>");
+                        "<aqua><white><welcome_player></white> welcomed <white><new_player></white> to the server!</aqua>",
+                        "<red>A player data export or import is already running.</red>",
+                        "<red>Invalid file name. Use a plain file name like <white>backup.swpd</white>.</red>",
+                        "<red>The file <white><file></white> does not exist in the plugin's exports folder.</red>",
+                        "<aqua>Exporting player data to <white><file></white>...</aqua>",
+                        "<aqua>Importing player data from <white><file></white>...</aqua>",
+                        "<aqua>Processed <white><count></white> players so far.</aqua>",
+                        "<aqua>Exported <white><count></white> players to <white><file></white> in <white><time></white>ms.</aqua>",
+                        "<aqua>Imported <white><count></white> players from <white><file></white> in <white><time></white>ms.</aqua>",
+                        "<red>The player data transfer failed after <white><count></white> players. Error: <white><error></white></red>",
+                        "<aqua><bold>Database Latency</bold> <gray>(queue wait / execution, ms)</gray></aqua>",
+                        "<white><type></white> <gray>x<count></gray> <aqua>wait p50 <white><wait_p50></white> p99 <white><wait_p99></white> <gray>|</gray> exec p50 <white><exec_p50></white> p90 <white><exec_p90></white> p99 <white><exec_p99></white> max <white><exec_max></white></aqua>",
+                        "<aqua>Queued reads: <white><reads></white> Queued writes: <white><writes></white> Rejected: <white><rejected_reads></white>/<white><rejected_writes></white> Transactions: <white><transactions></white> Coalesced: <white><coalesced></white></aqua>",
+                        "<aqua>Database latency statistics have been reset.</aqua>");
 
                 Path path = Path.of(
                         skyWelcome.getDataFolder()
@@ -307,4 +474,18 @@ public class LocaleManager {
             default -> throw new IllegalStateException("Unexpected value: " + locale.configVersion());
         }
     }
+
+    /**
+     * Adds the help lines for the commands added since locale version 1.5.0.0 to the end of the help message being migrated.
+     * @param help The help message lines of the locale being migrated.
+     * @return The help message lines with the new commands, or null if the help message is invalid.
+     */
+    private @Nullable List<String> migrateHelp(@Nullable List<String> help) {
+        if(help == null) return null;
+
+        List<String> migratedHelp = new ArrayList<>(help);
+        migratedHelp.add("<white>/<aqua>skywelcome <yellow>data</yellow> <yellow><export | import></yellow> <yellow><file></yellow></white>");
+        migratedHelp.add("<white>/<aqua>skywelcome <yellow>stats</yellow> <yellow>[reset]</yellow></white>");
+        return migratedHelp;
+    }
 }
@@ -0,0 +1,176 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.config.settings;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class indexes the configured join and leave messages by their id.
+ * Players store only the id of their selected message, which is resolved through this catalog when the message is needed.
+ * An id that is not in the catalog resolves to the default (first) message.
+ */
+public class MessageCatalog {
+    private final @NotNull Map<Integer, Settings.JoinMessageConfig> joinMessagesById = new HashMap<>();
+    private final @NotNull Map<Integer, Settings.QuitMessageConfig> quitMessagesById = new HashMap<>();
+    private final @NotNull Map<String, Integer> joinMessageIdsByMessage = new HashMap<>();
+    private final @NotNull Map<String, Integer> quitMessageIdsByMessage = new HashMap<>();
+    private final int defaultJoinMessageId;
+    private final int defaultQuitMessageId;
+
+    /**
+     * Constructor
+     * @param settings The plugin's {@link Settings}.
+     * @param logger The {@link ComponentLogger} to log invalid messages to.
+     */
+    public MessageCatalog(@NotNull Settings settings, @NotNull ComponentLogger logger) {
+        int defaultJoinId = 0;
+        for(Settings.JoinMessageConfig joinMessageConfig : settings.joinMessages()) {
+            Integer id = joinMessageConfig.id();
+            if(id == null || id < 1) {
+                logger.warn(AdventureUtil.serialize("Skipping a join message due to an invalid id. Ids must be 1 or greater."));
+                continue;
+            }
+
+            if(joinMessagesById.putIfAbsent(id, joinMessageConfig) != null) {
+                logger.warn(AdventureUtil.serialize("Skipping a join message due to a duplicate id: " + id));
+                continue;
+            }
+
+            if(joinMessageConfig.message() != null) joinMessageIdsByMessage.putIfAbsent(joinMessageConfig.message(), id);
+            if(defaultJoinId == 0) defaultJoinId = id;
+        }
+
+        int defaultQuitId = 0;
+        for(Settings.QuitMessageConfig quitMessageConfig : settings.quitMessages()) {
+            Integer id = quitMessageConfig.id();
+            if(id == null || id < 1) {
+                logger.warn(AdventureUtil.serialize("Skipping a leave message due to an invalid id. Ids must be 1 or greater."));
+                continue;
+            }
+
+            if(quitMessagesById.putIfAbsent(id, quitMessageConfig) != null) {
+                logger.warn(AdventureUtil.serialize("Skipping a leave message due to a duplicate id: " + id));
+                continue;
+            }
+
+            if(quitMessageConfig.message() != null) quitMessageIdsByMessage.putIfAbsent(quitMessageConfig.message(), id);
+            if(defaultQuitId == 0) defaultQuitId = id;
+        }
+
+        this.defaultJoinMessageId = defaultJoinId;
+        this.defaultQuitMessageId = defaultQuitId;
+    }
+
+    /**
+     * Get the id of the default join message.
+     * @return The id of the default join message or 0 if no valid join messages are configured.
+     */
+    public int getDefaultJoinMessageId() {
+        return defaultJoinMessageId;
+    }
+
+    /**
+     * Get the id of the default leave message.
+     * @return The id of the default leave message or 0 if no valid leave messages are configured.
+     */
+    public int getDefaultQuitMessageId() {
+        return defaultQuitMessageId;
+    }
+
+    /**
+     * Resolves a join message id, falling back to the default join message if the id is not configured.
+     * @param id The join message id.
+     * @return The resolved join message id or 0 if no valid join messages are configured.
+     */
+    public int resolveJoinMessageId(int id) {
+        return joinMessagesById.containsKey(id) ? id : defaultJoinMessageId;
+    }
+
+    /**
+     * Resolves a leave message id, falling back to the default leave message if the id is not configured.
+     * @param id The leave message id.
+     * @return The resolved leave message id or 0 if no valid leave messages are configured.
+     */
+    public int resolveQuitMessageId(int id) {
+        return quitMessagesById.containsKey(id) ? id : defaultQuitMessageId;
+    }
+
+    /**
+     * Get the join message for the id provided, falling back to the default join message if the id is not configured.
+     * @param id The join message id.
+     * @return The join message or null if no valid join messages are configured.
+     */
+    public @Nullable String getJoinMessage(int id) {
+        Settings.JoinMessageConfig joinMessageConfig = joinMessagesById.get(resolveJoinMessageId(id));
+        if(joinMessageConfig == null) return null;
+
+        return joinMessageConfig.message();
+    }
+
+    /**
+     * Get the leave message for the id provided, falling back to the default leave message if the id is not configured.
+     * @param id The leave message id.
+     * @return The leave message or null if no valid leave messages are configured.
+     */
+    public @Nullable String getQuitMessage(int id) {
+        Settings.QuitMessageConfig quitMessageConfig = quitMessagesById.get(resolveQuitMessageId(id));
+        if(quitMessageConfig == null) return null;
+
+        return quitMessageConfig.message();
+    }
+
+    /**
+     * Find the id of the join message with the exact text provided. Used to migrate data that stored the full message.
+     * @param message The join message.
+     * @return The id of the join message or null if no join message matches.
+     */
+    public @Nullable Integer findJoinMessageId(@NotNull String message) {
+        return joinMessageIdsByMessage.get(message);
+    }
+
+    /**
+     * Find the id of the leave message with the exact text provided. Used to migrate data that stored the full message.
+     * @param message The leave message.
+     * @return The id of the leave message or null if no leave message matches.
+     */
+    public @Nullable Integer findQuitMessageId(@NotNull String message) {
+        return quitMessageIdsByMessage.get(message);
+    }
+
+    /**
+     * Get all join message ids keyed by their message text. Used to migrate data that stored the full message.
+     * @return An unmodifiable {@link Map} of join messages to ids.
+     */
+    public @NotNull Map<String, Integer> getJoinMessageIds() {
+        return Map.copyOf(joinMessageIdsByMessage);
+    }
+
+    /**
+     * Get all leave message ids keyed by their message text. Used to migrate data that stored the full message.
+     * @return An unmodifiable {@link Map} of leave messages to ids.
+     */
+    public @NotNull Map<String, Integer> getQuitMessageIds() {
+        return Map.copyOf(quitMessageIdsByMessage);
+    }
+}
@@ -19,6 +19,9 @@ package com.github.lukesky19.skywelcome.config.settings;
 
 import com.github.lukesky19.skylib.api.itemstack.ItemStackConfig;
 import com.github.lukesky19.skylib.libs.configurate.objectmapping.ConfigSerializable;
+import com.github.lukesky19.skywelcome.enums.StorageMode;
+import com.github.lukesky19.skywelcome.enums.StorageType;
+import com.github.lukesky19.skywelcome.enums.SwitchMessageMode;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -35,6 +38,9 @@ import java.util.List;
  * @param motd The {@link List} of {@link String}s for the motd.
  * @param quitMessages The {@link List} of {@link QuitMessageConfig}s for the available leave messages.
  * @param welcomeRewards The {@link WelcomeRewards} config.
+ * @param playerData The {@link PlayerDataConfig} config.
+ * @param storage The {@link StorageConfig} config.
+ * @param network The {@link NetworkConfig} config.
  */
 @ConfigSerializable
 public record Settings(
@@ -46,21 +52,26 @@ public record Settings(
         @NotNull List<JoinMessageConfig> joinMessages,
         @NotNull List<String> motd,
         @NotNull List<QuitMessageConfig> quitMessages,
-        @NotNull WelcomeRewards welcomeRewards) {
+        @NotNull WelcomeRewards welcomeRewards,
+        @NotNull PlayerDataConfig playerData,
+        @NotNull StorageConfig storage,
+        @NotNull NetworkConfig network) {
     /**
      * This record contains the configuration for an individual join message.
+     * @param id The join message's id. This is what is stored for players, so it should not be changed once assigned.
      * @param permission The join message's permission.
      * @param message The actual join message.
      */
     @ConfigSerializable
-    public record JoinMessageConfig(@Nullable String permission, @Nullable String message) {}
+    public record JoinMessageConfig(@Nullable Integer id, @Nullable String permission, @Nullable String message) {}
     /**
      * This record contains the configuration for an individual leave message.
+     * @param id The leave message's id. This is what is stored for players, so it should not be changed once assigned.
      * @param permission The leave message's permission.
      * @param message The actual leave message.
      */
     @ConfigSerializable
-    public record QuitMessageConfig(@Nullable String permission, @Nullable String message) {}
+    public record QuitMessageConfig(@Nullable Integer id, @Nullable String permission, @Nullable String message) {}
     /**
      * The settings for welcome rewards.
      * @param enabled Are welcome rewards enabled?
@@ -78,5 +89,166 @@ public record Settings(
             @NotNull List<ItemStackConfig> items,
             @NotNull List<String> commands,
             @NotNull List<String> messages) {}
+    /**
+     * The settings for how player data is handled.
+     * @param cache The {@link CacheConfig} for cached player data.
+     * @param flushIntervalSeconds The number of seconds between saves of changed player data.
+     * @param storageMode The {@link StorageMode} that decides which players have rows in the database.
+     * @param journal The {@link JournalConfig} for the journal of unsaved changes.
+     * @param retention The {@link RetentionConfig} for deleting the data of inactive players.
+     * @param loadDeadlineMillis The number of milliseconds a join waits for the player's data to load before continuing with cached or default data.
+     */
+    @ConfigSerializable
+    public record PlayerDataConfig(
+            @NotNull CacheConfig cache,
+            @Nullable Integer flushIntervalSeconds,
+            @Nullable StorageMode storageMode,
+            @NotNull JournalConfig journal,
+            @NotNull RetentionConfig retention,
+            @Nullable Integer loadDeadlineMillis) {}
+    /**
+     * The settings for the player data cache.
+     * @param evictionDelaySeconds The number of seconds to keep a player's data cached after they quit.
+     * @param maximumSize The maximum number of players to keep cached.
+     */
+    @ConfigSerializable
+    public record CacheConfig(@Nullable Integer evictionDelaySeconds, @Nullable Integer maximumSize) {}
+    /**
+     * The settings for the journal that keeps changed player data safe until it is saved. Changes to these settings require a server restart.
+     * @param enabled Whether changes are recorded in the journal.
+     * @param syncIntervalMillis The number of milliseconds between writes of the journal to disk.
+     */
+    @ConfigSerializable
+    public record JournalConfig(@Nullable Boolean enabled, @Nullable Integer syncIntervalMillis) {}
+    /**
+     * The settings for deleting the saved data of players that haven't been active for a long time.
+     * Only data that matches the defaults is deleted, so no player loses their settings.
+     * @param enabled Whether the data of inactive players is deleted.
+     * @param maxAgeDays The number of days since a player's data was last saved before it can be deleted.
+     * @param batchSize The maximum number of rows deleted at once.
+     * @param batchDelayMillis The number of milliseconds to wait between deletes.
+     */
+    @ConfigSerializable
+    public record RetentionConfig(@Nullable Boolean enabled, @Nullable Integer maxAgeDays, @Nullable Integer batchSize, @Nullable Integer batchDelayMillis) {}
+    /**
+     * The settings for how the database is accessed. Changes to these settings require a server restart.
+     * @param type The {@link StorageType} of the database to store player data in.
+     * @param sqlite The {@link SqliteConfig} used when the type is {@link StorageType#SQLITE}.
+     * @param server The {@link ServerConfig} used for all other types.
+     * @param maintenance The {@link MaintenanceConfig} for database maintenance. Unlike the other storage settings, these are applied on reload.
+     * @param metrics The {@link MetricsConfig} for query latency metrics. Unlike the other storage settings, these are applied on reload.
+     * @param circuitBreaker The {@link CircuitBreakerConfig} for the database circuit breaker. Unlike the other storage settings, these are applied on reload.
+     * @param invalidation The {@link InvalidationConfig} for keeping the caches of servers sharing the database coherent. Unlike the other storage settings, these are applied on reload.
+     */
+    @ConfigSerializable
+    public record StorageConfig(
+            @Nullable StorageType type,
+            @NotNull SqliteConfig sqlite,
+            @NotNull ServerConfig server,
+            @NotNull MaintenanceConfig maintenance,
+            @NotNull MetricsConfig metrics,
+            @NotNull CircuitBreakerConfig circuitBreaker,
+            @NotNull InvalidationConfig invalidation) {}
+    /**
+     * The settings used to tune the SQLite database.
+     * @param journalMode The journal mode. WAL lets reads run while a write is in progress.
+     * @param synchronous How often SQLite waits for data to reach the disk.
+     * @param mmapSize The number of bytes of the database file to memory map.
+     * @param cacheSize The page cache size. Negative values are in KiB, positive values are in pages.
+     * @param busyTimeoutMillis The number of milliseconds to wait for a lock before failing.
+     * @param readerPoolSize The number of read-only connections used to load player data.
+     */
+    @ConfigSerializable
+    public record SqliteConfig(
+            @Nullable String journalMode,
+            @Nullable String synchronous,
+            @Nullable Long mmapSize,
+            @Nullable Integer cacheSize,
+            @Nullable Integer busyTimeoutMillis,
+            @Nullable Integer readerPoolSize) {}
+    /**
+     * The settings used to connect to a database server.
+     * @param host The host name or address of the database server.
+     * @param port The port of the database server.
+     * @param database The name of the database.
+     * @param username The username to log in with.
+     * @param password The password to log in with.
+     * @param poolSize The number of connections used to load player data.
+     */
+    @ConfigSerializable
+    public record ServerConfig(
+            @Nullable String host,
+            @Nullable Integer port,
+            @Nullable String database,
+            @Nullable String username,
+            @Nullable String password,
+            @Nullable Integer poolSize) {}
+    /**
+     * The settings for database maintenance.
+     * @param enabled Whether database maintenance is run.
+     * @param windowStart The time of day the maintenance window starts, as HH:mm.
+     * @param windowEnd The time of day the maintenance window ends, as HH:mm. This may be earlier than the start for a window that crosses midnight.
+     * @param maxOnlinePlayers Maintenance is only started while no more than this many players are online.
+     */
+    @ConfigSerializable
+    public record MaintenanceConfig(
+            @Nullable Boolean enabled,
+            @Nullable String windowStart,
+            @Nullable String windowEnd,
+            @Nullable Integer maxOnlinePlayers) {}
+    /**
+     * The settings for query latency metrics.
+     * @param slowQueryThresholdMillis Queries that take at least this many milliseconds, including the time waiting in the queue, are logged. 0 disables the logging.
+     */
+    @ConfigSerializable
+    public record MetricsConfig(@Nullable Integer slowQueryThresholdMillis) {}
+    /**
+     * The settings for the circuit breaker that stops player data from being loaded from or saved to a database that keeps timing out.
+     * @param enabled Whether the circuit breaker is used.
+     * @param failureThreshold The number of loads in a row that must time out or fail before the circuit breaker opens.
+     * @param probeIntervalSeconds The number of seconds between checks of whether the database has recovered while the circuit breaker is open.
+     */
+    @ConfigSerializable
+    public record CircuitBreakerConfig(@Nullable Boolean enabled, @Nullable Integer failureThreshold, @Nullable Integer probeIntervalSeconds) {}
+    /**
+     * The settings for telling other servers sharing the database which players' data was saved, so they refresh their cached copy.
+     * @param enabled Whether changes are published and read. Only used when the database is shared.
+     * @param pollIntervalMillis The number of milliseconds between reads of the change log.
+     * @param retentionSeconds The number of seconds changes are kept in the change log before being deleted.
+     */
+    @ConfigSerializable
+    public record InvalidationConfig(@Nullable Boolean enabled, @Nullable Integer pollIntervalMillis, @Nullable Integer retentionSeconds) {}
+    /**
+     * The settings for running behind a BungeeCord or Velocity proxy. These settings are applied on reload.
+     * @param enabled Whether the server is behind a proxy, so players can switch to it from other servers.
+     * @param serverName The name of this server shown to players on other servers.
+     * @param handoff The {@link HandoffConfig} for handing player data between servers when players switch servers.
+     * @param sessions The {@link SessionConfig} for only sending join and leave messages when players join or leave the network.
+     */
+    @ConfigSerializable
+    public record NetworkConfig(
+            @Nullable Boolean enabled,
+            @Nullable String serverName,
+            @NotNull HandoffConfig handoff,
+            @NotNull SessionConfig sessions) {}
+    /**
+     * The settings for handing a player's data from the server they leave to the server they join.
+     * @param enabled Whether player data is handed off. Only used when the server is behind a proxy.
+     * @param waitMillis The number of milliseconds a load waits for a handoff before loading the player's data from the database.
+     */
+    @ConfigSerializable
+    public record HandoffConfig(@Nullable Boolean enabled, @Nullable Integer waitMillis) {}
+    /**
+     * The settings for telling players joining or leaving the network apart from players switching servers.
+     * @param enabled Whether join and leave messages are only sent when players join or leave the network. Only used when the server is behind a proxy.
+     * @param switchMessages The {@link SwitchMessageMode} that decides what is sent when a player switches servers.
+     * @param movedMessage The message sent by the server a player leaves when they switch servers, if switch messages are {@link SwitchMessageMode#MOVED}.
+     * @param windowMillis The number of milliseconds to wait for the other half of a server switch before treating a join or leave as a network join or leave.
+     */
+    @ConfigSerializable
+    public record SessionConfig(
+            @Nullable Boolean enabled,
+            @Nullable SwitchMessageMode switchMessages,
+            @Nullable String movedMessage,
+            @Nullable Integer windowMillis) {}
 }
-
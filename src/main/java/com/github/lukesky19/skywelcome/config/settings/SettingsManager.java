@@ -45,6 +45,7 @@ import java.util.regex.Pattern;
 public class SettingsManager {
     private final @NotNull SkyWelcome skyWelcome;
     private @Nullable Settings settings;
+    private @Nullable MessageCatalog messageCatalog;
 
     /**
      * Constructor
@@ -62,11 +63,20 @@ public class SettingsManager {
         return settings;
     }
 
+    /**
+     * Get the {@link MessageCatalog} built from the plugin's settings.
+     * @return The {@link MessageCatalog} or null if the plugin's settings are invalid.
+     */
+    public @Nullable MessageCatalog getMessageCatalog() {
+        return messageCatalog;
+    }
+
     /**
      * Reload the plugin's settings.
      */
     public void reload() {
         settings = null;
+        messageCatalog = null;
 
         Path path = Path.of(skyWelcome.getDataFolder() + File.separator + "settings.yml");
         if(!path.toFile().exists()) {
@@ -77,7 +87,7 @@ public class SettingsManager {
         try {
             SettingsVersionOnly settingsVersionOnly = loader.load().get(SettingsVersionOnly.class);
             if(settingsVersionOnly == null) return;
-            if(settingsVersionOnly.configVersion() != null && settingsVersionOnly.configVersion().equals("1.5.0.0")) {
+            if(settingsVersionOnly.configVersion() != null && settingsVersionOnly.configVersion().equals("1.6.0.0")) {
                 settings = loader.load().get(Settings.class);
             } else {
                 migrateSettings(settingsVersionOnly.configVersion());
@@ -89,6 +99,8 @@ public class SettingsManager {
 
         //  Validate settings
         validateSettings();
+
+        if(settings != null) messageCatalog = new MessageCatalog(settings, skyWelcome.getComponentLogger());
     }
 
     /**
@@ -104,7 +116,7 @@ public class SettingsManager {
             return;
         }
 
-        if(!settings.configVersion().equals("1.5.0.0")) {
+        if(!settings.configVersion().equals("1.6.0.0")) {
             logger.error(AdventureUtil.serialize("Your settings.yml configuration is outdated and needs to be updated."));
             settings = null;
         }
@@ -120,10 +132,34 @@ public class SettingsManager {
         YamlConfigurationLoader loader = ConfigurationUtility.getYamlConfigurationLoader(path);
 
         switch(configVersion) {
-            case "1.5.0.0" -> {
+            case "1.6.0.0" -> {
                 // Current Version, do nothing
             }
 
+            case "1.5.0.0" -> {
+                Settings oldSettings;
+                try {
+                    oldSettings = loader.load().get(Settings.class);
+                } catch (ConfigurateException e) {
+                    throw new RuntimeException(e);
+                }
+
+                if(oldSettings == null) {
+                    logger.warn(AdventureUtil.serialize("Unable to migrate settings due to the old settings failing to load."));
+                    return;
+                }
+
+                Settings newSettings = updateSettings1500To1600(oldSettings);
+                CommentedConfigurationNode node = loader.createNode();
+                try {
+                    node.set(newSettings);
+                    loader.save(node);
+                    settings = newSettings;
+                } catch (ConfigurateException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
             case "1.3.0" -> {
                 SettingsV110ToV130 oldSettings;
                 try {
@@ -137,7 +173,7 @@ public class SettingsManager {
                     return;
                 }
 
-                Settings newSettings = updateSettings130To1500(oldSettings);
+                Settings newSettings = updateSettings130To1600(oldSettings);
                 if(newSettings == null) return;
 
                 CommentedConfigurationNode node = loader.createNode();
@@ -163,7 +199,7 @@ public class SettingsManager {
                     return;
                 }
 
-                Settings newSettings = updateSettings120To1500(oldSettings);
+                Settings newSettings = updateSettings120To1600(oldSettings);
                 if(newSettings == null) return;
 
                 CommentedConfigurationNode node = loader.createNode();
@@ -189,7 +225,7 @@ public class SettingsManager {
                     return;
                 }
 
-                Settings newSettings = updateSettings110To1500(oldSettings);
+                Settings newSettings = updateSettings110To1600(oldSettings);
                 CommentedConfigurationNode node = loader.createNode();
                 try {
                     node.set(newSettings);
@@ -229,26 +265,75 @@ public class SettingsManager {
     }
 
     /**
-     * Migrate the {@link SettingsV110ToV130} for version 1.3.0 to {@link Settings} 1.5.0.0.
+     * Migrate the {@link Settings} for version 1.5.0.0 to {@link Settings} 1.6.0.0 by assigning ids to the join and leave messages.
+     * @param oldSettings The {@link Settings} for version 1.5.0.0.
+     * @return The updated {@link Settings}.
+     */
+    private @NotNull Settings updateSettings1500To1600(@NotNull Settings oldSettings) {
+        return new Settings("1.6.0.0", oldSettings.locale(), oldSettings.globalJoinToggle(),
+                oldSettings.globalQuitToggle(), oldSettings.globalMotdToggle(),
+                assignJoinMessageIds(oldSettings.joinMessages()),
+                oldSettings.motd(),
+                assignQuitMessageIds(oldSettings.quitMessages()),
+                oldSettings.welcomeRewards(),
+                oldSettings.playerData(),
+                oldSettings.storage(),
+                oldSettings.network());
+    }
+
+    /**
+     * Assigns ids to any join messages without an id. Ids are assigned by the message's position in the list, starting at 1.
+     * @param joinMessages The {@link List} of {@link Settings.JoinMessageConfig}s.
+     * @return A {@link List} of {@link Settings.JoinMessageConfig}s with ids.
+     */
+    private @NotNull List<Settings.JoinMessageConfig> assignJoinMessageIds(@NotNull List<Settings.JoinMessageConfig> joinMessages) {
+        List<Settings.JoinMessageConfig> joinMessagesWithIds = new ArrayList<>();
+        for(int i = 0; i < joinMessages.size(); i++) {
+            Settings.JoinMessageConfig joinMessageConfig = joinMessages.get(i);
+            Integer id = joinMessageConfig.id() != null ? joinMessageConfig.id() : i + 1;
+            joinMessagesWithIds.add(new Settings.JoinMessageConfig(id, joinMessageConfig.permission(), joinMessageConfig.message()));
+        }
+
+        return joinMessagesWithIds;
+    }
+
+    /**
+     * Assigns ids to any leave messages without an id. Ids are assigned by the message's position in the list, starting at 1.
+     * @param quitMessages The {@link List} of {@link Settings.QuitMessageConfig}s.
+     * @return A {@link List} of {@link Settings.QuitMessageConfig}s with ids.
+     */
+    private @NotNull List<Settings.QuitMessageConfig> assignQuitMessageIds(@NotNull List<Settings.QuitMessageConfig> quitMessages) {
+        List<Settings.QuitMessageConfig> quitMessagesWithIds = new ArrayList<>();
+        for(int i = 0; i < quitMessages.size(); i++) {
+            Settings.QuitMessageConfig quitMessageConfig = quitMessages.get(i);
+            Integer id = quitMessageConfig.id() != null ? quitMessageConfig.id() : i + 1;
+            quitMessagesWithIds.add(new Settings.QuitMessageConfig(id, quitMessageConfig.permission(), quitMessageConfig.message()));
+        }
+
+        return quitMessagesWithIds;
+    }
+
+    /**
+     * Migrate the {@link SettingsV110ToV130} for version 1.3.0 to {@link Settings} 1.6.0.0.
      * @param oldSettings The {@link SettingsV110ToV130}
      * @return The updated {@link Settings}.
      */
-    private @Nullable Settings updateSettings130To1500(@NotNull SettingsV110ToV130 oldSettings) {
+    private @Nullable Settings updateSettings130To1600(@NotNull SettingsV110ToV130 oldSettings) {
         ComponentLogger logger = skyWelcome.getComponentLogger();
 
         Material material = Material.getMaterial(oldSettings.welcomeRewards().item().material());
         if(material == null) {
-            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.3.0 to 1.5.0.0 due to the reward item material being invalid."));
+            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.3.0 to 1.6.0.0 due to the reward item material being invalid."));
             return null;
         }
         ItemType itemType = material.asItemType();
         if(itemType == null) {
-            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.3.0 to 1.5.0.0 due to being unable to find the ItemType that corresponds to the Material."));
+            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.3.0 to 1.6.0.0 due to being unable to find the ItemType that corresponds to the Material."));
             return null;
         }
         Integer amount = oldSettings.welcomeRewards().item().amount();
         if(amount == null || amount <= 0) {
-            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.3.0 to 1.5.0.0 due to the amount being invalid."));
+            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.3.0 to 1.6.0.0 due to the amount being invalid."));
             return null;
         }
 
@@ -270,38 +355,48 @@ public class SettingsManager {
                 List.of(),
                 new ItemStackConfig.OptionsConfig(null, null, null, null, null));
 
-        return new Settings("1.5.0.0", oldSettings.options().locale(), oldSettings.options().joins(),
+        return new Settings("1.6.0.0", oldSettings.options().locale(), oldSettings.options().joins(),
                 oldSettings.options().motd(), oldSettings.options().quits(),
-                oldSettings.join().values().stream().map(join -> new Settings.JoinMessageConfig(join.permission(), join.message())).toList(),
+                assignJoinMessageIds(oldSettings.join().values().stream().map(join -> new Settings.JoinMessageConfig(null, join.permission(), join.message())).toList()),
                 oldSettings.motd().contents(),
-                oldSettings.quit().values().stream().map(quit -> new Settings.QuitMessageConfig(quit.permission(), quit.message())).toList(),
+                assignQuitMessageIds(oldSettings.quit().values().stream().map(quit -> new Settings.QuitMessageConfig(null, quit.permission(), quit.message())).toList()),
                 new Settings.WelcomeRewards(oldSettings.welcomeRewards().enabled(),
                         false, oldSettings.welcomeRewards().cash(),
                         List.of(welcomeItem), oldSettings.welcomeRewards().commands(),
-                        oldSettings.welcomeRewards().messages()));
+                        oldSettings.welcomeRewards().messages()),
+                new Settings.PlayerDataConfig(new Settings.CacheConfig(null, null), null, null,
+                        new Settings.JournalConfig(null, null), new Settings.RetentionConfig(null, null, null, null), null),
+                new Settings.StorageConfig(null,
+                        new Settings.SqliteConfig(null, null, null, null, null, null),
+                        new Settings.ServerConfig(null, null, null, null, null, null),
+                        new Settings.MaintenanceConfig(null, null, null, null),
+                        new Settings.MetricsConfig(null),
+                        new Settings.CircuitBreakerConfig(null, null, null),
+                        new Settings.InvalidationConfig(null, null, null)),
+                new Settings.NetworkConfig(null, null, new Settings.HandoffConfig(null, null), new Settings.SessionConfig(null, null, null, null)));
     }
 
     /**
-     * Migrate the {@link SettingsV110ToV130} for version 1.2.0 to {@link Settings} 1.5.0.0.
+     * Migrate the {@link SettingsV110ToV130} for version 1.2.0 to {@link Settings} 1.6.0.0.
      * @param oldSettings The {@link SettingsV110ToV130}
      * @return The updated {@link Settings}.
      */
-    private @Nullable Settings updateSettings120To1500(@NotNull SettingsV110ToV130 oldSettings) {
+    private @Nullable Settings updateSettings120To1600(@NotNull SettingsV110ToV130 oldSettings) {
         ComponentLogger logger = skyWelcome.getComponentLogger();
 
         Material material = Material.getMaterial(oldSettings.welcomeRewards().item().material());
         if(material == null) {
-            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.2.0 to 1.5.0.0 due to the reward item material being invalid."));
+            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.2.0 to 1.6.0.0 due to the reward item material being invalid."));
             return null;
         }
         ItemType itemType = material.asItemType();
         if(itemType == null) {
-            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.2.0 to 1.5.0.0 due to being unable to find the ItemType that corresponds to the Material."));
+            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.2.0 to 1.6.0.0 due to being unable to find the ItemType that corresponds to the Material."));
             return null;
         }
         Integer amount = oldSettings.welcomeRewards().item().amount();
         if(amount == null || amount <= 0) {
-            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.2.0 to 1.5.0.0 due to the amount being invalid."));
+            logger.error(AdventureUtil.serialize("Unable to migrate settings 1.2.0 to 1.6.0.0 due to the amount being invalid."));
             return null;
         }
 
@@ -323,23 +418,33 @@ public class SettingsManager {
                 List.of(),
                 new ItemStackConfig.OptionsConfig(null, null, null, null, null));
 
-        return new Settings("1.5.0.0", oldSettings.options().locale(), oldSettings.options().joins(),
+        return new Settings("1.6.0.0", oldSettings.options().locale(), oldSettings.options().joins(),
                 oldSettings.options().motd(), oldSettings.options().quits(),
-                oldSettings.join().values().stream().map(join -> new Settings.JoinMessageConfig(join.permission(), join.message())).toList(),
+                assignJoinMessageIds(oldSettings.join().values().stream().map(join -> new Settings.JoinMessageConfig(null, join.permission(), join.message())).toList()),
                 oldSettings.motd().contents(),
-                oldSettings.quit().values().stream().map(quit -> new Settings.QuitMessageConfig(quit.permission(), quit.message())).toList(),
+                assignQuitMessageIds(oldSettings.quit().values().stream().map(quit -> new Settings.QuitMessageConfig(null, quit.permission(), quit.message())).toList()),
                 new Settings.WelcomeRewards(oldSettings.welcomeRewards().enabled(),
                 false, oldSettings.welcomeRewards().cash(),
                 List.of(welcomeItem), oldSettings.welcomeRewards().commands(),
-                oldSettings.welcomeRewards().messages()));
+                oldSettings.welcomeRewards().messages()),
+                new Settings.PlayerDataConfig(new Settings.CacheConfig(null, null), null, null,
+                        new Settings.JournalConfig(null, null), new Settings.RetentionConfig(null, null, null, null), null),
+                new Settings.StorageConfig(null,
+                        new Settings.SqliteConfig(null, null, null, null, null, null),
+                        new Settings.ServerConfig(null, null, null, null, null, null),
+                        new Settings.MaintenanceConfig(null, null, null, null),
+                        new Settings.MetricsConfig(null),
+                        new Settings.CircuitBreakerConfig(null, null, null),
+                        new Settings.InvalidationConfig(null, null, null)),
+                new Settings.NetworkConfig(null, null, new Settings.HandoffConfig(null, null), new Settings.SessionConfig(null, null, null, null)));
     }
 
     /**
-     * Migrate the {@link SettingsV110ToV130} for version 1.1.0 to {@link Settings} 1.5.0.0.
+     * Migrate the {@link SettingsV110ToV130} for version 1.1.0 to {@link Settings} 1.6.0.0.
      * @param oldSettings The {@link SettingsV110ToV130}
      * @return The updated {@link Settings}.
      */
-    private @NotNull Settings updateSettings110To1500(@NotNull SettingsV110ToV130 oldSettings) {
+    private @NotNull Settings updateSettings110To1600(@NotNull SettingsV110ToV130 oldSettings) {
         ItemStackConfig welcomeItem = new ItemStackConfig(
                 ItemType.DIAMOND.getKey().getKey(),
                 1,
@@ -363,13 +468,23 @@ public class SettingsManager {
         rewardCommands.add("give %player_name% emerald 1");
         rewardMessages.add("<aqua>Thanks for welcoming a new player. Enjoy this reward: $50</aqua>");
 
-        return new Settings("1.5.0.0", oldSettings.options().locale(), oldSettings.options().joins(),
+        return new Settings("1.6.0.0", oldSettings.options().locale(), oldSettings.options().joins(),
                 oldSettings.options().motd(), oldSettings.options().quits(),
-                oldSettings.join().values().stream().map(join -> new Settings.JoinMessageConfig(join.permission(), join.message())).toList(),
+                assignJoinMessageIds(oldSettings.join().values().stream().map(join -> new Settings.JoinMessageConfig(null, join.permission(), join.message())).toList()),
                 oldSettings.motd().contents(),
-                oldSettings.quit().values().stream().map(quit -> new Settings.QuitMessageConfig(quit.permission(), quit.message())).toList(),
+                assignQuitMessageIds(oldSettings.quit().values().stream().map(quit -> new Settings.QuitMessageConfig(null, quit.permission(), quit.message())).toList()),
                 new Settings.WelcomeRewards(true, false,
-                50.0, List.of(welcomeItem), rewardCommands, rewardMessages));
+                50.0, List.of(welcomeItem), rewardCommands, rewardMessages),
+                new Settings.PlayerDataConfig(new Settings.CacheConfig(null, null), null, null,
+                        new Settings.JournalConfig(null, null), new Settings.RetentionConfig(null, null, null, null), null),
+                new Settings.StorageConfig(null,
+                        new Settings.SqliteConfig(null, null, null, null, null, null),
+                        new Settings.ServerConfig(null, null, null, null, null, null),
+                        new Settings.MaintenanceConfig(null, null, null, null),
+                        new Settings.MetricsConfig(null),
+                        new Settings.CircuitBreakerConfig(null, null, null),
+                        new Settings.InvalidationConfig(null, null, null)),
+                new Settings.NetworkConfig(null, null, new Settings.HandoffConfig(null, null), new Settings.SessionConfig(null, null, null, null)));
     }
 
     private @NotNull Settings migrateLegacySettings(@NotNull LegacySettings legacySettings) {
@@ -393,8 +508,8 @@ public class SettingsManager {
 
         List<Settings.JoinMessageConfig> joinMessageConfigList = new ArrayList<>();
         List<Settings.QuitMessageConfig> quitMessageConfigList = new ArrayList<>();
-        joinMessageConfigList.add(new Settings.JoinMessageConfig("skywelcome.join.default", migratePlaceholderAPIFormat(legacySettings.join().content())));
-        quitMessageConfigList.add(new Settings.QuitMessageConfig("skywelcome.quit.default", migratePlaceholderAPIFormat(legacySettings.quit().content())));
+        joinMessageConfigList.add(new Settings.JoinMessageConfig(1, "skywelcome.join.default", migratePlaceholderAPIFormat(legacySettings.join().content())));
+        quitMessageConfigList.add(new Settings.QuitMessageConfig(1, "skywelcome.quit.default", migratePlaceholderAPIFormat(legacySettings.quit().content())));
 
         List<String> rewardCommands = new ArrayList<>();
         List<String> rewardMessages = new ArrayList<>();
@@ -407,7 +522,7 @@ public class SettingsManager {
         }
 
         return new Settings(
-                "1.5.0.0",
+                "1.6.0.0",
                 "en_US",
                 true,
                 true,
@@ -415,7 +530,17 @@ public class SettingsManager {
                 joinMessageConfigList,
                 motdList,
                 quitMessageConfigList,
-                new Settings.WelcomeRewards(true, false,50.0, List.of(welcomeItem), rewardCommands, rewardMessages));
+                new Settings.WelcomeRewards(true, false,50.0, List.of(welcomeItem), rewardCommands, rewardMessages),
+                new Settings.PlayerDataConfig(new Settings.CacheConfig(null, null), null, null,
+                        new Settings.JournalConfig(null, null), new Settings.RetentionConfig(null, null, null, null), null),
+                new Settings.StorageConfig(null,
+                        new Settings.SqliteConfig(null, null, null, null, null, null),
+                        new Settings.ServerConfig(null, null, null, null, null, null),
+                        new Settings.MaintenanceConfig(null, null, null, null),
+                        new Settings.MetricsConfig(null),
+                        new Settings.CircuitBreakerConfig(null, null, null),
+                        new Settings.InvalidationConfig(null, null, null)),
+                new Settings.NetworkConfig(null, null, new Settings.HandoffConfig(null, null), new Settings.SessionConfig(null, null, null, null)));
     }
 
     /**
@@ -20,34 +20,56 @@ package com.github.lukesky19.skywelcome.data.player;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * This class contains a player's data.
+ * This class is an immutable snapshot of a player's data.
+ * Changes are made by creating a new snapshot with an incremented version, so a snapshot can be read from any thread without locking.
  */
-public class PlayerData {
-    private boolean sendJoin;
-    private boolean sendMotd;
-    private boolean sendLeave;
-    private @NotNull String joinMessage;
-    private @NotNull String leaveMessage;
+public final class PlayerData {
+    private final boolean sendJoin;
+    private final boolean sendMotd;
+    private final boolean sendLeave;
+    private final int joinMessageId;
+    private final int leaveMessageId;
+    private final long version;
 
     /**
      * Constructor
      * @param sendJoin Should the player's join message be sent?
      * @param sendMotd Should the server's motd be sent to the player?
      * @param sendLeave Should the player's leave message be sent?
-     * @param joinMessage The player's join message.
-     * @param leaveMessage The player's leave message.
+     * @param joinMessageId The id of the player's join message.
+     * @param leaveMessageId The id of the player's leave message.
      */
     public PlayerData(
             boolean sendJoin,
             boolean sendMotd,
             boolean sendLeave,
-            @NotNull String joinMessage,
-            @NotNull String leaveMessage) {
+            int joinMessageId,
+            int leaveMessageId) {
+        this(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId, 0L);
+    }
+
+    /**
+     * Constructor
+     * @param sendJoin Should the player's join message be sent?
+     * @param sendMotd Should the server's motd be sent to the player?
+     * @param sendLeave Should the player's leave message be sent?
+     * @param joinMessageId The id of the player's join message.
+     * @param leaveMessageId The id of the player's leave message.
+     * @param version The version of the data.
+     */
+    PlayerData(
+            boolean sendJoin,
+            boolean sendMotd,
+            boolean sendLeave,
+            int joinMessageId,
+            int leaveMessageId,
+            long version) {
         this.sendJoin = sendJoin;
         this.sendMotd = sendMotd;
         this.sendLeave = sendLeave;
-        this.joinMessage = joinMessage;
-        this.leaveMessage = leaveMessage;
+        this.joinMessageId = joinMessageId;
+        this.leaveMessageId = leaveMessageId;
+        this.version = version;
     }
 
     /**
@@ -59,74 +81,87 @@ public class PlayerData {
     }
 
     /**
-     * Set whether the player's join message should be sent or not.
-     * @param sendJoin true or false.
+     * Should the server's motd messages be sent?
+     * @return true or false.
      */
-    public void setSendJoin(boolean sendJoin) {
-        this.sendJoin = sendJoin;
+    public boolean isSendMotd() {
+        return sendMotd;
     }
 
     /**
-     * Should the server's motd messages be sent?
+     * Should the player's leave message be sent?
      * @return true or false.
      */
-    public boolean isSendMotd() {
-        return sendMotd;
+    public boolean isSendLeave() {
+        return sendLeave;
     }
 
     /**
-     * Set whether the server's motd messages should be sent or not.
-     * @param sendMotd true or false.
+     * Get the id of the player's join message.
+     * @return The id of the player's join message.
      */
-    public void setSendMotd(boolean sendMotd) {
-        this.sendMotd = sendMotd;
+    public int getJoinMessageId() {
+        return joinMessageId;
     }
 
     /**
-     * Should the player's leave message be sent?
-     * @return true or false.
+     * Get the id of the player's leave message.
+     * @return The id of the player's leave message.
      */
-    public boolean isSendLeave() {
-        return sendLeave;
+    public int getLeaveMessageId() {
+        return leaveMessageId;
     }
 
     /**
-     * Set whether the player's leave message should be sent or not.
-     * @param sendLeave true or false.
+     * Get the version of this data. The version is incremented every time a changed copy of the data is created.
+     * @return The version.
      */
-    public void setSendLeave(boolean sendLeave) {
-        this.sendLeave = sendLeave;
+    public long getVersion() {
+        return version;
     }
 
     /**
-     * Get the player's join message.
-     * @return The player's join message as a {@link String}.
+     * Create a copy of this data with whether the player's join message should be sent changed.
+     * @param sendJoin true or false.
+     * @return The changed {@link PlayerData}.
      */
-    public @NotNull String getJoinMessage() {
-        return joinMessage;
+    public @NotNull PlayerData withSendJoin(boolean sendJoin) {
+        return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId, version + 1);
     }
 
     /**
-     * Set the player's join message.
-     * @param joinMessage The new join message.
+     * Create a copy of this data with whether the server's motd messages should be sent changed.
+     * @param sendMotd true or false.
+     * @return The changed {@link PlayerData}.
+     */
+    public @NotNull PlayerData withSendMotd(boolean sendMotd) {
+        return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId, version + 1);
+    }
+
+    /**
+     * Create a copy of this data with whether the player's leave message should be sent changed.
+     * @param sendLeave true or false.
+     * @return The changed {@link PlayerData}.
      */
-    public void setJoinMessage(@NotNull String joinMessage) {
-        this.joinMessage = joinMessage;
+    public @NotNull PlayerData withSendLeave(boolean sendLeave) {
+        return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId, version + 1);
     }
 
     /**
-     * Get the player's leave message.
-     * @return The player's leave message as a {@link String}.
+     * Create a copy of this data with the id of the player's join message changed.
+     * @param joinMessageId The id of the new join message.
+     * @return The changed {@link PlayerData}.
      */
-    public @NotNull String getLeaveMessage() {
-        return leaveMessage;
+    public @NotNull PlayerData withJoinMessageId(int joinMessageId) {
+        return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId, version + 1);
     }
 
     /**
-     * Set the player's leave message.
-     * @param leaveMessage The new leave message.
+     * Create a copy of this data with the id of the player's leave message changed.
+     * @param leaveMessageId The id of the new leave message.
+     * @return The changed {@link PlayerData}.
      */
-    public void setLeaveMessage(@NotNull String leaveMessage) {
-        this.leaveMessage = leaveMessage;
+    public @NotNull PlayerData withLeaveMessageId(int leaveMessageId) {
+        return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId, version + 1);
     }
 }
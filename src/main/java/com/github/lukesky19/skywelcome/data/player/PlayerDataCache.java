@@ -0,0 +1,500 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.data.player;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * This class is a thread-safe cache of {@link PlayerData} keyed by the player's {@link UUID}.
+ * Entries for online players are retained until the player quits, at which point the entry is scheduled for eviction after a grace period.
+ * This lets players who reconnect quickly hit the cache instead of the database.
+ * <p>
+ * Entries are stored in an open-addressing hash table made of parallel primitive arrays, keyed directly on the two longs of the {@link UUID}.
+ * The toggles are packed into a bitfield next to the message ids and versions, so a cached player costs no objects at all.
+ * {@link PlayerData} snapshots are only created when an entry is read.
+ * The table grows when it is half full and shrinks once it is an eighth full, such as after the players of a busy period are evicted.
+ */
+public class PlayerDataCache {
+    private static final int MINIMUM_CAPACITY = 64;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private static final byte OCCUPIED = 1;
+    private static final byte SEND_JOIN = 1 << 1;
+    private static final byte SEND_MOTD = 1 << 2;
+    private static final byte SEND_LEAVE = 1 << 3;
+
+    private final @NotNull LongAdder hits = new LongAdder();
+    private final @NotNull LongAdder misses = new LongAdder();
+    private final @NotNull LongAdder evictions = new LongAdder();
+    private volatile int maximumSize;
+
+    // Guarded by this. A slot is in use when its flags have the OCCUPIED bit set.
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+    private byte[] flags;
+    private int[] joinMessageIds;
+    private int[] leaveMessageIds;
+    private long[] versions;
+    private long[] savedVersions;
+    // 0 means the entry is retained (the player is online).
+    private long[] evictAts;
+    private int size = 0;
+    private int resizeThreshold;
+
+    /**
+     * Constructor
+     * @param maximumSize The maximum number of entries to keep in the cache.
+     */
+    public PlayerDataCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+
+        allocate(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Get the cached {@link PlayerData} for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @return The cached {@link PlayerData} or null if not cached.
+     */
+    public synchronized @Nullable PlayerData get(@NotNull UUID uuid) {
+        int index = indexOf(uuid);
+        if(index == -1) {
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return snapshot(index);
+    }
+
+    /**
+     * Get the cached {@link PlayerData} for the {@link UUID} provided without counting a hit or miss.
+     * @param uuid The {@link UUID} of the player.
+     * @return The cached {@link PlayerData} or null if not cached.
+     */
+    public synchronized @Nullable PlayerData peek(@NotNull UUID uuid) {
+        int index = indexOf(uuid);
+        if(index == -1) return null;
+
+        return snapshot(index);
+    }
+
+    /**
+     * Atomically replaces the cached {@link PlayerData} for the {@link UUID} provided with the result of the update function.
+     * The function is called while the cache is locked, so it must be fast and must not access the cache.
+     * @param uuid The {@link UUID} of the player.
+     * @param updateFunction The {@link UnaryOperator} that creates the new {@link PlayerData} from the current {@link PlayerData}.
+     * @return The new {@link PlayerData} or null if the player's data is not cached.
+     */
+    public synchronized @Nullable PlayerData update(@NotNull UUID uuid, @NotNull UnaryOperator<PlayerData> updateFunction) {
+        int index = indexOf(uuid);
+        if(index == -1) return null;
+
+        PlayerData playerData = updateFunction.apply(snapshot(index));
+        store(index, playerData);
+        return playerData;
+    }
+
+    /**
+     * Records that the version provided of a player's {@link PlayerData} has been saved.
+     * @param uuid The {@link UUID} of the player.
+     * @param version The version of the {@link PlayerData} that was saved.
+     */
+    public synchronized void markSaved(@NotNull UUID uuid, long version) {
+        int index = indexOf(uuid);
+        if(index == -1) return;
+
+        savedVersions[index] = Math.max(savedVersions[index], version);
+    }
+
+    /**
+     * Cache the {@link PlayerData} for the {@link UUID} provided.
+     * The entry will be retained until {@link #scheduleEviction(UUID, long)} is called.
+     * @param uuid The {@link UUID} of the player.
+     * @param playerData The {@link PlayerData} to cache.
+     */
+    public synchronized void put(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        int index = indexOf(uuid);
+        if(index == -1) index = insert(uuid);
+
+        store(index, playerData);
+        savedVersions[index] = playerData.getVersion();
+        evictAts[index] = 0L;
+
+        if(size > maximumSize) enforceMaximumSize();
+    }
+
+    /**
+     * Cache the {@link PlayerData} for the {@link UUID} provided unless the player already has an entry in the cache.
+     * @param uuid The {@link UUID} of the player.
+     * @param playerData The {@link PlayerData} to cache.
+     * @return The {@link PlayerData} now in the cache. This is the {@link PlayerData} provided if it was cached, or a snapshot of the existing entry if not.
+     */
+    public synchronized @NotNull PlayerData putIfAbsent(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        int index = indexOf(uuid);
+        if(index != -1) return snapshot(index);
+
+        index = insert(uuid);
+        store(index, playerData);
+        savedVersions[index] = playerData.getVersion();
+        evictAts[index] = 0L;
+
+        if(size > maximumSize) enforceMaximumSize();
+        return playerData;
+    }
+
+    /**
+     * Cancels any scheduled eviction for the {@link UUID} provided. Used when a player reconnects.
+     * @param uuid The {@link UUID} of the player.
+     * @return true if the player had an entry in the cache, otherwise false.
+     */
+    public synchronized boolean retain(@NotNull UUID uuid) {
+        int index = indexOf(uuid);
+        if(index == -1) return false;
+
+        evictAts[index] = 0L;
+        return true;
+    }
+
+    /**
+     * Schedules the eviction of the entry for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @param delayMillis The number of milliseconds to wait before the entry is evicted. If 0 or less, the entry is evicted immediately unless it has unsaved changes.
+     */
+    public synchronized void scheduleEviction(@NotNull UUID uuid, long delayMillis) {
+        int index = indexOf(uuid);
+        if(index == -1) return;
+
+        if(delayMillis <= 0L && !isDirty(index)) {
+            removeAt(index);
+            evictions.increment();
+            shrinkIfSparse();
+            return;
+        }
+
+        evictAts[index] = System.currentTimeMillis() + Math.max(delayMillis, 0L);
+    }
+
+    /**
+     * Evicts all entries whose eviction time has passed. Entries with unsaved changes are kept until they are saved.
+     */
+    public synchronized void evictExpired() {
+        long now = System.currentTimeMillis();
+
+        int index = 0;
+        while(index < flags.length) {
+            if((flags[index] & OCCUPIED) != 0 && evictAts[index] != 0L && evictAts[index] <= now && !isDirty(index)) {
+                removeAt(index);
+                evictions.increment();
+                // Removing shifts a later entry into this slot, so it is checked again.
+                continue;
+            }
+
+            index++;
+        }
+
+        shrinkIfSparse();
+    }
+
+    /**
+     * Removes the entry for the {@link UUID} provided without counting it as an eviction.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public synchronized void invalidate(@NotNull UUID uuid) {
+        int index = indexOf(uuid);
+        if(index == -1) return;
+
+        removeAt(index);
+        shrinkIfSparse();
+    }
+
+    /**
+     * Set the maximum number of entries to keep in the cache.
+     * Entries scheduled for eviction are removed early, soonest first, to stay under this size.
+     * Entries for online players are never removed to satisfy the maximum size.
+     * @param maximumSize The maximum number of entries.
+     */
+    public synchronized void setMaximumSize(int maximumSize) {
+        this.maximumSize = maximumSize;
+
+        if(size > maximumSize) enforceMaximumSize();
+    }
+
+    /**
+     * Get the number of entries in the cache.
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of cache hits since the cache was created.
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of cache misses since the cache was created.
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Get the number of evicted entries since the cache was created.
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Removes entries scheduled for eviction, soonest first, until the cache is no larger than the maximum size.
+     */
+    private void enforceMaximumSize() {
+        while(size > maximumSize) {
+            int soonestIndex = -1;
+            for(int index = 0; index < flags.length; index++) {
+                if((flags[index] & OCCUPIED) == 0 || evictAts[index] == 0L || isDirty(index)) continue;
+
+                if(soonestIndex == -1 || evictAts[index] < evictAts[soonestIndex]) soonestIndex = index;
+            }
+
+            // Only online players or players with unsaved changes are left.
+            if(soonestIndex == -1) break;
+
+            removeAt(soonestIndex);
+            evictions.increment();
+        }
+
+        shrinkIfSparse();
+    }
+
+    /**
+     * Checks if the entry at the index provided has changes that have not been saved.
+     * @param index The index of the entry.
+     * @return true if the entry has unsaved changes, otherwise false.
+     */
+    private boolean isDirty(int index) {
+        return versions[index] > savedVersions[index];
+    }
+
+    /**
+     * Creates a {@link PlayerData} snapshot of the entry at the index provided.
+     * @param index The index of the entry.
+     * @return The {@link PlayerData}.
+     */
+    private @NotNull PlayerData snapshot(int index) {
+        byte entryFlags = flags[index];
+
+        return new PlayerData(
+                (entryFlags & SEND_JOIN) != 0,
+                (entryFlags & SEND_MOTD) != 0,
+                (entryFlags & SEND_LEAVE) != 0,
+                joinMessageIds[index],
+                leaveMessageIds[index],
+                versions[index]);
+    }
+
+    /**
+     * Stores the {@link PlayerData} in the entry at the index provided. The saved version and eviction time are left unchanged.
+     * @param index The index of the entry.
+     * @param playerData The {@link PlayerData} to store.
+     */
+    private void store(int index, @NotNull PlayerData playerData) {
+        byte entryFlags = OCCUPIED;
+        if(playerData.isSendJoin()) entryFlags |= SEND_JOIN;
+        if(playerData.isSendMotd()) entryFlags |= SEND_MOTD;
+        if(playerData.isSendLeave()) entryFlags |= SEND_LEAVE;
+
+        flags[index] = entryFlags;
+        joinMessageIds[index] = playerData.getJoinMessageId();
+        leaveMessageIds[index] = playerData.getLeaveMessageId();
+        versions[index] = playerData.getVersion();
+    }
+
+    /**
+     * Get the index of the entry for the {@link UUID} provided.
+     * @param uuid The {@link UUID} of the player.
+     * @return The index or -1 if the player is not cached.
+     */
+    private int indexOf(@NotNull UUID uuid) {
+        long mostBits = uuid.getMostSignificantBits();
+        long leastBits = uuid.getLeastSignificantBits();
+
+        int mask = flags.length - 1;
+        int index = hash(mostBits, leastBits) & mask;
+        while((flags[index] & OCCUPIED) != 0) {
+            if(mostSignificantBits[index] == mostBits && leastSignificantBits[index] == leastBits) return index;
+            index = (index + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Claims an empty slot for the {@link UUID} provided, growing the table first if needed.
+     * The {@link UUID} must not already be in the table.
+     * @param uuid The {@link UUID} of the player.
+     * @return The index of the claimed slot.
+     */
+    private int insert(@NotNull UUID uuid) {
+        if(size + 1 > resizeThreshold) resize(flags.length * 2);
+
+        long mostBits = uuid.getMostSignificantBits();
+        long leastBits = uuid.getLeastSignificantBits();
+
+        int mask = flags.length - 1;
+        int index = hash(mostBits, leastBits) & mask;
+        while((flags[index] & OCCUPIED) != 0) {
+            index = (index + 1) & mask;
+        }
+
+        mostSignificantBits[index] = mostBits;
+        leastSignificantBits[index] = leastBits;
+        flags[index] = OCCUPIED;
+        size++;
+        return index;
+    }
+
+    /**
+     * Removes the entry at the index provided.
+     * Later entries of the same probe run are shifted back into the freed slot so lookups never stop early at a gap.
+     * @param index The index of the entry.
+     */
+    private void removeAt(int index) {
+        int mask = flags.length - 1;
+        int next = (index + 1) & mask;
+        while((flags[next] & OCCUPIED) != 0) {
+            int home = hash(mostSignificantBits[next], leastSignificantBits[next]) & mask;
+            if(((next - home) & mask) >= ((next - index) & mask)) {
+                move(next, index);
+                index = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        flags[index] = 0;
+        size--;
+    }
+
+    /**
+     * Copies the entry in one slot to another.
+     * @param from The index to copy from.
+     * @param to The index to copy to.
+     */
+    private void move(int from, int to) {
+        mostSignificantBits[to] = mostSignificantBits[from];
+        leastSignificantBits[to] = leastSignificantBits[from];
+        flags[to] = flags[from];
+        joinMessageIds[to] = joinMessageIds[from];
+        leaveMessageIds[to] = leaveMessageIds[from];
+        versions[to] = versions[from];
+        savedVersions[to] = savedVersions[from];
+        evictAts[to] = evictAts[from];
+    }
+
+    /**
+     * Shrinks the table once it is no more than an eighth full, so the arrays don't stay at their peak size after mass evictions.
+     * The table is halved until it is at most a quarter full, which leaves room to grow again before the next resize.
+     */
+    private void shrinkIfSparse() {
+        int capacity = flags.length;
+        while(capacity > MINIMUM_CAPACITY && size <= capacity * LOAD_FACTOR / 4) {
+            capacity /= 2;
+        }
+
+        if(capacity != flags.length) resize(capacity);
+    }
+
+    /**
+     * Grows or shrinks the table to the capacity provided and re-inserts every entry.
+     * @param capacity The new capacity. Must be a power of two large enough to hold every entry.
+     */
+    private void resize(int capacity) {
+        long[] oldMostBits = mostSignificantBits;
+        long[] oldLeastBits = leastSignificantBits;
+        byte[] oldFlags = flags;
+        int[] oldJoinMessageIds = joinMessageIds;
+        int[] oldLeaveMessageIds = leaveMessageIds;
+        long[] oldVersions = versions;
+        long[] oldSavedVersions = savedVersions;
+        long[] oldEvictAts = evictAts;
+
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for(int oldIndex = 0; oldIndex < oldFlags.length; oldIndex++) {
+            if((oldFlags[oldIndex] & OCCUPIED) == 0) continue;
+
+            int index = hash(oldMostBits[oldIndex], oldLeastBits[oldIndex]) & mask;
+            while((flags[index] & OCCUPIED) != 0) {
+                index = (index + 1) & mask;
+            }
+
+            mostSignificantBits[index] = oldMostBits[oldIndex];
+            leastSignificantBits[index] = oldLeastBits[oldIndex];
+            flags[index] = oldFlags[oldIndex];
+            joinMessageIds[index] = oldJoinMessageIds[oldIndex];
+            leaveMessageIds[index] = oldLeaveMessageIds[oldIndex];
+            versions[index] = oldVersions[oldIndex];
+            savedVersions[index] = oldSavedVersions[oldIndex];
+            evictAts[index] = oldEvictAts[oldIndex];
+        }
+    }
+
+    /**
+     * Allocates empty tables with the capacity provided.
+     * @param capacity The capacity. Must be a power of two.
+     */
+    private void allocate(int capacity) {
+        mostSignificantBits = new long[capacity];
+        leastSignificantBits = new long[capacity];
+        flags = new byte[capacity];
+        joinMessageIds = new int[capacity];
+        leaveMessageIds = new int[capacity];
+        versions = new long[capacity];
+        savedVersions = new long[capacity];
+        evictAts = new long[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Mixes both halves of a {@link UUID} into a well distributed hash.
+     * @param mostBits The most significant bits of the {@link UUID}.
+     * @param leastBits The least significant bits of the {@link UUID}.
+     * @return The hash.
+     */
+    private static int hash(long mostBits, long leastBits) {
+        long hash = mostBits * 0x9E3779B97F4A7C15L ^ leastBits;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+}
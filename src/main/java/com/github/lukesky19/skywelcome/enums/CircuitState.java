@@ -0,0 +1,36 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.enums;
+
+/**
+ * This enum is used to identify the state of the database circuit breaker.
+ */
+public enum CircuitState {
+    /**
+     * The database is healthy and is used normally.
+     */
+    CLOSED,
+    /**
+     * The database kept timing out or failing, so player data is only read from and kept in the cache.
+     */
+    OPEN,
+    /**
+     * A probe is checking whether the database has recovered. Player data is still only kept in the cache until the probe succeeds.
+     */
+    HALF_OPEN
+}
@@ -0,0 +1,72 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.enums;
+
+/**
+ * This enum is used to identify the kind of database query a latency measurement belongs to.
+ */
+public enum QueryType {
+    /**
+     * Loading a single player's data when they join.
+     */
+    LOAD,
+    /**
+     * Loading the data of many players at once.
+     */
+    LOAD_BATCH,
+    /**
+     * Loading the ids of every player with saved data.
+     */
+    LOAD_IDS,
+    /**
+     * Saving changed player data.
+     */
+    SAVE,
+    /**
+     * Deleting player data.
+     */
+    DELETE,
+    /**
+     * Streaming every player's data for an export.
+     */
+    EXPORT,
+    /**
+     * Saving imported player data.
+     */
+    IMPORT,
+    /**
+     * Deleting the data of inactive players.
+     */
+    PRUNE,
+    /**
+     * Migrating saved data to a new format.
+     */
+    MIGRATE,
+    /**
+     * Checking whether the database has recovered while the circuit breaker is open.
+     */
+    PROBE,
+    /**
+     * Recording changed player data in the change log, so other servers can refresh their cached copy.
+     */
+    PUBLISH,
+    /**
+     * Reading the change log for player data changed by other servers.
+     */
+    POLL
+}
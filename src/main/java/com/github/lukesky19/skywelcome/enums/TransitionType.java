@@ -0,0 +1,40 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.enums;
+
+/**
+ * This enum is used to identify what a player joining or leaving this server means for the network behind the proxy.
+ */
+public enum TransitionType {
+    /**
+     * The player joined the network on this server.
+     */
+    NETWORK_JOIN,
+    /**
+     * The player left the network from this server.
+     */
+    NETWORK_QUIT,
+    /**
+     * The player switched to this server from another server.
+     */
+    SWITCH_IN,
+    /**
+     * The player switched from this server to another server.
+     */
+    SWITCH_OUT
+}
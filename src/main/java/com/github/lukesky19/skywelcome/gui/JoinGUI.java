@@ -25,6 +25,7 @@ import com.github.lukesky19.skylib.api.itemstack.ItemStackBuilder;
 import com.github.lukesky19.skywelcome.SkyWelcome;
 import com.github.lukesky19.skywelcome.config.gui.GUIConfig;
 import com.github.lukesky19.skywelcome.config.gui.GUIConfigManager;
+import com.github.lukesky19.skywelcome.config.settings.MessageCatalog;
 import com.github.lukesky19.skywelcome.config.settings.Settings;
 import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
 import com.github.lukesky19.skywelcome.data.player.PlayerData;
@@ -312,8 +313,11 @@ public class JoinGUI extends ChestGUI {
         assert guiConfig != null;
         Settings settings = settingsManager.getSettings();
         if(settings == null) return;
+        MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+        if(messageCatalog == null) return;
         PlayerData playerData = playerDataManager.getPlayerData(uuid);
         if(playerData == null) return;
+        int selectedMessageId = messageCatalog.resolveJoinMessageId(playerData.getJoinMessageId());
         List<Integer> slots = new ArrayList<>(guiConfig.gui().slots());
 
         while(numOfMessagesAdded < itemsPerPage) {
@@ -326,6 +330,12 @@ public class JoinGUI extends ChestGUI {
                 continue;
             }
 
+            if(joinMessageConfig.id() == null) {
+                logger.warn(AdventureUtil.serialize("Unable to add join message to the gui due to an invalid id."));
+                handleMessageError();
+                continue;
+            }
+
             if(joinMessageConfig.message() == null) {
                 logger.warn(AdventureUtil.serialize("Unable to add join message to the gui due to an invalid join message."));
                 handleMessageError();
@@ -334,7 +344,7 @@ public class JoinGUI extends ChestGUI {
 
             if(player.hasPermission(joinMessageConfig.permission())) {
                 ItemStackBuilder itemStackBuilder = new ItemStackBuilder(logger);
-                if(playerData.getJoinMessage().equals(joinMessageConfig.message())) {
+                if(selectedMessageId == joinMessageConfig.id()) {
                     itemStackBuilder.fromItemStackConfig(guiConfig.gui().placeholders().selected(), player, null, List.of());
                     itemStackBuilder.setName(AdventureUtil.serialize(player, joinMessageConfig.message()));
 
@@ -358,9 +368,7 @@ public class JoinGUI extends ChestGUI {
                         GUIButton.Builder guiButtonBuilder = new GUIButton.Builder();
                         guiButtonBuilder.setItemStack(itemStack);
                         guiButtonBuilder.setAction(inventoryClickEvent -> {
-                            playerData.setJoinMessage(joinMessageConfig.message());
-
-                            playerDataManager.savePlayerData(uuid, playerData);
+                            playerDataManager.setJoinMessageId(uuid, joinMessageConfig.id());
 
                             refresh();
                         });
@@ -25,6 +25,7 @@ import com.github.lukesky19.skylib.api.itemstack.ItemStackBuilder;
 import com.github.lukesky19.skywelcome.SkyWelcome;
 import com.github.lukesky19.skywelcome.config.gui.GUIConfig;
 import com.github.lukesky19.skywelcome.config.gui.GUIConfigManager;
+import com.github.lukesky19.skywelcome.config.settings.MessageCatalog;
 import com.github.lukesky19.skywelcome.config.settings.Settings;
 import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
 import com.github.lukesky19.skywelcome.data.player.PlayerData;
@@ -312,8 +313,11 @@ public class QuitGUI extends ChestGUI {
         assert guiConfig != null;
         Settings settings = settingsManager.getSettings();
         if(settings == null) return;
+        MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+        if(messageCatalog == null) return;
         PlayerData playerData = playerDataManager.getPlayerData(uuid);
         if(playerData == null) return;
+        int selectedMessageId = messageCatalog.resolveQuitMessageId(playerData.getLeaveMessageId());
         List<Integer> slots = new ArrayList<>(guiConfig.gui().slots());
 
         while(numOfMessagesAdded < itemsPerPage) {
@@ -326,6 +330,12 @@ public class QuitGUI extends ChestGUI {
                 continue;
             }
 
+            if(quitMessageConfig.id() == null) {
+                logger.warn(AdventureUtil.serialize("Unable to add quit message to the gui due to an invalid id."));
+                handleMessageError();
+                continue;
+            }
+
             if(quitMessageConfig.message() == null) {
                 logger.warn(AdventureUtil.serialize("Unable to add quit message to the gui due to an invalid quit message."));
                 handleMessageError();
@@ -334,7 +344,7 @@ public class QuitGUI extends ChestGUI {
 
             if (player.hasPermission(quitMessageConfig.permission())) {
                 ItemStackBuilder itemStackBuilder = new ItemStackBuilder(logger);
-                if(playerData.getLeaveMessage().equals(quitMessageConfig.message())) {
+                if(selectedMessageId == quitMessageConfig.id()) {
                     itemStackBuilder.fromItemStackConfig(guiConfig.gui().placeholders().selected(), player, null, List.of());
                     itemStackBuilder.setName(AdventureUtil.serialize(player, quitMessageConfig.message()));
 
@@ -358,9 +368,7 @@ public class QuitGUI extends ChestGUI {
                         GUIButton.Builder guiButtonBuilder = new GUIButton.Builder();
                         guiButtonBuilder.setItemStack(itemStack);
                         guiButtonBuilder.setAction(inventoryClickEvent -> {
-                            playerData.setLeaveMessage(quitMessageConfig.message());
-
-                            playerDataManager.savePlayerData(uuid, playerData);
+                            playerDataManager.setLeaveMessageId(uuid, quitMessageConfig.id());
 
                             refresh();
                         });
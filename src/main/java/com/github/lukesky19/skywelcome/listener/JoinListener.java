@@ -19,15 +19,19 @@ package com.github.lukesky19.skywelcome.listener;
 
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.MessageCatalog;
 import com.github.lukesky19.skywelcome.config.settings.Settings;
 import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
 import com.github.lukesky19.skywelcome.data.player.PlayerData;
 import com.github.lukesky19.skywelcome.manager.PlayerDataManager;
+import com.github.lukesky19.skywelcome.manager.network.NetworkSessionManager;
+import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,21 +47,36 @@ public class JoinListener implements Listener {
     private final @NotNull ComponentLogger logger;
     private final @NotNull SettingsManager settingsManager;
     private final @NotNull PlayerDataManager playerDataManager;
+    private final @NotNull NetworkSessionManager networkSessionManager;
 
     /**
      * Constructor
      * @param skyWelcome A {@link SkyWelcome} instance.
      * @param settingsManager A {@link SettingsManager} instance.
      * @param playerDataManager A {@link PlayerDataManager} instance.
+     * @param networkSessionManager A {@link NetworkSessionManager} instance.
      */
     public JoinListener(
             @NotNull SkyWelcome skyWelcome,
             @NotNull SettingsManager settingsManager,
-            @NotNull PlayerDataManager playerDataManager) {
+            @NotNull PlayerDataManager playerDataManager,
+            @NotNull NetworkSessionManager networkSessionManager) {
         this.skyWelcome = skyWelcome;
         this.logger = skyWelcome.getComponentLogger();
         this.settingsManager = settingsManager;
         this.playerDataManager = playerDataManager;
+        this.networkSessionManager = networkSessionManager;
+    }
+
+    /**
+     * Listens to when a player is logging in and loads their player data so it is cached before they join.
+     * @param asyncPlayerPreLoginEvent An {@link AsyncPlayerPreLoginEvent}
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPreLogin(AsyncPlayerPreLoginEvent asyncPlayerPreLoginEvent) {
+        if(asyncPlayerPreLoginEvent.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) return;
+
+        playerDataManager.preloadPlayerData(asyncPlayerPreLoginEvent.getUniqueId());
     }
 
     /**
@@ -69,6 +88,10 @@ public class JoinListener implements Listener {
         Player player = playerJoinEvent.getPlayer();
         UUID uuid = player.getUniqueId();
 
+        // The join is tracked as soon as it happens, so it can be matched with the player leaving another server.
+        networkSessionManager.handleJoin(player);
+        playerDataManager.handlePlayerJoin(uuid);
+
         Settings settings = settingsManager.getSettings();
         if(settings == null) {
             logger.warn(AdventureUtil.serialize("Unable to send a join message to online players and the motd to player " + player.getName() + " due to invalid plugin settings."));
@@ -85,23 +108,44 @@ public class JoinListener implements Listener {
             return;
         }
 
-        @NotNull CompletableFuture<@Nullable PlayerData> future = playerDataManager.loadPlayerData(uuid);
-        future.thenAccept(playerData -> {
-            if(playerData == null) {
-                logger.warn(AdventureUtil.serialize("Unable to send a join message to online players and the motd to player " + player.getName() + " due to no player data retrieved."));
-                return;
+        // The player's data is normally cached during pre-login, in which case the future is already complete.
+        // Otherwise, the messages are sent with cached or default data if the load misses the deadline, so a slow database never delays them.
+        @NotNull CompletableFuture<@Nullable PlayerData> future = playerDataManager.loadPlayerDataWithDeadline(uuid);
+        if(future.isDone() && !future.isCompletedExceptionally()) {
+            sendJoinMessages(player, settings, future.join());
+            return;
+        }
+
+        future.thenAccept(playerData -> skyWelcome.getServer().getScheduler().runTask(skyWelcome, () -> sendJoinMessages(player, settings, playerData)));
+    }
+
+    /**
+     * Sends the player's join message to online players and the motd to the player depending on server and player settings.
+     * When the server is behind a proxy, the join message is only sent if the player joined the network instead of switching servers.
+     * @param player The {@link Player} that joined.
+     * @param settings The plugin's {@link Settings}.
+     * @param playerData The player's {@link PlayerData}. May be null.
+     */
+    private void sendJoinMessages(@NotNull Player player, @NotNull Settings settings, @Nullable PlayerData playerData) {
+        if(playerData == null) {
+            logger.warn(AdventureUtil.serialize("Unable to send a join message to online players and the motd to player " + player.getName() + " due to no player data retrieved."));
+            return;
+        }
+
+        Component joinMessage = null;
+        if(settings.globalJoinToggle() && playerData.isSendJoin()) {
+            MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+            String joinMessageString = messageCatalog != null ? messageCatalog.getJoinMessage(playerData.getJoinMessageId()) : null;
+            if(joinMessageString != null) {
+                joinMessage = AdventureUtil.serialize(player, joinMessageString);
+            } else {
+                logger.warn(AdventureUtil.serialize("Unable to send a join message to online players for player " + player.getName() + " due to no valid join message being configured."));
             }
+        }
+        networkSessionManager.sendJoinMessage(player, joinMessage);
 
-            skyWelcome.getServer().getScheduler().runTask(skyWelcome, () -> {
-                if(settings.globalJoinToggle() && playerData.isSendJoin()) {
-                    skyWelcome.getServer().getOnlinePlayers().forEach(onlinePlayer ->
-                            onlinePlayer.sendMessage(AdventureUtil.serialize(player, playerData.getJoinMessage())));
-                }
-
-                if(settings.globalMotdToggle() && playerData.isSendMotd()) {
-                    settings.motd().forEach(message -> player.sendMessage(AdventureUtil.serialize(player, message)));
-                }
-            });
-        });
+        if(settings.globalMotdToggle() && playerData.isSendMotd()) {
+            settings.motd().forEach(message -> player.sendMessage(AdventureUtil.serialize(player, message)));
+        }
     }
 }
@@ -19,10 +19,12 @@ package com.github.lukesky19.skywelcome.listener;
 
 import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
 import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.MessageCatalog;
 import com.github.lukesky19.skywelcome.config.settings.Settings;
 import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
 import com.github.lukesky19.skywelcome.data.player.PlayerData;
 import com.github.lukesky19.skywelcome.manager.PlayerDataManager;
+import com.github.lukesky19.skywelcome.manager.network.NetworkSessionManager;
 import com.github.lukesky19.skywelcome.util.PluginUtils;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
@@ -32,6 +34,7 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.UUID;
 
@@ -39,60 +42,83 @@ import java.util.UUID;
  * Listens to when a player disconnects from the server and sends their leave message if appropriate.
  */
 public class QuitListener implements Listener {
-    private final @NotNull SkyWelcome skyWelcome;
     private final @NotNull ComponentLogger logger;
     private final @NotNull PlayerDataManager playerDataManager;
     private final @NotNull SettingsManager settingsManager;
+    private final @NotNull NetworkSessionManager networkSessionManager;
 
     /**
      * Constructor
      * @param skyWelcome A {@link SkyWelcome} instance.
      * @param settingsManager A {@link SettingsManager} instance.
      * @param playerDataManager A {@link PlayerDataManager} instance.
+     * @param networkSessionManager A {@link NetworkSessionManager} instance.
      */
     public QuitListener(
             @NotNull SkyWelcome skyWelcome,
             @NotNull SettingsManager settingsManager,
-        @NotNull PlayerDataManager playerDataManager) {
-        this.skyWelcome = skyWelcome;
+        @NotNull PlayerDataManager playerDataManager,
+        @NotNull NetworkSessionManager networkSessionManager) {
         this.logger = skyWelcome.getComponentLogger();
         this.playerDataManager = playerDataManager;
         this.settingsManager = settingsManager;
+        this.networkSessionManager = networkSessionManager;
     }
 
     /**
-     * Listens for a {@link PlayerQuitEvent} and sends the player's leave message if appropriate.
+     * Listens for a {@link PlayerQuitEvent}, sends the player's leave message if appropriate, and schedules the eviction of the player's cached data.
      * @param playerQuitEvent A {@link PlayerQuitEvent}
      */
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onQuit(PlayerQuitEvent playerQuitEvent) {
         Player player = playerQuitEvent.getPlayer();
+
+        // The leave message is created while the player is still online, since it may only be sent once the leave is resolved.
+        // When the server is behind a proxy, it is only sent if the player left the network instead of switching servers.
+        networkSessionManager.handleQuit(player, getLeaveMessage(player));
+
+        playerDataManager.handlePlayerQuit(player.getUniqueId());
+    }
+
+    /**
+     * Creates the player's leave message if appropriate.
+     * @param player The {@link Player} that is leaving.
+     * @return The leave message {@link Component}, or null if no leave message should be sent.
+     */
+    private @Nullable Component getLeaveMessage(@NotNull Player player) {
         UUID uuid = player.getUniqueId();
 
         Settings settings = settingsManager.getSettings();
         if(settings == null) {
             logger.warn(AdventureUtil.serialize("Unable to send a leave message to players due to invalid plugin settings."));
-            return;
+            return null;
         }
 
         if(settings.globalQuitToggle() == null) {
             logger.warn(AdventureUtil.serialize("Unable to send a leave message to players due to an invalid global quit toggle setting."));
-            return;
+            return null;
         }
 
         // Don't send a leave message if the player is vanished
-        if(PluginUtils.isPlayerVanished(player)) return;
+        if(PluginUtils.isPlayerVanished(player)) return null;
 
         PlayerData playerData = playerDataManager.getPlayerData(uuid);
         if(playerData == null) {
             logger.warn(AdventureUtil.serialize("Unable to send a leave message to players due due to no player data retrieved."));
-            return;
+            return null;
         }
 
         if(settings.globalQuitToggle() && playerData.isSendLeave()) {
-            Component leaveMessage = AdventureUtil.serialize(player, playerData.getLeaveMessage());
-            skyWelcome.getServer().getOnlinePlayers()
-                    .forEach(onlinePlayer -> onlinePlayer.sendMessage(leaveMessage));
+            MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+            String leaveMessageString = messageCatalog != null ? messageCatalog.getQuitMessage(playerData.getLeaveMessageId()) : null;
+            if(leaveMessageString == null) {
+                logger.warn(AdventureUtil.serialize("Unable to send a leave message to players due to no valid leave message being configured."));
+                return null;
+            }
+
+            return AdventureUtil.serialize(player, leaveMessageString);
         }
+
+        return null;
     }
 }
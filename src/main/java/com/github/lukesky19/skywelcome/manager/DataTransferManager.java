@@ -0,0 +1,289 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager;
+
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.data.player.PlayerData;
+import com.github.lukesky19.skywelcome.data.player.PlayerDataRecord;
+import com.github.lukesky19.skywelcome.manager.database.DatabaseManager;
+import com.github.lukesky19.skywelcome.manager.database.tables.PlayerDataTable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class exports player data to a file and imports it back, so player data can be backed up or moved to another server.
+ * Both directions stream one row at a time, so memory use stays the same no matter how many players there are.
+ * <p>
+ * An export file is gzip compressed. It starts with a 4 byte magic number and a 2 byte format version.
+ * Each player follows as a record marker, the player's UUID, the send flags, the join and leave message ids, and the time the data was last saved.
+ * The file ends with an end marker and the number of players, so a truncated file is detected on import.
+ */
+public class DataTransferManager {
+    private static final int MAGIC = 0x53575044;
+    private static final short FORMAT_VERSION = 1;
+    private static final byte RECORD_MARKER = 1;
+    private static final byte END_MARKER = 0;
+    private static final byte SEND_JOIN = 1;
+    private static final byte SEND_MOTD = 2;
+    private static final byte SEND_LEAVE = 4;
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    private static final long PROGRESS_INTERVAL = 10000L;
+    private static final @NotNull Pattern FILE_NAME_PATTERN = Pattern.compile("[A-Za-z0-9_\\-][A-Za-z0-9_\\-.]*");
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull PlayerDataManager playerDataManager;
+    private final @NotNull DatabaseManager databaseManager;
+    private final @NotNull AtomicBoolean running = new AtomicBoolean();
+    private volatile long processedCount = 0L;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #DataTransferManager(SkyWelcome, PlayerDataManager, DatabaseManager)} instead.
+     * @deprecated You should use {@link #DataTransferManager(SkyWelcome, PlayerDataManager, DatabaseManager)} instead.
+     */
+    @Deprecated
+    public DataTransferManager() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param playerDataManager A {@link PlayerDataManager} instance.
+     * @param databaseManager A {@link DatabaseManager} instance.
+     */
+    public DataTransferManager(@NotNull SkyWelcome skyWelcome, @NotNull PlayerDataManager playerDataManager, @NotNull DatabaseManager databaseManager) {
+        this.skyWelcome = skyWelcome;
+        this.playerDataManager = playerDataManager;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Get the {@link Path} of a file in the plugin's exports folder.
+     * @param fileName The name of the file.
+     * @return The {@link Path} or null if the file name is not a plain file name.
+     */
+    public @Nullable Path getExportPath(@NotNull String fileName) {
+        if(!FILE_NAME_PATTERN.matcher(fileName).matches() || fileName.contains("..")) return null;
+
+        return skyWelcome.getDataFolder().toPath().resolve("exports").resolve(fileName);
+    }
+
+    /**
+     * Get the number of players the running or last export or import has processed.
+     * @return The number of players processed.
+     */
+    public long getProcessedCount() {
+        return processedCount;
+    }
+
+    /**
+     * Exports every player's saved data to the file provided.
+     * Unsaved changes are flushed first, and the export waits for them to be committed so it includes them.
+     * The data is written to a temporary file that replaces the file provided once the export is complete.
+     * @param path The {@link Path} of the file to export to.
+     * @param progress A {@link LongConsumer} given the number of players exported so far, called periodically.
+     * @return A {@link CompletableFuture} containing the number of players exported. It fails with an {@link IllegalStateException} if a transfer is already running.
+     */
+    public @NotNull CompletableFuture<Long> exportPlayerData(@NotNull Path path, @NotNull LongConsumer progress) {
+        if(!running.compareAndSet(false, true)) return CompletableFuture.failedFuture(new IllegalStateException("A player data transfer is already running."));
+        processedCount = 0L;
+
+        playerDataManager.flushPlayerData();
+
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+
+        // Writes run in the order they are queued, so this completes once the flush above is committed.
+        CompletableFuture<Long> future = databaseManager.getQueueManager().queueWriterTask(connection -> null).thenCompose(ignored -> {
+            DataOutputStream output;
+            try {
+                Files.createDirectories(path.getParent());
+                output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tempPath))));
+                output.writeInt(MAGIC);
+                output.writeShort(FORMAT_VERSION);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+
+            return playerDataTable.streamAll(record -> {
+                writeRecord(output, record);
+
+                long count = processedCount + 1;
+                processedCount = count;
+                if(count % PROGRESS_INTERVAL == 0) progress.accept(count);
+            }).handle((rows, throwable) -> {
+                try {
+                    if(throwable == null) {
+                        output.writeByte(END_MARKER);
+                        output.writeLong(rows);
+                    }
+                    output.close();
+
+                    if(throwable == null) Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    if(throwable == null) throwable = e;
+                }
+
+                if(throwable != null) {
+                    try {
+                        Files.deleteIfExists(tempPath);
+                    } catch (IOException ignoredException) {}
+
+                    throw throwable instanceof CompletionException completionException ? completionException : new CompletionException(throwable);
+                }
+
+                return rows;
+            });
+        });
+
+        return future.whenComplete((rows, throwable) -> running.set(false));
+    }
+
+    /**
+     * Imports player data from the file provided.
+     * Records are saved in batches, and the next batch is only read once the last one is committed, so the file is never loaded into memory at once.
+     * A player's saved data is only replaced if the imported data is not older than it.
+     * @param path The {@link Path} of the file to import from.
+     * @param progress A {@link LongConsumer} given the number of players imported so far, called periodically.
+     * @return A {@link CompletableFuture} containing the number of players imported. It fails with an {@link IllegalStateException} if a transfer is already running.
+     */
+    public @NotNull CompletableFuture<Long> importPlayerData(@NotNull Path path, @NotNull LongConsumer progress) {
+        if(!running.compareAndSet(false, true)) return CompletableFuture.failedFuture(new IllegalStateException("A player data transfer is already running."));
+        processedCount = 0L;
+
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        Thread.ofVirtual().name("SkyWelcome-Import").start(() -> {
+            try(DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(path))))) {
+                if(input.readInt() != MAGIC) throw new IOException("The file is not a SkyWelcome player data export.");
+                short formatVersion = input.readShort();
+                if(formatVersion != FORMAT_VERSION) throw new IOException("Unsupported export format version " + formatVersion + ".");
+
+                List<PlayerDataRecord> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                while(true) {
+                    byte marker = input.readByte();
+                    if(marker == END_MARKER) {
+                        importBatch(batch, progress);
+
+                        long expectedCount = input.readLong();
+                        if(expectedCount != processedCount) throw new IOException("The file should contain " + expectedCount + " players, but " + processedCount + " were read.");
+                        break;
+                    }
+                    if(marker != RECORD_MARKER) throw new IOException("The file is corrupt.");
+
+                    batch.add(readRecord(input));
+                    if(batch.size() == IMPORT_BATCH_SIZE) {
+                        importBatch(batch, progress);
+                        batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+                    }
+                }
+
+                running.set(false);
+                future.complete(processedCount);
+            } catch (EOFException e) {
+                running.set(false);
+                future.completeExceptionally(new IOException("The file ended unexpectedly. It may be incomplete."));
+            } catch (Throwable throwable) {
+                running.set(false);
+                future.completeExceptionally(throwable);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Saves a batch of imported records, waits for it to be committed, then refreshes any cached data for the imported players.
+     * @param batch The {@link List} of {@link PlayerDataRecord}s.
+     * @param progress A {@link LongConsumer} given the number of players imported so far.
+     */
+    private void importBatch(@NotNull List<PlayerDataRecord> batch, @NotNull LongConsumer progress) {
+        if(batch.isEmpty()) return;
+
+        databaseManager.getPlayerDataTable().importAll(batch).join();
+
+        List<UUID> uuids = new ArrayList<>(batch.size());
+        batch.forEach(record -> uuids.add(record.uuid()));
+        playerDataManager.refreshPlayerData(uuids);
+        playerDataManager.publishPlayerDataChanges(uuids);
+
+        long previousCount = processedCount;
+        processedCount = previousCount + batch.size();
+        if(processedCount / PROGRESS_INTERVAL != previousCount / PROGRESS_INTERVAL) progress.accept(processedCount);
+    }
+
+    /**
+     * Writes a record to the export.
+     * @param output The {@link DataOutputStream} to write to.
+     * @param record The {@link PlayerDataRecord} to write.
+     * @throws IOException If the record could not be written.
+     */
+    private static void writeRecord(@NotNull DataOutputStream output, @NotNull PlayerDataRecord record) throws IOException {
+        PlayerData playerData = record.playerData();
+
+        byte flags = 0;
+        if(playerData.isSendJoin()) flags |= SEND_JOIN;
+        if(playerData.isSendMotd()) flags |= SEND_MOTD;
+        if(playerData.isSendLeave()) flags |= SEND_LEAVE;
+
+        output.writeByte(RECORD_MARKER);
+        output.writeLong(record.uuid().getMostSignificantBits());
+        output.writeLong(record.uuid().getLeastSignificantBits());
+        output.writeByte(flags);
+        output.writeInt(playerData.getJoinMessageId());
+        output.writeInt(playerData.getLeaveMessageId());
+        output.writeLong(record.lastUpdated());
+    }
+
+    /**
+     * Reads a record from an export. The record marker must already have been read.
+     * @param input The {@link DataInputStream} to read from.
+     * @return The {@link PlayerDataRecord}.
+     * @throws IOException If the record could not be read.
+     */
+    private static @NotNull PlayerDataRecord readRecord(@NotNull DataInputStream input) throws IOException {
+        UUID uuid = new UUID(input.readLong(), input.readLong());
+        byte flags = input.readByte();
+        int joinMessageId = input.readInt();
+        int leaveMessageId = input.readInt();
+        long lastUpdated = input.readLong();
+
+        PlayerData playerData = new PlayerData((flags & SEND_JOIN) != 0, (flags & SEND_MOTD) != 0, (flags & SEND_LEAVE) != 0, joinMessageId, leaveMessageId);
+        return new PlayerDataRecord(uuid, playerData, lastUpdated);
+    }
+}
@@ -22,13 +22,25 @@ import com.github.lukesky19.skylib.api.configurate.ConfigurationUtility;
 import com.github.lukesky19.skylib.libs.configurate.ConfigurateException;
 import com.github.lukesky19.skylib.libs.configurate.yaml.YamlConfigurationLoader;
 import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.MessageCatalog;
 import com.github.lukesky19.skywelcome.config.settings.Settings;
 import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
 import com.github.lukesky19.skywelcome.data.player.PlayerData;
+import com.github.lukesky19.skywelcome.data.player.PlayerDataCache;
+import com.github.lukesky19.skywelcome.data.player.PlayerDataRecord;
 import com.github.lukesky19.skywelcome.data.player.legacy.PlayerSettings;
+import com.github.lukesky19.skywelcome.enums.StorageMode;
+import com.github.lukesky19.skywelcome.manager.database.CircuitBreaker;
 import com.github.lukesky19.skywelcome.manager.database.DatabaseManager;
+import com.github.lukesky19.skywelcome.manager.database.invalidation.InvalidationBus;
+import com.github.lukesky19.skywelcome.manager.database.journal.PlayerDataJournal;
 import com.github.lukesky19.skywelcome.manager.database.tables.PlayerDataTable;
+import com.github.lukesky19.skywelcome.manager.network.HandoffManager;
+import com.github.lukesky19.skywelcome.manager.network.PlayerDataHandoff;
+import com.github.lukesky19.skywelcome.util.UUIDHashSet;
 import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -36,189 +48,874 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
 /**
  * This class manages player data.
  */
 public class PlayerDataManager {
+    private static final int DEFAULT_CACHE_EVICTION_DELAY_SECONDS = 300;
+    private static final int DEFAULT_CACHE_MAXIMUM_SIZE = 1000;
+    private static final long CACHE_SWEEP_INTERVAL_TICKS = 100L;
+    private static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 30;
+    private static final int DEFAULT_JOURNAL_SYNC_INTERVAL_MILLIS = 100;
+    private static final int DEFAULT_LOAD_DEADLINE_MILLIS = 250;
+    private static final long STARTUP_REPLAY_TIMEOUT_SECONDS = 10L;
+
     private final @NotNull SkyWelcome skyWelcome;
     private final @NotNull ComponentLogger logger;
     private final @NotNull SettingsManager settingsManager;
     private final @NotNull DatabaseManager databaseManager;
+    private final @NotNull CircuitBreaker circuitBreaker;
+    private final @NotNull InvalidationBus invalidationBus;
+    private final @NotNull HandoffManager handoffManager;
+
+    private final @NotNull PlayerDataCache playerDataCache = new PlayerDataCache(DEFAULT_CACHE_MAXIMUM_SIZE);
+    private final @NotNull Map<UUID, PendingLoad> pendingLoads = new ConcurrentHashMap<>();
+    private final @NotNull Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+    private @Nullable BukkitTask flushTask;
+    private volatile @NotNull StorageMode storageMode = StorageMode.FULL;
+    // The players that have a row in the database. Only trusted once the startup scan has finished.
+    private final @NotNull UUIDHashSet knownPlayers = new UUIDHashSet();
+    private volatile boolean knownPlayersLoaded = false;
+
+    private final @Nullable PlayerDataJournal playerDataJournal;
+    private final @NotNull AtomicInteger inFlightFlushes = new AtomicInteger();
+    private final @NotNull AtomicBoolean replayingJournal = new AtomicBoolean();
+    // Completes once the running journal replay has finished. Loads wait for it, so they never read a row the replay is about to replace.
+    private volatile @NotNull CompletableFuture<Void> journalReplay = CompletableFuture.completedFuture(null);
 
-    private final @NotNull Map<UUID, PlayerData> playerDataMap = new HashMap<>();
+    private volatile long loadDeadlineMillis = DEFAULT_LOAD_DEADLINE_MILLIS;
 
     /**
      * Constructor
      * @param skyWelcome A {@link SkyWelcome} instance.
      * @param settingsManager A {@link SettingsManager} instance.
      * @param databaseManager A {@link DatabaseManager} instance.
+     * @param circuitBreaker A {@link CircuitBreaker} instance.
+     * @param invalidationBus An {@link InvalidationBus} instance.
+     * @param handoffManager A {@link HandoffManager} instance.
      */
     public PlayerDataManager(
             @NotNull SkyWelcome skyWelcome,
             @NotNull SettingsManager settingsManager,
-            @NotNull DatabaseManager databaseManager) {
+            @NotNull DatabaseManager databaseManager,
+            @NotNull CircuitBreaker circuitBreaker,
+            @NotNull InvalidationBus invalidationBus,
+            @NotNull HandoffManager handoffManager) {
         this.skyWelcome = skyWelcome;
         this.logger = skyWelcome.getComponentLogger();
         this.settingsManager = settingsManager;
         this.databaseManager = databaseManager;
+        this.circuitBreaker = circuitBreaker;
+        this.invalidationBus = invalidationBus;
+        this.handoffManager = handoffManager;
+
+        circuitBreaker.addRecoveryListener(this::handleDatabaseRecovery);
+        // Players whose data was saved by another server are refreshed the same way as players whose data was imported.
+        invalidationBus.addListener(this::refreshPlayerData);
+        handoffManager.addListener(this::applyHandoff);
+
+        skyWelcome.getServer().getScheduler().runTaskTimerAsynchronously(skyWelcome, playerDataCache::evictExpired, CACHE_SWEEP_INTERVAL_TICKS, CACHE_SWEEP_INTERVAL_TICKS);
+
+        storageMode = getConfiguredStorageMode();
+        playerDataJournal = openJournal();
+        // Changes left in the journal by a crash are saved before anything is loaded, so no player is loaded with stale data.
+        // Startup only waits a bounded time for this. If the replay takes longer, it finishes in the background and loads wait for it instead.
+        replayJournal(true);
+
+        loadKnownPlayers();
+    }
+
+    /**
+     * Opens the journal that records changes until they are saved, if it is enabled in the plugin's settings.
+     * @return The {@link PlayerDataJournal} or null if it is disabled or could not be opened.
+     */
+    private @Nullable PlayerDataJournal openJournal() {
+        boolean enabled = true;
+        int syncIntervalMillis = DEFAULT_JOURNAL_SYNC_INTERVAL_MILLIS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            enabled = Objects.requireNonNullElse(settings.playerData().journal().enabled(), true);
+            syncIntervalMillis = Objects.requireNonNullElse(settings.playerData().journal().syncIntervalMillis(), DEFAULT_JOURNAL_SYNC_INTERVAL_MILLIS);
+        }
+
+        if(!enabled) return null;
+
+        try {
+            return new PlayerDataJournal(logger, skyWelcome.getDataFolder().toPath().resolve("journal"), syncIntervalMillis);
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to open the player data journal. Changes not yet saved will be lost if the server crashes. Error: " + e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Saves the changes recorded in journal segments left over from a previous run, then deletes the segments.
+     * Each change is saved with the time it was made, so it never replaces data that was saved after it, such as by another server.
+     * Once the changes are saved, the replayed players are refreshed in the cache, since they may have been loaded while the replay was failing.
+     * If the save fails, the segments are kept and the replay is tried again on the next flush.
+     * @param waitForReplay Whether to block until the replay has finished or the startup replay timeout has passed.
+     */
+    private void replayJournal(boolean waitForReplay) {
+        if(playerDataJournal == null || !playerDataJournal.hasPendingSegments()) return;
+        if(!replayingJournal.compareAndSet(false, true)) return;
+
+        List<PlayerDataRecord> recordsToSave = new ArrayList<>();
+        List<UUID> uuidsToDelete = new ArrayList<>();
+        for(PlayerDataRecord record : playerDataJournal.readPendingSegments()) {
+            if(storageMode == StorageMode.SPARSE && isDefaultPlayerData(record.playerData())) {
+                uuidsToDelete.add(record.uuid());
+            } else {
+                recordsToSave.add(record);
+            }
+        }
+
+        List<UUID> replayedUuids = new ArrayList<>(recordsToSave.size() + uuidsToDelete.size());
+        recordsToSave.forEach(record -> replayedUuids.add(record.uuid()));
+        replayedUuids.addAll(uuidsToDelete);
+
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+        CompletableFuture<Void> replayFuture = CompletableFuture.allOf(
+                playerDataTable.importAll(recordsToSave),
+                playerDataTable.deleteAll(uuidsToDelete)).whenComplete((result, throwable) -> {
+            replayingJournal.set(false);
+
+            if(throwable != null) {
+                logger.warn(AdventureUtil.serialize("Failed to replay the player data journal. It will be replayed again on the next flush. Error: " + throwable.getMessage()));
+                return;
+            }
+
+            playerDataJournal.deletePendingSegments();
+            // Players loaded before the replay succeeded have stale data cached.
+            refreshPlayerData(replayedUuids);
+            // Refreshing adds every player to the known players, so the deleted players are removed afterwards.
+            uuidsToDelete.forEach(knownPlayers::remove);
+            invalidationBus.publish(replayedUuids);
+
+            logger.info(AdventureUtil.serialize("Replayed unsaved changes for " + replayedUuids.size() + " players from the player data journal."));
+        });
+        journalReplay = replayFuture;
+
+        if(waitForReplay) {
+            try {
+                replayFuture.get(STARTUP_REPLAY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                logger.warn(AdventureUtil.serialize("Replaying the player data journal took longer than " + STARTUP_REPLAY_TIMEOUT_SECONDS + " seconds. It will finish in the background, and player data will load once it has."));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ignored) {}
+        }
+    }
+
+    /**
+     * Closes the journal. The current segment is deleted if every change recorded in it has been saved.
+     * This should be called after the database queue has finished its writes.
+     */
+    public void closeJournal() {
+        if(playerDataJournal != null) playerDataJournal.close(this::isAllPlayerDataSaved);
     }
 
     /**
-     * Get the {@link PlayerData} for the {@link UUID} provided.
+     * Checks if every change to player data has been saved to the database.
+     * @return true if no player has unsaved changes and no flush is in progress, otherwise false.
+     */
+    private boolean isAllPlayerDataSaved() {
+        return dirtyPlayers.isEmpty() && inFlightFlushes.get() == 0;
+    }
+
+    /**
+     * Get the {@link StorageMode} from the plugin's settings.
+     * @return The configured {@link StorageMode}, or {@link StorageMode#FULL} if the plugin's settings are invalid.
+     */
+    private @NotNull StorageMode getConfiguredStorageMode() {
+        Settings settings = settingsManager.getSettings();
+        if(settings == null) return StorageMode.FULL;
+
+        return Objects.requireNonNullElse(settings.playerData().storageMode(), StorageMode.FULL);
+    }
+
+    /**
+     * Loads the {@link UUID} of every player with saved data so that players joining for the first time don't need to query the database.
+     * Players saved while the scan is running are added to the same index, so none are missed.
+     * The index is not used when the database is shared, since other servers can create rows this server doesn't know about.
+     */
+    private void loadKnownPlayers() {
+        if(databaseManager.isStorageShared()) return;
+
+        long startTime = System.currentTimeMillis();
+
+        databaseManager.getPlayerDataTable().loadPlayerIds().whenComplete((playerIds, throwable) -> {
+            if(throwable != null) {
+                logger.warn(AdventureUtil.serialize("Failed to load the index of known players. Player data will always be loaded from the database. Error: " + throwable.getMessage()));
+                return;
+            }
+
+            knownPlayers.addAll(playerIds);
+            knownPlayersLoaded = true;
+
+            logger.info(AdventureUtil.serialize("Indexed " + playerIds.size() + " known players in " + (System.currentTimeMillis() - startTime) + "ms."));
+        });
+    }
+
+    /**
+     * Applies the player data cache, flush, and load deadline settings from the plugin's settings.
+     */
+    public void reload() {
+        int maximumSize = DEFAULT_CACHE_MAXIMUM_SIZE;
+        int flushIntervalSeconds = DEFAULT_FLUSH_INTERVAL_SECONDS;
+        int deadlineMillis = DEFAULT_LOAD_DEADLINE_MILLIS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            maximumSize = Objects.requireNonNullElse(settings.playerData().cache().maximumSize(), DEFAULT_CACHE_MAXIMUM_SIZE);
+            flushIntervalSeconds = Objects.requireNonNullElse(settings.playerData().flushIntervalSeconds(), DEFAULT_FLUSH_INTERVAL_SECONDS);
+            deadlineMillis = Objects.requireNonNullElse(settings.playerData().loadDeadlineMillis(), DEFAULT_LOAD_DEADLINE_MILLIS);
+        }
+        storageMode = getConfiguredStorageMode();
+        loadDeadlineMillis = Math.max(deadlineMillis, 1);
+
+        playerDataCache.setMaximumSize(maximumSize);
+
+        if(flushTask != null) flushTask.cancel();
+        long flushIntervalTicks = Math.max(flushIntervalSeconds, 1) * 20L;
+        // Changes are kept in memory and in the journal while the circuit breaker is open, and saved once the database recovers.
+        flushTask = skyWelcome.getServer().getScheduler().runTaskTimerAsynchronously(skyWelcome, () -> {
+            if(circuitBreaker.isClosed()) flushPlayerData();
+        }, flushIntervalTicks, flushIntervalTicks);
+    }
+
+    /**
+     * Saves the changes made while the circuit breaker was open, then loads the data of online players that were given fallback data.
+     */
+    private void handleDatabaseRecovery() {
+        flushPlayerData();
+        warmUp(skyWelcome.getServer().getOnlinePlayers().stream().map(Player::getUniqueId).toList());
+    }
+
+    /**
+     * Get the {@link PlayerDataCache} that holds cached {@link PlayerData}.
+     * @return The {@link PlayerDataCache}.
+     */
+    public @NotNull PlayerDataCache getPlayerDataCache() {
+        return playerDataCache;
+    }
+
+    /**
+     * Get the cached {@link PlayerData} for the {@link UUID} provided.
+     * If the player's data is not cached, a load from the database is started (or joined if one is already running) and null is returned
+     * unless that load has already completed. Default data is never written over a player's saved data by this method.
      * @param uuid The {@link UUID} for the player.
      * @return The {@link PlayerData}. May be null.
      */
     public @Nullable PlayerData getPlayerData(@NotNull UUID uuid) {
-        if(playerDataMap.containsKey(uuid)) return playerDataMap.get(uuid);
+        PlayerData cachedPlayerData = playerDataCache.get(uuid);
+        if(cachedPlayerData != null) return cachedPlayerData;
 
-        Settings settings = settingsManager.getSettings();
-        if(settings == null) {
-            logger.error(AdventureUtil.serialize("Unable to create player data due to invalid plugin settings."));
-            return null;
+        @NotNull CompletableFuture<@Nullable PlayerData> future = loadPlayerData(uuid);
+        if(future.isDone() && !future.isCompletedExceptionally()) return future.join();
+
+        return null;
+    }
+
+    /**
+     * Get the {@link PlayerData} from the database. If no data exists, then a new {@link PlayerData} record will attempt to be created.
+     * If the plugin's settings are invalid, the returned {@link PlayerData} will be null.
+     * If the {@link PlayerData} is still cached from a recent session, the cached {@link PlayerData} is returned instead.
+     * Concurrent calls for the same player share a single database load.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing {@link PlayerData}, which may be null.
+     */
+    public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
+        PlayerData cachedPlayerData = playerDataCache.get(uuid);
+        if(cachedPlayerData != null) {
+            playerDataCache.retain(uuid);
+            return CompletableFuture.completedFuture(cachedPlayerData);
+        }
+
+        PendingLoad pendingLoad = new PendingLoad(new CompletableFuture<>(), System.nanoTime());
+        PendingLoad runningLoad = pendingLoads.putIfAbsent(uuid, pendingLoad);
+        if(runningLoad != null) return runningLoad.future();
+
+        CompletableFuture<@Nullable PlayerData> future = pendingLoad.future();
+        loadPlayerDataFromHandoffOrDatabase(uuid).whenComplete((playerData, throwable) -> {
+            pendingLoads.remove(uuid, pendingLoad);
+
+            if(throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(playerData);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Get the {@link PlayerData} for a player that is joining, waiting no longer than the configured load deadline.
+     * The deadline is measured from when the load started, so a load that already waited during pre-login isn't given a second full deadline.
+     * If the load fails or misses the deadline, the future completes with the player's cached data or the defaults instead,
+     * while the real load keeps running in the background and caches the player's data once it finishes.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing {@link PlayerData}, which may be null if the plugin's settings are invalid.
+     */
+    public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerDataWithDeadline(@NotNull UUID uuid) {
+        CompletableFuture<@Nullable PlayerData> future = loadPlayerData(uuid);
+        if(future.isDone() && !future.isCompletedExceptionally()) return future;
+
+        long deadlineMillis = loadDeadlineMillis;
+        long remainingMillis = getRemainingLoadDeadlineMillis(uuid, future, deadlineMillis);
+        CompletableFuture<@Nullable PlayerData> deadlineFuture = future.handle((playerData, throwable) -> {
+            if(throwable == null) return playerData;
+
+            logger.warn(AdventureUtil.serialize("Failed to load player data for " + uuid + ". Cached or default data will be used. Error: " + throwable.getMessage()));
+            return getFallbackPlayerData(uuid);
+        });
+
+        CompletableFuture.delayedExecutor(remainingMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if(deadlineFuture.isDone()) return;
+
+            logger.warn(AdventureUtil.serialize("Loading player data for " + uuid + " took longer than " + deadlineMillis + "ms. Cached or default data will be used until it finishes."));
+            deadlineFuture.complete(getFallbackPlayerData(uuid));
+        });
+
+        return deadlineFuture;
+    }
+
+    /**
+     * Get the time left before a player's load misses the load deadline, measured from when the load started.
+     * @param uuid The {@link UUID} of the player.
+     * @param future The load's {@link CompletableFuture}.
+     * @param deadlineMillis The load deadline in milliseconds.
+     * @return The milliseconds left before the deadline, which is 0 once the deadline has passed.
+     */
+    private long getRemainingLoadDeadlineMillis(@NotNull UUID uuid, @NotNull CompletableFuture<@Nullable PlayerData> future, long deadlineMillis) {
+        PendingLoad pendingLoad = pendingLoads.get(uuid);
+        if(pendingLoad == null || pendingLoad.future() != future) return deadlineMillis;
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingLoad.startedAt());
+        return Math.max(deadlineMillis - elapsedMillis, 0);
+    }
+
+    /**
+     * Get the {@link PlayerData} to use for a player whose data could not be loaded in time.
+     * @param uuid The {@link UUID} of the player.
+     * @return The cached {@link PlayerData}, or the default {@link PlayerData} if none is cached. May be null if the plugin's settings are invalid.
+     */
+    private @Nullable PlayerData getFallbackPlayerData(@NotNull UUID uuid) {
+        PlayerData cachedPlayerData = playerDataCache.peek(uuid);
+        if(cachedPlayerData != null) return cachedPlayerData;
+
+        return createDefaultPlayerData();
+    }
+
+    /**
+     * Loads and caches the {@link PlayerData} for every {@link UUID} provided using as few database queries as possible.
+     * Players that are already cached or already loading are skipped, and players that are not known are given new {@link PlayerData} without a query.
+     * Calls to {@link #loadPlayerData(UUID)} made while the warm-up is running share its result.
+     * Nothing is loaded while the circuit breaker is open. The players are warmed up again once the database recovers.
+     * If the journal is being replayed, the warm-up waits for the replay to finish first.
+     * @param uuids The {@link Collection} of {@link UUID}s to load.
+     * @return A {@link CompletableFuture} that completes once every player's {@link PlayerData} is cached.
+     */
+    public @NotNull CompletableFuture<Void> warmUp(@NotNull Collection<UUID> uuids) {
+        CompletableFuture<Void> replay = journalReplay;
+        if(!replay.isDone()) return replay.handle((result, throwable) -> null).thenCompose(ignored -> warmUp(uuids));
+
+        if(!circuitBreaker.isClosed()) return CompletableFuture.completedFuture(null);
+
+        long startedAt = System.nanoTime();
+        Map<UUID, PendingLoad> warmUpLoads = new HashMap<>();
+        for(UUID uuid : uuids) {
+            if(playerDataCache.peek(uuid) != null) {
+                playerDataCache.retain(uuid);
+                continue;
+            }
+
+            PendingLoad pendingLoad = new PendingLoad(new CompletableFuture<>(), startedAt);
+            if(pendingLoads.putIfAbsent(uuid, pendingLoad) == null) warmUpLoads.put(uuid, pendingLoad);
         }
 
-        if(settings.joinMessages().isEmpty()) {
-            logger.error(AdventureUtil.serialize("Unable to create player data due to no join messages being configured."));
+        if(warmUpLoads.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        List<UUID> uuidsToQuery = new ArrayList<>();
+        warmUpLoads.forEach((uuid, pendingLoad) -> {
+            if(knownPlayersLoaded && !knownPlayers.contains(uuid)) {
+                completeWarmUpLoad(uuid, pendingLoad, null);
+            } else {
+                uuidsToQuery.add(uuid);
+            }
+        });
+
+        if(uuidsToQuery.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        return databaseManager.getPlayerDataTable().loadAll(uuidsToQuery).handle((playerDataMap, throwable) -> {
+            for(UUID uuid : uuidsToQuery) {
+                PendingLoad pendingLoad = warmUpLoads.get(uuid);
+
+                if(throwable != null) {
+                    pendingLoads.remove(uuid, pendingLoad);
+                    pendingLoad.future().completeExceptionally(throwable);
+                } else {
+                    completeWarmUpLoad(uuid, pendingLoad, playerDataMap.get(uuid));
+                }
+            }
+
+            if(throwable != null) logger.warn(AdventureUtil.serialize("Failed to warm up the player data cache. Error: " + throwable.getMessage()));
+
             return null;
+        });
+    }
+
+    /**
+     * Caches the {@link PlayerData} loaded during a warm-up and completes the pending load for the player.
+     * @param uuid The {@link UUID} of the player.
+     * @param pendingLoad The {@link PendingLoad}.
+     * @param loadedPlayerData The {@link PlayerData} loaded from the database or null if the player has no saved data.
+     */
+    private void completeWarmUpLoad(@NotNull UUID uuid, @NotNull PendingLoad pendingLoad, @Nullable PlayerData loadedPlayerData) {
+        PlayerData playerData = cachePlayerData(uuid, loadedPlayerData);
+        pendingLoads.remove(uuid, pendingLoad);
+        pendingLoad.future().complete(playerData);
+    }
+
+    /**
+     * Waits for the {@link PlayerData} to be handed off by the server the player is switching from and caches it.
+     * Only players another server announced are waited for, so players joining the network are loaded from the database straight away.
+     * If no handoff arrives in time, or handoffs are disabled, the {@link PlayerData} is loaded from the database instead.
+     * A handoff is used even while the circuit breaker is open, since it doesn't need the database.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing {@link PlayerData}, which may be null.
+     */
+    private @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerDataFromHandoffOrDatabase(@NotNull UUID uuid) {
+        if(!handoffManager.isEnabled()) return loadPlayerDataFromDatabase(uuid);
+
+        return handoffManager.awaitHandoff(uuid).thenCompose(handoff -> {
+            if(handoff == null) return loadPlayerDataFromDatabase(uuid);
+
+            return CompletableFuture.completedFuture(cachePlayerData(uuid, handoff.playerData()));
+        });
+    }
+
+    /**
+     * Replaces the cached {@link PlayerData} of a player with the data handed off by another server, if the player's data is cached.
+     * Players with unsaved changes keep their cached data, since it was changed on this server after the player left the other one.
+     * @param handoff The {@link PlayerDataHandoff}.
+     * @return true if the cached data was replaced, false if the player's data isn't cached or has unsaved changes.
+     */
+    private boolean applyHandoff(@NotNull PlayerDataHandoff handoff) {
+        UUID uuid = handoff.uuid();
+        if(dirtyPlayers.contains(uuid) || playerDataCache.peek(uuid) == null) return false;
+
+        playerDataCache.put(uuid, handoff.playerData());
+        return true;
+    }
+
+    /**
+     * Loads the {@link PlayerData} from the database and caches it. If no data exists, then a new {@link PlayerData} record will attempt to be created.
+     * Players that are not in the index of known players are given new {@link PlayerData} without querying the database.
+     * If the player's data was cached while the load was running, the cached {@link PlayerData} is kept and returned instead.
+     * While the circuit breaker is open, other players are given default {@link PlayerData} that isn't cached, so it can never be saved over their real data.
+     * If the journal is being replayed, the load waits for the replay to finish first.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing {@link PlayerData}, which may be null.
+     */
+    private @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerDataFromDatabase(@NotNull UUID uuid) {
+        CompletableFuture<Void> replay = journalReplay;
+        if(!replay.isDone()) return replay.handle((result, throwable) -> null).thenCompose(ignored -> loadPlayerDataFromDatabase(uuid));
+
+        if(knownPlayersLoaded && !knownPlayers.contains(uuid)) {
+            return CompletableFuture.completedFuture(cachePlayerData(uuid, null));
+        }
+
+        if(!circuitBreaker.isClosed()) return CompletableFuture.completedFuture(createDefaultPlayerData());
+
+        CompletableFuture<@Nullable PlayerData> loadFuture = databaseManager.getPlayerDataTable().loadPlayerData(uuid);
+        circuitBreaker.track(loadFuture, loadDeadlineMillis);
+
+        return loadFuture.thenApply(playerData -> cachePlayerData(uuid, playerData));
+    }
+
+    /**
+     * Caches the {@link PlayerData} loaded for a player. If no data was loaded, new default {@link PlayerData} is cached.
+     * The new {@link PlayerData} is only saved when the {@link StorageMode} is {@link StorageMode#FULL}.
+     * @param uuid The {@link UUID} of the player.
+     * @param loadedPlayerData The {@link PlayerData} loaded from the database or null if the player has no saved data.
+     * @return The cached {@link PlayerData}, which may be null if the plugin's settings are invalid.
+     */
+    private @Nullable PlayerData cachePlayerData(@NotNull UUID uuid, @Nullable PlayerData loadedPlayerData) {
+        PlayerData playerData;
+        if(loadedPlayerData == null) {
+            PlayerData newPlayerData = createDefaultPlayerData();
+            if(newPlayerData == null) return null;
+
+            playerData = playerDataCache.putIfAbsent(uuid, newPlayerData);
+            if(playerData == newPlayerData && storageMode == StorageMode.FULL) {
+                if(circuitBreaker.isClosed()) {
+                    databaseManager.getPlayerDataTable().saveAll(Map.of(uuid, newPlayerData)).whenComplete((result, throwable) -> {
+                        if(throwable != null) {
+                            logger.warn(AdventureUtil.serialize("Failed to save new player data for " + uuid + ". It will be saved again on the next flush. Error: " + throwable.getMessage()));
+                            dirtyPlayers.add(uuid);
+                        }
+                    });
+                } else {
+                    dirtyPlayers.add(uuid);
+                }
+                knownPlayers.add(uuid);
+            }
+        } else {
+            knownPlayers.add(uuid);
+            playerData = playerDataCache.putIfAbsent(uuid, loadedPlayerData);
         }
 
-        if(settings.quitMessages().isEmpty()) {
-            logger.error(AdventureUtil.serialize("Unable to create player data due to no leave messages being configured."));
+        // Data loaded for a player that isn't online (i.e., during pre-login) should not stay cached forever.
+        if(skyWelcome.getServer().getPlayer(uuid) == null) scheduleEviction(uuid);
+
+        return playerData;
+    }
+
+    /**
+     * Creates the default {@link PlayerData} from the plugin's settings.
+     * @return The default {@link PlayerData} or null if the plugin's settings are invalid.
+     */
+    private @Nullable PlayerData createDefaultPlayerData() {
+        MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+        if(messageCatalog == null) {
+            logger.error(AdventureUtil.serialize("Unable to create player data due to invalid plugin settings."));
             return null;
         }
 
-        @Nullable String joinMessage = settings.joinMessages().getFirst().message();
-        if(joinMessage == null) {
-            logger.error(AdventureUtil.serialize("Unable to create player data due to an invalid default join message."));
+        if(messageCatalog.getDefaultJoinMessageId() == 0) {
+            logger.error(AdventureUtil.serialize("Unable to create player data due to no valid join messages being configured."));
             logger.error(AdventureUtil.serialize("The plugin chooses the first join message as the default."));
             return null;
         }
 
-        @Nullable String leaveMessage = settings.quitMessages().getFirst().message();
-        if(leaveMessage == null) {
-            logger.error(AdventureUtil.serialize("Unable to create player data due to an invalid default leave message."));
+        if(messageCatalog.getDefaultQuitMessageId() == 0) {
+            logger.error(AdventureUtil.serialize("Unable to create player data due to no valid leave messages being configured."));
             logger.error(AdventureUtil.serialize("The plugin chooses the first leave message as the default."));
             return null;
         }
 
-        PlayerData newPlayerData = new PlayerData(true, true, true, joinMessage, leaveMessage);
+        return new PlayerData(true, true, true, messageCatalog.getDefaultJoinMessageId(), messageCatalog.getDefaultQuitMessageId());
+    }
 
-        playerDataMap.put(uuid, newPlayerData);
+    /**
+     * Loads the {@link PlayerData} for a player that is logging in so it is cached before they join.
+     * This blocks until the data is loaded or the load deadline passes, measured from when the load started, and must not be called on the main thread.
+     * When handoffs are enabled, the load is only started, since waiting would hold up the handoff.
+     * A load that misses the deadline keeps running in the background, so the player is never held at login by a slow database.
+     * The cached data is scheduled for eviction in case the player never finishes joining. Joining cancels the eviction.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public void preloadPlayerData(@NotNull UUID uuid) {
+        // The server the player is switching from only hands off their data once this login has finished, so it can't be waited for here.
+        if(handoffManager.isEnabled()) {
+            loadPlayerData(uuid);
+            return;
+        }
 
-        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
-        playerDataTable.savePlayerData(uuid, newPlayerData);
+        CompletableFuture<@Nullable PlayerData> future = loadPlayerData(uuid);
+        try {
+            future.get(getRemainingLoadDeadlineMillis(uuid, future, loadDeadlineMillis), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return;
+        } catch (ExecutionException e) {
+            logger.warn(AdventureUtil.serialize("Failed to load player data for " + uuid + " before they joined. Error: " + e.getMessage()));
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
 
-        return newPlayerData;
+        if(skyWelcome.getServer().getPlayer(uuid) == null) scheduleEviction(uuid);
     }
 
     /**
-     * Get the {@link PlayerData} from the database. If no data exists, then a new {@link PlayerData} record will attempt to be created.
-     * If the plugin's settings are invalid, the returned {@link PlayerData} will be null.
+     * Tells the other servers that the player's {@link PlayerData} is now on this server, so the server they switch to next waits for the handoff.
+     * This should be called when the player joins the server.
      * @param uuid The {@link UUID} of the player.
-     * @return A {@link CompletableFuture} containing {@link PlayerData}, which may be null.
      */
-    public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
-        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+    public void handlePlayerJoin(@NotNull UUID uuid) {
+        handoffManager.announce(uuid);
+    }
 
-        return playerDataTable.loadPlayerData(uuid).thenApply(playerData -> {
-            if(playerData == null) {
-                Settings settings = settingsManager.getSettings();
-                if(settings == null) {
-                    logger.error(AdventureUtil.serialize("Unable to create player data due to invalid plugin settings."));
-                    return null;
-                }
+    /**
+     * Hands the player's {@link PlayerData} off to the server they may be switching to, saves any unsaved changes, and schedules the eviction of their cached {@link PlayerData} after the configured eviction delay.
+     * While the circuit breaker is open, the changes are left to be saved once the database recovers.
+     * This should be called when the player quits the server.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public void handlePlayerQuit(@NotNull UUID uuid) {
+        PlayerData playerData = playerDataCache.peek(uuid);
+        if(playerData != null) handoffManager.sendHandoff(uuid, playerData);
+        handoffManager.forget(uuid);
 
-                if(settings.joinMessages().isEmpty()) {
-                    logger.error(AdventureUtil.serialize("Unable to create player data due to no join messages being configured."));
-                    return null;
-                }
+        if(circuitBreaker.isClosed()) flushPlayerData(uuid);
+        scheduleEviction(uuid);
+    }
 
-                if(settings.quitMessages().isEmpty()) {
-                    logger.error(AdventureUtil.serialize("Unable to create player data due to no leave messages being configured."));
-                    return null;
-                }
+    /**
+     * Schedules the eviction of a player's cached {@link PlayerData} after the configured eviction delay.
+     * @param uuid The {@link UUID} of the player.
+     */
+    private void scheduleEviction(@NotNull UUID uuid) {
+        int evictionDelaySeconds = DEFAULT_CACHE_EVICTION_DELAY_SECONDS;
 
-                @Nullable String joinMessage = settings.joinMessages().getFirst().message();
-                if(joinMessage == null) {
-                    logger.error(AdventureUtil.serialize("Unable to create player data due to an invalid default join message."));
-                    logger.error(AdventureUtil.serialize("The plugin chooses the first join message as the default."));
-                    return null;
-                }
+        Settings settings = settingsManager.getSettings();
+        if(settings != null && settings.playerData().cache().evictionDelaySeconds() != null) {
+            evictionDelaySeconds = settings.playerData().cache().evictionDelaySeconds();
+        }
 
-                @Nullable String leaveMessage = settings.quitMessages().getFirst().message();
-                if(leaveMessage == null) {
-                    logger.error(AdventureUtil.serialize("Unable to create player data due to an invalid default leave message."));
-                    logger.error(AdventureUtil.serialize("The plugin chooses the first leave message as the default."));
-                    return null;
-                }
+        playerDataCache.scheduleEviction(uuid, evictionDelaySeconds * 1000L);
+    }
 
-                PlayerData newPlayerData = new PlayerData(true, true, true, joinMessage, leaveMessage);
+    /**
+     * Toggles whether the player's join message should be sent.
+     * @param uuid The {@link UUID} of the player.
+     * @return The updated {@link PlayerData} or null if the player's data is not loaded.
+     */
+    public @Nullable PlayerData toggleSendJoin(@NotNull UUID uuid) {
+        return updatePlayerData(uuid, playerData -> playerData.withSendJoin(!playerData.isSendJoin()));
+    }
 
-                playerDataMap.put(uuid, newPlayerData);
+    /**
+     * Toggles whether the server's motd messages should be sent to the player.
+     * @param uuid The {@link UUID} of the player.
+     * @return The updated {@link PlayerData} or null if the player's data is not loaded.
+     */
+    public @Nullable PlayerData toggleSendMotd(@NotNull UUID uuid) {
+        return updatePlayerData(uuid, playerData -> playerData.withSendMotd(!playerData.isSendMotd()));
+    }
 
-                playerDataTable.savePlayerData(uuid, newPlayerData);
+    /**
+     * Toggles whether the player's leave message should be sent.
+     * @param uuid The {@link UUID} of the player.
+     * @return The updated {@link PlayerData} or null if the player's data is not loaded.
+     */
+    public @Nullable PlayerData toggleSendLeave(@NotNull UUID uuid) {
+        return updatePlayerData(uuid, playerData -> playerData.withSendLeave(!playerData.isSendLeave()));
+    }
 
-                return newPlayerData;
+    /**
+     * Sets the id of the player's join message.
+     * @param uuid The {@link UUID} of the player.
+     * @param joinMessageId The id of the new join message.
+     * @return The updated {@link PlayerData} or null if the player's data is not loaded.
+     */
+    public @Nullable PlayerData setJoinMessageId(@NotNull UUID uuid, int joinMessageId) {
+        return updatePlayerData(uuid, playerData -> playerData.withJoinMessageId(joinMessageId));
+    }
+
+    /**
+     * Sets the id of the player's leave message.
+     * @param uuid The {@link UUID} of the player.
+     * @param leaveMessageId The id of the new leave message.
+     * @return The updated {@link PlayerData} or null if the player's data is not loaded.
+     */
+    public @Nullable PlayerData setLeaveMessageId(@NotNull UUID uuid, int leaveMessageId) {
+        return updatePlayerData(uuid, playerData -> playerData.withLeaveMessageId(leaveMessageId));
+    }
+
+    /**
+     * Atomically replaces the player's cached {@link PlayerData} and queues it to be saved in the next flush.
+     * Multiple changes made before the next flush are saved with a single write.
+     * @param uuid The {@link UUID} of the player.
+     * @param updateFunction The {@link UnaryOperator} that creates the new {@link PlayerData} from the current {@link PlayerData}.
+     * @return The updated {@link PlayerData} or null if the player's data is not loaded.
+     */
+    private @Nullable PlayerData updatePlayerData(@NotNull UUID uuid, @NotNull UnaryOperator<PlayerData> updateFunction) {
+        if(getPlayerData(uuid) == null) return null;
+        // Fallback data given out while the circuit breaker is open isn't cached, so it can't be changed.
+        if(playerDataCache.peek(uuid) == null) return null;
+
+        // The player is marked dirty before the change is journaled, so the journal is never truncated while a journaled change is unsaved.
+        dirtyPlayers.add(uuid);
+        // The change is journaled while the cache entry is locked, so changes to a player are journaled in the order they were made.
+        return playerDataCache.update(uuid, playerData -> {
+            PlayerData updatedPlayerData = updateFunction.apply(playerData);
+            if(playerDataJournal != null) playerDataJournal.append(uuid, updatedPlayerData);
+            return updatedPlayerData;
+        });
+    }
+
+    /**
+     * Refreshes the cached data of players whose saved data was changed outside this cache, such as by an import, a journal replay, or another server.
+     * Players with unsaved changes keep their cached data, since it is newer and will be saved on the next flush.
+     * Online players have their data loaded again, while offline players are removed from the cache so their data is loaded when it is next needed.
+     * @param uuids The {@link Collection} of {@link UUID}s whose saved data changed.
+     */
+    public void refreshPlayerData(@NotNull Collection<UUID> uuids) {
+        List<UUID> onlineUuids = new ArrayList<>();
+        for(UUID uuid : uuids) {
+            knownPlayers.add(uuid);
+
+            if(dirtyPlayers.contains(uuid) || playerDataCache.peek(uuid) == null) continue;
+
+            if(skyWelcome.getServer().getPlayer(uuid) != null) {
+                onlineUuids.add(uuid);
+            } else {
+                playerDataCache.invalidate(uuid);
             }
+        }
+
+        if(onlineUuids.isEmpty()) return;
 
-            playerDataMap.put(uuid, playerData);
+        databaseManager.getPlayerDataTable().loadAll(onlineUuids).whenComplete((playerDataMap, throwable) -> {
+            if(throwable != null) {
+                logger.warn(AdventureUtil.serialize("Failed to reload player data for " + onlineUuids.size() + " online players. Error: " + throwable.getMessage()));
+                return;
+            }
 
-            return playerData;
+            playerDataMap.forEach((uuid, playerData) -> {
+                if(!dirtyPlayers.contains(uuid)) playerDataCache.put(uuid, playerData);
+            });
         });
     }
 
     /**
-     * Save the {@link PlayerData} for the {@link UUID} provided.
+     * Tells other servers sharing the database that the saved data of the players provided was changed outside this cache, such as by an import.
+     * Changes saved by this cache are published automatically.
+     * @param uuids The {@link Collection} of {@link UUID}s whose saved data changed.
+     */
+    public void publishPlayerDataChanges(@NotNull Collection<UUID> uuids) {
+        invalidationBus.publish(uuids);
+    }
+
+    /**
+     * Saves all {@link PlayerData} with unsaved changes.
+     */
+    public void flushPlayerData() {
+        replayJournal(false);
+
+        flushPlayerData(List.copyOf(dirtyPlayers));
+    }
+
+    /**
+     * Saves the {@link PlayerData} for the {@link UUID} provided if it has unsaved changes.
      * @param uuid The {@link UUID} of the player.
-     * @param playerData The {@link PlayerData}.
      */
-    public void savePlayerData(@NotNull UUID uuid, PlayerData playerData) {
-        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
-        playerDataTable.savePlayerData(uuid, playerData);
+    private void flushPlayerData(@NotNull UUID uuid) {
+        flushPlayerData(List.of(uuid));
     }
 
     /**
-     * Load all legacy player settings and migrate it to legacy player data and save the updated player data to the database.
+     * Saves the {@link PlayerData} of every {@link UUID} provided that has unsaved changes, using one batch for saves and one for deletes.
+     * Each player's data is only marked as saved once its batch is committed. If a batch fails, the players are queued to be saved again.
+     * This is synchronized so that batches are queued in the same order their snapshots were taken in.
+     * @param uuids The {@link Collection} of {@link UUID}s to save.
      */
-    public void migrateLegacyPlayerSettings() {
-        Settings settings = settingsManager.getSettings();
-        if(settings == null) {
-            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to invalid plugin settings."));
-            return;
+    private synchronized void flushPlayerData(@NotNull Collection<UUID> uuids) {
+        // Counted before any player leaves the dirty set, so the journal can't be truncated while this flush is unsaved.
+        inFlightFlushes.incrementAndGet();
+
+        Map<UUID, PlayerData> playerDataToSave = new HashMap<>();
+        Map<UUID, PlayerData> playerDataToDelete = new HashMap<>();
+        for(UUID uuid : uuids) {
+            if(!dirtyPlayers.remove(uuid)) continue;
+
+            PlayerData playerData = playerDataCache.peek(uuid);
+            if(playerData == null) continue;
+
+            if(storageMode == StorageMode.SPARSE && isDefaultPlayerData(playerData)) {
+                playerDataToDelete.put(uuid, playerData);
+                knownPlayers.remove(uuid);
+            } else {
+                playerDataToSave.put(uuid, playerData);
+                knownPlayers.add(uuid);
+            }
+        }
+
+        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
+        CompletableFuture<Void> saveFuture = CompletableFuture.completedFuture(null);
+        if(!playerDataToSave.isEmpty()) {
+            saveFuture = playerDataTable.saveAll(playerDataToSave).whenComplete((result, throwable) -> handleFlushResult(playerDataToSave, throwable));
+        }
+
+        CompletableFuture<Void> deleteFuture = CompletableFuture.completedFuture(null);
+        if(!playerDataToDelete.isEmpty()) {
+            deleteFuture = playerDataTable.deleteAll(playerDataToDelete.keySet()).whenComplete((result, throwable) -> handleFlushResult(playerDataToDelete, throwable));
         }
 
-        if(settings.joinMessages().isEmpty()) {
-            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to no join messages being configured."));
+        CompletableFuture.allOf(saveFuture, deleteFuture).whenComplete((result, throwable) -> {
+            if(inFlightFlushes.decrementAndGet() == 0 && playerDataJournal != null) playerDataJournal.checkpoint(this::isAllPlayerDataSaved);
+        });
+    }
+
+    /**
+     * Marks the flushed {@link PlayerData} as saved and tells other servers about it, or queues it to be saved again if the flush failed.
+     * @param flushedPlayerData A {@link Map} of each {@link UUID} to the {@link PlayerData} that was flushed.
+     * @param throwable The {@link Throwable} the flush failed with or null if it succeeded.
+     */
+    private void handleFlushResult(@NotNull Map<UUID, PlayerData> flushedPlayerData, @Nullable Throwable throwable) {
+        if(throwable != null) {
+            logger.warn(AdventureUtil.serialize("Failed to save player data for " + flushedPlayerData.size() + " players. It will be saved again on the next flush. Error: " + throwable.getMessage()));
+            dirtyPlayers.addAll(flushedPlayerData.keySet());
             return;
         }
 
-        if(settings.quitMessages().isEmpty()) {
-            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to no leave messages being configured."));
+        flushedPlayerData.forEach((uuid, playerData) -> playerDataCache.markSaved(uuid, playerData.getVersion()));
+        invalidationBus.publish(flushedPlayerData.keySet());
+    }
+
+    /**
+     * Checks if the {@link PlayerData} matches the defaults from the plugin's settings.
+     * Message ids that no longer exist are treated as the default message, since that is what they resolve to.
+     * @param playerData The {@link PlayerData} to check.
+     * @return true if the {@link PlayerData} matches the defaults, false if not or if the plugin's settings are invalid.
+     */
+    private boolean isDefaultPlayerData(@NotNull PlayerData playerData) {
+        MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+        if(messageCatalog == null || messageCatalog.getDefaultJoinMessageId() == 0 || messageCatalog.getDefaultQuitMessageId() == 0) return false;
+
+        return playerData.isSendJoin()
+                && playerData.isSendMotd()
+                && playerData.isSendLeave()
+                && messageCatalog.resolveJoinMessageId(playerData.getJoinMessageId()) == messageCatalog.getDefaultJoinMessageId()
+                && messageCatalog.resolveQuitMessageId(playerData.getLeaveMessageId()) == messageCatalog.getDefaultQuitMessageId();
+    }
+
+    /**
+     * Load all legacy player settings and migrate it to legacy player data and save the updated player data to the database.
+     * Saved player data that stored the full join and leave message is converted to message ids once, by the table's schema migrations.
+     */
+    public void migrateLegacyPlayerSettings() {
+        MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+        if(messageCatalog == null) {
+            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to invalid plugin settings."));
             return;
         }
 
-        @Nullable String defaultJoinMessage = settings.joinMessages().getFirst().message();
-        if(defaultJoinMessage == null) {
-            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to an invalid default join message."));
+        if(messageCatalog.getDefaultJoinMessageId() == 0) {
+            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to no valid join messages being configured."));
             logger.error(AdventureUtil.serialize("The plugin chooses the first join message as the default."));
             return;
         }
 
-        @Nullable String defaultLeaveMessage = settings.quitMessages().getFirst().message();
-        if(defaultLeaveMessage == null) {
-            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to an invalid default leave message."));
+        if(messageCatalog.getDefaultQuitMessageId() == 0) {
+            logger.error(AdventureUtil.serialize("Unable to migrate legacy player data due to no valid leave messages being configured."));
             logger.error(AdventureUtil.serialize("The plugin chooses the first leave message as the default."));
             return;
         }
 
-        PlayerDataTable playerDataTable = databaseManager.getPlayerDataTable();
-
         Path playerDataPath = Path.of(skyWelcome.getDataFolder() + File.separator + "playerdata");
         // If the path is not a directory, don't migrate any data.
         if(!Files.isDirectory(playerDataPath)) return;
@@ -226,6 +923,8 @@ public class PlayerDataManager {
         // Don't migrate player data if the path's directory doesn't exist.
         if(!Files.exists(playerDataPath)) return;
 
+        Map<UUID, PlayerData> migratedPlayerData = new HashMap<>();
+        List<Path> migratedPaths = new ArrayList<>();
         try(Stream<Path> paths = Files.walk(playerDataPath)) {
             paths.filter(Files::isRegularFile)
                     .forEach(path -> {
@@ -237,15 +936,13 @@ public class PlayerDataManager {
                         try {
                             PlayerSettings playerSettings = loader.load().get(PlayerSettings.class);
                             if(playerSettings != null) {
-                                PlayerData playerData = migrateLegacyPlayerSettings(defaultJoinMessage, defaultLeaveMessage, playerSettings);
-
-                                playerDataTable.savePlayerData(uuid, playerData);
+                                PlayerData playerData = migrateLegacyPlayerSettings(messageCatalog, playerSettings);
 
-                                try {
-                                    Files.delete(path);
-                                } catch (IOException e) {
-                                    logger.warn(AdventureUtil.serialize("Failed to delete legacy player data for file: " + path.toFile() + ". Error: " + e.getMessage()));
+                                if(storageMode == StorageMode.FULL || !isDefaultPlayerData(playerData)) {
+                                    migratedPlayerData.put(uuid, playerData);
                                 }
+
+                                migratedPaths.add(path);
                             }
                         } catch (ConfigurateException e) {
                             logger.warn(AdventureUtil.serialize("Failed to migrate legacy player data for file: " + path.toFile() + ". Error: " + e.getMessage()));
@@ -256,6 +953,32 @@ public class PlayerDataManager {
             return;
         }
 
+        // The legacy files are only deleted once the migrated data is saved, so nothing is lost if the save fails.
+        databaseManager.getPlayerDataTable().saveAll(migratedPlayerData).whenComplete((result, throwable) -> {
+            if(throwable != null) {
+                logger.warn(AdventureUtil.serialize("Failed to save migrated legacy player data. Error: " + throwable.getMessage()));
+                return;
+            }
+
+            migratedPlayerData.keySet().forEach(knownPlayers::add);
+            deleteLegacyPlayerSettings(playerDataPath, migratedPaths);
+        });
+    }
+
+    /**
+     * Deletes migrated legacy player settings files and the legacy player data folder if it is empty.
+     * @param playerDataPath The {@link Path} to the legacy player data folder.
+     * @param migratedPaths The {@link List} of {@link Path}s to the migrated files.
+     */
+    private void deleteLegacyPlayerSettings(@NotNull Path playerDataPath, @NotNull List<Path> migratedPaths) {
+        for(Path path : migratedPaths) {
+            try {
+                Files.delete(path);
+            } catch (IOException e) {
+                logger.warn(AdventureUtil.serialize("Failed to delete legacy player data for file: " + path.toFile() + ". Error: " + e.getMessage()));
+            }
+        }
+
         // If the player data folder is empty, delete the directory
         try(Stream<Path> paths = Files.list(playerDataPath)) {
             int count = paths.toList().size();
@@ -263,30 +986,40 @@ public class PlayerDataManager {
                 Files.delete(playerDataPath);
             }
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            logger.warn(AdventureUtil.serialize("Failed to delete the legacy player data folder. Error: " + e.getMessage()));
         }
     }
 
     /**
      * Migrate the legacy player data.
-     * @param defaultJoinMessage The default join message.
-     * @param defaultLeaveMessage The default leave message.
+     * @param messageCatalog The {@link MessageCatalog} to find the ids of the player's selected messages in.
      * @param playerSettings The legacy {@link PlayerSettings}.
      * @return The migrated {@link PlayerData}.
      */
-    private @NotNull PlayerData migrateLegacyPlayerSettings(@NotNull String defaultJoinMessage, @NotNull String defaultLeaveMessage, PlayerSettings playerSettings) {
+    private @NotNull PlayerData migrateLegacyPlayerSettings(@NotNull MessageCatalog messageCatalog, PlayerSettings playerSettings) {
         boolean sendJoin = true;
         boolean sendMotd = true;
         boolean sendLeave = true;
-        String joinMessage = defaultJoinMessage;
-        String leaveMessage = defaultLeaveMessage;
+        int joinMessageId = messageCatalog.getDefaultJoinMessageId();
+        int leaveMessageId = messageCatalog.getDefaultQuitMessageId();
 
         if(playerSettings.joinMessage() != null) sendJoin = playerSettings.joinMessage();
         if(playerSettings.motd() != null) sendMotd = playerSettings.motd();
         if(playerSettings.leaveMessage() != null) sendLeave = playerSettings.leaveMessage();
-        if(playerSettings.selectedJoinMessage() != null) joinMessage = playerSettings.selectedJoinMessage();
-        if(playerSettings.selectedLeaveMessage() != null) leaveMessage = playerSettings.selectedLeaveMessage();
+        if(playerSettings.selectedJoinMessage() != null) {
+            joinMessageId = Objects.requireNonNullElse(messageCatalog.findJoinMessageId(playerSettings.selectedJoinMessage()), joinMessageId);
+        }
+        if(playerSettings.selectedLeaveMessage() != null) {
+            leaveMessageId = Objects.requireNonNullElse(messageCatalog.findQuitMessageId(playerSettings.selectedLeaveMessage()), leaveMessageId);
+        }
 
-        return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessage, leaveMessage);
+        return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId);
     }
+
+    /**
+     * A load of a player's {@link PlayerData} that is still running.
+     * @param future The {@link CompletableFuture} completed once the load finishes.
+     * @param startedAt The time the load started, from {@link System#nanoTime()}.
+     */
+    private record PendingLoad(@NotNull CompletableFuture<@Nullable PlayerData> future, long startedAt) {}
 }
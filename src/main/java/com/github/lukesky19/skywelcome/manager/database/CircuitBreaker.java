@@ -0,0 +1,241 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.enums.CircuitState;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class stops player data from being loaded from or saved to a database that keeps timing out or failing.
+ * Loads are tracked against a deadline. Once enough loads in a row have missed it or failed, the circuit breaker opens and the plugin runs from the cache only.
+ * While open, a single probe query is run periodically. When a probe succeeds, the circuit breaker closes and the recovery listeners are called.
+ */
+public class CircuitBreaker {
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final int DEFAULT_PROBE_INTERVAL_SECONDS = 10;
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull DatabaseManager databaseManager;
+    private final @NotNull List<Runnable> recoveryListeners = new CopyOnWriteArrayList<>();
+
+    // Read by track() on the threads that start loads, outside the lock.
+    private volatile boolean enabled = true;
+    private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    private int probeIntervalSeconds = DEFAULT_PROBE_INTERVAL_SECONDS;
+    private long probeTimeoutMillis = TimeUnit.SECONDS.toMillis(DEFAULT_PROBE_INTERVAL_SECONDS);
+    private volatile @NotNull CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private @Nullable BukkitTask probeTask;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #CircuitBreaker(SkyWelcome, SettingsManager, DatabaseManager)} instead.
+     * @deprecated You should use {@link #CircuitBreaker(SkyWelcome, SettingsManager, DatabaseManager)} instead.
+     */
+    @Deprecated
+    public CircuitBreaker() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param databaseManager A {@link DatabaseManager} instance.
+     */
+    public CircuitBreaker(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager, @NotNull DatabaseManager databaseManager) {
+        this.skyWelcome = skyWelcome;
+        this.logger = skyWelcome.getComponentLogger();
+        this.settingsManager = settingsManager;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Applies the circuit breaker settings from the plugin's settings.
+     * Disabling the circuit breaker while it is open closes it.
+     */
+    public synchronized void reload() {
+        boolean configuredEnabled = true;
+        failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+        probeIntervalSeconds = DEFAULT_PROBE_INTERVAL_SECONDS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            Settings.CircuitBreakerConfig circuitBreakerConfig = settings.storage().circuitBreaker();
+            configuredEnabled = Objects.requireNonNullElse(circuitBreakerConfig.enabled(), true);
+            failureThreshold = Math.max(Objects.requireNonNullElse(circuitBreakerConfig.failureThreshold(), DEFAULT_FAILURE_THRESHOLD), 1);
+            probeIntervalSeconds = Math.max(Objects.requireNonNullElse(circuitBreakerConfig.probeIntervalSeconds(), DEFAULT_PROBE_INTERVAL_SECONDS), 1);
+        }
+        // A probe that takes longer than the interval between probes is treated as a failure.
+        probeTimeoutMillis = TimeUnit.SECONDS.toMillis(probeIntervalSeconds);
+        // Assigned once, so loads never see the breaker briefly enabled while the settings are applied.
+        enabled = configuredEnabled;
+
+        if(!enabled && state != CircuitState.CLOSED) close();
+    }
+
+    /**
+     * Adds a listener that is called when the circuit breaker closes after the database has recovered.
+     * Listeners are called from the thread that completed the probe, so they must not require the main thread.
+     * @param listener The {@link Runnable} to call.
+     */
+    public void addRecoveryListener(@NotNull Runnable listener) {
+        recoveryListeners.add(listener);
+    }
+
+    /**
+     * Get the current {@link CircuitState}.
+     * @return The {@link CircuitState}.
+     */
+    public @NotNull CircuitState getState() {
+        return state;
+    }
+
+    /**
+     * Can the database be used for player data?
+     * @return true if the circuit breaker is closed, false if the plugin should only use the cache.
+     */
+    public boolean isClosed() {
+        return state == CircuitState.CLOSED;
+    }
+
+    /**
+     * Tracks a load against the deadline provided. The load counts as a failure if it fails or hasn't completed when the deadline passes, otherwise as a success.
+     * The load itself is not cancelled when the deadline passes, so it can still finish in the background.
+     * @param future The {@link CompletableFuture} of the load.
+     * @param deadlineMillis The number of milliseconds the load has to complete in.
+     */
+    public void track(@NotNull CompletableFuture<?> future, long deadlineMillis) {
+        if(!enabled) return;
+
+        AtomicBoolean reported = new AtomicBoolean();
+        future.whenComplete((result, throwable) -> {
+            if(!reported.compareAndSet(false, true)) return;
+
+            if(throwable != null) {
+                recordFailure();
+            } else {
+                recordSuccess();
+            }
+        });
+
+        if(future.isDone()) return;
+
+        CompletableFuture.delayedExecutor(deadlineMillis, TimeUnit.MILLISECONDS).execute(() -> {
+            if(reported.compareAndSet(false, true)) recordFailure();
+        });
+    }
+
+    /**
+     * Resets the count of failures in a row after a load succeeded.
+     */
+    private synchronized void recordSuccess() {
+        if(state == CircuitState.CLOSED) consecutiveFailures = 0;
+    }
+
+    /**
+     * Counts a failed load, and opens the circuit breaker if enough loads in a row have failed.
+     */
+    private synchronized void recordFailure() {
+        if(state != CircuitState.CLOSED) return;
+
+        consecutiveFailures++;
+        if(consecutiveFailures < failureThreshold) return;
+
+        state = CircuitState.OPEN;
+        logger.warn(AdventureUtil.serialize(consecutiveFailures + " player data loads in a row timed out or failed. Player data will only be kept in the cache until the database recovers."));
+        scheduleProbe();
+    }
+
+    /**
+     * Schedules the next probe of the database.
+     */
+    private synchronized void scheduleProbe() {
+        if(probeTask != null) probeTask.cancel();
+        // Loads rejected while the plugin is disabling can open the circuit breaker, but tasks can no longer be scheduled.
+        if(!skyWelcome.isEnabled()) return;
+
+        probeTask = skyWelcome.getServer().getScheduler().runTaskLaterAsynchronously(skyWelcome, this::probe, probeIntervalSeconds * 20L);
+    }
+
+    /**
+     * Checks whether the database has recovered by reading a row of player data.
+     * The circuit breaker closes if the read succeeds in time, otherwise another probe is scheduled.
+     */
+    private void probe() {
+        long timeoutMillis;
+        synchronized(this) {
+            probeTask = null;
+            if(state != CircuitState.OPEN) return;
+
+            state = CircuitState.HALF_OPEN;
+            timeoutMillis = probeTimeoutMillis;
+        }
+
+        databaseManager.getPlayerDataTable().probe()
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, throwable) -> {
+                    if(throwable != null) {
+                        synchronized(this) {
+                            if(state != CircuitState.HALF_OPEN) return;
+
+                            state = CircuitState.OPEN;
+                            scheduleProbe();
+                        }
+                        return;
+                    }
+
+                    close();
+                });
+    }
+
+    /**
+     * Closes the circuit breaker and calls the recovery listeners, if it wasn't already closed.
+     */
+    private void close() {
+        synchronized(this) {
+            if(state == CircuitState.CLOSED) return;
+
+            state = CircuitState.CLOSED;
+            consecutiveFailures = 0;
+            if(probeTask != null) {
+                probeTask.cancel();
+                probeTask = null;
+            }
+        }
+
+        logger.info(AdventureUtil.serialize("The database has recovered. Player data will be loaded from and saved to the database again."));
+        recoveryListeners.forEach(Runnable::run);
+    }
+}
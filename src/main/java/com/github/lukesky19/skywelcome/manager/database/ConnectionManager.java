@@ -17,37 +17,279 @@
 */
 package com.github.lukesky19.skywelcome.manager.database;
 
-import com.github.lukesky19.skylib.api.database.connection.AbstractConnectionManager;
 import com.github.lukesky19.skylib.libs.hikaricp.HikariConfig;
 import com.github.lukesky19.skylib.libs.hikaricp.HikariDataSource;
 import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.enums.StorageType;
+import com.github.lukesky19.skywelcome.manager.database.dialect.SqlDialect;
 import org.bukkit.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Objects;
 
 /**
  * This class manages connections to the database.
+ * Writes use a pool with a single connection so saves never contend with each other for the database's locks,
+ * while reads use a separate pool of read-only connections so loading player data never waits behind a burst of saves.
+ * The database is either a local SQLite file or a MySQL, MariaDB, or PostgreSQL server, depending on the plugin's storage settings.
  */
-public class ConnectionManager extends AbstractConnectionManager {
+public class ConnectionManager {
+    private static final @NotNull String DEFAULT_JOURNAL_MODE = "WAL";
+    private static final @NotNull String DEFAULT_SYNCHRONOUS = "NORMAL";
+    private static final long DEFAULT_MMAP_SIZE = 268435456L;
+    private static final int DEFAULT_CACHE_SIZE = -16000;
+    private static final int DEFAULT_BUSY_TIMEOUT_MILLIS = 5000;
+    private static final int DEFAULT_READER_POOL_SIZE = 4;
+    private static final @NotNull String DEFAULT_HOST = "localhost";
+    private static final @NotNull String DEFAULT_DATABASE = "skywelcome";
+
+    private final @Nullable Settings.StorageConfig storageConfig;
+    private final @NotNull StorageType storageType;
+    private final @NotNull SqlDialect sqlDialect;
+    private final int readerPoolSize;
+    private final @NotNull HikariDataSource writerDataSource;
+    private final @NotNull HikariDataSource readerDataSource;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #ConnectionManager(SkyWelcome, SettingsManager)} instead.
+     * @deprecated You should use {@link #ConnectionManager(SkyWelcome, SettingsManager)} instead.
+     */
+    @Deprecated
+    public ConnectionManager() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
     /**
      * Constructor
+     * The plugin's settings must be loaded before this is called so the storage settings can be applied.
      * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     */
+    public ConnectionManager(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager) {
+        Settings settings = settingsManager.getSettings();
+        storageConfig = settings != null ? settings.storage() : null;
+        storageType = storageConfig != null ? Objects.requireNonNullElse(storageConfig.type(), StorageType.SQLITE) : StorageType.SQLITE;
+        sqlDialect = SqlDialect.forStorageType(storageType);
+        readerPoolSize = getConfiguredReaderPoolSize();
+
+        writerDataSource = createWriterDataSource(skyWelcome);
+        readerDataSource = createReaderDataSource(skyWelcome);
+    }
+
+    /**
+     * Get the {@link StorageType} of the database.
+     * @return The {@link StorageType}.
      */
-    public ConnectionManager(@NotNull SkyWelcome skyWelcome) {
-        super(skyWelcome);
+    public @NotNull StorageType getStorageType() {
+        return storageType;
     }
 
     /**
-     * Creates the required {@link HikariConfig} to access the database and returns the {@link HikariDataSource}.
+     * Get the {@link SqlDialect} for the database.
+     * @return The {@link SqlDialect}.
+     */
+    public @NotNull SqlDialect getSqlDialect() {
+        return sqlDialect;
+    }
+
+    /**
+     * Get a connection from the writer pool. The connection must be closed after use to return it to the pool.
+     * @return A {@link Connection} that can read and write.
+     * @throws SQLException If a connection could not be obtained.
+     */
+    public @NotNull Connection getWriteConnection() throws SQLException {
+        return writerDataSource.getConnection();
+    }
+
+    /**
+     * Get a connection from the read-only pool. The connection must be closed after use to return it to the pool.
+     * @return A read-only {@link Connection}.
+     * @throws SQLException If a connection could not be obtained.
+     */
+    public @NotNull Connection getReadConnection() throws SQLException {
+        return readerDataSource.getConnection();
+    }
+
+    /**
+     * Get the number of connections in the read-only pool.
+     * @return The number of read-only connections.
+     */
+    public int getReaderPoolSize() {
+        return readerPoolSize;
+    }
+
+    /**
+     * Closes the read-only and writer pools.
+     */
+    public void close() {
+        if(!readerDataSource.isClosed()) readerDataSource.close();
+        if(!writerDataSource.isClosed()) writerDataSource.close();
+    }
+
+    /**
+     * Get the number of read-only connections from the storage settings.
+     * SQLite databases use the SQLite reader pool size, and database servers use the server pool size.
+     * @return The number of read-only connections, which is at least 1.
+     */
+    private int getConfiguredReaderPoolSize() {
+        Integer configuredSize = null;
+        if(storageConfig != null) {
+            if(storageType == StorageType.SQLITE) {
+                if(storageConfig.sqlite() != null) configuredSize = storageConfig.sqlite().readerPoolSize();
+            } else {
+                if(storageConfig.server() != null) configuredSize = storageConfig.server().poolSize();
+            }
+        }
+
+        return Math.max(Objects.requireNonNullElse(configuredSize, DEFAULT_READER_POOL_SIZE), 1);
+    }
+
+    /**
+     * Creates the writer pool, which only ever has one connection.
      * @param plugin The {@link Plugin} implementing and making use of this class.
-     * @return A {@link HikariDataSource} object.
+     * @return The writer {@link HikariDataSource}.
      */
-    @Override
-    protected @NotNull HikariDataSource createHikariDataSource(@NotNull Plugin plugin) {
+    private @NotNull HikariDataSource createWriterDataSource(@NotNull Plugin plugin) {
+        HikariConfig config = createConfig(plugin, "SkyWelcome-Writer");
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+
+        return createDataSource(plugin, config);
+    }
+
+    /**
+     * Creates the read-only pool.
+     * SQLite connections are opened with query_only enabled so a read can never take SQLite's write lock.
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @return The read-only {@link HikariDataSource}.
+     */
+    private @NotNull HikariDataSource createReaderDataSource(@NotNull SkyWelcome skyWelcome) {
+        HikariConfig config = createConfig(skyWelcome, "SkyWelcome-Reader");
+        config.setMaximumPoolSize(readerPoolSize);
+        config.setMinimumIdle(readerPoolSize);
+        if(storageType == StorageType.SQLITE) {
+            // The SQLite driver doesn't allow the read-only flag to be changed on an open connection.
+            config.setConnectionInitSql("PRAGMA query_only = true");
+        } else {
+            config.setReadOnly(true);
+        }
+
+        return createDataSource(skyWelcome, config);
+    }
+
+    /**
+     * Creates a {@link HikariConfig} for the database with the storage settings applied.
+     * @param plugin The {@link Plugin} implementing and making use of this class.
+     * @param poolName The name of the pool.
+     * @return The {@link HikariConfig}.
+     */
+    private @NotNull HikariConfig createConfig(@NotNull Plugin plugin, @NotNull String poolName) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl("jdbc:sqlite:" +  plugin.getDataFolder().getAbsolutePath() + File.separator + "database.db");
+        config.setPoolName(poolName);
         config.setAutoCommit(true);
-        return new HikariDataSource(config);
+        if(storageType == StorageType.SQLITE) {
+            applySqliteConfig(plugin, config, storageConfig != null ? storageConfig.sqlite() : null);
+        } else {
+            applyServerConfig(config, storageConfig != null ? storageConfig.server() : null);
+        }
+
+        return config;
+    }
+
+    /**
+     * Configures the {@link HikariConfig} for the local SQLite database.
+     * The pragmas are passed to the SQLite driver as connection properties, so they are applied to every connection the pool opens.
+     * @param plugin The {@link Plugin} implementing and making use of this class.
+     * @param config The {@link HikariConfig} to configure.
+     * @param sqliteConfig The {@link Settings.SqliteConfig} or null to use the defaults.
+     */
+    private void applySqliteConfig(@NotNull Plugin plugin, @NotNull HikariConfig config, @Nullable Settings.SqliteConfig sqliteConfig) {
+        String journalMode = DEFAULT_JOURNAL_MODE;
+        String synchronous = DEFAULT_SYNCHRONOUS;
+        long mmapSize = DEFAULT_MMAP_SIZE;
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        int busyTimeoutMillis = DEFAULT_BUSY_TIMEOUT_MILLIS;
+        if(sqliteConfig != null) {
+            journalMode = Objects.requireNonNullElse(sqliteConfig.journalMode(), DEFAULT_JOURNAL_MODE);
+            synchronous = Objects.requireNonNullElse(sqliteConfig.synchronous(), DEFAULT_SYNCHRONOUS);
+            mmapSize = Objects.requireNonNullElse(sqliteConfig.mmapSize(), DEFAULT_MMAP_SIZE);
+            cacheSize = Objects.requireNonNullElse(sqliteConfig.cacheSize(), DEFAULT_CACHE_SIZE);
+            busyTimeoutMillis = Objects.requireNonNullElse(sqliteConfig.busyTimeoutMillis(), DEFAULT_BUSY_TIMEOUT_MILLIS);
+        }
+
+        config.setJdbcUrl("jdbc:sqlite:" +  plugin.getDataFolder().getAbsolutePath() + File.separator + "database.db");
+        config.addDataSourceProperty("journal_mode", journalMode);
+        config.addDataSourceProperty("synchronous", synchronous);
+        config.addDataSourceProperty("mmap_size", String.valueOf(mmapSize));
+        config.addDataSourceProperty("cache_size", String.valueOf(cacheSize));
+        config.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeoutMillis));
+    }
+
+    /**
+     * Configures the {@link HikariConfig} for a MySQL, MariaDB, or PostgreSQL server.
+     * @param config The {@link HikariConfig} to configure.
+     * @param serverConfig The {@link Settings.ServerConfig} or null to use the defaults.
+     */
+    private void applyServerConfig(@NotNull HikariConfig config, @Nullable Settings.ServerConfig serverConfig) {
+        int defaultPort = storageType == StorageType.POSTGRESQL ? 5432 : 3306;
+
+        String host = DEFAULT_HOST;
+        int port = defaultPort;
+        String database = DEFAULT_DATABASE;
+        String username = null;
+        String password = null;
+        if(serverConfig != null) {
+            host = Objects.requireNonNullElse(serverConfig.host(), DEFAULT_HOST);
+            port = Objects.requireNonNullElse(serverConfig.port(), defaultPort);
+            database = Objects.requireNonNullElse(serverConfig.database(), DEFAULT_DATABASE);
+            username = serverConfig.username();
+            password = serverConfig.password();
+        }
+
+        switch(storageType) {
+            case MYSQL -> {
+                config.setDriverClassName("com.mysql.cj.jdbc.Driver");
+                config.setJdbcUrl("jdbc:mysql://" + host + ":" + port + "/" + database);
+                config.addDataSourceProperty("rewriteBatchedStatements", "true");
+            }
+            case MARIADB -> {
+                config.setDriverClassName("org.mariadb.jdbc.Driver");
+                config.setJdbcUrl("jdbc:mariadb://" + host + ":" + port + "/" + database);
+            }
+            case POSTGRESQL -> {
+                config.setDriverClassName("org.postgresql.Driver");
+                config.setJdbcUrl("jdbc:postgresql://" + host + ":" + port + "/" + database);
+                config.addDataSourceProperty("reWriteBatchedInserts", "true");
+            }
+            default -> throw new IllegalStateException("Unexpected storage type: " + storageType);
+        }
+
+        config.setUsername(username);
+        config.setPassword(password);
+    }
+
+    /**
+     * Creates the {@link HikariDataSource}.
+     * The plugin's class loader is used as the context class loader while the pool starts, so Hikari can find drivers loaded from the plugin's libraries.
+     * @param plugin The {@link Plugin} implementing and making use of this class.
+     * @param config The {@link HikariConfig}.
+     * @return The {@link HikariDataSource}.
+     */
+    private @NotNull HikariDataSource createDataSource(@NotNull Plugin plugin, @NotNull HikariConfig config) {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(plugin.getClass().getClassLoader());
+        try {
+            return new HikariDataSource(config);
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
     }
 }
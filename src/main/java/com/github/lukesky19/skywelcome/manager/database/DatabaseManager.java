@@ -17,26 +17,61 @@
 */
 package com.github.lukesky19.skywelcome.manager.database;
 
-import com.github.lukesky19.skylib.api.database.AbstractDatabaseManager;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.manager.database.migration.SchemaMigrator;
+import com.github.lukesky19.skywelcome.manager.database.tables.PlayerDataChangeTable;
 import com.github.lukesky19.skywelcome.manager.database.tables.PlayerDataTable;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * This class manages access to the database table classes.
  */
-public class DatabaseManager extends AbstractDatabaseManager {
+public class DatabaseManager {
+    private final @NotNull ConnectionManager connectionManager;
+    private final @NotNull QueueManager queueManager;
     private final @NotNull PlayerDataTable playerDataTable;
+    private final @Nullable PlayerDataChangeTable playerDataChangeTable;
 
     /**
      * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance. The settings must be loaded before the tables are created.
      * @param connectionManager Α {@link ConnectionManager} instance.
      * @param queueManager A {@link QueueManager} instance.
      */
-    public DatabaseManager(@NotNull ConnectionManager connectionManager, @NotNull QueueManager queueManager) {
-        super(connectionManager, queueManager);
+    public DatabaseManager(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager, @NotNull ConnectionManager connectionManager, @NotNull QueueManager queueManager) {
+        this.connectionManager = connectionManager;
+        this.queueManager = queueManager;
 
-        playerDataTable = new PlayerDataTable(queueManager);
+        SchemaMigrator schemaMigrator = new SchemaMigrator(skyWelcome.getComponentLogger());
+        playerDataTable = new PlayerDataTable(queueManager, connectionManager.getSqlDialect(), schemaMigrator, settingsManager::getMessageCatalog);
         playerDataTable.createTable();
+
+        // The change log is only read by other servers, so it isn't created for databases only this server uses.
+        if(connectionManager.getSqlDialect().isShared()) {
+            playerDataChangeTable = new PlayerDataChangeTable(queueManager, connectionManager.getSqlDialect(), schemaMigrator);
+            playerDataChangeTable.createTable();
+        } else {
+            playerDataChangeTable = null;
+        }
+    }
+
+    /**
+     * Get the {@link ConnectionManager} that manages connections to the database.
+     * @return The {@link ConnectionManager}.
+     */
+    public @NotNull ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Get the {@link QueueManager} that runs work on the database.
+     * @return The {@link QueueManager}.
+     */
+    public @NotNull QueueManager getQueueManager() {
+        return queueManager;
     }
 
     /**
@@ -46,4 +81,28 @@ public class DatabaseManager extends AbstractDatabaseManager {
     public @NotNull PlayerDataTable getPlayerDataTable() {
         return playerDataTable;
     }
+
+    /**
+     * Get the {@link PlayerDataChangeTable}.
+     * @return The {@link PlayerDataChangeTable}, or null if the database isn't shared.
+     */
+    public @Nullable PlayerDataChangeTable getPlayerDataChangeTable() {
+        return playerDataChangeTable;
+    }
+
+    /**
+     * Is the database shared with other servers?
+     * @return true if other servers may read and write the same player data, otherwise false.
+     */
+    public boolean isStorageShared() {
+        return connectionManager.getSqlDialect().isShared();
+    }
+
+    /**
+     * Waits for queued writes to finish, then stops the queue and closes the database's connection pools.
+     */
+    public void handlePluginDisable() {
+        queueManager.shutdown();
+        connectionManager.close();
+    }
 }
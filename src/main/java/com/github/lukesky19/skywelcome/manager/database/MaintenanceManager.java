@@ -0,0 +1,283 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.MessageCatalog;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.enums.StorageType;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class runs database maintenance and deletes the data of inactive players once per configured low-traffic window.
+ * All the work is queued to the database's writer thread, so it never runs on the main thread and never runs at the same time as a save.
+ */
+public class MaintenanceManager {
+    private static final long CHECK_INTERVAL_TICKS = 1200L;
+    private static final @NotNull LocalTime DEFAULT_WINDOW_START = LocalTime.of(4, 0);
+    private static final @NotNull LocalTime DEFAULT_WINDOW_END = LocalTime.of(6, 0);
+    private static final int DEFAULT_MAX_ONLINE_PLAYERS = 10;
+    private static final int SQLITE_AUTO_VACUUM_INCREMENTAL = 2;
+    private static final int DEFAULT_RETENTION_MAX_AGE_DAYS = 365;
+    private static final int DEFAULT_RETENTION_BATCH_SIZE = 500;
+    private static final int DEFAULT_RETENTION_BATCH_DELAY_MILLIS = 250;
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull DatabaseManager databaseManager;
+
+    private @Nullable BukkitTask checkTask;
+    private @NotNull LocalTime windowStart = DEFAULT_WINDOW_START;
+    private @NotNull LocalTime windowEnd = DEFAULT_WINDOW_END;
+    private int maxOnlinePlayers = DEFAULT_MAX_ONLINE_PLAYERS;
+    private boolean maintenanceEnabled = true;
+    private boolean retentionEnabled = true;
+    private int retentionMaxAgeDays = DEFAULT_RETENTION_MAX_AGE_DAYS;
+    private int retentionBatchSize = DEFAULT_RETENTION_BATCH_SIZE;
+    private int retentionBatchDelayMillis = DEFAULT_RETENTION_BATCH_DELAY_MILLIS;
+    private @Nullable LocalDateTime lastRun;
+    private final @NotNull AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Default Constructor.
+     * You should use {@link #MaintenanceManager(SkyWelcome, SettingsManager, DatabaseManager)} instead.
+     * @deprecated You should use {@link #MaintenanceManager(SkyWelcome, SettingsManager, DatabaseManager)} instead.
+     */
+    @Deprecated
+    public MaintenanceManager() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param databaseManager A {@link DatabaseManager} instance.
+     */
+    public MaintenanceManager(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager, @NotNull DatabaseManager databaseManager) {
+        this.skyWelcome = skyWelcome;
+        this.logger = skyWelcome.getComponentLogger();
+        this.settingsManager = settingsManager;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Applies the maintenance and retention settings from the plugin's settings and schedules the check for the maintenance window.
+     */
+    public void reload() {
+        if(checkTask != null) {
+            checkTask.cancel();
+            checkTask = null;
+        }
+
+        maintenanceEnabled = true;
+        windowStart = DEFAULT_WINDOW_START;
+        windowEnd = DEFAULT_WINDOW_END;
+        maxOnlinePlayers = DEFAULT_MAX_ONLINE_PLAYERS;
+        retentionEnabled = true;
+        retentionMaxAgeDays = DEFAULT_RETENTION_MAX_AGE_DAYS;
+        retentionBatchSize = DEFAULT_RETENTION_BATCH_SIZE;
+        retentionBatchDelayMillis = DEFAULT_RETENTION_BATCH_DELAY_MILLIS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            Settings.MaintenanceConfig maintenanceConfig = settings.storage().maintenance();
+            maintenanceEnabled = Objects.requireNonNullElse(maintenanceConfig.enabled(), true);
+            windowStart = parseTime(maintenanceConfig.windowStart(), DEFAULT_WINDOW_START);
+            windowEnd = parseTime(maintenanceConfig.windowEnd(), DEFAULT_WINDOW_END);
+            maxOnlinePlayers = Objects.requireNonNullElse(maintenanceConfig.maxOnlinePlayers(), DEFAULT_MAX_ONLINE_PLAYERS);
+
+            Settings.RetentionConfig retentionConfig = settings.playerData().retention();
+            retentionEnabled = Objects.requireNonNullElse(retentionConfig.enabled(), true);
+            retentionMaxAgeDays = Math.max(Objects.requireNonNullElse(retentionConfig.maxAgeDays(), DEFAULT_RETENTION_MAX_AGE_DAYS), 1);
+            retentionBatchSize = Math.max(Objects.requireNonNullElse(retentionConfig.batchSize(), DEFAULT_RETENTION_BATCH_SIZE), 1);
+            retentionBatchDelayMillis = Math.max(Objects.requireNonNullElse(retentionConfig.batchDelayMillis(), DEFAULT_RETENTION_BATCH_DELAY_MILLIS), 0);
+        }
+
+        if(!maintenanceEnabled && !retentionEnabled) return;
+
+        checkTask = skyWelcome.getServer().getScheduler().runTaskTimerAsynchronously(skyWelcome, this::checkWindow, CHECK_INTERVAL_TICKS, CHECK_INTERVAL_TICKS);
+    }
+
+    /**
+     * Starts retention and maintenance if the current time is inside the maintenance window, maintenance hasn't run in this window yet, and few enough players are online.
+     */
+    private void checkWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime currentWindowStart = getCurrentWindowStart(now);
+        if(currentWindowStart == null) return;
+        if(lastRun != null && !lastRun.isBefore(currentWindowStart)) return;
+        if(skyWelcome.getServer().getOnlinePlayers().size() > maxOnlinePlayers) return;
+        if(!running.compareAndSet(false, true)) return;
+
+        lastRun = now;
+
+        // Inactive rows are deleted first, so the maintenance that follows reclaims their space.
+        pruneInactivePlayers().thenCompose(ignored -> {
+            if(!maintenanceEnabled) return CompletableFuture.completedFuture(null);
+
+            return databaseManager.getQueueManager().queueWriterTask(this::runMaintenance).handle((result, throwable) -> {
+                if(throwable != null) logger.warn(AdventureUtil.serialize("Database maintenance failed. Error: " + throwable.getMessage()));
+                return null;
+            });
+        }).whenComplete((result, throwable) -> running.set(false));
+    }
+
+    /**
+     * Deletes the rows of players that haven't been saved within the retention period and whose data matches the defaults.
+     * @return A {@link CompletableFuture} that completes once the deletes are finished, whether they succeeded or not.
+     */
+    private @NotNull CompletableFuture<Void> pruneInactivePlayers() {
+        if(!retentionEnabled) return CompletableFuture.completedFuture(null);
+
+        MessageCatalog messageCatalog = settingsManager.getMessageCatalog();
+        if(messageCatalog == null || messageCatalog.getDefaultJoinMessageId() == 0 || messageCatalog.getDefaultQuitMessageId() == 0) return CompletableFuture.completedFuture(null);
+
+        List<Integer> nonDefaultJoinMessageIds = messageCatalog.getJoinMessageIds().values().stream()
+                .filter(id -> id != messageCatalog.getDefaultJoinMessageId()).distinct().toList();
+        List<Integer> nonDefaultLeaveMessageIds = messageCatalog.getQuitMessageIds().values().stream()
+                .filter(id -> id != messageCatalog.getDefaultQuitMessageId()).distinct().toList();
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionMaxAgeDays);
+        long startTime = System.currentTimeMillis();
+
+        return databaseManager.getPlayerDataTable().pruneInactiveRows(cutoff, nonDefaultJoinMessageIds, nonDefaultLeaveMessageIds, retentionBatchSize, retentionBatchDelayMillis)
+                .handle((deletedRows, throwable) -> {
+                    if(throwable != null) {
+                        logger.warn(AdventureUtil.serialize("Failed to delete the data of inactive players. Error: " + throwable.getMessage()));
+                    } else {
+                        logger.info(AdventureUtil.serialize("Deleted the data of " + deletedRows + " inactive players in " + (System.currentTimeMillis() - startTime) + "ms."));
+                    }
+
+                    return null;
+                });
+    }
+
+    /**
+     * Get the start of the maintenance window the time provided is in.
+     * @param now The {@link LocalDateTime} to check.
+     * @return The {@link LocalDateTime} the window started at, or null if the time is outside the window.
+     */
+    private @Nullable LocalDateTime getCurrentWindowStart(@NotNull LocalDateTime now) {
+        LocalTime time = now.toLocalTime();
+
+        if(windowStart.isBefore(windowEnd)) {
+            if(time.isBefore(windowStart) || !time.isBefore(windowEnd)) return null;
+            return now.toLocalDate().atTime(windowStart);
+        }
+
+        // The window crosses midnight, so it is either the window that started today or the one that started yesterday.
+        if(!time.isBefore(windowStart)) return now.toLocalDate().atTime(windowStart);
+        if(time.isBefore(windowEnd)) return now.toLocalDate().minusDays(1).atTime(windowStart);
+        return null;
+    }
+
+    /**
+     * Runs each maintenance statement for the database and logs how long each one took.
+     * @param connection The writer {@link Connection}.
+     * @return null
+     * @throws SQLException If a maintenance statement fails.
+     */
+    private @Nullable Void runMaintenance(@NotNull Connection connection) throws SQLException {
+        ConnectionManager connectionManager = databaseManager.getConnectionManager();
+        boolean sqlite = connectionManager.getStorageType() == StorageType.SQLITE;
+        long sizeBefore = sqlite ? getDatabaseFileSize() : 0L;
+        long startTime = System.currentTimeMillis();
+
+        logger.info(AdventureUtil.serialize("Starting database maintenance."));
+
+        try(Statement statement = connection.createStatement()) {
+            if(sqlite) enableIncrementalVacuum(statement);
+
+            for(String sql : connectionManager.getSqlDialect().maintenanceSql(databaseManager.getPlayerDataTable().getTableName())) {
+                long stepStartTime = System.currentTimeMillis();
+                statement.execute(sql);
+                logger.info(AdventureUtil.serialize("Ran " + sql + " in " + (System.currentTimeMillis() - stepStartTime) + "ms."));
+            }
+        }
+
+        String message = "Finished database maintenance in " + (System.currentTimeMillis() - startTime) + "ms.";
+        if(sqlite) message += " The database files went from " + sizeBefore + " to " + getDatabaseFileSize() + " bytes.";
+        logger.info(AdventureUtil.serialize(message));
+
+        return null;
+    }
+
+    /**
+     * Switches the SQLite database to incremental auto vacuum if it isn't already, so free pages can be reclaimed without rebuilding the file.
+     * Changing the mode only takes effect after a full VACUUM, so this rebuilds the file once.
+     * @param statement The {@link Statement} to run the pragmas with.
+     * @throws SQLException If the mode could not be checked or changed.
+     */
+    private void enableIncrementalVacuum(@NotNull Statement statement) throws SQLException {
+        try(ResultSet resultSet = statement.executeQuery("PRAGMA auto_vacuum")) {
+            if(resultSet.next() && resultSet.getInt(1) == SQLITE_AUTO_VACUUM_INCREMENTAL) return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        statement.execute("PRAGMA auto_vacuum = INCREMENTAL");
+        statement.execute("VACUUM");
+        logger.info(AdventureUtil.serialize("Enabled incremental vacuum for the database in " + (System.currentTimeMillis() - startTime) + "ms."));
+    }
+
+    /**
+     * Get the combined size of the SQLite database file and its WAL.
+     * @return The size in bytes.
+     */
+    private long getDatabaseFileSize() {
+        File databaseFile = new File(skyWelcome.getDataFolder(), "database.db");
+        File walFile = new File(skyWelcome.getDataFolder(), "database.db-wal");
+        return databaseFile.length() + walFile.length();
+    }
+
+    /**
+     * Parses a time of day in the HH:mm format.
+     * @param time The time to parse.
+     * @param defaultTime The {@link LocalTime} to use if the time is missing or invalid.
+     * @return The parsed {@link LocalTime}.
+     */
+    private @NotNull LocalTime parseTime(@Nullable String time, @NotNull LocalTime defaultTime) {
+        if(time == null) return defaultTime;
+
+        try {
+            return LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            logger.warn(AdventureUtil.serialize("Invalid maintenance window time " + time + ". Using " + defaultTime + " instead."));
+            return defaultTime;
+        }
+    }
+}
@@ -17,18 +17,704 @@
 */
 package com.github.lukesky19.skywelcome.manager.database;
 
-import com.github.lukesky19.skylib.api.database.queue.MultiThreadQueueManager;
+import com.github.lukesky19.skylib.api.database.parameter.Parameter;
+import com.github.lukesky19.skywelcome.enums.QueryType;
+import com.github.lukesky19.skywelcome.manager.database.metrics.QueryMetrics;
+import com.github.lukesky19.skywelcome.util.UUIDUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 /**
- * This class manages queuing reads and writes to the database.
+ * This class runs all database work for the plugin on two lanes.
+ * Reads run on virtual threads using the read-only pool, so loading player data never waits behind saves.
+ * Writes are queued to a single writer thread that owns the writer connection. Adjacent batch writes are coalesced into one transaction,
+ * and the writer holds back briefly while reads are in flight, so during a burst of joins the reads stay fast and the saves pile up into fewer, larger transactions.
+ * Both lanes are bounded. Once a lane is full, new work is rejected with a {@link RejectedExecutionException} instead of queueing without limit.
+ * The time each query waits in its lane and the time it takes to run are recorded separately in the {@link QueryMetrics}.
  */
-public class QueueManager extends MultiThreadQueueManager {
+public class QueueManager {
+    private static final int MAX_QUEUED_READS = 1024;
+    private static final int MAX_QUEUED_WRITES = 4096;
+    private static final int MAX_WRITES_PER_TRANSACTION = 256;
+    private static final long MAX_WRITE_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long WRITE_DELAY_STEP_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private final @NotNull ConnectionManager connectionManager;
+    private final @NotNull QueryMetrics queryMetrics;
+    private final @NotNull ExecutorService readExecutor;
+    private final @NotNull Semaphore readPermits;
+    private final @NotNull AtomicInteger pendingReads = new AtomicInteger();
+    private final @NotNull AtomicInteger streamingReads = new AtomicInteger();
+    private final @NotNull BlockingQueue<WriteTask<?>> writeQueue = new ArrayBlockingQueue<>(MAX_QUEUED_WRITES);
+    private final @NotNull Thread writerThread;
+    private volatile boolean acceptingWork = true;
+
+    private final @NotNull LongAdder rejectedReads = new LongAdder();
+    private final @NotNull LongAdder rejectedWrites = new LongAdder();
+    private final @NotNull LongAdder writeTransactions = new LongAdder();
+    private final @NotNull LongAdder coalescedWrites = new LongAdder();
+
+    /**
+     * Default Constructor.
+     * You should use {@link #QueueManager(ConnectionManager, QueryMetrics)} instead.
+     * @deprecated You should use {@link #QueueManager(ConnectionManager, QueryMetrics)} instead.
+     */
+    @Deprecated
+    public QueueManager() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
     /**
      * Constructor
      * @param connectionManager A {@link ConnectionManager} instance.
+     * @param queryMetrics A {@link QueryMetrics} instance.
+     */
+    public QueueManager(@NotNull ConnectionManager connectionManager, @NotNull QueryMetrics queryMetrics) {
+        this.connectionManager = connectionManager;
+        this.queryMetrics = queryMetrics;
+
+        // Virtual threads are cheap to park, but only as many reads as there are read-only connections can run at once.
+        this.readExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("SkyWelcome-Reader-", 1).factory());
+        this.readPermits = new Semaphore(connectionManager.getReaderPoolSize(), true);
+
+        this.writerThread = Thread.ofPlatform().name("SkyWelcome-Writer").daemon(true).unstarted(this::runWriter);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a read using a connection from the read-only pool.
+     * @param queryType The {@link QueryType} the read's latency is recorded under.
+     * @param sql The SQL query to run.
+     * @param parameters The {@link List} of {@link Parameter}s to bind to the query, in order.
+     * @param resultSetFunction The {@link Function} that converts the {@link ResultSet} to the result.
+     * @param rowCounter The {@link ToIntFunction} that gives the number of rows read from the result.
+     * @return A {@link CompletableFuture} containing the result. It completes exceptionally with a {@link RejectedExecutionException} if the read lane is full.
+     * @param <T> The type of the result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueReadTransaction(
+            @NotNull QueryType queryType,
+            @NotNull String sql,
+            @NotNull List<? extends Parameter<?>> parameters,
+            @NotNull Function<ResultSet, T> resultSetFunction,
+            @NotNull ToIntFunction<? super T> rowCounter) {
+        return queueRead(queryType, sql, parameters, 0, resultSetFunction, rowCounter);
+    }
+
+    /**
+     * Queues a read that streams a large result through a forward-only cursor, so the rows never have to fit in memory at once.
+     * The read runs inside a read-only transaction, which some drivers need before they will use a cursor.
+     * Streaming reads hold a read-only connection for as long as they run, but the writer doesn't hold back for them.
+     * @param queryType The {@link QueryType} the read's latency is recorded under.
+     * @param sql The SQL query to run.
+     * @param parameters The {@link List} of {@link Parameter}s to bind to the query, in order.
+     * @param fetchSize The fetch size to give the driver.
+     * @param resultSetFunction The {@link Function} that consumes the {@link ResultSet} and returns the result.
+     * @param rowCounter The {@link ToIntFunction} that gives the number of rows read from the result.
+     * @return A {@link CompletableFuture} containing the result. It completes exceptionally with a {@link RejectedExecutionException} if the read lane is full.
+     * @param <T> The type of the result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueStreamingReadTransaction(
+            @NotNull QueryType queryType,
+            @NotNull String sql,
+            @NotNull List<? extends Parameter<?>> parameters,
+            int fetchSize,
+            @NotNull Function<ResultSet, T> resultSetFunction,
+            @NotNull ToIntFunction<? super T> rowCounter) {
+        return queueRead(queryType, sql, parameters, fetchSize, resultSetFunction, rowCounter);
+    }
+
+    /**
+     * Adds a read to the read lane, or rejects it if the lane is full or shut down.
+     * The queue wait is measured until a connection has been handed to the read, and the execution until the result has been built.
+     * @param queryType The {@link QueryType} the read's latency is recorded under.
+     * @param sql The SQL query to run.
+     * @param parameters The {@link List} of {@link Parameter}s to bind to the query, in order.
+     * @param fetchSize The fetch size for a streaming read, or 0 for a normal read.
+     * @param resultSetFunction The {@link Function} that converts the {@link ResultSet} to the result.
+     * @param rowCounter The {@link ToIntFunction} that gives the number of rows read from the result.
+     * @return A {@link CompletableFuture} containing the result.
+     * @param <T> The type of the result.
+     */
+    private <T> @NotNull CompletableFuture<T> queueRead(
+            @NotNull QueryType queryType,
+            @NotNull String sql,
+            @NotNull List<? extends Parameter<?>> parameters,
+            int fetchSize,
+            @NotNull Function<ResultSet, T> resultSetFunction,
+            @NotNull ToIntFunction<? super T> rowCounter) {
+        long queuedAt = System.nanoTime();
+        boolean streaming = fetchSize != 0;
+        if(!acceptingWork) {
+            rejectedReads.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The database queue has been shut down."));
+        }
+
+        if(pendingReads.incrementAndGet() > MAX_QUEUED_READS) {
+            pendingReads.decrementAndGet();
+            rejectedReads.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The database read queue is full."));
+        }
+
+        if(streaming) streamingReads.incrementAndGet();
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            readExecutor.execute(() -> {
+                try {
+                    readPermits.acquire();
+                    try(Connection connection = connectionManager.getReadConnection()) {
+                        long startedAt = System.nanoTime();
+                        T result;
+                        if(streaming) {
+                            result = runStreamingRead(connection, sql, parameters, fetchSize, resultSetFunction);
+                        } else {
+                            try(PreparedStatement statement = connection.prepareStatement(sql)) {
+                                bindParameters(statement, parameters);
+
+                                try(ResultSet resultSet = statement.executeQuery()) {
+                                    result = resultSetFunction.apply(resultSet);
+                                }
+                            }
+                        }
+
+                        queryMetrics.record(queryType, startedAt - queuedAt, System.nanoTime() - startedAt, rowCounter.applyAsInt(result));
+                        future.complete(result);
+                    } finally {
+                        readPermits.release();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    future.completeExceptionally(e);
+                } catch (Throwable throwable) {
+                    future.completeExceptionally(throwable);
+                } finally {
+                    if(streaming) streamingReads.decrementAndGet();
+                    pendingReads.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if(streaming) streamingReads.decrementAndGet();
+            pendingReads.decrementAndGet();
+            rejectedReads.increment();
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Runs a streaming read on a read-only connection inside a transaction that is rolled back afterward.
+     * @param connection The read-only {@link Connection}.
+     * @param sql The SQL query to run.
+     * @param parameters The {@link List} of {@link Parameter}s to bind to the query, in order.
+     * @param fetchSize The fetch size to give the driver.
+     * @param resultSetFunction The {@link Function} that consumes the {@link ResultSet} and returns the result.
+     * @return The result.
+     * @param <T> The type of the result.
+     * @throws SQLException If a database error occurs.
+     */
+    private <T> T runStreamingRead(@NotNull Connection connection, @NotNull String sql, @NotNull List<? extends Parameter<?>> parameters, int fetchSize, @NotNull Function<ResultSet, T> resultSetFunction) throws SQLException {
+        connection.setAutoCommit(false);
+        try(PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(fetchSize);
+            bindParameters(statement, parameters);
+
+            try(ResultSet resultSet = statement.executeQuery()) {
+                return resultSetFunction.apply(resultSet);
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Queues a statement to be run once for each set of parameters as a single JDBC batch.
+     * The batch may share a transaction with other batch writes queued next to it. If any write in that transaction fails,
+     * each batch is retried in a transaction of its own, so only the batch that failed is rolled back.
+     * @param queryType The {@link QueryType} the write's latency is recorded under.
+     * @param sql The SQL statement to run.
+     * @param batch The {@link List} of parameter {@link List}s, one for each time the statement should be run.
+     * @return A {@link CompletableFuture} that completes once the batch is committed. It completes exceptionally with a {@link RejectedExecutionException} if the write lane is full.
+     */
+    public @NotNull CompletableFuture<Void> queueBatchWriteTransaction(@NotNull QueryType queryType, @NotNull String sql, @NotNull List<? extends List<? extends Parameter<?>>> batch) {
+        if(batch.isEmpty()) return CompletableFuture.completedFuture(null);
+
+        return queueWrite(new BatchWriteTask(queryType, sql, batch));
+    }
+
+    /**
+     * Queues a task that is given the writer connection directly. The task runs on the writer thread, in the order it was queued, and is never coalesced with other writes.
+     * The task is responsible for its own transactions and must leave the connection with auto-commit enabled.
+     * @param task The {@link ConnectionTask} to run.
+     * @return A {@link CompletableFuture} containing the task's result. It completes exceptionally with a {@link RejectedExecutionException} if the write lane is full.
+     * @param <T> The type of the result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueWriterTask(@NotNull ConnectionTask<T> task) {
+        return queueWrite(new ConnectionWriteTask<>(null, task, null));
+    }
+
+    /**
+     * Queues a task that is given the writer connection directly, and records its latency under the {@link QueryType} provided.
+     * The task runs on the writer thread, in the order it was queued, and is never coalesced with other writes.
+     * The task is responsible for its own transactions and must leave the connection with auto-commit enabled.
+     * @param queryType The {@link QueryType} the task's latency is recorded under.
+     * @param task The {@link ConnectionTask} to run.
+     * @param rowCounter The {@link ToIntFunction} that gives the number of rows the task read or wrote from its result.
+     * @return A {@link CompletableFuture} containing the task's result. It completes exceptionally with a {@link RejectedExecutionException} if the write lane is full.
+     * @param <T> The type of the result.
+     */
+    public <T> @NotNull CompletableFuture<T> queueWriterTask(@NotNull QueryType queryType, @NotNull ConnectionTask<T> task, @NotNull ToIntFunction<? super T> rowCounter) {
+        return queueWrite(new ConnectionWriteTask<>(queryType, task, rowCounter));
+    }
+
+    /**
+     * Get the {@link QueryMetrics} that the latency of every query is recorded in.
+     * @return The {@link QueryMetrics}.
+     */
+    public @NotNull QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Get the number of writes waiting for the writer thread.
+     * @return The write queue depth.
+     */
+    public int getWriteQueueDepth() {
+        return writeQueue.size();
+    }
+
+    /**
+     * Get the number of reads that are queued or running.
+     * @return The read queue depth.
+     */
+    public int getReadQueueDepth() {
+        return pendingReads.get();
+    }
+
+    /**
+     * Get the number of reads rejected because the read lane was full or shut down.
+     * @return The number of rejected reads.
+     */
+    public long getRejectedReadCount() {
+        return rejectedReads.sum();
+    }
+
+    /**
+     * Get the number of writes rejected because the write lane was full or shut down.
+     * @return The number of rejected writes.
+     */
+    public long getRejectedWriteCount() {
+        return rejectedWrites.sum();
+    }
+
+    /**
+     * Get the number of transactions the writer thread has committed or attempted.
+     * @return The number of write transactions.
+     */
+    public long getWriteTransactionCount() {
+        return writeTransactions.sum();
+    }
+
+    /**
+     * Get the number of batch writes that shared a transaction with an earlier batch write.
+     * @return The number of coalesced writes.
+     */
+    public long getCoalescedWriteCount() {
+        return coalescedWrites.sum();
+    }
+
+    /**
+     * Stops accepting work, waits for the queued writes to finish so no data is lost when the plugin is disabled, then waits briefly for running reads.
      */
-    public QueueManager(@NotNull ConnectionManager connectionManager) {
-        super(connectionManager);
+    public void shutdown() {
+        acceptingWork = false;
+
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(writerThread.isAlive()) writerThread.interrupt();
+
+        readExecutor.shutdown();
+        try {
+            if(!readExecutor.awaitTermination(5, TimeUnit.SECONDS)) readExecutor.shutdownNow();
+        } catch (InterruptedException e) {
+            readExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Adds a write to the write lane, or rejects it if the lane is full or shut down.
+     * @param task The {@link WriteTask} to queue.
+     * @return The {@link WriteTask}'s {@link CompletableFuture}.
+     * @param <T> The type of the write's result.
+     */
+    private <T> @NotNull CompletableFuture<T> queueWrite(@NotNull WriteTask<T> task) {
+        if(!acceptingWork) {
+            rejectedWrites.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The database queue has been shut down."));
+        }
+
+        if(!writeQueue.offer(task)) {
+            rejectedWrites.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The database write queue is full."));
+        }
+
+        // The queue may have been shut down between the check above and the offer, after the writer's last look at the queue.
+        // If the write can still be taken back out, nothing is going to run it, so it is rejected instead of being left waiting.
+        if(!acceptingWork && writeQueue.remove(task)) {
+            rejectedWrites.increment();
+            task.future.completeExceptionally(new RejectedExecutionException("The database queue has been shut down."));
+        }
+
+        return task.future;
+    }
+
+    /**
+     * The writer thread's loop. Runs until the queue has been shut down and every queued write has finished.
+     */
+    private void runWriter() {
+        while(acceptingWork || !writeQueue.isEmpty()) {
+            WriteTask<?> first;
+            try {
+                first = writeQueue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if(first == null) continue;
+
+            waitForReads();
+
+            switch(first) {
+                case ConnectionWriteTask<?> task -> runConnectionTask(task);
+                case BatchWriteTask task -> {
+                    List<BatchWriteTask> tasks = new ArrayList<>();
+                    tasks.add(task);
+                    // Only this thread takes from the queue, so the head can't change between peek and poll.
+                    while(tasks.size() < MAX_WRITES_PER_TRANSACTION && writeQueue.peek() instanceof BatchWriteTask next) {
+                        writeQueue.poll();
+                        tasks.add(next);
+                    }
+
+                    runBatchWrites(tasks);
+                }
+            }
+        }
+
+        // Anything left after an interrupt is failed so callers are never left waiting.
+        WriteTask<?> task;
+        while((task = writeQueue.poll()) != null) {
+            task.future.completeExceptionally(new RejectedExecutionException("The database queue has been shut down."));
+        }
+    }
+
+    /**
+     * Holds back the writer while reads are in flight, up to a short limit, so reads get the database first and more writes are coalesced.
+     */
+    private void waitForReads() {
+        long deadline = System.nanoTime() + MAX_WRITE_DELAY_NANOS;
+        while(acceptingWork && pendingReads.get() - streamingReads.get() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(WRITE_DELAY_STEP_NANOS);
+        }
+    }
+
+    /**
+     * Runs a {@link ConnectionWriteTask} on its own, since it manages its own transactions.
+     * @param task The {@link ConnectionWriteTask}.
+     */
+    private void runConnectionTask(@NotNull ConnectionWriteTask<?> task) {
+        try(Connection connection = connectionManager.getWriteConnection()) {
+            writeTransactions.increment();
+            long startedAt = System.nanoTime();
+            task.runAndComplete(connection);
+            recordWrite(task, startedAt, System.nanoTime() - startedAt);
+        } catch (SQLException e) {
+            task.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Runs a group of batch writes taken from the queue in a single transaction.
+     * @param tasks The {@link List} of {@link BatchWriteTask}s.
+     */
+    private void runBatchWrites(@NotNull List<BatchWriteTask> tasks) {
+        if(tasks.size() > 1) coalescedWrites.add(tasks.size() - 1);
+
+        try(Connection connection = connectionManager.getWriteConnection()) {
+            if(runInTransaction(connection, tasks)) {
+                tasks.forEach(BatchWriteTask::complete);
+                return;
+            }
+
+            if(tasks.size() == 1) return;
+
+            // One of the writes failed, so retry each on its own to find it without losing the others.
+            for(BatchWriteTask task : tasks) {
+                if(runInTransaction(connection, List.of(task))) task.complete();
+            }
+        } catch (SQLException e) {
+            tasks.forEach(task -> task.future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Runs batch writes in a single transaction. Statements are prepared once per transaction and reused by every write with the same SQL.
+     * If the transaction fails it is rolled back, and a single write is failed with the error.
+     * Once committed, each write's latency is recorded with its own execution time plus the shared commit, since every write in the transaction waited for that commit.
+     * @param connection The writer {@link Connection}.
+     * @param tasks The {@link List} of {@link BatchWriteTask}s.
+     * @return true if the transaction was committed, otherwise false.
+     * @throws SQLException If the connection's auto-commit mode could not be changed.
+     */
+    private boolean runInTransaction(@NotNull Connection connection, @NotNull List<BatchWriteTask> tasks) throws SQLException {
+        writeTransactions.increment();
+
+        long startedAt = System.nanoTime();
+        long[] executionNanos = new long[tasks.size()];
+        Map<String, PreparedStatement> statements = new HashMap<>();
+        connection.setAutoCommit(false);
+        try {
+            for(int i = 0; i < tasks.size(); i++) {
+                long taskStartedAt = System.nanoTime();
+                tasks.get(i).run(connection, statements);
+                executionNanos[i] = System.nanoTime() - taskStartedAt;
+            }
+
+            long commitStartedAt = System.nanoTime();
+            connection.commit();
+            long commitNanos = System.nanoTime() - commitStartedAt;
+
+            for(int i = 0; i < tasks.size(); i++) {
+                recordWrite(tasks.get(i), startedAt, executionNanos[i] + commitNanos);
+            }
+            return true;
+        } catch (SQLException | RuntimeException e) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackException) {
+                e.addSuppressed(rollbackException);
+            }
+
+            if(tasks.size() == 1) tasks.getFirst().future.completeExceptionally(e);
+            return false;
+        } finally {
+            for(PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {}
+            }
+
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Records the latency of a write that has run, if it has a {@link QueryType} and didn't fail.
+     * @param task The {@link WriteTask}.
+     * @param startedAt The {@link System#nanoTime()} the write's transaction started at.
+     * @param executionNanos The number of nanoseconds the write took to run.
+     */
+    private void recordWrite(@NotNull WriteTask<?> task, long startedAt, long executionNanos) {
+        if(task.queryType == null || task.future.isCompletedExceptionally()) return;
+
+        queryMetrics.record(task.queryType, startedAt - task.queuedAt, executionNanos, task.getRowCount());
+    }
+
+    /**
+     * Binds the {@link Parameter}s to the statement in order.
+     * {@link UUID}s are bound as 16 bytes, which is how they are stored.
+     * @param statement The {@link PreparedStatement} to bind to.
+     * @param parameters The {@link List} of {@link Parameter}s.
+     * @throws SQLException If a parameter could not be bound.
+     */
+    private static void bindParameters(@NotNull PreparedStatement statement, @NotNull List<? extends Parameter<?>> parameters) throws SQLException {
+        for(int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i).getValue();
+            if(value instanceof UUID uuid) {
+                statement.setBytes(i + 1, UUIDUtils.toBytes(uuid));
+            } else {
+                statement.setObject(i + 1, value);
+            }
+        }
+    }
+
+    /**
+     * A task that uses a {@link Connection} directly.
+     * @param <T> The type of the task's result.
+     */
+    @FunctionalInterface
+    public interface ConnectionTask<T> {
+        /**
+         * Runs the task.
+         * @param connection The {@link Connection} to use. It must not be closed by the task.
+         * @return The task's result.
+         * @throws SQLException If a database error occurs.
+         */
+        T run(@NotNull Connection connection) throws SQLException;
+    }
+
+    /**
+     * A write waiting in the write lane.
+     * A write is either a {@link BatchWriteTask}, which can share a transaction the writer thread manages,
+     * or a {@link ConnectionWriteTask}, which manages its own transactions and always runs alone.
+     * @param <T> The type of the write's result.
+     */
+    private abstract static sealed class WriteTask<T> permits BatchWriteTask, ConnectionWriteTask {
+        /**
+         * The {@link CompletableFuture} completed once the write has run.
+         */
+        final @NotNull CompletableFuture<T> future = new CompletableFuture<>();
+        /**
+         * The {@link QueryType} the write's latency is recorded under, or null if it isn't recorded.
+         */
+        final @Nullable QueryType queryType;
+        /**
+         * The {@link System#nanoTime()} the write was queued at.
+         */
+        final long queuedAt = System.nanoTime();
+
+        /**
+         * Constructor
+         * @param queryType The {@link QueryType} the write's latency is recorded under, or null if it isn't recorded.
+         */
+        WriteTask(@Nullable QueryType queryType) {
+            this.queryType = queryType;
+        }
+
+        /**
+         * Get the number of rows the write read or wrote.
+         * @return The number of rows.
+         */
+        abstract int getRowCount();
+    }
+
+    /**
+     * A statement run once for each set of parameters as a JDBC batch, inside a transaction that the writer thread manages.
+     * Batch writes queued next to each other share a transaction.
+     */
+    private static final class BatchWriteTask extends WriteTask<Void> {
+        private final @NotNull String sql;
+        private final @NotNull List<? extends List<? extends Parameter<?>>> batch;
+
+        /**
+         * Constructor
+         * @param queryType The {@link QueryType} the write's latency is recorded under.
+         * @param sql The SQL statement to run.
+         * @param batch The {@link List} of parameter {@link List}s.
+         */
+        BatchWriteTask(@NotNull QueryType queryType, @NotNull String sql, @NotNull List<? extends List<? extends Parameter<?>>> batch) {
+            super(queryType);
+            this.sql = sql;
+            this.batch = batch;
+        }
+
+        /**
+         * The batch writes one row for each set of parameters.
+         * @return The number of sets of parameters.
+         */
+        @Override
+        int getRowCount() {
+            return batch.size();
+        }
+
+        /**
+         * Adds every set of parameters to the statement for this SQL and runs the batch.
+         * @param connection The writer {@link Connection}.
+         * @param statements The {@link PreparedStatement}s already prepared in this transaction, by SQL.
+         * @throws SQLException If a database error occurs.
+         */
+        void run(@NotNull Connection connection, @NotNull Map<String, PreparedStatement> statements) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if(statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+
+            for(List<? extends Parameter<?>> parameters : batch) {
+                bindParameters(statement, parameters);
+                statement.addBatch();
+            }
+
+            // Executed now rather than at commit so writes with different SQL still run in the order they were queued.
+            statement.executeBatch();
+        }
+
+        /**
+         * Completes the future after the write's transaction has been committed.
+         */
+        void complete() {
+            future.complete(null);
+        }
+    }
+
+    /**
+     * A {@link ConnectionTask} given the writer connection directly. It manages its own transactions, so it always runs alone.
+     * @param <T> The type of the task's result.
+     */
+    private static final class ConnectionWriteTask<T> extends WriteTask<T> {
+        private final @NotNull ConnectionTask<T> task;
+        private final @Nullable ToIntFunction<? super T> rowCounter;
+        private int rowCount;
+
+        /**
+         * Constructor
+         * @param queryType The {@link QueryType} the task's latency is recorded under, or null if it isn't recorded.
+         * @param task The {@link ConnectionTask} to run.
+         * @param rowCounter The {@link ToIntFunction} that gives the number of rows from the task's result, or null if the latency isn't recorded.
+         */
+        ConnectionWriteTask(@Nullable QueryType queryType, @NotNull ConnectionTask<T> task, @Nullable ToIntFunction<? super T> rowCounter) {
+            super(queryType);
+            this.task = task;
+            this.rowCounter = rowCounter;
+        }
+
+        /**
+         * Get the number of rows given by the row counter for the task's result.
+         * @return The number of rows, or 0 if the task hasn't run or has no row counter.
+         */
+        @Override
+        int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Runs the task and completes the future with its result or error.
+         * @param connection The writer {@link Connection}.
+         */
+        void runAndComplete(@NotNull Connection connection) {
+            try {
+                T result = task.run(connection);
+                if(rowCounter != null) rowCount = rowCounter.applyAsInt(result);
+                future.complete(result);
+            } catch (Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        }
     }
 }
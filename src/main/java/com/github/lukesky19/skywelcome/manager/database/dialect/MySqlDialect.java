@@ -0,0 +1,148 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.dialect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * This class provides the SQL for a MySQL or MariaDB server.
+ */
+public class MySqlDialect implements SqlDialect {
+    private final boolean mariaDb;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #MySqlDialect(boolean)} instead.
+     * @deprecated You should use {@link #MySqlDialect(boolean)} instead.
+     */
+    @Deprecated
+    public MySqlDialect() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param mariaDb true if the server is MariaDB, false if it is MySQL. The SQL is the same, but the drivers stream results differently.
+     */
+    public MySqlDialect(boolean mariaDb) {
+        this.mariaDb = mariaDb;
+    }
+
+    /**
+     * A MySQL or MariaDB server can be used by multiple servers.
+     * @return true
+     */
+    @Override
+    public boolean isShared() {
+        return true;
+    }
+
+    /**
+     * Get the SQL that creates the player data table if it doesn't exist.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String createPlayerDataTableSql(@NotNull String tableName) {
+        // Older MySQL versions don't allow defaults on TEXT columns, so the message columns are always given a value when inserting.
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                "player_id BINARY(16) NOT NULL PRIMARY KEY, " +
+                "send_join INTEGER NOT NULL DEFAULT 1, " +
+                "send_motd INTEGER NOT NULL DEFAULT 1, " +
+                "send_leave INTEGER NOT NULL DEFAULT 1, " +
+                "join_message TEXT NOT NULL, " +
+                "leave_message TEXT NOT NULL, " +
+                "join_message_id INTEGER NOT NULL DEFAULT 0, " +
+                "leave_message_id INTEGER NOT NULL DEFAULT 0, " +
+                "last_updated BIGINT NOT NULL DEFAULT 0)";
+    }
+
+    /**
+     * Get the SQL that creates the player data change log table if it doesn't exist.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String createChangeLogTableSql(@NotNull String tableName) {
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, " +
+                "player_id BINARY(16) NOT NULL, " +
+                "published_at BIGINT NOT NULL, " +
+                "origin BINARY(16) NOT NULL)";
+    }
+
+    /**
+     * Get the SQL that inserts a player's data or updates it if the player already has a row.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String upsertPlayerDataSql(@NotNull String tableName) {
+        // MySQL applies the assignments in order, so last_updated has to be assigned last for the other columns to compare against the saved value.
+        // VALUES() is used instead of a row alias because MariaDB doesn't support row aliases, and CASE instead of IF() so H2's MySQL mode can run it in tests.
+        String ifNewer = "CASE WHEN last_updated <= VALUES(last_updated) THEN ";
+        return "INSERT INTO " + tableName + " (player_id, send_join, send_motd, send_leave, join_message, leave_message, join_message_id, leave_message_id, last_updated) " +
+                "VALUES (?, ?, ?, ?, '', '', ?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE " +
+                "send_join = " + ifNewer + "VALUES(send_join) ELSE send_join END, " +
+                "send_motd = " + ifNewer + "VALUES(send_motd) ELSE send_motd END, " +
+                "send_leave = " + ifNewer + "VALUES(send_leave) ELSE send_leave END, " +
+                "join_message = " + ifNewer + "'' ELSE join_message END, " +
+                "leave_message = " + ifNewer + "'' ELSE leave_message END, " +
+                "join_message_id = " + ifNewer + "VALUES(join_message_id) ELSE join_message_id END, " +
+                "leave_message_id = " + ifNewer + "VALUES(leave_message_id) ELSE leave_message_id END, " +
+                "last_updated = GREATEST(last_updated, VALUES(last_updated))";
+    }
+
+    /**
+     * Get the statements that maintain the database.
+     * The statistics are refreshed and the table is rebuilt to reclaim the space left by deleted rows.
+     * @param tableName The name of the player data table.
+     * @return The {@link List} of SQL statements.
+     */
+    @Override
+    public @NotNull List<String> maintenanceSql(@NotNull String tableName) {
+        return List.of(
+                "ANALYZE TABLE " + tableName,
+                "OPTIMIZE TABLE " + tableName);
+    }
+
+    /**
+     * Get the SQL that deletes at most a limited number of the rows matching a condition.
+     * MySQL doesn't allow LIMIT in an IN sub-query, but supports DELETE ... LIMIT directly.
+     * @param tableName The name of the table.
+     * @param condition The SQL condition rows must match to be deleted.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String deleteLimitedSql(@NotNull String tableName, @NotNull String condition) {
+        return "DELETE FROM " + tableName + " WHERE " + condition + " LIMIT ?";
+    }
+
+    /**
+     * Get the fetch size for streaming a result.
+     * The MySQL driver only streams with a fetch size of Integer.MIN_VALUE, while the MariaDB driver streams with any positive fetch size.
+     * @return The fetch size.
+     */
+    @Override
+    public int streamingFetchSize() {
+        return mariaDb ? 1000 : Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.dialect;
+
+import com.github.lukesky19.skywelcome.enums.StorageType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * This interface provides the SQL that differs between the databases player data can be stored in.
+ */
+public interface SqlDialect {
+    /**
+     * Get the {@link SqlDialect} for the {@link StorageType} provided.
+     * @param storageType The {@link StorageType}.
+     * @return The {@link SqlDialect}.
+     */
+    static @NotNull SqlDialect forStorageType(@NotNull StorageType storageType) {
+        return switch(storageType) {
+            case SQLITE -> new SqliteDialect();
+            case MYSQL -> new MySqlDialect(false);
+            case MARIADB -> new MySqlDialect(true);
+            case POSTGRESQL -> new PostgreSqlDialect();
+        };
+    }
+
+    /**
+     * Is the database shared with other servers?
+     * When it is, rows can be created or changed by other servers at any time, so this server can't assume it knows every row.
+     * @return true if the database can be shared, false if only this server uses it.
+     */
+    boolean isShared();
+
+    /**
+     * Get the SQL that creates the player data table if it doesn't exist.
+     * The player id column stores the player's {@link java.util.UUID} as 16 bytes and is the table's primary key.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @NotNull String createPlayerDataTableSql(@NotNull String tableName);
+
+    /**
+     * Get the SQL that creates the player data change log table if it doesn't exist.
+     * Each row records that a server saved a player's data, so other servers sharing the database can refresh their cached copy.
+     * The id column is assigned in insertion order, and the player id and origin columns store {@link java.util.UUID}s as 16 bytes.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @NotNull String createChangeLogTableSql(@NotNull String tableName);
+
+    /**
+     * Get the SQL that inserts a player's data or updates it if the player already has a row.
+     * Existing rows are only updated if the new last updated time is not older than the saved one.
+     * The parameters are the player id, send join, send motd, send leave, join message id, leave message id and last updated time, in that order.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @NotNull String upsertPlayerDataSql(@NotNull String tableName);
+
+    /**
+     * Get the statements that maintain the database, in the order they should be run.
+     * They reclaim unused space and refresh the query planner's statistics, and are run outside a transaction.
+     * @param tableName The name of the player data table.
+     * @return The {@link List} of SQL statements.
+     */
+    @NotNull List<String> maintenanceSql(@NotNull String tableName);
+
+    /**
+     * Get the SQL that deletes at most a limited number of the rows matching a condition.
+     * The condition's parameters come first, followed by the maximum number of rows to delete.
+     * @param tableName The name of the table.
+     * @param condition The SQL condition rows must match to be deleted.
+     * @return The SQL.
+     */
+    @NotNull String deleteLimitedSql(@NotNull String tableName, @NotNull String condition);
+
+    /**
+     * Get the fetch size that makes the driver stream a result through a cursor instead of loading every row into memory.
+     * @return The fetch size.
+     */
+    int streamingFetchSize();
+}
@@ -0,0 +1,127 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.dialect;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * This class provides the SQL for a local SQLite database.
+ */
+public class SqliteDialect implements SqlDialect {
+    /**
+     * Default Constructor.
+     */
+    public SqliteDialect() {}
+
+    /**
+     * A SQLite database file is only used by this server.
+     * @return false
+     */
+    @Override
+    public boolean isShared() {
+        return false;
+    }
+
+    /**
+     * Get the SQL that creates the player data table if it doesn't exist.
+     * The table is declared WITHOUT ROWID so lookups and writes only touch the primary key's B-tree.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String createPlayerDataTableSql(@NotNull String tableName) {
+        // join_message and leave_message are only used by rows that have not been converted to message ids yet.
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                "player_id BLOB PRIMARY KEY NOT NULL, " +
+                "send_join INTEGER NOT NULL DEFAULT 1, " +
+                "send_motd INTEGER NOT NULL DEFAULT 1, " +
+                "send_leave INTEGER NOT NULL DEFAULT 1, " +
+                "join_message TEXT NOT NULL DEFAULT '', " +
+                "leave_message TEXT NOT NULL DEFAULT '', " +
+                "join_message_id INTEGER NOT NULL DEFAULT 0, " +
+                "leave_message_id INTEGER NOT NULL DEFAULT 0, " +
+                "last_updated INTEGER NOT NULL DEFAULT 0) WITHOUT ROWID";
+    }
+
+    /**
+     * Get the SQL that creates the player data change log table if it doesn't exist.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String createChangeLogTableSql(@NotNull String tableName) {
+        return "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "player_id BLOB NOT NULL, " +
+                "published_at INTEGER NOT NULL, " +
+                "origin BLOB NOT NULL)";
+    }
+
+    /**
+     * Get the SQL that inserts a player's data or updates it if the player already has a row.
+     * @param tableName The name of the table.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String upsertPlayerDataSql(@NotNull String tableName) {
+        return "INSERT INTO " + tableName + " (player_id, send_join, send_motd, send_leave, join_message, leave_message, join_message_id, leave_message_id, last_updated) " +
+                "VALUES (?, ?, ?, ?, '', '', ?, ?, ?) " +
+                "ON CONFLICT (player_id) DO UPDATE SET " +
+                "send_join = excluded.send_join, send_motd = excluded.send_motd, send_leave = excluded.send_leave, join_message = '', leave_message = '', " +
+                "join_message_id = excluded.join_message_id, leave_message_id = excluded.leave_message_id, last_updated = excluded.last_updated " +
+                "WHERE last_updated <= excluded.last_updated";
+    }
+
+    /**
+     * Get the statements that maintain the database.
+     * The WAL is checkpointed and truncated so it can't grow without bound, the statistics are refreshed, and free pages are returned to the file system.
+     * @param tableName The name of the player data table.
+     * @return The {@link List} of SQL statements.
+     */
+    @Override
+    public @NotNull List<String> maintenanceSql(@NotNull String tableName) {
+        return List.of(
+                "PRAGMA wal_checkpoint(TRUNCATE)",
+                "ANALYZE " + tableName,
+                "PRAGMA optimize",
+                "PRAGMA incremental_vacuum");
+    }
+
+    /**
+     * Get the SQL that deletes at most a limited number of the rows matching a condition.
+     * The rows are picked with a sub-query, since DELETE ... LIMIT isn't available.
+     * @param tableName The name of the table.
+     * @param condition The SQL condition rows must match to be deleted.
+     * @return The SQL.
+     */
+    @Override
+    public @NotNull String deleteLimitedSql(@NotNull String tableName, @NotNull String condition) {
+        return "DELETE FROM " + tableName + " WHERE player_id IN (SELECT player_id FROM " + tableName + " WHERE " + condition + " LIMIT ?)";
+    }
+
+    /**
+     * Get the fetch size for streaming a result. SQLite always steps through results a row at a time, so this only sets the driver's batch size.
+     * @return The fetch size.
+     */
+    @Override
+    public int streamingFetchSize() {
+        return 1000;
+    }
+}
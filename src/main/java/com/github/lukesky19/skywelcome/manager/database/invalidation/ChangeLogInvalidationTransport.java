@@ -0,0 +1,233 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.manager.database.tables.PlayerDataChangeTable;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * This class is an {@link InvalidationTransport} that publishes events to a change log table in the shared database and polls it for the events of other servers.
+ * Row ids are assigned when a row is inserted, but rows become visible when their transaction commits, so a row can appear after rows with higher ids.
+ * To avoid missing these rows, the poll only moves past ids it first saw at least {@link #COMMIT_GRACE_MILLIS} ago, and rows read again are not delivered twice.
+ * Rows this server had read a retention time ago are deleted, so the table stays small.
+ * Both are timed with this server's clock and the ids the database assigned, never with the time another server recorded, so clock differences between servers don't matter.
+ */
+public class ChangeLogInvalidationTransport implements InvalidationTransport {
+    private static final int POLL_BATCH_SIZE = 1000;
+    private static final long COMMIT_GRACE_MILLIS = 5000L;
+    private static final long PRUNE_INTERVAL_MILLIS = 60000L;
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull PlayerDataChangeTable playerDataChangeTable;
+    private final long pollIntervalMillis;
+    private final long retentionMillis;
+
+    private final @NotNull AtomicBoolean polling = new AtomicBoolean();
+    // The ids of rows above the watermark that have already been delivered.
+    private final @NotNull Set<Long> deliveredIds = ConcurrentHashMap.newKeySet();
+    // Null until the starting position has been loaded.
+    private volatile @Nullable ChangeLogWatermark watermark;
+    // The watermark at each prune and the System.nanoTime() it was taken at, oldest first. Only used by the poll, which never overlaps itself.
+    private final @NotNull ArrayDeque<long[]> pruneCheckpoints = new ArrayDeque<>();
+    private volatile long lastPruneNanos = 0L;
+    private volatile @Nullable Consumer<List<InvalidationEvent>> listener;
+    private @Nullable BukkitTask pollTask;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #ChangeLogInvalidationTransport(SkyWelcome, PlayerDataChangeTable, long, long)} instead.
+     * @deprecated You should use {@link #ChangeLogInvalidationTransport(SkyWelcome, PlayerDataChangeTable, long, long)} instead.
+     */
+    @Deprecated
+    public ChangeLogInvalidationTransport() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param playerDataChangeTable The {@link PlayerDataChangeTable} to publish to and poll.
+     * @param pollIntervalMillis The number of milliseconds between polls.
+     * @param retentionMillis The number of milliseconds changes are kept in the table before being deleted.
+     */
+    public ChangeLogInvalidationTransport(@NotNull SkyWelcome skyWelcome, @NotNull PlayerDataChangeTable playerDataChangeTable, long pollIntervalMillis, long retentionMillis) {
+        this.skyWelcome = skyWelcome;
+        this.logger = skyWelcome.getComponentLogger();
+        this.playerDataChangeTable = playerDataChangeTable;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Starts polling the change log from its newest row, so changes made before this server started aren't delivered.
+     * @param listener The {@link Consumer} that is given each batch of received {@link InvalidationEvent}s.
+     */
+    @Override
+    public synchronized void start(@NotNull Consumer<List<InvalidationEvent>> listener) {
+        this.listener = listener;
+
+        playerDataChangeTable.loadLatestId().whenComplete((latestId, throwable) -> {
+            if(throwable != null) {
+                logger.warn(AdventureUtil.serialize("Failed to read the player data change log. Changes made on other servers will be read from the start of the log. Error: " + throwable.getMessage()));
+                watermark = new ChangeLogWatermark(0L, COMMIT_GRACE_MILLIS);
+                return;
+            }
+
+            watermark = new ChangeLogWatermark(latestId, COMMIT_GRACE_MILLIS);
+        });
+
+        long pollIntervalTicks = Math.max(pollIntervalMillis / 50L, 1L);
+        pollTask = skyWelcome.getServer().getScheduler().runTaskTimerAsynchronously(skyWelcome, this::poll, pollIntervalTicks, pollIntervalTicks);
+    }
+
+    /**
+     * Records the events in the change log.
+     * @param events The {@link List} of {@link InvalidationEvent}s to publish.
+     * @return A {@link CompletableFuture} that completes once the events are committed.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> publish(@NotNull List<InvalidationEvent> events) {
+        return playerDataChangeTable.insertAll(events);
+    }
+
+    /**
+     * Stops polling the change log.
+     */
+    @Override
+    public synchronized void stop() {
+        listener = null;
+        if(pollTask != null) {
+            pollTask.cancel();
+            pollTask = null;
+        }
+    }
+
+    /**
+     * Reads the rows after the watermark and delivers the ones that haven't been delivered yet.
+     * Polls never overlap. A poll that is still running when the next one is due causes that one to be skipped.
+     */
+    private void poll() {
+        ChangeLogWatermark currentWatermark = watermark;
+        if(currentWatermark == null || listener == null) return;
+        if(!polling.compareAndSet(false, true)) return;
+
+        playerDataChangeTable.loadAfter(currentWatermark.get(), POLL_BATCH_SIZE).whenComplete((changes, throwable) -> {
+            try {
+                if(throwable != null) {
+                    logger.warn(AdventureUtil.serialize("Failed to read the player data change log. Error: " + throwable.getMessage()));
+                    return;
+                }
+
+                handleChanges(currentWatermark, changes);
+                pruneIfDue(currentWatermark);
+            } finally {
+                polling.set(false);
+            }
+        });
+    }
+
+    /**
+     * Delivers the changes that haven't been delivered yet.
+     * @param currentWatermark The {@link ChangeLogWatermark} the changes were read after.
+     * @param changes The {@link List} of {@link PlayerDataChangeTable.Change}s read, oldest first.
+     */
+    private void handleChanges(@NotNull ChangeLogWatermark currentWatermark, @NotNull List<PlayerDataChangeTable.Change> changes) {
+        List<InvalidationEvent> events = handleChanges(currentWatermark, deliveredIds, changes, System.nanoTime());
+
+        Consumer<List<InvalidationEvent>> currentListener = listener;
+        if(!events.isEmpty() && currentListener != null) currentListener.accept(events);
+    }
+
+    /**
+     * Records the changes provided as delivered, then moves the watermark past every id seen long enough ago that no earlier row can still be committed.
+     * Ids at or below the new watermark are forgotten, since they are never read again.
+     * @param currentWatermark The {@link ChangeLogWatermark} the changes were read after.
+     * @param deliveredIds The {@link Set} of ids above the watermark that have already been delivered.
+     * @param changes The {@link List} of {@link PlayerDataChangeTable.Change}s read, oldest first.
+     * @param nowNanos The {@link System#nanoTime()} the changes were read at.
+     * @return The {@link List} of {@link InvalidationEvent}s that haven't been delivered before, oldest first.
+     */
+    static @NotNull List<InvalidationEvent> handleChanges(@NotNull ChangeLogWatermark currentWatermark, @NotNull Set<Long> deliveredIds, @NotNull List<PlayerDataChangeTable.Change> changes, long nowNanos) {
+        List<InvalidationEvent> events = new ArrayList<>();
+        for(PlayerDataChangeTable.Change change : changes) {
+            if(deliveredIds.add(change.id())) events.add(change.event());
+        }
+
+        if(!changes.isEmpty()) currentWatermark.observe(changes.getLast().id(), nowNanos);
+
+        long settledId = currentWatermark.settle(nowNanos);
+        deliveredIds.removeIf(id -> id <= settledId);
+
+        return events;
+    }
+
+    /**
+     * Deletes the changes this server had already read a retention time ago, at most once every {@link #PRUNE_INTERVAL_MILLIS}.
+     * Every server prunes the table, which is harmless since the deletes don't conflict.
+     * @param currentWatermark The {@link ChangeLogWatermark} of the changes read so far.
+     */
+    private void pruneIfDue(@NotNull ChangeLogWatermark currentWatermark) {
+        long now = System.nanoTime();
+        if(lastPruneNanos != 0L && now - lastPruneNanos < TimeUnit.MILLISECONDS.toNanos(PRUNE_INTERVAL_MILLIS)) return;
+        lastPruneNanos = now;
+
+        long pruneUpToId = takePruneCheckpoint(pruneCheckpoints, currentWatermark.get(), now, TimeUnit.MILLISECONDS.toNanos(retentionMillis));
+        if(pruneUpToId <= 0L) return;
+
+        playerDataChangeTable.pruneUpTo(pruneUpToId).whenComplete((deletedRows, throwable) -> {
+            if(throwable != null) logger.warn(AdventureUtil.serialize("Failed to delete old rows from the player data change log. Error: " + throwable.getMessage()));
+        });
+    }
+
+    /**
+     * Records the watermark as a prune checkpoint, then removes the checkpoints taken at least the retention time ago.
+     * @param pruneCheckpoints The {@link ArrayDeque} of the System.nanoTime() and watermark of each checkpoint, oldest first.
+     * @param watermarkId The id every row at or below has been read.
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @param retentionNanos The number of nanoseconds changes are kept in the table before being deleted.
+     * @return The watermark of the newest checkpoint removed, or -1 if no checkpoint is old enough.
+     */
+    static long takePruneCheckpoint(@NotNull ArrayDeque<long[]> pruneCheckpoints, long watermarkId, long nowNanos, long retentionNanos) {
+        pruneCheckpoints.addLast(new long[] {nowNanos, watermarkId});
+
+        long pruneUpToId = -1L;
+        long[] checkpoint;
+        while((checkpoint = pruneCheckpoints.peekFirst()) != null && nowNanos - checkpoint[0] >= retentionNanos) {
+            pruneCheckpoints.removeFirst();
+            pruneUpToId = checkpoint[1];
+        }
+
+        return pruneUpToId;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class tracks how far the change log has been read without skipping a row that commits late.
+ * Row ids are assigned when a row is inserted, but rows become visible when their transaction commits, so a row can appear after rows with higher ids.
+ * Every id a poll sees was assigned before the poll ran, so once the grace period has passed since then, every row up to that id has committed.
+ * Only this server's clock is used to measure the grace period, so clock differences between servers don't matter.
+ */
+public class ChangeLogWatermark {
+    private final long graceNanos;
+    // The highest id seen by each poll and the System.nanoTime() it was seen at, oldest first.
+    private final @NotNull ArrayDeque<long[]> observations = new ArrayDeque<>();
+    private long watermark;
+    private long highestObservedId;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #ChangeLogWatermark(long, long)} instead.
+     * @deprecated You should use {@link #ChangeLogWatermark(long, long)} instead.
+     */
+    @Deprecated
+    public ChangeLogWatermark() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param startId The id every row at or below has already been read.
+     * @param graceMillis The number of milliseconds a transaction is given to commit after its row's id was seen.
+     */
+    public ChangeLogWatermark(long startId, long graceMillis) {
+        this.graceNanos = TimeUnit.MILLISECONDS.toNanos(graceMillis);
+        this.watermark = startId;
+        this.highestObservedId = startId;
+    }
+
+    /**
+     * Records the highest id read by a poll.
+     * @param id The highest id the poll read.
+     * @param nowNanos The {@link System#nanoTime()} the poll read it at.
+     */
+    public synchronized void observe(long id, long nowNanos) {
+        if(id <= highestObservedId) return;
+
+        highestObservedId = id;
+        observations.addLast(new long[] {nowNanos, id});
+    }
+
+    /**
+     * Moves the watermark past every id seen at least the grace period ago.
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return The id every row at or below has been read.
+     */
+    public synchronized long settle(long nowNanos) {
+        long[] observation;
+        while((observation = observations.peekFirst()) != null && nowNanos - observation[0] >= graceNanos) {
+            observations.removeFirst();
+            watermark = observation[1];
+        }
+
+        return watermark;
+    }
+
+    /**
+     * Get the id every row at or below has been read.
+     * @return The watermark.
+     */
+    public synchronized long get() {
+        return watermark;
+    }
+}
@@ -0,0 +1,204 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.manager.database.DatabaseManager;
+import com.github.lukesky19.skywelcome.manager.database.tables.PlayerDataChangeTable;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * This class keeps the player data caches of servers sharing a database coherent.
+ * When this server saves a player's data, an {@link InvalidationEvent} is published through the {@link InvalidationTransport}.
+ * When another server's event is received, the listeners are given the players whose cached data should be refreshed.
+ * Nothing is published or received when the database isn't shared, since no other server can change the data.
+ */
+public class InvalidationBus {
+    private static final int DEFAULT_POLL_INTERVAL_MILLIS = 1000;
+    private static final int DEFAULT_RETENTION_SECONDS = 300;
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull DatabaseManager databaseManager;
+    private final @NotNull UUID serverId = UUID.randomUUID();
+    private final @NotNull List<Consumer<Collection<UUID>>> listeners = new CopyOnWriteArrayList<>();
+    private final @NotNull List<Predicate<InvalidationEvent>> filters = new CopyOnWriteArrayList<>();
+
+    private volatile @Nullable InvalidationTransport transport;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #InvalidationBus(SkyWelcome, SettingsManager, DatabaseManager)} instead.
+     * @deprecated You should use {@link #InvalidationBus(SkyWelcome, SettingsManager, DatabaseManager)} instead.
+     */
+    @Deprecated
+    public InvalidationBus() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param databaseManager A {@link DatabaseManager} instance.
+     */
+    public InvalidationBus(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager, @NotNull DatabaseManager databaseManager) {
+        this.skyWelcome = skyWelcome;
+        this.logger = skyWelcome.getComponentLogger();
+        this.settingsManager = settingsManager;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Applies the invalidation settings from the plugin's settings, replacing the current transport.
+     * The change log is polled when the database is shared and invalidation is enabled.
+     */
+    public void reload() {
+        boolean enabled = true;
+        int pollIntervalMillis = DEFAULT_POLL_INTERVAL_MILLIS;
+        int retentionSeconds = DEFAULT_RETENTION_SECONDS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            Settings.InvalidationConfig invalidationConfig = settings.storage().invalidation();
+            enabled = Objects.requireNonNullElse(invalidationConfig.enabled(), true);
+            pollIntervalMillis = Math.max(Objects.requireNonNullElse(invalidationConfig.pollIntervalMillis(), DEFAULT_POLL_INTERVAL_MILLIS), 50);
+            retentionSeconds = Math.max(Objects.requireNonNullElse(invalidationConfig.retentionSeconds(), DEFAULT_RETENTION_SECONDS), 60);
+        }
+
+        PlayerDataChangeTable playerDataChangeTable = databaseManager.getPlayerDataChangeTable();
+        if(!enabled || playerDataChangeTable == null) {
+            setTransport(null);
+            return;
+        }
+
+        setTransport(new ChangeLogInvalidationTransport(skyWelcome, playerDataChangeTable, pollIntervalMillis, retentionSeconds * 1000L));
+    }
+
+    /**
+     * Replaces the current {@link InvalidationTransport}, stopping the old one and starting the new one.
+     * @param newTransport The {@link InvalidationTransport} to use, or null to stop publishing and receiving events.
+     */
+    public synchronized void setTransport(@Nullable InvalidationTransport newTransport) {
+        InvalidationTransport oldTransport = transport;
+        if(oldTransport != null) oldTransport.stop();
+
+        transport = newTransport;
+        if(newTransport != null) newTransport.start(this::handleEvents);
+    }
+
+    /**
+     * Adds a listener that is given the {@link UUID}s of players whose data was saved by another server.
+     * Listeners may be called from any thread, and each player is only included once per call.
+     * @param listener The {@link Consumer} to call.
+     */
+    public void addListener(@NotNull Consumer<Collection<UUID>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Adds a filter that received events must pass to be given to the listeners.
+     * This lets events be ignored when this server already has newer data than the event describes.
+     * @param filter The {@link Predicate} that returns true for events that should be handled.
+     */
+    public void addFilter(@NotNull Predicate<InvalidationEvent> filter) {
+        filters.add(filter);
+    }
+
+    /**
+     * Get the id this server publishes its events with. A new id is used every time the plugin is enabled.
+     * @return The server's {@link UUID}.
+     */
+    public @NotNull UUID getServerId() {
+        return serverId;
+    }
+
+    /**
+     * Tells the other servers that the data of the players provided was saved.
+     * A failed publish is logged and not retried, since the other servers load the data again once the players rejoin them.
+     * @param uuids The {@link Collection} of {@link UUID}s of the players whose data was saved.
+     */
+    public void publish(@NotNull Collection<UUID> uuids) {
+        InvalidationTransport currentTransport = transport;
+        if(currentTransport == null || uuids.isEmpty()) return;
+
+        long publishedAt = System.currentTimeMillis();
+        List<InvalidationEvent> events = new ArrayList<>(uuids.size());
+        uuids.forEach(uuid -> events.add(new InvalidationEvent(uuid, publishedAt, serverId)));
+
+        currentTransport.publish(events).whenComplete((result, throwable) -> {
+            // Saves made while the plugin is disabling finish after the database queue stops accepting work.
+            if(throwable == null || !skyWelcome.isEnabled()) return;
+
+            logger.warn(AdventureUtil.serialize("Failed to tell other servers about changed player data for " + uuids.size() + " players. They may show outdated settings until the players rejoin them. Error: " + throwable.getMessage()));
+        });
+    }
+
+    /**
+     * Stops publishing and receiving events.
+     */
+    public void shutdown() {
+        setTransport(null);
+    }
+
+    /**
+     * Gives the players in the events published by other servers that pass every filter to the listeners.
+     * Events for the same player are combined, since refreshing a player once loads their newest data.
+     * @param events The {@link List} of received {@link InvalidationEvent}s.
+     */
+    private void handleEvents(@NotNull List<InvalidationEvent> events) {
+        Set<UUID> uuids = getRemoteUuids(events, serverId, filters);
+        if(uuids.isEmpty()) return;
+
+        listeners.forEach(listener -> listener.accept(uuids));
+    }
+
+    /**
+     * Get the players in the events that weren't published by the server provided and pass every filter, each only once and in the order they were first received.
+     * @param events The {@link List} of received {@link InvalidationEvent}s.
+     * @param serverId The {@link UUID} of the server whose own events are skipped.
+     * @param filters The {@link List} of {@link Predicate}s an event must pass.
+     * @return A {@link Set} of {@link UUID}s.
+     */
+    static @NotNull Set<UUID> getRemoteUuids(@NotNull List<InvalidationEvent> events, @NotNull UUID serverId, @NotNull List<Predicate<InvalidationEvent>> filters) {
+        Set<UUID> uuids = new LinkedHashSet<>();
+        for(InvalidationEvent event : events) {
+            if(event.origin().equals(serverId)) continue;
+            if(filters.stream().allMatch(filter -> filter.test(event))) uuids.add(event.uuid());
+        }
+
+        return uuids;
+    }
+}
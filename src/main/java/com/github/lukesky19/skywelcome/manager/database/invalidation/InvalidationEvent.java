@@ -0,0 +1,31 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * This record contains a notification that a server saved a player's data, so other servers should stop trusting their cached copy.
+ * @param uuid The {@link UUID} of the player whose data changed.
+ * @param publishedAt The time the event was published by the origin server's clock, in epoch milliseconds.
+ * It is only informational, since the clocks of different servers can disagree, so events must not be ordered or expired by it.
+ * @param origin The id of the server that saved the data, used by servers to ignore their own events.
+ */
+public record InvalidationEvent(@NotNull UUID uuid, long publishedAt, @NotNull UUID origin) {}
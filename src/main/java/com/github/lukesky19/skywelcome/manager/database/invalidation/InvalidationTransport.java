@@ -0,0 +1,49 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * This interface carries {@link InvalidationEvent}s between the servers that share a database.
+ * Transports may deliver an event more than once, and may deliver a server's own events back to it, so listeners must be idempotent.
+ */
+public interface InvalidationTransport {
+    /**
+     * Starts delivering the events published by other servers to the listener provided.
+     * Only events published after the transport starts are guaranteed to be delivered.
+     * @param listener The {@link Consumer} that is given each batch of received {@link InvalidationEvent}s. It may be called from any thread.
+     */
+    void start(@NotNull Consumer<List<InvalidationEvent>> listener);
+
+    /**
+     * Publishes events to the other servers.
+     * @param events The {@link List} of {@link InvalidationEvent}s to publish.
+     * @return A {@link CompletableFuture} that completes once the events have been published.
+     */
+    @NotNull CompletableFuture<Void> publish(@NotNull List<InvalidationEvent> events);
+
+    /**
+     * Stops delivering events. Events published afterward are not guaranteed to reach other servers.
+     */
+    void stop();
+}
@@ -0,0 +1,375 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.journal;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.data.player.PlayerData;
+import com.github.lukesky19.skywelcome.data.player.PlayerDataRecord;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * This class records changes to player data in an append-only binary journal so they survive a crash before they are saved to the database.
+ * Each change is encoded into an in-memory buffer, which a background thread writes to the current segment file and forces to disk every sync interval,
+ * so many changes share one fsync. Segments left over from a previous run are replayed on startup and deleted once their data is in the database.
+ * <p>
+ * A segment starts with a 4 byte magic number and a 2 byte format version. Each record after that is a fixed 38 bytes:
+ * a record type, the player's UUID, the send flags, the join and leave message ids, the time of the change, and a CRC32 of the record.
+ * A torn record at the end of a segment is ignored.
+ */
+public class PlayerDataJournal {
+    private static final int MAGIC = 0x534B574A;
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 6;
+    private static final byte RECORD_TYPE_STATE = 1;
+    private static final int RECORD_SIZE = 38;
+    private static final int CHECKSUMMED_SIZE = RECORD_SIZE - 4;
+    private static final byte SEND_JOIN = 1;
+    private static final byte SEND_MOTD = 2;
+    private static final byte SEND_LEAVE = 4;
+    private static final @NotNull String SEGMENT_PREFIX = "journal-";
+    private static final @NotNull String SEGMENT_SUFFIX = ".log";
+
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull Path journalDirectory;
+    private final long syncIntervalNanos;
+    private final @NotNull List<Path> pendingSegments;
+    private final @NotNull Path currentSegment;
+    private final @NotNull FileChannel channel;
+    private final @NotNull Thread syncThread;
+    // Held while writing to or truncating the current segment. Appends only need the journal's monitor, so they never wait for an fsync.
+    private final @NotNull ReentrantLock channelLock = new ReentrantLock();
+    private @NotNull ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 64);
+    private volatile boolean open = true;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #PlayerDataJournal(ComponentLogger, Path, long)} instead.
+     * @deprecated You should use {@link #PlayerDataJournal(ComponentLogger, Path, long)} instead.
+     */
+    @Deprecated
+    public PlayerDataJournal() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * Any segments already in the directory are kept as pending segments, and a new segment is started for this run.
+     * @param logger The {@link ComponentLogger} to log to.
+     * @param journalDirectory The {@link Path} of the directory the segments are stored in.
+     * @param syncIntervalMillis The number of milliseconds between writes to disk.
+     * @throws IOException If the journal directory or the new segment could not be created.
+     */
+    public PlayerDataJournal(@NotNull ComponentLogger logger, @NotNull Path journalDirectory, long syncIntervalMillis) throws IOException {
+        this.logger = logger;
+        this.journalDirectory = journalDirectory;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(syncIntervalMillis, 1L));
+
+        Files.createDirectories(journalDirectory);
+        this.pendingSegments = listSegments();
+
+        long nextSegmentNumber = pendingSegments.isEmpty() ? 0L : getSegmentNumber(pendingSegments.getLast()) + 1L;
+        this.currentSegment = journalDirectory.resolve(SEGMENT_PREFIX + nextSegmentNumber + SEGMENT_SUFFIX);
+        this.channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        writeHeader();
+
+        this.syncThread = Thread.ofPlatform().name("SkyWelcome-Journal").daemon(true).unstarted(this::runSync);
+        this.syncThread.start();
+    }
+
+    /**
+     * Records the {@link PlayerData} a player's data was changed to.
+     * The record is written to disk by the next sync, so this never blocks on the disk.
+     * @param uuid The {@link UUID} of the player.
+     * @param playerData The player's {@link PlayerData} after the change.
+     */
+    public synchronized void append(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        if(!open) return;
+
+        if(buffer.remaining() < RECORD_SIZE) {
+            ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+
+        int start = buffer.position();
+        buffer.put(RECORD_TYPE_STATE);
+        buffer.putLong(uuid.getMostSignificantBits());
+        buffer.putLong(uuid.getLeastSignificantBits());
+        buffer.put(encodeFlags(playerData));
+        buffer.putInt(playerData.getJoinMessageId());
+        buffer.putInt(playerData.getLeaveMessageId());
+        buffer.putLong(System.currentTimeMillis());
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer.array(), start, CHECKSUMMED_SIZE);
+        buffer.putInt((int) crc32.getValue());
+    }
+
+    /**
+     * Are there segments left over from a previous run that have not been replayed yet?
+     * @return true if there are pending segments, otherwise false.
+     */
+    public synchronized boolean hasPendingSegments() {
+        return !pendingSegments.isEmpty();
+    }
+
+    /**
+     * Reads the segments left over from a previous run.
+     * @return A {@link List} of the last {@link PlayerDataRecord} recorded for each player, with the time of the change as its last updated time,
+     * in the order the players were first recorded.
+     */
+    public synchronized @NotNull List<PlayerDataRecord> readPendingSegments() {
+        Map<UUID, PlayerDataRecord> records = new LinkedHashMap<>();
+        for(Path segment : pendingSegments) {
+            readSegment(segment, records);
+        }
+
+        return new ArrayList<>(records.values());
+    }
+
+    /**
+     * Deletes the segments left over from a previous run once their data has been saved to the database.
+     */
+    public synchronized void deletePendingSegments() {
+        for(Path segment : pendingSegments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                logger.warn(AdventureUtil.serialize("Failed to delete the player data journal segment " + segment.getFileName() + ". Error: " + e.getMessage()));
+            }
+        }
+
+        pendingSegments.clear();
+    }
+
+    /**
+     * Empties the current segment if every change recorded in it has been saved to the database.
+     * The condition is checked and the buffer cleared while appends are blocked, so a change can't be recorded in between.
+     * The segment is truncated after appends are unblocked. Nothing can be written to it until then, so any change recorded meanwhile stays in the buffer.
+     * @param allSaved A {@link BooleanSupplier} that returns true if every recorded change has been saved.
+     */
+    public void checkpoint(@NotNull BooleanSupplier allSaved) {
+        channelLock.lock();
+        try {
+            synchronized(this) {
+                if(!open || !allSaved.getAsBoolean()) return;
+
+                buffer.clear();
+            }
+
+            channel.truncate(HEADER_SIZE);
+            channel.position(HEADER_SIZE);
+            channel.force(false);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to truncate the player data journal. Error: " + e.getMessage()));
+        } finally {
+            channelLock.unlock();
+        }
+    }
+
+    /**
+     * Writes any buffered records to disk, stops the sync thread, and closes the current segment.
+     * The segment is deleted if every change recorded in it has been saved to the database.
+     * @param allSaved A {@link BooleanSupplier} that returns true if every recorded change has been saved.
+     */
+    public void close(@NotNull BooleanSupplier allSaved) {
+        open = false;
+        // The sync thread is woken rather than interrupted, since an interrupt during a write would close the channel.
+        LockSupport.unpark(syncThread);
+        try {
+            syncThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        sync();
+
+        channelLock.lock();
+        try {
+            channel.close();
+            if(allSaved.getAsBoolean()) Files.deleteIfExists(currentSegment);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to close the player data journal. Error: " + e.getMessage()));
+        } finally {
+            channelLock.unlock();
+        }
+    }
+
+    /**
+     * The sync thread's loop. Writes buffered records to disk once every sync interval until the journal is closed.
+     */
+    private void runSync() {
+        while(open) {
+            LockSupport.parkNanos(syncIntervalNanos);
+            if(!open) return;
+
+            sync();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the current segment and forces them to disk.
+     */
+    private void sync() {
+        channelLock.lock();
+        try {
+            ByteBuffer pending;
+            synchronized(this) {
+                if(buffer.position() == 0 || !channel.isOpen()) return;
+
+                pending = buffer;
+                pending.flip();
+                buffer = ByteBuffer.allocate(pending.capacity());
+            }
+
+            while(pending.hasRemaining()) {
+                channel.write(pending);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            logger.error(AdventureUtil.serialize("Failed to write to the player data journal. Recent changes may be lost if the server crashes before they are saved. Error: " + e.getMessage()));
+        } finally {
+            channelLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the segment header to the start of the current segment.
+     * @throws IOException If the header could not be written.
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(FORMAT_VERSION);
+        header.flip();
+
+        while(header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Reads every valid record in a segment into the {@link Map} provided. Later records replace earlier records for the same player.
+     * @param segment The {@link Path} of the segment.
+     * @param records The {@link Map} of each {@link UUID} to its {@link PlayerDataRecord} to read the records into.
+     */
+    private void readSegment(@NotNull Path segment, @NotNull Map<UUID, PlayerDataRecord> records) {
+        ByteBuffer data;
+        try {
+            data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to read the player data journal segment " + segment.getFileName() + ". Error: " + e.getMessage()));
+            return;
+        }
+
+        if(data.remaining() < HEADER_SIZE || data.getInt() != MAGIC || data.getShort() != FORMAT_VERSION) {
+            logger.warn(AdventureUtil.serialize("Skipping the player data journal segment " + segment.getFileName() + " because it is not a valid journal segment."));
+            return;
+        }
+
+        CRC32 crc32 = new CRC32();
+        while(data.remaining() >= RECORD_SIZE) {
+            int start = data.position();
+            crc32.reset();
+            crc32.update(data.array(), start, CHECKSUMMED_SIZE);
+
+            byte recordType = data.get();
+            UUID uuid = new UUID(data.getLong(), data.getLong());
+            byte flags = data.get();
+            int joinMessageId = data.getInt();
+            int leaveMessageId = data.getInt();
+            long changedAt = data.getLong();
+            int checksum = data.getInt();
+
+            if(checksum != (int) crc32.getValue() || recordType != RECORD_TYPE_STATE) {
+                // Everything after a torn or corrupt record is untrustworthy, so stop here.
+                logger.warn(AdventureUtil.serialize("The player data journal segment " + segment.getFileName() + " has a corrupt record. Records after it were skipped."));
+                return;
+            }
+
+            PlayerData playerData = new PlayerData((flags & SEND_JOIN) != 0, (flags & SEND_MOTD) != 0, (flags & SEND_LEAVE) != 0, joinMessageId, leaveMessageId);
+            records.put(uuid, new PlayerDataRecord(uuid, playerData, changedAt));
+        }
+    }
+
+    /**
+     * Lists the segments in the journal directory, oldest first.
+     * @return A {@link List} of segment {@link Path}s.
+     * @throws IOException If the directory could not be read.
+     */
+    private @NotNull List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try(DirectoryStream<Path> stream = Files.newDirectoryStream(journalDirectory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for(Path segment : stream) {
+                if(getSegmentNumber(segment) >= 0) segments.add(segment);
+            }
+        }
+
+        segments.sort(Comparator.comparingLong(PlayerDataJournal::getSegmentNumber));
+        return segments;
+    }
+
+    /**
+     * Get the number of a segment from its file name.
+     * @param segment The {@link Path} of the segment.
+     * @return The segment number or -1 if the file name is not a segment name.
+     */
+    private static long getSegmentNumber(@NotNull Path segment) {
+        String fileName = segment.getFileName().toString();
+        try {
+            return Long.parseLong(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Packs the send flags of the {@link PlayerData} into a single byte.
+     * @param playerData The {@link PlayerData}.
+     * @return The packed flags.
+     */
+    private static byte encodeFlags(@NotNull PlayerData playerData) {
+        byte flags = 0;
+        if(playerData.isSendJoin()) flags |= SEND_JOIN;
+        if(playerData.isSendMotd()) flags |= SEND_MOTD;
+        if(playerData.isSendLeave()) flags |= SEND_LEAVE;
+        return flags;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram in the style of HdrHistogram.
+ * Values are counted in log-linear buckets: every power of two is split into 64 equal buckets, so any recorded value is reported within about 1.6% of its true value
+ * while the whole range, from 1 microsecond to several days, fits in a few thousand counters.
+ * Recording only increments counters, so it is safe and cheap to call from any thread.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+    private static final int MAGNITUDES = 32;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + MAGNITUDES * SUB_BUCKET_HALF_COUNT;
+
+    private final @NotNull AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final @NotNull LongAdder totalCount = new LongAdder();
+    private final @NotNull LongAdder totalValue = new LongAdder();
+    private final @NotNull LongAccumulator maxValue = new LongAccumulator(Long::max, 0L);
+
+    /**
+     * Default Constructor.
+     */
+    public LatencyHistogram() {}
+
+    /**
+     * Records a value.
+     * @param micros The value in microseconds. Negative values are recorded as 0.
+     */
+    public void record(long micros) {
+        long value = Math.max(micros, 0L);
+
+        counts.incrementAndGet(getBucketIndex(value));
+        totalCount.increment();
+        totalValue.add(value);
+        maxValue.accumulate(value);
+    }
+
+    /**
+     * Get the number of values recorded.
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    /**
+     * Get the largest value recorded.
+     * @return The largest value in microseconds, or 0 if nothing has been recorded.
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * Get the mean of the values recorded.
+     * @return The mean in microseconds, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0D : (double) totalValue.sum() / count;
+    }
+
+    /**
+     * Get the value that the percentile provided of recorded values are at or below.
+     * The value is the top of the bucket the percentile falls in, so it is never lower than the true value.
+     * @param percentile The percentile, from 0 to 100.
+     * @return The value in microseconds, or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0L;
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if(count == 0L) return 0L;
+
+        long target = Math.max(1L, (long) Math.ceil(Math.min(Math.max(percentile, 0D), 100D) / 100D * count));
+        long seen = 0L;
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if(seen >= target) return Math.min(getHighestValueInBucket(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Clears every recorded value. Values recorded while the reset is in progress may be partly kept.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+
+        totalCount.reset();
+        totalValue.reset();
+        maxValue.reset();
+    }
+
+    /**
+     * Get the index of the bucket a value is counted in.
+     * Values below 128 each have their own bucket. Larger values are shifted until they are between 64 and 127, and the shift picks the group of 64 buckets.
+     * @param value The value.
+     * @return The bucket index. Values too large for the histogram are counted in the last bucket.
+     */
+    private static int getBucketIndex(long value) {
+        if(value < SUB_BUCKET_COUNT) return (int) value;
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        long index = SUB_BUCKET_COUNT + (long) (shift - 1) * SUB_BUCKET_HALF_COUNT + ((value >>> shift) - SUB_BUCKET_HALF_COUNT);
+
+        return (int) Math.min(index, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Get the largest value that is counted in a bucket.
+     * @param index The bucket index.
+     * @return The largest value.
+     */
+    private static long getHighestValueInBucket(int index) {
+        if(index < SUB_BUCKET_COUNT) return index;
+
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+
+        return ((subBucket + 1L) << shift) - 1L;
+    }
+}
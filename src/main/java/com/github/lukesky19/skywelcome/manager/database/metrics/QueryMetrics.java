@@ -0,0 +1,139 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.metrics;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.enums.QueryType;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class records how long each kind of database query takes, split into the time spent waiting in the queue and the time spent running on a connection.
+ * Keeping the two apart shows whether a slow load was caused by the database itself or by work queued ahead of it.
+ * Queries that take longer than the configured threshold are logged.
+ */
+public class QueryMetrics {
+    private static final int DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS = 100;
+
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull Map<QueryType, LatencyHistogram> queueWaitHistograms = new EnumMap<>(QueryType.class);
+    private final @NotNull Map<QueryType, LatencyHistogram> executionHistograms = new EnumMap<>(QueryType.class);
+    private volatile long slowQueryThresholdNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS);
+
+    /**
+     * Default Constructor.
+     * You should use {@link #QueryMetrics(SkyWelcome, SettingsManager)} instead.
+     * @deprecated You should use {@link #QueryMetrics(SkyWelcome, SettingsManager)} instead.
+     */
+    @Deprecated
+    public QueryMetrics() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     */
+    public QueryMetrics(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager) {
+        this.logger = skyWelcome.getComponentLogger();
+        this.settingsManager = settingsManager;
+
+        // Every histogram is created up front so the maps are never modified while queries are being recorded.
+        for(QueryType queryType : QueryType.values()) {
+            queueWaitHistograms.put(queryType, new LatencyHistogram());
+            executionHistograms.put(queryType, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Applies the slow query threshold from the plugin's settings.
+     */
+    public void reload() {
+        int thresholdMillis = DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            thresholdMillis = Objects.requireNonNullElse(settings.storage().metrics().slowQueryThresholdMillis(), DEFAULT_SLOW_QUERY_THRESHOLD_MILLIS);
+        }
+
+        slowQueryThresholdNanos = thresholdMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(thresholdMillis) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Records a finished query, and logs it if it was slow.
+     * @param queryType The {@link QueryType} of the query.
+     * @param queueWaitNanos The number of nanoseconds the query waited before it was given a connection.
+     * @param executionNanos The number of nanoseconds the query took to run, including the commit for writes.
+     * @param rows The number of rows the query read or wrote.
+     */
+    public void record(@NotNull QueryType queryType, long queueWaitNanos, long executionNanos, int rows) {
+        queueWaitHistograms.get(queryType).record(TimeUnit.NANOSECONDS.toMicros(queueWaitNanos));
+        executionHistograms.get(queryType).record(TimeUnit.NANOSECONDS.toMicros(executionNanos));
+
+        if(queueWaitNanos + executionNanos >= slowQueryThresholdNanos) {
+            logger.warn(AdventureUtil.serialize("Slow " + queryType + " query on " + rows + " rows took " + formatMillis(queueWaitNanos + executionNanos)
+                    + "ms. Queue wait: " + formatMillis(queueWaitNanos) + "ms, execution: " + formatMillis(executionNanos) + "ms."));
+        }
+    }
+
+    /**
+     * Get the {@link LatencyHistogram} of the time queries of the type provided waited before they were given a connection.
+     * @param queryType The {@link QueryType}.
+     * @return The {@link LatencyHistogram}, in microseconds.
+     */
+    public @NotNull LatencyHistogram getQueueWaitHistogram(@NotNull QueryType queryType) {
+        return queueWaitHistograms.get(queryType);
+    }
+
+    /**
+     * Get the {@link LatencyHistogram} of the time queries of the type provided took to run.
+     * @param queryType The {@link QueryType}.
+     * @return The {@link LatencyHistogram}, in microseconds.
+     */
+    public @NotNull LatencyHistogram getExecutionHistogram(@NotNull QueryType queryType) {
+        return executionHistograms.get(queryType);
+    }
+
+    /**
+     * Clears every recorded query.
+     */
+    public void reset() {
+        queueWaitHistograms.values().forEach(LatencyHistogram::reset);
+        executionHistograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * Formats a duration as milliseconds with one decimal place.
+     * @param nanos The duration in nanoseconds.
+     * @return The formatted duration.
+     */
+    private static @NotNull String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000D);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.migration;
+
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * This record contains a single step in the schema history of a table.
+ * Steps are applied in version order, and each is recorded in the schema version table once it finishes, so it is only ever applied once.
+ * Steps should be safe to run again if they are interrupted before being recorded, such as by checking for an index before creating it.
+ * @param version The schema version the table is at once this step has been applied.
+ * @param description A short description of the change, used in the log.
+ * @param step The {@link Step} that applies the change.
+ */
+public record SchemaMigration(int version, @NotNull String description, @NotNull Step step) {
+    /**
+     * Applies a schema change.
+     */
+    @FunctionalInterface
+    public interface Step {
+        /**
+         * Applies the change. The connection has auto-commit enabled, and the step must leave it enabled.
+         * Steps that copy many rows should commit in batches and log their progress.
+         * @param connection The writer {@link Connection}.
+         * @param logger The {@link ComponentLogger} to log progress to.
+         * @throws SQLException If a database error occurs.
+         */
+        void apply(@NotNull Connection connection, @NotNull ComponentLogger logger) throws SQLException;
+    }
+}
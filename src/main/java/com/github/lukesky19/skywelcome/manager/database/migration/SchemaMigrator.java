@@ -0,0 +1,178 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.migration;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * This class brings tables up to their current schema by applying {@link SchemaMigration}s in order.
+ * The version of each table is stored in a schema version table, one row per table, and is updated after every step,
+ * so a migration that is interrupted continues from the last finished step the next time the plugin is enabled.
+ * Migrations run on the writer connection, and tables chain their queries on the migration, so no data query runs against an outdated schema.
+ */
+public class SchemaMigrator {
+    private static final @NotNull String SCHEMA_VERSION_TABLE = "skywelcome_schema_version";
+
+    private final @NotNull ComponentLogger logger;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #SchemaMigrator(ComponentLogger)} instead.
+     * @deprecated You should use {@link #SchemaMigrator(ComponentLogger)} instead.
+     */
+    @Deprecated
+    public SchemaMigrator() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param logger The {@link ComponentLogger} to log migrations to.
+     */
+    public SchemaMigrator(@NotNull ComponentLogger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * Applies every {@link SchemaMigration} newer than the table's recorded version, in version order.
+     * @param connection The writer {@link Connection}, with auto-commit enabled.
+     * @param tableName The name of the table being migrated.
+     * @param baselineVersion The {@link IntSupplier} of the version to assume when the table has no recorded version,
+     *                        such as for tables created before the schema version table existed. Only called when needed.
+     * @param migrations The {@link List} of {@link SchemaMigration}s for the table.
+     * @throws SQLException If a database error occurs. Steps that finished before the error stay recorded.
+     */
+    public void migrate(@NotNull Connection connection, @NotNull String tableName, @NotNull IntSupplier baselineVersion, @NotNull List<SchemaMigration> migrations) throws SQLException {
+        createSchemaVersionTable(connection);
+
+        int currentVersion = getRecordedVersion(connection, tableName);
+        if(currentVersion < 0) {
+            currentVersion = baselineVersion.getAsInt();
+            if(currentVersion > 0) setRecordedVersion(connection, tableName, currentVersion);
+        }
+
+        List<SchemaMigration> pendingMigrations = migrations.stream()
+                .sorted(Comparator.comparingInt(SchemaMigration::version))
+                .toList();
+
+        for(SchemaMigration migration : pendingMigrations) {
+            if(migration.version() <= currentVersion) continue;
+
+            long startTime = System.currentTimeMillis();
+            logger.info(AdventureUtil.serialize("Migrating " + tableName + " to schema version " + migration.version() + ": " + migration.description() + "."));
+
+            try {
+                migration.step().apply(connection, logger);
+            } catch (SQLException e) {
+                logger.error(AdventureUtil.serialize("Failed to migrate " + tableName + " to schema version " + migration.version() + ". Player data can't be loaded or saved until this is fixed. Error: " + e.getMessage()));
+                throw e;
+            }
+
+            setRecordedVersion(connection, tableName, migration.version());
+            currentVersion = migration.version();
+
+            logger.info(AdventureUtil.serialize("Migrated " + tableName + " to schema version " + migration.version() + " in " + (System.currentTimeMillis() - startTime) + "ms."));
+        }
+    }
+
+    /**
+     * Checks if a table exists, using the JDBC metadata so it works on every database.
+     * @param connection The {@link Connection} to use.
+     * @param tableName The name of the table.
+     * @return true if the table exists, otherwise false.
+     * @throws SQLException If a database error occurs.
+     */
+    public static boolean tableExists(@NotNull Connection connection, @NotNull String tableName) throws SQLException {
+        try(ResultSet resultSet = connection.getMetaData().getTables(connection.getCatalog(), null, tableName, new String[] {"TABLE"})) {
+            return resultSet.next();
+        }
+    }
+
+    /**
+     * Creates the schema version table if it doesn't exist.
+     * @param connection The writer {@link Connection}.
+     * @throws SQLException If a database error occurs.
+     */
+    private void createSchemaVersionTable(@NotNull Connection connection) throws SQLException {
+        try(Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + SCHEMA_VERSION_TABLE + " (" +
+                    "table_name VARCHAR(64) NOT NULL PRIMARY KEY, " +
+                    "version INTEGER NOT NULL, " +
+                    "applied_at BIGINT NOT NULL)");
+        }
+    }
+
+    /**
+     * Get the version recorded for a table.
+     * @param connection The writer {@link Connection}.
+     * @param tableName The name of the table.
+     * @return The recorded version, or -1 if the table has no recorded version.
+     * @throws SQLException If a database error occurs.
+     */
+    private int getRecordedVersion(@NotNull Connection connection, @NotNull String tableName) throws SQLException {
+        try(PreparedStatement statement = connection.prepareStatement("SELECT version FROM " + SCHEMA_VERSION_TABLE + " WHERE table_name = ?")) {
+            statement.setString(1, tableName);
+
+            try(ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("version") : -1;
+            }
+        }
+    }
+
+    /**
+     * Records the version of a table.
+     * The row is updated first and only inserted if it doesn't exist, since not every database supports the same upsert syntax.
+     * If another server sharing the database inserts the row first, the insert is retried as an update.
+     * @param connection The writer {@link Connection}.
+     * @param tableName The name of the table.
+     * @param version The version to record.
+     * @throws SQLException If a database error occurs.
+     */
+    private void setRecordedVersion(@NotNull Connection connection, @NotNull String tableName, int version) throws SQLException {
+        String updateSql = "UPDATE " + SCHEMA_VERSION_TABLE + " SET version = ?, applied_at = ? WHERE table_name = ?";
+        String insertSql = "INSERT INTO " + SCHEMA_VERSION_TABLE + " (table_name, version, applied_at) VALUES (?, ?, ?)";
+        long now = System.currentTimeMillis();
+
+        try(PreparedStatement updateStatement = connection.prepareStatement(updateSql)) {
+            updateStatement.setInt(1, version);
+            updateStatement.setLong(2, now);
+            updateStatement.setString(3, tableName);
+            if(updateStatement.executeUpdate() > 0) return;
+
+            try(PreparedStatement insertStatement = connection.prepareStatement(insertSql)) {
+                insertStatement.setString(1, tableName);
+                insertStatement.setInt(2, version);
+                insertStatement.setLong(3, now);
+                insertStatement.executeUpdate();
+            } catch (SQLException e) {
+                if(updateStatement.executeUpdate() == 0) throw e;
+            }
+        }
+    }
+}
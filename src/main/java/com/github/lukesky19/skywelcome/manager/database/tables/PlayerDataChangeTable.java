@@ -0,0 +1,176 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.tables;
+
+import com.github.lukesky19.skylib.api.database.parameter.Parameter;
+import com.github.lukesky19.skylib.api.database.parameter.impl.LongParameter;
+import com.github.lukesky19.skylib.api.database.parameter.impl.UUIDParameter;
+import com.github.lukesky19.skywelcome.enums.QueryType;
+import com.github.lukesky19.skywelcome.manager.database.QueueManager;
+import com.github.lukesky19.skywelcome.manager.database.dialect.SqlDialect;
+import com.github.lukesky19.skywelcome.manager.database.invalidation.InvalidationEvent;
+import com.github.lukesky19.skywelcome.manager.database.migration.SchemaMigration;
+import com.github.lukesky19.skywelcome.manager.database.migration.SchemaMigrator;
+import com.github.lukesky19.skywelcome.util.UUIDUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This class manages access to the player data change log table in the database.
+ * The change log is only used when the database is shared, to tell other servers which players' data was saved.
+ */
+public class PlayerDataChangeTable {
+    private final @NotNull QueueManager queueManager;
+    private final @NotNull SqlDialect sqlDialect;
+    private final @NotNull SchemaMigrator schemaMigrator;
+    private final @NotNull String tableName = "skywelcome_player_data_changes";
+    // Completes once the table exists. Queries are chained on this so they never race the table's creation.
+    private @NotNull CompletableFuture<Void> tableReady = CompletableFuture.completedFuture(null);
+
+    /**
+     * Default Constructor.
+     * You should use {@link #PlayerDataChangeTable(QueueManager, SqlDialect, SchemaMigrator)} instead.
+     * @deprecated You should use {@link #PlayerDataChangeTable(QueueManager, SqlDialect, SchemaMigrator)} instead.
+     */
+    @Deprecated
+    public PlayerDataChangeTable() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param queueManager A {@link QueueManager} instance.
+     * @param sqlDialect The {@link SqlDialect} for the database.
+     * @param schemaMigrator The {@link SchemaMigrator} that brings the table up to the current schema.
+     */
+    public PlayerDataChangeTable(@NotNull QueueManager queueManager, @NotNull SqlDialect sqlDialect, @NotNull SchemaMigrator schemaMigrator) {
+        this.queueManager = queueManager;
+        this.sqlDialect = sqlDialect;
+        this.schemaMigrator = schemaMigrator;
+    }
+
+    /**
+     * Creates the table in the database if it doesn't exist, or migrates it to the current schema if it is outdated.
+     * This runs on the database's writer thread, and every other query waits for it to finish.
+     */
+    public void createTable() {
+        List<SchemaMigration> migrations = List.of(
+                new SchemaMigration(1, "create the player data change log table",
+                        (connection, logger) -> {
+                            try(Statement statement = connection.createStatement()) {
+                                statement.executeUpdate(sqlDialect.createChangeLogTableSql(tableName));
+                            }
+                        }));
+
+        tableReady = queueManager.queueWriterTask(connection -> {
+            // The table has no history from before the schema version table, so it is always migrated from the beginning.
+            schemaMigrator.migrate(connection, tableName, () -> 0, migrations);
+            return null;
+        });
+    }
+
+    /**
+     * Records every {@link InvalidationEvent} provided in a single transaction.
+     * @param events The {@link List} of {@link InvalidationEvent}s to record.
+     * @return A {@link CompletableFuture} that completes once the events are recorded.
+     */
+    public @NotNull CompletableFuture<Void> insertAll(@NotNull List<InvalidationEvent> events) {
+        String insertSql = "INSERT INTO " + tableName + " (player_id, published_at, origin) VALUES (?, ?, ?)";
+
+        List<List<Parameter<?>>> batch = new ArrayList<>(events.size());
+        events.forEach(event -> batch.add(List.of(
+                new UUIDParameter(event.uuid()),
+                new LongParameter(event.publishedAt()),
+                new UUIDParameter(event.origin()))));
+
+        return tableReady.thenCompose(ready -> queueManager.queueBatchWriteTransaction(QueryType.PUBLISH, insertSql, batch));
+    }
+
+    /**
+     * Loads the id of the newest change in the table.
+     * @return A {@link CompletableFuture} containing the newest id, or 0 if the table is empty.
+     */
+    public @NotNull CompletableFuture<Long> loadLatestId() {
+        String selectSql = "SELECT MAX(id) AS latest_id FROM " + tableName;
+
+        return tableReady.thenCompose(ready -> queueManager.queueReadTransaction(QueryType.POLL, selectSql, List.of(), resultSet -> {
+            try {
+                return resultSet.next() ? resultSet.getLong("latest_id") : 0L;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, latestId -> 1));
+    }
+
+    /**
+     * Loads the changes recorded after the id provided, oldest first.
+     * @param afterId Only changes with a higher id are loaded.
+     * @param limit The maximum number of changes to load.
+     * @return A {@link CompletableFuture} containing the {@link List} of {@link Change}s.
+     */
+    public @NotNull CompletableFuture<@NotNull List<Change>> loadAfter(long afterId, int limit) {
+        String selectSql = "SELECT id, player_id, published_at, origin FROM " + tableName + " WHERE id > ? ORDER BY id LIMIT " + limit;
+
+        return tableReady.thenCompose(ready -> queueManager.queueReadTransaction(QueryType.POLL, selectSql, List.of(new LongParameter(afterId)), resultSet -> {
+            try {
+                List<Change> changes = new ArrayList<>();
+                while(resultSet.next()) {
+                    InvalidationEvent event = new InvalidationEvent(
+                            UUIDUtils.fromBytes(resultSet.getBytes("player_id")),
+                            resultSet.getLong("published_at"),
+                            UUIDUtils.fromBytes(resultSet.getBytes("origin")));
+
+                    changes.add(new Change(resultSet.getLong("id"), event));
+                }
+
+                return changes;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, List::size));
+    }
+
+    /**
+     * Deletes the changes with an id at or below the one provided. Every server is expected to have read them by then.
+     * @param maxId The highest id to delete.
+     * @return A {@link CompletableFuture} containing the number of changes deleted.
+     */
+    public @NotNull CompletableFuture<Integer> pruneUpTo(long maxId) {
+        String deleteSql = "DELETE FROM " + tableName + " WHERE id <= ?";
+
+        return tableReady.thenCompose(ready -> queueManager.queueWriterTask(QueryType.PRUNE, connection -> {
+            try(PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+                statement.setLong(1, maxId);
+                return statement.executeUpdate();
+            }
+        }, Integer::intValue));
+    }
+
+    /**
+     * This record contains a change read from the change log.
+     * @param id The id of the change's row, which increases in the order changes were recorded.
+     * @param event The {@link InvalidationEvent}.
+     */
+    public record Change(long id, @NotNull InvalidationEvent event) {}
+}
@@ -17,31 +17,69 @@
 */
 package com.github.lukesky19.skywelcome.manager.database.tables;
 
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skylib.api.database.parameter.Parameter;
 import com.github.lukesky19.skylib.api.database.parameter.impl.IntegerParameter;
 import com.github.lukesky19.skylib.api.database.parameter.impl.LongParameter;
 import com.github.lukesky19.skylib.api.database.parameter.impl.UUIDParameter;
+import com.github.lukesky19.skywelcome.config.settings.MessageCatalog;
 import com.github.lukesky19.skywelcome.data.player.PlayerData;
+import com.github.lukesky19.skywelcome.data.player.PlayerDataRecord;
+import com.github.lukesky19.skywelcome.enums.QueryType;
 import com.github.lukesky19.skywelcome.manager.database.QueueManager;
-import com.github.lukesky19.skywelcome.util.MessageParameter;
+import com.github.lukesky19.skywelcome.manager.database.dialect.SqlDialect;
+import com.github.lukesky19.skywelcome.manager.database.migration.SchemaMigration;
+import com.github.lukesky19.skywelcome.manager.database.migration.SchemaMigrator;
+import com.github.lukesky19.skywelcome.util.UUIDHashSet;
+import com.github.lukesky19.skywelcome.util.UUIDUtils;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * This class manages access to the player data table in the database.
  */
 public class PlayerDataTable {
+    // Stays well below SQLite's limit on the number of parameters in a single statement.
+    private static final int LOAD_ALL_CHUNK_SIZE = 500;
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+    private static final long MIGRATION_PROGRESS_INTERVAL_MILLIS = 5000L;
+
     private final @NotNull QueueManager queueManager;
+    private final @NotNull SqlDialect sqlDialect;
+    private final @NotNull SchemaMigrator schemaMigrator;
+    private final @NotNull Supplier<@Nullable MessageCatalog> messageCatalogSupplier;
     private final @NotNull String tableName = "skywelcome_player_data";
+    private final @NotNull String lastUpdatedIndexName = "skywelcome_player_data_last_updated";
+    // Completes once the table exists with all of its columns. Queries are chained on this so they never race the table's creation.
+    private @NotNull CompletableFuture<Void> tableReady = CompletableFuture.completedFuture(null);
 
     /**
      * Default Constructor.
-     * You should use {@link #PlayerDataTable(QueueManager)} instead.
-     * @deprecated You should use {@link #PlayerDataTable(QueueManager)} instead.
+     * You should use {@link #PlayerDataTable(QueueManager, SqlDialect, SchemaMigrator, Supplier)} instead.
+     * @deprecated You should use {@link #PlayerDataTable(QueueManager, SqlDialect, SchemaMigrator, Supplier)} instead.
      */
     @Deprecated
     public PlayerDataTable() {
@@ -51,27 +89,346 @@ public class PlayerDataTable {
     /**
      * Constructor
      * @param queueManager A {@link QueueManager} instance.
+     * @param sqlDialect The {@link SqlDialect} for the database.
+     * @param schemaMigrator The {@link SchemaMigrator} that brings the table up to the current schema.
+     * @param messageCatalogSupplier The {@link Supplier} of the current {@link MessageCatalog}, used to convert stored message text to message ids.
      */
-    public PlayerDataTable(@NotNull QueueManager queueManager) {
+    public PlayerDataTable(
+            @NotNull QueueManager queueManager,
+            @NotNull SqlDialect sqlDialect,
+            @NotNull SchemaMigrator schemaMigrator,
+            @NotNull Supplier<@Nullable MessageCatalog> messageCatalogSupplier) {
         this.queueManager = queueManager;
+        this.sqlDialect = sqlDialect;
+        this.schemaMigrator = schemaMigrator;
+        this.messageCatalogSupplier = messageCatalogSupplier;
+    }
+
+    /**
+     * Get the name of the player data table.
+     * @return The table name.
+     */
+    public @NotNull String getTableName() {
+        return tableName;
     }
 
     /**
-     * Creates the table in the database if it doesn't exist and any indexes that don't exist.
+     * Creates the table in the database if it doesn't exist, or migrates it to the current schema if it is outdated.
+     * This runs on the database's writer thread, and every other query waits for it to finish.
      */
     public void createTable() {
-        String tableCreationSql = "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
-                "player_id LONG NOT NULL UNIQUE DEFAULT 0, " +
-                "send_join INTEGER NOT NULL DEFAULT 1, " +
-                "send_motd INTEGER NOT NULL DEFAULT 1, " +
-                "send_leave INTEGER NOT NULL DEFAULT 1, " +
-                "join_message TEXT NOT NULL, " +
-                "leave_message TEXT NOT NULL, " +
-                "last_updated LONG NOT NULL DEFAULT 0)";
-        String playerIdsIndexSql = "CREATE INDEX IF NOT EXISTS idx_" + tableName + "_player_ids ON " + tableName + "(player_id)";
+        tableReady = queueManager.queueWriterTask(connection -> {
+            schemaMigrator.migrate(connection, tableName, () -> getBaselineVersion(connection), getMigrations());
+            return null;
+        });
+    }
+
+    /**
+     * Get the {@link SchemaMigration}s for the table, in the order they were added.
+     * New migrations must be appended with the next version and never reordered, since the version is all that's recorded.
+     * @return A {@link List} of {@link SchemaMigration}s.
+     */
+    private @NotNull List<SchemaMigration> getMigrations() {
+        return List.of(
+                new SchemaMigration(1, "create the player data table",
+                        (connection, logger) -> {
+                            try(Statement statement = connection.createStatement()) {
+                                statement.executeUpdate(sqlDialect.createPlayerDataTableSql(tableName));
+                            }
+                        }),
+                new SchemaMigration(2, "key rows by the player's 16-byte UUID",
+                        (connection, logger) -> {
+                            // Only SQLite databases can have tables from before player ids were stored as UUIDs.
+                            if(!sqlDialect.isShared() && getColumns(connection, tableName).contains("id")) {
+                                migrateToV2(connection, logger);
+                            }
+                        }),
+                new SchemaMigration(3, "index last_updated",
+                        (connection, logger) -> createLastUpdatedIndex(connection)),
+                new SchemaMigration(4, "convert stored join and leave messages to message ids",
+                        (connection, logger) -> convertLegacyMessages(connection)));
+    }
+
+    /**
+     * Get the schema version to assume for a table that has no recorded version.
+     * SQLite databases stored their schema version in user_version before the schema version table existed.
+     * Tables that exist without either are from the first version of the plugin, or were created by a shared database,
+     * which has always used the version 2 layout. Version 3 is never assumed, so its index is always checked for.
+     * @param connection The writer {@link Connection}.
+     * @return The baseline schema version.
+     */
+    private int getBaselineVersion(@NotNull Connection connection) {
+        try {
+            if(!SchemaMigrator.tableExists(connection, tableName)) return 0;
+            if(sqlDialect.isShared()) return 2;
+
+            try(Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+                return resultSet.next() && resultSet.getInt(1) >= 2 ? 2 : 1;
+            }
+        } catch (SQLException e) {
+            // Every migration checks the table before changing it, so starting from the beginning is always safe.
+            return 0;
+        }
+    }
+
+    /**
+     * Creates the index on last_updated used to find inactive rows, if it doesn't exist.
+     * The index is looked up through the JDBC metadata, since not every database supports CREATE INDEX IF NOT EXISTS.
+     * @param connection The writer {@link Connection}.
+     * @throws SQLException If a database error occurs.
+     */
+    private void createLastUpdatedIndex(@NotNull Connection connection) throws SQLException {
+        try(ResultSet resultSet = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, tableName, false, false)) {
+            while(resultSet.next()) {
+                if(lastUpdatedIndexName.equalsIgnoreCase(resultSet.getString("INDEX_NAME"))) return;
+            }
+        }
+
+        try(Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE INDEX " + lastUpdatedIndexName + " ON " + tableName + " (last_updated)");
+        }
+    }
+
+    /**
+     * Migrates the version 1 table, which used an AUTOINCREMENT id and stored player ids as text with two indexes on them,
+     * to the version 2 table, which uses the player's 16-byte {@link UUID} as the primary key of a WITHOUT ROWID table.
+     * Rows are copied in batches, each in its own transaction. The old table is only replaced once every row has been copied,
+     * so an interrupted migration starts over from the old table the next time the plugin is enabled.
+     * @param connection The writer {@link Connection}.
+     * @param logger The {@link ComponentLogger} to log the copy's progress to.
+     * @throws SQLException If a database error occurs.
+     */
+    private void migrateToV2(@NotNull Connection connection, @NotNull ComponentLogger logger) throws SQLException {
+        String migrationTableName = tableName + "_v2";
+        Set<String> columns = getColumns(connection, tableName);
+        // Tables created before messages had ids don't have the id columns.
+        String joinMessageIdColumn = columns.contains("join_message_id") ? "join_message_id" : "0";
+        String leaveMessageIdColumn = columns.contains("leave_message_id") ? "leave_message_id" : "0";
+
+        String selectSql = "SELECT id, player_id, send_join, send_motd, send_leave, join_message, leave_message, " +
+                joinMessageIdColumn + " AS join_message_id, " + leaveMessageIdColumn + " AS leave_message_id, last_updated " +
+                "FROM " + tableName + " WHERE id > ? ORDER BY id LIMIT " + MIGRATION_BATCH_SIZE;
+        String insertSql = "INSERT OR REPLACE INTO " + migrationTableName + " (player_id, send_join, send_motd, send_leave, join_message, leave_message, join_message_id, leave_message_id, last_updated) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        long totalRows;
+        try(Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS " + migrationTableName);
+            statement.executeUpdate(sqlDialect.createPlayerDataTableSql(migrationTableName));
+
+            try(ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+                totalRows = resultSet.next() ? resultSet.getLong(1) : 0L;
+            }
+        }
+
+        connection.setAutoCommit(false);
+        try {
+            copyRows(connection, selectSql, insertSql, totalRows, logger);
+
+            try(Statement statement = connection.createStatement()) {
+                // Dropping the old table also drops its indexes.
+                statement.executeUpdate("DROP TABLE " + tableName);
+                statement.executeUpdate("ALTER TABLE " + migrationTableName + " RENAME TO " + tableName);
+                if(getColumns(connection, "sqlite_sequence").contains("name")) {
+                    statement.executeUpdate("DELETE FROM sqlite_sequence WHERE name = '" + tableName + "'");
+                }
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Copies every row of the version 1 table to the version 2 table, committing after each batch.
+     * Progress is logged at most every {@link #MIGRATION_PROGRESS_INTERVAL_MILLIS} milliseconds, so large tables don't look stuck.
+     * @param connection The writer {@link Connection}, with auto-commit disabled.
+     * @param selectSql The SQL that selects the next batch of rows after an id.
+     * @param insertSql The SQL that inserts a row into the version 2 table.
+     * @param totalRows The number of rows in the version 1 table.
+     * @param logger The {@link ComponentLogger} to log progress to.
+     * @throws SQLException If a database error occurs.
+     */
+    private void copyRows(@NotNull Connection connection, @NotNull String selectSql, @NotNull String insertSql, long totalRows, @NotNull ComponentLogger logger) throws SQLException {
+        try(PreparedStatement selectStatement = connection.prepareStatement(selectSql);
+            PreparedStatement insertStatement = connection.prepareStatement(insertSql)) {
+            long lastId = 0L;
+            long totalCopiedRows = 0L;
+            long lastProgressTime = System.currentTimeMillis();
+            int copiedRows;
+            do {
+                copiedRows = 0;
+                selectStatement.setLong(1, lastId);
+
+                try(ResultSet resultSet = selectStatement.executeQuery()) {
+                    while(resultSet.next()) {
+                        lastId = resultSet.getLong("id");
+                        copiedRows++;
+
+                        // Rows without a valid player id can never be loaded, so they aren't copied.
+                        UUID uuid = parseLegacyPlayerId(resultSet.getObject("player_id"));
+                        if(uuid == null) continue;
+
+                        insertStatement.setBytes(1, UUIDUtils.toBytes(uuid));
+                        insertStatement.setInt(2, resultSet.getInt("send_join"));
+                        insertStatement.setInt(3, resultSet.getInt("send_motd"));
+                        insertStatement.setInt(4, resultSet.getInt("send_leave"));
+                        insertStatement.setString(5, Objects.requireNonNullElse(resultSet.getString("join_message"), ""));
+                        insertStatement.setString(6, Objects.requireNonNullElse(resultSet.getString("leave_message"), ""));
+                        insertStatement.setInt(7, resultSet.getInt("join_message_id"));
+                        insertStatement.setInt(8, resultSet.getInt("leave_message_id"));
+                        insertStatement.setLong(9, resultSet.getLong("last_updated"));
+                        insertStatement.addBatch();
+                    }
+                }
+
+                insertStatement.executeBatch();
+                connection.commit();
+
+                totalCopiedRows += copiedRows;
+                long now = System.currentTimeMillis();
+                if(now - lastProgressTime >= MIGRATION_PROGRESS_INTERVAL_MILLIS) {
+                    lastProgressTime = now;
+                    logger.info(AdventureUtil.serialize("Copied " + totalCopiedRows + "/" + totalRows + " rows of " + tableName + "."));
+                }
+            } while(copiedRows == MIGRATION_BATCH_SIZE);
+
+            logger.info(AdventureUtil.serialize("Copied " + totalCopiedRows + "/" + totalRows + " rows of " + tableName + "."));
+        }
+    }
+
+    /**
+     * Parses a player id stored by the version 1 table, which may have been stored as text or as bytes.
+     * @param playerId The stored player id.
+     * @return The {@link UUID} or null if the player id is not valid.
+     */
+    private @Nullable UUID parseLegacyPlayerId(@Nullable Object playerId) {
+        try {
+            if(playerId instanceof byte[] bytes) return UUIDUtils.fromBytes(bytes);
+            if(playerId instanceof String string) return UUID.fromString(string);
+        } catch (IllegalArgumentException ignored) {
+            // Invalid ids are treated the same as missing ids.
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the names of a SQLite table's columns.
+     * @param connection The {@link Connection} to use.
+     * @param name The name of the table.
+     * @return A {@link Set} of the column names, which is empty if the table doesn't exist.
+     * @throws SQLException If a database error occurs.
+     */
+    private @NotNull Set<String> getColumns(@NotNull Connection connection, @NotNull String name) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        try(Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + name + ")")) {
+            while(resultSet.next()) {
+                columns.add(resultSet.getString("name"));
+            }
+        }
+
+        return columns;
+    }
+
+    /**
+     * Converts rows that stored the full join and leave message to the id of the matching message in the {@link MessageCatalog}.
+     * Rows whose message no longer matches a configured message keep an id of 0, which resolves to the default message.
+     * The stored message text is cleared in both cases. Every update runs in a single transaction.
+     * Tables without stored message text, such as new tables, are left as they are even if the plugin's settings are invalid.
+     * @param connection The writer {@link Connection}.
+     * @throws SQLException If a database error occurs, or if there is message text to convert but no valid messages are configured.
+     */
+    private void convertLegacyMessages(@NotNull Connection connection) throws SQLException {
+        try(Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery("SELECT 1 FROM " + tableName + " WHERE join_message != '' OR leave_message != '' LIMIT 1")) {
+            if(!resultSet.next()) return;
+        }
+
+        // Converting against a broken config would reset every player to the default messages, so the step waits for valid settings.
+        MessageCatalog messageCatalog = messageCatalogSupplier.get();
+        if(messageCatalog == null || messageCatalog.getDefaultJoinMessageId() == 0 || messageCatalog.getDefaultQuitMessageId() == 0) {
+            throw new SQLException("Stored join and leave messages can't be converted to message ids without valid join and leave messages in the plugin's settings.");
+        }
+
+        String joinMessageSql = "UPDATE " + tableName + " SET join_message_id = ?, join_message = '' WHERE join_message_id = 0 AND join_message = ?";
+        String leaveMessageSql = "UPDATE " + tableName + " SET leave_message_id = ?, leave_message = '' WHERE leave_message_id = 0 AND leave_message = ?";
+        String clearJoinMessageSql = "UPDATE " + tableName + " SET join_message = '' WHERE join_message_id = 0 AND join_message != ''";
+        String clearLeaveMessageSql = "UPDATE " + tableName + " SET leave_message = '' WHERE leave_message_id = 0 AND leave_message != ''";
+
+        connection.setAutoCommit(false);
+        try {
+            convertMessages(connection, joinMessageSql, messageCatalog.getJoinMessageIds());
+            convertMessages(connection, leaveMessageSql, messageCatalog.getQuitMessageIds());
+
+            try(Statement statement = connection.createStatement()) {
+                statement.executeUpdate(clearJoinMessageSql);
+                statement.executeUpdate(clearLeaveMessageSql);
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Sets the message id of the rows that stored each message's text.
+     * @param connection The writer {@link Connection}, with auto-commit disabled.
+     * @param updateSql The SQL that sets the message id of the rows storing a message's text.
+     * @param messageIds The {@link Map} of each configured message to its id.
+     * @throws SQLException If a database error occurs.
+     */
+    private void convertMessages(@NotNull Connection connection, @NotNull String updateSql, @NotNull Map<String, Integer> messageIds) throws SQLException {
+        if(messageIds.isEmpty()) return;
+
+        try(PreparedStatement statement = connection.prepareStatement(updateSql)) {
+            for(Map.Entry<String, Integer> entry : messageIds.entrySet()) {
+                statement.setInt(1, entry.getValue());
+                statement.setString(2, entry.getKey());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Loads the {@link UUID} of every player that has a row in the table.
+     * The rows are read in a single pass straight into a {@link UUIDHashSet}, so no per-row objects are kept.
+     * @return A {@link CompletableFuture} containing a {@link UUIDHashSet} of the {@link UUID}s.
+     */
+    public @NotNull CompletableFuture<@NotNull UUIDHashSet> loadPlayerIds() {
+        String countSql = "SELECT COUNT(*) AS player_count FROM " + tableName;
+        String selectSql = "SELECT player_id FROM " + tableName;
+
+        return tableReady.thenCompose(ready -> queueManager.queueReadTransaction(QueryType.LOAD_IDS, countSql, List.of(), resultSet -> {
+            try {
+                return resultSet.next() ? resultSet.getInt("player_count") : 0;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, playerCount -> 1)).thenCompose(playerCount -> queueManager.queueReadTransaction(QueryType.LOAD_IDS, selectSql, List.of(), resultSet -> {
+            try {
+                UUIDHashSet playerIds = new UUIDHashSet(playerCount);
+                while(resultSet.next()) {
+                    playerIds.add(UUIDUtils.fromBytes(resultSet.getBytes("player_id")));
+                }
 
-        queueManager.queueBulkWriteTransaction(List.of(tableCreationSql, playerIdsIndexSql)).thenAccept(result -> {});
+                return playerIds;
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, UUIDHashSet::size));
     }
 
     /**
@@ -80,62 +437,299 @@ public class PlayerDataTable {
      * @return A {@link CompletableFuture} containing {@link PlayerData}. May be null.
      */
     public @NotNull CompletableFuture<@Nullable PlayerData> loadPlayerData(@NotNull UUID uuid) {
-        String selectSql = "SELECT send_join, send_motd, send_leave, join_message, leave_message FROM " + tableName + " WHERE player_id = ? AND last_updated < ?";
+        String selectSql = "SELECT send_join, send_motd, send_leave, join_message_id, leave_message_id FROM " + tableName + " WHERE player_id = ? AND last_updated < ?";
         UUIDParameter uuidParameter = new UUIDParameter(uuid);
         LongParameter lastUpdatedParameter = new LongParameter(System.currentTimeMillis());
 
-        return queueManager.queueReadTransaction(selectSql, List.of(uuidParameter, lastUpdatedParameter), resultSet -> {
+        return tableReady.thenCompose(ready -> queueManager.queueReadTransaction(QueryType.LOAD, selectSql, List.of(uuidParameter, lastUpdatedParameter), resultSet -> {
             try {
                 if(!resultSet.next()) return null;
 
                 boolean sendJoin = resultSet.getBoolean("send_join");
                 boolean sendMotd = resultSet.getBoolean("send_motd");
                 boolean sendLeave = resultSet.getBoolean("send_leave");
-                String joinMessage = resultSet.getString("join_message");
-                String leaveMessage = resultSet.getString("leave_message");
+                int joinMessageId = resultSet.getInt("join_message_id");
+                int leaveMessageId = resultSet.getInt("leave_message_id");
+
+                return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId);
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }, playerData -> playerData == null ? 0 : 1));
+    }
 
-                return new PlayerData(sendJoin, sendMotd, sendLeave, joinMessage, leaveMessage);
+    /**
+     * Reads a single row from the table, to check that player data can be loaded.
+     * @return A {@link CompletableFuture} that completes once the row has been read.
+     */
+    public @NotNull CompletableFuture<Void> probe() {
+        String selectSql = "SELECT player_id FROM " + tableName + " LIMIT 1";
+
+        return tableReady.thenCompose(ready -> queueManager.queueReadTransaction(QueryType.PROBE, selectSql, List.of(), resultSet -> {
+            try {
+                return resultSet.next() ? 1 : 0;
             } catch (SQLException e) {
                 throw new RuntimeException(e);
             }
+        }, Integer::intValue)).thenApply(rows -> null);
+    }
+
+    /**
+     * Loads the {@link PlayerData} for every {@link UUID} provided.
+     * The {@link UUID}s are looked up in chunks with a single query per chunk instead of a query per player.
+     * @param uuids The {@link Collection} of {@link UUID}s to load.
+     * @return A {@link CompletableFuture} containing a {@link Map} of each {@link UUID} that has saved data to its {@link PlayerData}.
+     */
+    public @NotNull CompletableFuture<@NotNull Map<UUID, PlayerData>> loadAll(@NotNull Collection<UUID> uuids) {
+        List<UUID> uuidList = List.copyOf(uuids);
+        List<CompletableFuture<Map<UUID, PlayerData>>> chunkFutures = new ArrayList<>();
+
+        for(int start = 0; start < uuidList.size(); start += LOAD_ALL_CHUNK_SIZE) {
+            List<UUID> chunk = uuidList.subList(start, Math.min(start + LOAD_ALL_CHUNK_SIZE, uuidList.size()));
+
+            String selectSql = "SELECT player_id, send_join, send_motd, send_leave, join_message_id, leave_message_id FROM " + tableName +
+                    " WHERE player_id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            List<Parameter<?>> parameters = new ArrayList<>();
+            chunk.forEach(uuid -> parameters.add(new UUIDParameter(uuid)));
+
+            chunkFutures.add(tableReady.thenCompose(ready -> queueManager.queueReadTransaction(QueryType.LOAD_BATCH, selectSql, parameters, resultSet -> {
+                try {
+                    Map<UUID, PlayerData> playerDataMap = new HashMap<>();
+                    while(resultSet.next()) {
+                        UUID uuid = UUIDUtils.fromBytes(resultSet.getBytes("player_id"));
+                        boolean sendJoin = resultSet.getBoolean("send_join");
+                        boolean sendMotd = resultSet.getBoolean("send_motd");
+                        boolean sendLeave = resultSet.getBoolean("send_leave");
+                        int joinMessageId = resultSet.getInt("join_message_id");
+                        int leaveMessageId = resultSet.getInt("leave_message_id");
+
+                        playerDataMap.put(uuid, new PlayerData(sendJoin, sendMotd, sendLeave, joinMessageId, leaveMessageId));
+                    }
+
+                    return playerDataMap;
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }, Map::size)));
+        }
+
+        return CompletableFuture.allOf(chunkFutures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            Map<UUID, PlayerData> playerDataMap = new HashMap<>();
+            chunkFutures.forEach(future -> playerDataMap.putAll(future.join()));
+            return playerDataMap;
         });
     }
 
     /**
-     * Saves the {@link PlayerData} for the {@link UUID} provided.
-     * @param uuid The {@link UUID} the {@link PlayerData} belongs to.
-     * @param playerData The {@link PlayerData} to save.
+     * Saves the {@link PlayerData} for every {@link UUID} provided in a single transaction.
+     * The upsert is prepared once and run as a JDBC batch, with one set of parameters per player.
+     * @param playerDataMap A {@link Map} of each {@link UUID} to the {@link PlayerData} to save for it.
+     * @return A {@link CompletableFuture} that completes once the {@link PlayerData} is saved.
      */
-    public void savePlayerData(@NotNull UUID uuid, @NotNull PlayerData playerData) {
-        String insertOrUpdateSql = "INSERT INTO " + tableName + " (player_id, send_join, send_motd, send_leave, join_message, leave_message, last_updated) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?) " +
-                "ON CONFLICT (player_id) DO UPDATE SET " +
-                "send_join = ?, send_motd = ?, send_leave = ?, join_message = ?, leave_message = ?, last_updated = ? WHERE last_updated < ?";
+    public @NotNull CompletableFuture<Void> saveAll(@NotNull Map<UUID, PlayerData> playerDataMap) {
+        String insertOrUpdateSql = sqlDialect.upsertPlayerDataSql(tableName);
 
-        UUIDParameter playerIdParameter = new UUIDParameter(uuid);
-        IntegerParameter sendJoinParameter = new IntegerParameter(playerData.isSendJoin() ? 1 : 0);
-        IntegerParameter sendMotdParameter = new IntegerParameter(playerData.isSendMotd() ? 1 : 0);
-        IntegerParameter sendLeaveParameter = new IntegerParameter(playerData.isSendLeave() ? 1 : 0);
-        MessageParameter joinMessageParameter = new MessageParameter(playerData.getJoinMessage());
-        MessageParameter leaveMessageParameter = new MessageParameter(playerData.getLeaveMessage());
         LongParameter lastUpdatedParameter = new LongParameter(System.currentTimeMillis());
+        List<List<Parameter<?>>> batch = new ArrayList<>(playerDataMap.size());
+        playerDataMap.forEach((uuid, playerData) -> batch.add(List.of(
+                new UUIDParameter(uuid),
+                new IntegerParameter(playerData.isSendJoin() ? 1 : 0),
+                new IntegerParameter(playerData.isSendMotd() ? 1 : 0),
+                new IntegerParameter(playerData.isSendLeave() ? 1 : 0),
+                new IntegerParameter(playerData.getJoinMessageId()),
+                new IntegerParameter(playerData.getLeaveMessageId()),
+                lastUpdatedParameter)));
+
+        return tableReady.thenCompose(ready -> queueManager.queueBatchWriteTransaction(QueryType.SAVE, insertOrUpdateSql, batch));
+    }
+
+    /**
+     * Streams every row in the table to the {@link RecordConsumer} provided, one row at a time through a forward-only cursor.
+     * Only the current row is held in memory, so the size of the table doesn't matter.
+     * @param consumer The {@link RecordConsumer} to pass each row to.
+     * @return A {@link CompletableFuture} containing the number of rows streamed.
+     */
+    public @NotNull CompletableFuture<Long> streamAll(@NotNull RecordConsumer consumer) {
+        String selectSql = "SELECT player_id, send_join, send_motd, send_leave, join_message_id, leave_message_id, last_updated FROM " + tableName;
+
+        return tableReady.thenCompose(ready -> queueManager.queueStreamingReadTransaction(QueryType.EXPORT, selectSql, List.of(), sqlDialect.streamingFetchSize(), resultSet -> {
+            try {
+                long rows = 0;
+                while(resultSet.next()) {
+                    PlayerData playerData = new PlayerData(
+                            resultSet.getInt("send_join") == 1,
+                            resultSet.getInt("send_motd") == 1,
+                            resultSet.getInt("send_leave") == 1,
+                            resultSet.getInt("join_message_id"),
+                            resultSet.getInt("leave_message_id"));
+
+                    consumer.accept(new PlayerDataRecord(UUIDUtils.fromBytes(resultSet.getBytes("player_id")), playerData, resultSet.getLong("last_updated")));
+                    rows++;
+                }
+
+                return rows;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, rows -> (int) Math.min(rows, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Saves every {@link PlayerDataRecord} provided in a single batch, keeping each record's last updated time.
+     * A row is only replaced if the record is not older than the data already saved for the player.
+     * @param records The {@link List} of {@link PlayerDataRecord}s to save.
+     * @return A {@link CompletableFuture} that completes once the records are saved.
+     */
+    public @NotNull CompletableFuture<Void> importAll(@NotNull List<PlayerDataRecord> records) {
+        String insertOrUpdateSql = sqlDialect.upsertPlayerDataSql(tableName);
+
+        List<List<Parameter<?>>> batch = new ArrayList<>(records.size());
+        for(PlayerDataRecord record : records) {
+            PlayerData playerData = record.playerData();
+            batch.add(List.of(
+                    new UUIDParameter(record.uuid()),
+                    new IntegerParameter(playerData.isSendJoin() ? 1 : 0),
+                    new IntegerParameter(playerData.isSendMotd() ? 1 : 0),
+                    new IntegerParameter(playerData.isSendLeave() ? 1 : 0),
+                    new IntegerParameter(playerData.getJoinMessageId()),
+                    new IntegerParameter(playerData.getLeaveMessageId()),
+                    new LongParameter(record.lastUpdated())));
+        }
 
+        return tableReady.thenCompose(ready -> queueManager.queueBatchWriteTransaction(QueryType.IMPORT, insertOrUpdateSql, batch));
+    }
+
+    /**
+     * Deletes the {@link PlayerData} for every {@link UUID} provided in a single transaction.
+     * @param uuids The {@link Collection} of {@link UUID}s whose {@link PlayerData} should be deleted.
+     * @return A {@link CompletableFuture} that completes once the {@link PlayerData} is deleted.
+     */
+    public @NotNull CompletableFuture<Void> deleteAll(@NotNull Collection<UUID> uuids) {
+        String deleteSql = "DELETE FROM " + tableName + " WHERE player_id = ?";
+
+        List<List<Parameter<?>>> batch = new ArrayList<>(uuids.size());
+        uuids.forEach(uuid -> batch.add(List.of(new UUIDParameter(uuid))));
+
+        return tableReady.thenCompose(ready -> queueManager.queueBatchWriteTransaction(QueryType.DELETE, deleteSql, batch));
+    }
+
+    /**
+     * Deletes the rows of players that haven't been saved since the cutoff and whose data matches the defaults.
+     * Rows are deleted in chunks, each in its own transaction on the writer thread, with a delay between chunks so saves are never held up for long.
+     * Message ids that aren't one of the non-default ids provided are treated as the default message, since that is what they resolve to.
+     * @param cutoff Rows last updated before this time, in epoch milliseconds, can be deleted.
+     * @param nonDefaultJoinMessageIds The configured join message ids other than the default.
+     * @param nonDefaultLeaveMessageIds The configured leave message ids other than the default.
+     * @param batchSize The maximum number of rows to delete in each chunk.
+     * @param batchDelayMillis The number of milliseconds to wait between chunks.
+     * @return A {@link CompletableFuture} containing the number of rows deleted.
+     */
+    public @NotNull CompletableFuture<Integer> pruneInactiveRows(
+            long cutoff,
+            @NotNull Collection<Integer> nonDefaultJoinMessageIds,
+            @NotNull Collection<Integer> nonDefaultLeaveMessageIds,
+            int batchSize,
+            long batchDelayMillis) {
+        List<Object> parameters = new ArrayList<>();
+        String condition = createInactiveRowCondition(cutoff, nonDefaultJoinMessageIds, nonDefaultLeaveMessageIds, parameters);
+        parameters.add(batchSize);
+
+        String deleteSql = sqlDialect.deleteLimitedSql(tableName, condition);
+
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        tableReady.whenComplete((ready, throwable) -> {
+            if(throwable != null) {
+                result.completeExceptionally(throwable);
+                return;
+            }
+
+            pruneChunk(deleteSql, parameters, batchSize, batchDelayMillis, 0, result);
+        });
+
+        return result;
+    }
+
+    /**
+     * Creates the condition that matches the rows of players that haven't been saved since the cutoff and whose data matches the defaults.
+     * @param cutoff Rows last updated before this time, in epoch milliseconds, are matched.
+     * @param nonDefaultJoinMessageIds The configured join message ids other than the default.
+     * @param nonDefaultLeaveMessageIds The configured leave message ids other than the default.
+     * @param parameters The {@link List} the condition's parameters are added to, in order.
+     * @return The SQL condition.
+     */
+    static @NotNull String createInactiveRowCondition(long cutoff, @NotNull Collection<Integer> nonDefaultJoinMessageIds, @NotNull Collection<Integer> nonDefaultLeaveMessageIds, @NotNull List<Object> parameters) {
+        StringBuilder condition = new StringBuilder("last_updated < ? AND send_join = 1 AND send_motd = 1 AND send_leave = 1");
+        parameters.add(cutoff);
+        appendNotIn(condition, parameters, "join_message_id", nonDefaultJoinMessageIds);
+        appendNotIn(condition, parameters, "leave_message_id", nonDefaultLeaveMessageIds);
 
-        queueManager.queueWriteTransaction(insertOrUpdateSql,
-                List.of(
-                        playerIdParameter,
-                        sendJoinParameter,
-                        sendMotdParameter,
-                        sendLeaveParameter,
-                        joinMessageParameter,
-                        leaveMessageParameter,
-                        lastUpdatedParameter,
-                        sendJoinParameter,
-                        sendMotdParameter,
-                        sendLeaveParameter,
-                        joinMessageParameter,
-                        leaveMessageParameter,
-                        lastUpdatedParameter,
-                        lastUpdatedParameter));
+        return condition.toString();
+    }
+
+    /**
+     * Deletes one chunk of inactive rows, then schedules the next chunk if this one was full.
+     * @param deleteSql The limited delete SQL.
+     * @param parameters The parameters to bind to the SQL, in order.
+     * @param batchSize The maximum number of rows to delete in each chunk.
+     * @param batchDelayMillis The number of milliseconds to wait between chunks.
+     * @param deletedRows The number of rows deleted by earlier chunks.
+     * @param result The {@link CompletableFuture} to complete with the total once the last chunk is deleted.
+     */
+    private void pruneChunk(@NotNull String deleteSql, @NotNull List<Object> parameters, int batchSize, long batchDelayMillis, int deletedRows, @NotNull CompletableFuture<Integer> result) {
+        queueManager.queueWriterTask(QueryType.PRUNE, connection -> {
+            try(PreparedStatement statement = connection.prepareStatement(deleteSql)) {
+                for(int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+
+                return statement.executeUpdate();
+            }
+        }, Integer::intValue).whenComplete((chunkRows, throwable) -> {
+            if(throwable != null) {
+                result.completeExceptionally(throwable);
+                return;
+            }
+
+            int totalRows = deletedRows + chunkRows;
+            if(chunkRows < batchSize) {
+                result.complete(totalRows);
+                return;
+            }
+
+            CompletableFuture.delayedExecutor(batchDelayMillis, TimeUnit.MILLISECONDS).execute(() ->
+                    pruneChunk(deleteSql, parameters, batchSize, batchDelayMillis, totalRows, result));
+        });
+    }
+
+    /**
+     * Appends a NOT IN condition for the values provided to the condition, and adds the values to the parameters.
+     * Nothing is appended if there are no values.
+     * @param condition The {@link StringBuilder} containing the condition.
+     * @param parameters The {@link List} of parameters.
+     * @param column The column to check.
+     * @param values The values the column must not be.
+     */
+    private static void appendNotIn(@NotNull StringBuilder condition, @NotNull List<Object> parameters, @NotNull String column, @NotNull Collection<Integer> values) {
+        if(values.isEmpty()) return;
+
+        condition.append(" AND ").append(column).append(" NOT IN (");
+        condition.append(String.join(", ", Collections.nCopies(values.size(), "?")));
+        condition.append(")");
+        parameters.addAll(values);
+    }
+
+    /**
+     * Receives the rows streamed by {@link #streamAll(RecordConsumer)}.
+     */
+    @FunctionalInterface
+    public interface RecordConsumer {
+        /**
+         * Receives a row.
+         * @param record The row as a {@link PlayerDataRecord}.
+         * @throws IOException If the row could not be written.
+         */
+        void accept(@NotNull PlayerDataRecord record) throws IOException;
     }
 }
@@ -0,0 +1,154 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.messaging.PluginMessageListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * This class is a {@link ProxyChannel} that uses the BungeeCord plugin messaging channel, which both BungeeCord and Velocity support.
+ * Messages are sent with the Forward sub-channel to every other server, prefixed with the plugin's name so they don't clash with other plugins.
+ * A plugin message has to be carried by a connected player, so a message can't be sent while no player is online,
+ * and is only received by servers that have a player online.
+ */
+public class BungeeProxyChannel implements ProxyChannel, PluginMessageListener {
+    private static final @NotNull String CHANNEL = "BungeeCord";
+    private static final @NotNull String SUB_CHANNEL_PREFIX = "SkyWelcome:";
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull Map<String, Consumer<byte[]>> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * Default Constructor.
+     * You should use {@link #BungeeProxyChannel(SkyWelcome)} instead.
+     * @deprecated You should use {@link #BungeeProxyChannel(SkyWelcome)} instead.
+     */
+    @Deprecated
+    public BungeeProxyChannel() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     */
+    public BungeeProxyChannel(@NotNull SkyWelcome skyWelcome) {
+        this.skyWelcome = skyWelcome;
+        this.logger = skyWelcome.getComponentLogger();
+    }
+
+    /**
+     * Registers the plugin messaging channel.
+     */
+    @Override
+    public void start() {
+        skyWelcome.getServer().getMessenger().registerOutgoingPluginChannel(skyWelcome, CHANNEL);
+        skyWelcome.getServer().getMessenger().registerIncomingPluginChannel(skyWelcome, CHANNEL, this);
+    }
+
+    /**
+     * Sets the handler for the messages received on a sub-channel.
+     * @param subChannel The name of the sub-channel.
+     * @param handler The {@link Consumer} that is given each message's data. It is called on the main thread.
+     */
+    @Override
+    public void registerHandler(@NotNull String subChannel, @NotNull Consumer<byte[]> handler) {
+        handlers.put(SUB_CHANNEL_PREFIX + subChannel, handler);
+    }
+
+    /**
+     * Forwards a message to every other server through any online player, preferring one that isn't leaving.
+     * @param subChannel The name of the sub-channel.
+     * @param data The message's data.
+     * @param leavingPlayer The {@link UUID} of a player that is leaving this server, who should not carry the message if another player can.
+     * @return true if the message was handed to the proxy, false if no player could carry it or it could not be written.
+     */
+    @Override
+    public boolean send(@NotNull String subChannel, byte @NotNull [] data, @Nullable UUID leavingPlayer) {
+        Player carrier = null;
+        for(Player player : skyWelcome.getServer().getOnlinePlayers()) {
+            carrier = player;
+            if(!player.getUniqueId().equals(leavingPlayer)) break;
+        }
+
+        if(carrier == null) return false;
+
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(byteStream)) {
+            out.writeUTF("Forward");
+            out.writeUTF("ALL");
+            out.writeUTF(SUB_CHANNEL_PREFIX + subChannel);
+            out.writeShort(data.length);
+            out.write(data);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to write a message for the other servers. Error: " + e.getMessage()));
+            return false;
+        }
+
+        carrier.sendPluginMessage(skyWelcome, CHANNEL, byteStream.toByteArray());
+        return true;
+    }
+
+    /**
+     * Unregisters the plugin messaging channel.
+     */
+    @Override
+    public void stop() {
+        skyWelcome.getServer().getMessenger().unregisterIncomingPluginChannel(skyWelcome, CHANNEL, this);
+        skyWelcome.getServer().getMessenger().unregisterOutgoingPluginChannel(skyWelcome, CHANNEL);
+    }
+
+    /**
+     * Passes messages forwarded by other servers to the handler of their sub-channel.
+     * Messages on sub-channels without a handler, including those of other plugins, are ignored.
+     * @param channel The channel the message was received on.
+     * @param player The {@link Player} whose connection carried the message.
+     * @param message The message.
+     */
+    @Override
+    public void onPluginMessageReceived(@NotNull String channel, @NotNull Player player, byte @NotNull [] message) {
+        if(!CHANNEL.equals(channel)) return;
+
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            Consumer<byte[]> handler = handlers.get(in.readUTF());
+            if(handler == null) return;
+
+            byte[] data = new byte[in.readUnsignedShort()];
+            in.readFully(data);
+            handler.accept(data);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to read a message from another server. Error: " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * This record contains the message a server sends to the other servers when a player joins it, saying that it now holds the player's data.
+ * A server only waits for a handoff from a player that another server announced, since only that server will hand the player's data off when they leave.
+ * @param uuid The {@link UUID} of the player.
+ * @param origin The id of the server the player joined.
+ */
+public record HandoffAnnouncement(@NotNull UUID uuid, @NotNull UUID origin) {
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Encodes the announcement to send it to another server.
+     * @return The encoded announcement.
+     */
+    public byte @NotNull [] encode() {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(byteStream)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeLong(origin.getMostSignificantBits());
+            out.writeLong(origin.getLeastSignificantBits());
+        } catch (IOException e) {
+            // Writing to a byte array never fails.
+            throw new UncheckedIOException(e);
+        }
+
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * Decodes an announcement sent by another server.
+     * @param data The encoded announcement.
+     * @return The {@link HandoffAnnouncement}.
+     * @throws IOException If the data is not an announcement in a format this version of the plugin supports.
+     */
+    public static @NotNull HandoffAnnouncement decode(byte @NotNull [] data) throws IOException {
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int formatVersion = in.readUnsignedByte();
+            if(formatVersion != FORMAT_VERSION) throw new IOException("Unsupported handoff announcement format " + formatVersion + ".");
+
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            UUID origin = new UUID(in.readLong(), in.readLong());
+
+            return new HandoffAnnouncement(uuid, origin);
+        }
+    }
+}
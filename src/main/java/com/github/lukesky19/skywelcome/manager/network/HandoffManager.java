@@ -0,0 +1,237 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.data.player.PlayerData;
+import com.github.lukesky19.skywelcome.manager.database.invalidation.InvalidationBus;
+import com.github.lukesky19.skywelcome.manager.database.invalidation.InvalidationEvent;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+/**
+ * This class hands a player's data from the server they leave to the server they join when they switch servers behind a proxy.
+ * When a player joins, a {@link HandoffAnnouncement} is sent to the other servers through the {@link NetworkManager}, and when they leave, a {@link PlayerDataHandoff} is sent.
+ * A server loading a player's data that another server announced waits a short time for a handoff before falling back to the database.
+ * Players no other server announced, such as players joining the network, are loaded from the database without waiting.
+ * The proxy connects the player to the new server before disconnecting them from the old one, so the handoff usually arrives just after the player joins.
+ * Handoffs that arrive before anything waits for them are kept for a few seconds, unless a listener applies them to already cached data.
+ * A {@link HandoffTracker} decides which handoffs are waited for, kept or ignored.
+ */
+public class HandoffManager {
+    private static final @NotNull String SUB_CHANNEL = "handoff";
+    private static final @NotNull String ANNOUNCEMENT_SUB_CHANNEL = "handoff-announcement";
+    private static final int DEFAULT_WAIT_MILLIS = 200;
+    private static final long SNAPSHOT_EXPIRY_MILLIS = 10000L;
+
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull InvalidationBus invalidationBus;
+    private final @NotNull NetworkManager networkManager;
+    private final @NotNull List<Predicate<PlayerDataHandoff>> listeners = new CopyOnWriteArrayList<>();
+    private final @NotNull HandoffTracker tracker = new HandoffTracker(SNAPSHOT_EXPIRY_MILLIS);
+
+    // The server each online player's data was last handed off from. That server's saves of the data are already known.
+    private final @NotNull Map<UUID, UUID> handoffOrigins = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = false;
+    private volatile long waitMillis = DEFAULT_WAIT_MILLIS;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #HandoffManager(SkyWelcome, SettingsManager, InvalidationBus, NetworkManager)} instead.
+     * @deprecated You should use {@link #HandoffManager(SkyWelcome, SettingsManager, InvalidationBus, NetworkManager)} instead.
+     */
+    @Deprecated
+    public HandoffManager() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param invalidationBus An {@link InvalidationBus} instance.
+     * @param networkManager A {@link NetworkManager} instance.
+     */
+    public HandoffManager(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager, @NotNull InvalidationBus invalidationBus, @NotNull NetworkManager networkManager) {
+        this.logger = skyWelcome.getComponentLogger();
+        this.settingsManager = settingsManager;
+        this.invalidationBus = invalidationBus;
+        this.networkManager = networkManager;
+
+        networkManager.registerHandler(SUB_CHANNEL, this::handleMessage);
+        networkManager.registerHandler(ANNOUNCEMENT_SUB_CHANNEL, this::handleAnnouncement);
+        // Nothing can arrive once the server stops talking to other servers, so every waiting load falls back to the database.
+        networkManager.addDisableListener(tracker::releaseWaiters);
+
+        // A player's data is only saved by the server they left after the handoff was taken, so those saves don't need to be loaded again.
+        invalidationBus.addFilter(event -> !isSupersededByHandoff(event));
+    }
+
+    /**
+     * Applies the handoff settings from the plugin's settings.
+     * This should be called after the {@link NetworkManager} is reloaded.
+     */
+    public void reload() {
+        boolean handoffEnabled = true;
+        int wait = DEFAULT_WAIT_MILLIS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            Settings.HandoffConfig handoffConfig = settings.network().handoff();
+            handoffEnabled = Objects.requireNonNullElse(handoffConfig.enabled(), true);
+            wait = Math.max(Objects.requireNonNullElse(handoffConfig.waitMillis(), DEFAULT_WAIT_MILLIS), 0);
+        }
+        waitMillis = wait;
+        enabled = handoffEnabled;
+
+        if(!isEnabled()) tracker.releaseWaiters();
+    }
+
+    /**
+     * Are handoffs sent and received?
+     * @return true if handoffs are enabled and the server is behind a proxy, otherwise false.
+     */
+    public boolean isEnabled() {
+        return enabled && networkManager.isEnabled();
+    }
+
+    /**
+     * Adds a listener that is given the handoffs that arrive while nothing is waiting for them,
+     * such as for a player whose data is still cached from an earlier visit.
+     * A handoff a listener applies is not kept for later loads.
+     * @param listener The {@link Predicate} to call, which returns true if it applied the handoff. It may be called from any thread.
+     */
+    public void addListener(@NotNull Predicate<PlayerDataHandoff> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Tells the other servers that this server now holds a player's data, so the server they switch to next waits for the handoff.
+     * @param uuid The {@link UUID} of the player that joined.
+     */
+    public void announce(@NotNull UUID uuid) {
+        if(!isEnabled()) return;
+
+        tracker.hold(uuid);
+        networkManager.send(ANNOUNCEMENT_SUB_CHANNEL, new HandoffAnnouncement(uuid, invalidationBus.getServerId()).encode(), null);
+    }
+
+    /**
+     * Sends a snapshot of a player's data to the other servers, for the server the player is switching to.
+     * @param uuid The {@link UUID} of the player that is leaving.
+     * @param playerData The player's current {@link PlayerData}.
+     */
+    public void sendHandoff(@NotNull UUID uuid, @NotNull PlayerData playerData) {
+        if(!isEnabled()) return;
+
+        long now = System.currentTimeMillis();
+        PlayerDataHandoff handoff = new PlayerDataHandoff(uuid, playerData, invalidationBus.getServerId(), now, tracker.nextVersion(uuid, now));
+        networkManager.send(SUB_CHANNEL, handoff.encode(), uuid);
+    }
+
+    /**
+     * Waits for a player's data to be handed off by the server they are switching from.
+     * Only players another server announced are waited for, so a player joining the network doesn't wait for a handoff that will never come.
+     * @param uuid The {@link UUID} of the player.
+     * @return A {@link CompletableFuture} containing the {@link PlayerDataHandoff}, or null if none arrived within the wait time, none is expected, or handoffs are disabled.
+     */
+    public @NotNull CompletableFuture<@Nullable PlayerDataHandoff> awaitHandoff(@NotNull UUID uuid) {
+        if(!isEnabled()) return CompletableFuture.completedFuture(null);
+
+        return tracker.awaitHandoff(uuid, waitMillis, System.currentTimeMillis()).thenApply(handoff -> {
+            if(handoff != null) handoffOrigins.put(uuid, handoff.origin());
+            return handoff;
+        });
+    }
+
+    /**
+     * Forgets where a player's data was handed off from. This should be called when the player leaves this server.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public void forget(@NotNull UUID uuid) {
+        handoffOrigins.remove(uuid);
+        tracker.release(uuid);
+    }
+
+    /**
+     * Checks if an invalidation event is for data this server already received in a handoff.
+     * @param event The {@link InvalidationEvent}.
+     * @return true if the event was published by the server the player's data was handed off from, otherwise false.
+     */
+    private boolean isSupersededByHandoff(@NotNull InvalidationEvent event) {
+        return event.origin().equals(handoffOrigins.get(event.uuid()));
+    }
+
+    /**
+     * Gives a handoff sent by another server to the load waiting for it, or keeps it until one does.
+     * @param data The encoded {@link PlayerDataHandoff}.
+     */
+    private void handleMessage(byte @NotNull [] data) {
+        PlayerDataHandoff handoff;
+        try {
+            handoff = PlayerDataHandoff.decode(data);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to read player data handed off by another server. Error: " + e.getMessage()));
+            return;
+        }
+
+        if(!enabled || handoff.origin().equals(invalidationBus.getServerId())) return;
+
+        // Handoffs that were waited for, or that are older than one already known, aren't offered to the listeners.
+        if(!tracker.handleHandoff(handoff, System.currentTimeMillis())) return;
+
+        if(listeners.stream().anyMatch(listener -> listener.test(handoff))) {
+            tracker.discard(handoff);
+            handoffOrigins.put(handoff.uuid(), handoff.origin());
+        }
+    }
+
+    /**
+     * Remembers which server holds a player's data, as announced by that server.
+     * @param data The encoded {@link HandoffAnnouncement}.
+     */
+    private void handleAnnouncement(byte @NotNull [] data) {
+        HandoffAnnouncement announcement;
+        try {
+            announcement = HandoffAnnouncement.decode(data);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to read a handoff announcement sent by another server. Error: " + e.getMessage()));
+            return;
+        }
+
+        if(!enabled || announcement.origin().equals(invalidationBus.getServerId())) return;
+
+        tracker.handleAnnouncement(announcement);
+    }
+}
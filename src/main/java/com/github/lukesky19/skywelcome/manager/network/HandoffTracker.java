@@ -0,0 +1,251 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class decides which handoffs a server waits for, which it keeps and which it ignores.
+ * A load only waits for a handoff when another server announced that it holds the player's data, so a player joining the network is loaded from the database straight away.
+ * Each handoff has a version one higher than the last handoff its origin knew of for the player, so a handoff that arrives late never replaces a newer one.
+ * Handoffs that arrive before anything waits for them are kept until they expire.
+ * Every method is given the current time, so what the tracker does only depends on the order and timing of what it is given.
+ */
+public class HandoffTracker {
+    private final @NotNull Map<UUID, CompletableFuture<@Nullable PlayerDataHandoff>> waiters = new HashMap<>();
+    private final @NotNull Map<UUID, ReceivedHandoff> unclaimedHandoffs = new HashMap<>();
+    // The highest handoff version known for each player. It is kept while the player is on this server, otherwise until it expires.
+    private final @NotNull Map<UUID, KnownVersion> knownVersions = new HashMap<>();
+    // The server that last announced it holds each player's data, which will hand it off when the player leaves.
+    private final @NotNull Map<UUID, UUID> remoteHolders = new HashMap<>();
+    private final @NotNull Set<UUID> heldPlayers = new HashSet<>();
+
+    private final long expiryMillis;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #HandoffTracker(long)} instead.
+     * @deprecated You should use {@link #HandoffTracker(long)} instead.
+     */
+    @Deprecated
+    public HandoffTracker() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param expiryMillis The number of milliseconds a handoff nothing claimed is kept for.
+     */
+    public HandoffTracker(long expiryMillis) {
+        this.expiryMillis = expiryMillis;
+    }
+
+    /**
+     * Handles a player joining this server, which now holds their data.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public synchronized void hold(@NotNull UUID uuid) {
+        heldPlayers.add(uuid);
+        remoteHolders.remove(uuid);
+    }
+
+    /**
+     * Get the version of the handoff this server sends for a player that is leaving it.
+     * @param uuid The {@link UUID} of the player.
+     * @param now The current time, in epoch milliseconds.
+     * @return The version, one higher than the last handoff this server knows of for the player.
+     */
+    public synchronized long nextVersion(@NotNull UUID uuid, long now) {
+        long version = getKnownVersion(uuid) + 1;
+        knownVersions.put(uuid, new KnownVersion(version, now));
+        return version;
+    }
+
+    /**
+     * Handles a player leaving this server, which no longer holds their data.
+     * @param uuid The {@link UUID} of the player.
+     */
+    public synchronized void release(@NotNull UUID uuid) {
+        heldPlayers.remove(uuid);
+    }
+
+    /**
+     * Handles a {@link HandoffAnnouncement} sent by another server.
+     * @param announcement The {@link HandoffAnnouncement}.
+     */
+    public synchronized void handleAnnouncement(@NotNull HandoffAnnouncement announcement) {
+        remoteHolders.put(announcement.uuid(), announcement.origin());
+    }
+
+    /**
+     * Waits for a player's data to be handed off by the server they are switching from.
+     * The returned future completes straight away if a handoff was already received, or if no other server announced that it holds the player's data.
+     * @param uuid The {@link UUID} of the player.
+     * @param waitMillis The number of milliseconds to wait for the handoff.
+     * @param now The current time, in epoch milliseconds.
+     * @return A {@link CompletableFuture} containing the {@link PlayerDataHandoff}, or null if none arrived within the wait time or none is expected.
+     */
+    public @NotNull CompletableFuture<@Nullable PlayerDataHandoff> awaitHandoff(@NotNull UUID uuid, long waitMillis, long now) {
+        CompletableFuture<@Nullable PlayerDataHandoff> waiter = new CompletableFuture<>();
+        UUID holder;
+        synchronized(this) {
+            ReceivedHandoff unclaimedHandoff = unclaimedHandoffs.remove(uuid);
+            if(unclaimedHandoff != null && !unclaimedHandoff.isExpired(now, expiryMillis)) return CompletableFuture.completedFuture(unclaimedHandoff.handoff());
+
+            holder = remoteHolders.get(uuid);
+            if(holder == null) return CompletableFuture.completedFuture(null);
+
+            CompletableFuture<@Nullable PlayerDataHandoff> existingWaiter = waiters.putIfAbsent(uuid, waiter);
+            if(existingWaiter != null) return existingWaiter;
+        }
+
+        waiter.whenComplete((handoff, throwable) -> removeWaiter(uuid, waiter, holder, handoff == null));
+        waiter.completeOnTimeout(null, waitMillis, TimeUnit.MILLISECONDS);
+
+        return waiter;
+    }
+
+    /**
+     * Handles a {@link PlayerDataHandoff} sent by another server.
+     * A handoff that isn't newer than the last one known for the player is ignored.
+     * Otherwise, it is given to the load waiting for it, or kept until one does.
+     * @param handoff The {@link PlayerDataHandoff}.
+     * @param now The current time, in epoch milliseconds.
+     * @return true if the handoff was kept because nothing was waiting for it, otherwise false.
+     */
+    public boolean handleHandoff(@NotNull PlayerDataHandoff handoff, long now) {
+        UUID uuid = handoff.uuid();
+        CompletableFuture<@Nullable PlayerDataHandoff> waiter;
+        synchronized(this) {
+            removeExpired(now);
+
+            // The holder only sends a handoff once the player left it.
+            remoteHolders.remove(uuid, handoff.origin());
+
+            if(handoff.version() <= getKnownVersion(uuid)) return false;
+            knownVersions.put(uuid, new KnownVersion(handoff.version(), now));
+
+            waiter = waiters.remove(uuid);
+            if(waiter == null) {
+                unclaimedHandoffs.put(uuid, new ReceivedHandoff(handoff, now));
+                return true;
+            }
+        }
+
+        // The waiter is completed outside the lock, since the load continues on this thread.
+        if(waiter.complete(handoff)) return false;
+
+        // The wait timed out while the handoff was being handled, so it is kept for the next load.
+        synchronized(this) {
+            unclaimedHandoffs.put(uuid, new ReceivedHandoff(handoff, now));
+        }
+        return true;
+    }
+
+    /**
+     * Drops a handoff that was kept, such as because it was applied to data that was already cached.
+     * @param handoff The {@link PlayerDataHandoff}.
+     */
+    public synchronized void discard(@NotNull PlayerDataHandoff handoff) {
+        ReceivedHandoff receivedHandoff = unclaimedHandoffs.get(handoff.uuid());
+        if(receivedHandoff != null && receivedHandoff.handoff() == handoff) unclaimedHandoffs.remove(handoff.uuid());
+    }
+
+    /**
+     * Completes every waiting load without a handoff, and forgets the handoffs nothing claimed and the servers that announced players.
+     * This should be called when the server stops talking to other servers, since no handoff or announcement can arrive until it starts again.
+     */
+    public void releaseWaiters() {
+        List<CompletableFuture<@Nullable PlayerDataHandoff>> releasedWaiters;
+        synchronized(this) {
+            releasedWaiters = new ArrayList<>(waiters.values());
+            waiters.clear();
+            unclaimedHandoffs.clear();
+            remoteHolders.clear();
+        }
+
+        releasedWaiters.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Stops tracking a load that finished waiting.
+     * If no handoff arrived, the server that announced the player is forgotten, so later loads don't wait for it again.
+     * @param uuid The {@link UUID} of the player.
+     * @param waiter The load's {@link CompletableFuture}.
+     * @param holder The id of the server the load waited for.
+     * @param timedOut true if no handoff arrived, otherwise false.
+     */
+    private synchronized void removeWaiter(@NotNull UUID uuid, @NotNull CompletableFuture<@Nullable PlayerDataHandoff> waiter, @NotNull UUID holder, boolean timedOut) {
+        waiters.remove(uuid, waiter);
+        if(timedOut) remoteHolders.remove(uuid, holder);
+    }
+
+    /**
+     * Get the highest handoff version known for a player.
+     * @param uuid The {@link UUID} of the player.
+     * @return The version, or 0 if no handoff is known.
+     */
+    private long getKnownVersion(@NotNull UUID uuid) {
+        KnownVersion knownVersion = knownVersions.get(uuid);
+        return knownVersion != null ? knownVersion.version() : 0L;
+    }
+
+    /**
+     * Forgets the handoffs nothing claimed and the versions of players not on this server, once they expire.
+     * @param now The current time, in epoch milliseconds.
+     */
+    private void removeExpired(long now) {
+        unclaimedHandoffs.values().removeIf(receivedHandoff -> receivedHandoff.isExpired(now, expiryMillis));
+        knownVersions.entrySet().removeIf(entry -> !heldPlayers.contains(entry.getKey()) && now - entry.getValue().updatedAt() > expiryMillis);
+    }
+
+    /**
+     * This record contains a handoff that arrived before anything waited for it.
+     * @param handoff The {@link PlayerDataHandoff}.
+     * @param receivedAt The time the handoff was received, in epoch milliseconds. The clocks of the servers may differ, so the time it was sent isn't used.
+     */
+    private record ReceivedHandoff(@NotNull PlayerDataHandoff handoff, long receivedAt) {
+        /**
+         * Checks if the handoff is too old to be used.
+         * @param now The current time, in epoch milliseconds.
+         * @param expiryMillis The number of milliseconds a handoff is kept for.
+         * @return true if the handoff has expired, otherwise false.
+         */
+        private boolean isExpired(long now, long expiryMillis) {
+            return now - receivedAt > expiryMillis;
+        }
+    }
+
+    /**
+     * This record contains the highest handoff version known for a player.
+     * @param version The version.
+     * @param updatedAt The time the version was last changed, in epoch milliseconds.
+     */
+    private record KnownVersion(long version, long updatedAt) {}
+}
@@ -0,0 +1,165 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * This class owns the {@link ProxyChannel} shared by every feature that talks to the other servers behind the proxy.
+ * Features register a handler for their own sub-channel once, and it is registered on every channel used afterward.
+ */
+public class NetworkManager {
+    private static final @NotNull String DEFAULT_SERVER_NAME = "another server";
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull Map<String, Consumer<byte[]>> handlers = new ConcurrentHashMap<>();
+    private final @NotNull List<Runnable> disableListeners = new CopyOnWriteArrayList<>();
+
+    private volatile @Nullable ProxyChannel proxyChannel;
+    private volatile @NotNull String serverName = DEFAULT_SERVER_NAME;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #NetworkManager(SkyWelcome, SettingsManager)} instead.
+     * @deprecated You should use {@link #NetworkManager(SkyWelcome, SettingsManager)} instead.
+     */
+    @Deprecated
+    public NetworkManager() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     */
+    public NetworkManager(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager) {
+        this.skyWelcome = skyWelcome;
+        this.settingsManager = settingsManager;
+    }
+
+    /**
+     * Applies the network settings from the plugin's settings.
+     * The BungeeCord channel is used when the server is behind a proxy.
+     */
+    public void reload() {
+        boolean enabled = false;
+        String name = DEFAULT_SERVER_NAME;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            enabled = Objects.requireNonNullElse(settings.network().enabled(), false);
+            name = Objects.requireNonNullElse(settings.network().serverName(), DEFAULT_SERVER_NAME);
+        }
+        serverName = name;
+
+        if(!enabled) {
+            setProxyChannel(null);
+        } else if(!(proxyChannel instanceof BungeeProxyChannel)) {
+            setProxyChannel(new BungeeProxyChannel(skyWelcome));
+        }
+    }
+
+    /**
+     * Replaces the current {@link ProxyChannel}, stopping the old one and starting the new one with every registered handler.
+     * @param newProxyChannel The {@link ProxyChannel} to use, or null to stop talking to other servers.
+     */
+    public synchronized void setProxyChannel(@Nullable ProxyChannel newProxyChannel) {
+        ProxyChannel oldProxyChannel = proxyChannel;
+        if(oldProxyChannel == newProxyChannel) return;
+        if(oldProxyChannel != null) oldProxyChannel.stop();
+
+        proxyChannel = newProxyChannel;
+        if(newProxyChannel != null) {
+            handlers.forEach(newProxyChannel::registerHandler);
+            newProxyChannel.start();
+        } else {
+            disableListeners.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Sets the handler for the messages received on a sub-channel, on the current channel and every channel used afterward.
+     * @param subChannel The name of the sub-channel.
+     * @param handler The {@link Consumer} that is given each message's data. It may be called from any thread.
+     */
+    public synchronized void registerHandler(@NotNull String subChannel, @NotNull Consumer<byte[]> handler) {
+        handlers.put(subChannel, handler);
+
+        ProxyChannel currentProxyChannel = proxyChannel;
+        if(currentProxyChannel != null) currentProxyChannel.registerHandler(subChannel, handler);
+    }
+
+    /**
+     * Adds a listener that is called when the server stops talking to other servers, so features can stop waiting for messages.
+     * @param listener The {@link Runnable} to call.
+     */
+    public void addDisableListener(@NotNull Runnable listener) {
+        disableListeners.add(listener);
+    }
+
+    /**
+     * Sends a message to every other server behind the proxy.
+     * @param subChannel The name of the sub-channel.
+     * @param data The message's data.
+     * @param leavingPlayer The {@link UUID} of a player that is leaving this server, who should not carry the message if another player can.
+     * @return true if the message was handed to the proxy, false if it could not be sent or the server isn't behind a proxy.
+     */
+    public boolean send(@NotNull String subChannel, byte @NotNull [] data, @Nullable UUID leavingPlayer) {
+        ProxyChannel currentProxyChannel = proxyChannel;
+        if(currentProxyChannel == null) return false;
+
+        return currentProxyChannel.send(subChannel, data, leavingPlayer);
+    }
+
+    /**
+     * Is the server talking to other servers behind a proxy?
+     * @return true if a {@link ProxyChannel} is in use, otherwise false.
+     */
+    public boolean isEnabled() {
+        return proxyChannel != null;
+    }
+
+    /**
+     * Get the name of this server that is shown to players on other servers.
+     * @return The server's name.
+     */
+    public @NotNull String getServerName() {
+        return serverName;
+    }
+
+    /**
+     * Stops talking to other servers.
+     */
+    public void shutdown() {
+        setProxyChannel(null);
+    }
+}
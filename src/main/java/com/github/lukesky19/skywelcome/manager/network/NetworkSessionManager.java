@@ -0,0 +1,317 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skylib.api.adventure.AdventureUtil;
+import com.github.lukesky19.skywelcome.SkyWelcome;
+import com.github.lukesky19.skywelcome.config.settings.Settings;
+import com.github.lukesky19.skywelcome.config.settings.SettingsManager;
+import com.github.lukesky19.skywelcome.enums.SwitchMessageMode;
+import com.github.lukesky19.skywelcome.enums.TransitionType;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.logger.slf4j.ComponentLogger;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * This class only sends join and leave messages when players join or leave the network behind a proxy, not when they switch servers.
+ * Each server tells the others through the {@link NetworkManager} when a player joins or leaves it, and a {@link NetworkSessionTracker} decides what each join and leave means.
+ * Join and leave messages are held until the tracker resolves them, so messages for network joins and leaves are sent a short time late.
+ * Messages that can't be delivered through the proxy are not retried, so a switch that isn't recognized in time is sent as a normal join and leave.
+ * Everything except the handling of messages from other servers runs on the main thread.
+ */
+public class NetworkSessionManager {
+    private static final @NotNull String SUB_CHANNEL = "session";
+    private static final int DEFAULT_WINDOW_MILLIS = 1000;
+    private static final @NotNull String DEFAULT_MOVED_MESSAGE = "<gray><player_name> moved to <server></gray>";
+    private static final long EXPIRY_INTERVAL_TICKS = 2L;
+
+    private final @NotNull SkyWelcome skyWelcome;
+    private final @NotNull ComponentLogger logger;
+    private final @NotNull SettingsManager settingsManager;
+    private final @NotNull NetworkManager networkManager;
+    private final @NotNull NetworkSessionTracker tracker = new NetworkSessionTracker(DEFAULT_WINDOW_MILLIS);
+
+    // The join messages waiting for their join to be resolved.
+    private final @NotNull Map<UUID, Component> pendingJoinMessages = new HashMap<>();
+    // The joins that were resolved before their join message was ready.
+    private final @NotNull Map<UUID, TransitionType> resolvedJoins = new HashMap<>();
+    private final @NotNull Map<UUID, PendingQuit> pendingQuits = new HashMap<>();
+
+    private volatile boolean enabled = false;
+    private @NotNull SwitchMessageMode switchMessageMode = SwitchMessageMode.MOVED;
+    private @NotNull String movedMessage = DEFAULT_MOVED_MESSAGE;
+    private @Nullable BukkitTask expiryTask;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #NetworkSessionManager(SkyWelcome, SettingsManager, NetworkManager)} instead.
+     * @deprecated You should use {@link #NetworkSessionManager(SkyWelcome, SettingsManager, NetworkManager)} instead.
+     */
+    @Deprecated
+    public NetworkSessionManager() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param skyWelcome A {@link SkyWelcome} instance.
+     * @param settingsManager A {@link SettingsManager} instance.
+     * @param networkManager A {@link NetworkManager} instance.
+     */
+    public NetworkSessionManager(@NotNull SkyWelcome skyWelcome, @NotNull SettingsManager settingsManager, @NotNull NetworkManager networkManager) {
+        this.skyWelcome = skyWelcome;
+        this.logger = skyWelcome.getComponentLogger();
+        this.settingsManager = settingsManager;
+        this.networkManager = networkManager;
+
+        networkManager.registerHandler(SUB_CHANNEL, this::handleMessage);
+        // Nothing can arrive once the server stops talking to other servers, so the waiting joins and leaves are sent as they are.
+        networkManager.addDisableListener(() -> {
+            if(skyWelcome.isEnabled()) skyWelcome.getServer().getScheduler().runTask(skyWelcome, this::resolveAll);
+        });
+    }
+
+    /**
+     * Applies the session settings from the plugin's settings.
+     * This should be called after the {@link NetworkManager} is reloaded.
+     */
+    public void reload() {
+        boolean sessionsEnabled = true;
+        SwitchMessageMode mode = SwitchMessageMode.MOVED;
+        String moved = DEFAULT_MOVED_MESSAGE;
+        int window = DEFAULT_WINDOW_MILLIS;
+
+        Settings settings = settingsManager.getSettings();
+        if(settings != null) {
+            Settings.SessionConfig sessionConfig = settings.network().sessions();
+            sessionsEnabled = Objects.requireNonNullElse(sessionConfig.enabled(), true);
+            mode = Objects.requireNonNullElse(sessionConfig.switchMessages(), SwitchMessageMode.MOVED);
+            moved = Objects.requireNonNullElse(sessionConfig.movedMessage(), DEFAULT_MOVED_MESSAGE);
+            window = Math.max(Objects.requireNonNullElse(sessionConfig.windowMillis(), DEFAULT_WINDOW_MILLIS), 0);
+        }
+        switchMessageMode = mode;
+        movedMessage = moved;
+        tracker.setWindowMillis(window);
+        enabled = sessionsEnabled;
+
+        if(expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+
+        if(isEnabled()) {
+            expiryTask = skyWelcome.getServer().getScheduler().runTaskTimer(skyWelcome, this::expire, EXPIRY_INTERVAL_TICKS, EXPIRY_INTERVAL_TICKS);
+        } else {
+            resolveAll();
+        }
+    }
+
+    /**
+     * Are join and leave messages only sent when players join or leave the network?
+     * @return true if sessions are enabled and the server is behind a proxy, otherwise false.
+     */
+    public boolean isEnabled() {
+        return enabled && networkManager.isEnabled();
+    }
+
+    /**
+     * Handles a player joining this server. This should be called as soon as the player joins, before their join message is ready.
+     * @param player The {@link Player} that joined.
+     */
+    public void handleJoin(@NotNull Player player) {
+        if(!isEnabled()) return;
+
+        UUID uuid = player.getUniqueId();
+        pendingJoinMessages.remove(uuid);
+        resolvedJoins.remove(uuid);
+
+        List<PlayerTransition> transitions = tracker.handleLocalJoin(uuid, System.currentTimeMillis());
+        networkManager.send(SUB_CHANNEL, new SessionMessage(uuid, networkManager.getServerName(), true).encode(), null);
+        transitions.forEach(this::handleTransition);
+    }
+
+    /**
+     * Sends a player's join message to online players, once their join is known to be a network join.
+     * @param player The {@link Player} that joined.
+     * @param joinMessage The join message {@link Component}, or null if no join message should be sent.
+     */
+    public void sendJoinMessage(@NotNull Player player, @Nullable Component joinMessage) {
+        if(!isEnabled() || !isTracked(player.getUniqueId())) {
+            if(joinMessage != null) broadcast(joinMessage);
+            return;
+        }
+
+        UUID uuid = player.getUniqueId();
+        TransitionType resolvedJoin = resolvedJoins.remove(uuid);
+        if(resolvedJoin == null) {
+            if(joinMessage != null) pendingJoinMessages.put(uuid, joinMessage);
+            return;
+        }
+
+        if(resolvedJoin == TransitionType.NETWORK_JOIN && joinMessage != null) broadcast(joinMessage);
+    }
+
+    /**
+     * Handles a player leaving this server, and sends their leave message to online players once their leave is known to be a network leave.
+     * @param player The {@link Player} that is leaving.
+     * @param leaveMessage The leave message {@link Component}, or null if no leave message should be sent.
+     */
+    public void handleQuit(@NotNull Player player, @Nullable Component leaveMessage) {
+        if(!isEnabled()) {
+            if(leaveMessage != null) broadcast(leaveMessage);
+            return;
+        }
+
+        UUID uuid = player.getUniqueId();
+        pendingJoinMessages.remove(uuid);
+        resolvedJoins.remove(uuid);
+        pendingQuits.put(uuid, new PendingQuit(player.getName(), leaveMessage));
+
+        List<PlayerTransition> transitions = tracker.handleLocalQuit(uuid, System.currentTimeMillis());
+        networkManager.send(SUB_CHANNEL, new SessionMessage(uuid, networkManager.getServerName(), false).encode(), uuid);
+        transitions.forEach(this::handleTransition);
+    }
+
+    /**
+     * Stops tracking sessions without sending the messages that are still waiting.
+     */
+    public void shutdown() {
+        enabled = false;
+        if(expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+
+        tracker.clear();
+        pendingJoinMessages.clear();
+        resolvedJoins.clear();
+        pendingQuits.clear();
+    }
+
+    /**
+     * Checks if this server is tracking a player's session, which isn't the case for players that joined before sessions were enabled.
+     * @param uuid The {@link UUID} of the player.
+     * @return true if the tracker knows about the player, otherwise false.
+     */
+    private boolean isTracked(@NotNull UUID uuid) {
+        return tracker.getState(uuid) != null || resolvedJoins.containsKey(uuid);
+    }
+
+    /**
+     * Resolves the joins and leaves whose window passed.
+     */
+    private void expire() {
+        tracker.expire(System.currentTimeMillis()).forEach(this::handleTransition);
+    }
+
+    /**
+     * Resolves every join and leave that is still waiting as a network join or leave, then forgets every session.
+     * Join messages that aren't ready yet are sent as soon as they are, since sessions are no longer tracked.
+     */
+    private void resolveAll() {
+        tracker.resolveAll().forEach(this::handleTransition);
+        tracker.clear();
+        resolvedJoins.clear();
+    }
+
+    /**
+     * Passes a message sent by another server to the tracker on the main thread.
+     * @param data The encoded {@link SessionMessage}.
+     */
+    private void handleMessage(byte @NotNull [] data) {
+        SessionMessage message;
+        try {
+            message = SessionMessage.decode(data);
+        } catch (IOException e) {
+            logger.warn(AdventureUtil.serialize("Failed to read a player session message sent by another server. Error: " + e.getMessage()));
+            return;
+        }
+
+        // The time is taken when the message arrives, since the main thread may be busy.
+        long now = System.currentTimeMillis();
+        if(!skyWelcome.isEnabled()) return;
+        skyWelcome.getServer().getScheduler().runTask(skyWelcome, () -> {
+            if(!isEnabled()) return;
+
+            tracker.handleRemoteMessage(message, now).forEach(this::handleTransition);
+        });
+    }
+
+    /**
+     * Sends or drops the messages held for a player's join or leave, depending on what it turned out to be.
+     * @param transition The {@link PlayerTransition}.
+     */
+    private void handleTransition(@NotNull PlayerTransition transition) {
+        UUID uuid = transition.uuid();
+
+        switch(transition.type()) {
+            case NETWORK_JOIN, SWITCH_IN -> {
+                Component joinMessage = pendingJoinMessages.remove(uuid);
+                if(joinMessage == null) {
+                    resolvedJoins.put(uuid, transition.type());
+                } else if(transition.type() == TransitionType.NETWORK_JOIN) {
+                    broadcast(joinMessage);
+                }
+            }
+
+            case NETWORK_QUIT -> {
+                PendingQuit pendingQuit = pendingQuits.remove(uuid);
+                if(pendingQuit != null && pendingQuit.leaveMessage() != null) broadcast(pendingQuit.leaveMessage());
+            }
+
+            case SWITCH_OUT -> {
+                PendingQuit pendingQuit = pendingQuits.remove(uuid);
+                // The moved line stands in for the leave message, so it is only sent to players that would have seen the leave message.
+                if(pendingQuit == null || pendingQuit.leaveMessage() == null || switchMessageMode != SwitchMessageMode.MOVED) return;
+
+                List<TagResolver.Single> placeholders = List.of(
+                        Placeholder.unparsed("player_name", pendingQuit.playerName()),
+                        Placeholder.unparsed("server", Objects.requireNonNullElse(transition.serverName(), "")));
+
+                skyWelcome.getServer().getOnlinePlayers().forEach(onlinePlayer -> onlinePlayer.sendMessage(AdventureUtil.serialize(onlinePlayer, movedMessage, placeholders)));
+            }
+        }
+    }
+
+    /**
+     * Sends a message to every online player.
+     * @param message The message {@link Component}.
+     */
+    private void broadcast(@NotNull Component message) {
+        skyWelcome.getServer().getOnlinePlayers().forEach(onlinePlayer -> onlinePlayer.sendMessage(message));
+    }
+
+    /**
+     * A leave message waiting for the player's leave to be resolved.
+     * @param playerName The name of the player, for the moved message.
+     * @param leaveMessage The leave message {@link Component}, or null if no leave message should be sent.
+     */
+    private record PendingQuit(@NotNull String playerName, @Nullable Component leaveMessage) {}
+}
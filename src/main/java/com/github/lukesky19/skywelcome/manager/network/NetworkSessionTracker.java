@@ -0,0 +1,241 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skywelcome.enums.SessionState;
+import com.github.lukesky19.skywelcome.enums.TransitionType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * This class tells players joining or leaving the network apart from players switching servers.
+ * It is given the players joining and leaving this server, and the {@link SessionMessage}s of the players joining and leaving the other servers.
+ * A switch is two halves that reach each server in either order, since BungeeCord disconnects the player from the old server first and Velocity connects them to the new server first.
+ * A join or leave waits for the other half for a short window, and is a network join or leave if it doesn't arrive in time.
+ * Every method is given the current time, so the transitions only depend on the order and timing of what the tracker is given.
+ */
+public class NetworkSessionTracker {
+    private final @NotNull Map<UUID, Session> sessions = new HashMap<>();
+    // The players that joined or left other servers recently, which may be the other half of a switch to or from this server.
+    private final @NotNull Map<UUID, RemoteEvent> recentArrivals = new HashMap<>();
+    private final @NotNull Map<UUID, RemoteEvent> recentDepartures = new HashMap<>();
+
+    private long windowMillis;
+
+    /**
+     * Default Constructor.
+     * You should use {@link #NetworkSessionTracker(long)} instead.
+     * @deprecated You should use {@link #NetworkSessionTracker(long)} instead.
+     */
+    @Deprecated
+    public NetworkSessionTracker() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Constructor
+     * @param windowMillis The number of milliseconds to wait for the other half of a switch.
+     */
+    public NetworkSessionTracker(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Sets the number of milliseconds to wait for the other half of a switch.
+     * @param windowMillis The number of milliseconds.
+     */
+    public synchronized void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Get what this server knows about a player's session.
+     * @param uuid The {@link UUID} of the player.
+     * @return The {@link SessionState}, or null if the player isn't on this server and isn't waiting to be resolved.
+     */
+    public synchronized @Nullable SessionState getState(@NotNull UUID uuid) {
+        Session session = sessions.get(uuid);
+        return session != null ? session.state : null;
+    }
+
+    /**
+     * Handles a player joining this server.
+     * @param uuid The {@link UUID} of the player.
+     * @param now The current time, in epoch milliseconds.
+     * @return The {@link List} of {@link PlayerTransition}s that were resolved.
+     */
+    public synchronized @NotNull List<PlayerTransition> handleLocalJoin(@NotNull UUID uuid, long now) {
+        List<PlayerTransition> transitions = new ArrayList<>();
+
+        // A player that reconnects before their leave is resolved left the network, as far as this server can tell.
+        Session oldSession = sessions.remove(uuid);
+        if(oldSession != null && oldSession.state == SessionState.PENDING_QUIT) {
+            transitions.add(new PlayerTransition(uuid, TransitionType.NETWORK_QUIT, null));
+        }
+
+        // Joining another server before this one can't be part of a switch to this server.
+        recentArrivals.remove(uuid);
+
+        RemoteEvent departure = recentDepartures.remove(uuid);
+        if(departure != null && !departure.isExpired(now, windowMillis)) {
+            sessions.put(uuid, new Session(SessionState.ONLINE, now));
+            transitions.add(new PlayerTransition(uuid, TransitionType.SWITCH_IN, departure.serverName()));
+            return transitions;
+        }
+
+        sessions.put(uuid, new Session(SessionState.PENDING_JOIN, now));
+        return transitions;
+    }
+
+    /**
+     * Handles a player leaving this server.
+     * A player that leaves before their join is resolved is handled like any other player that leaves.
+     * @param uuid The {@link UUID} of the player.
+     * @param now The current time, in epoch milliseconds.
+     * @return The {@link List} of {@link PlayerTransition}s that were resolved.
+     */
+    public synchronized @NotNull List<PlayerTransition> handleLocalQuit(@NotNull UUID uuid, long now) {
+        sessions.remove(uuid);
+        recentDepartures.remove(uuid);
+
+        RemoteEvent arrival = recentArrivals.remove(uuid);
+        if(arrival != null && !arrival.isExpired(now, windowMillis)) {
+            return List.of(new PlayerTransition(uuid, TransitionType.SWITCH_OUT, arrival.serverName()));
+        }
+
+        sessions.put(uuid, new Session(SessionState.PENDING_QUIT, now));
+        return List.of();
+    }
+
+    /**
+     * Handles a {@link SessionMessage} sent by another server.
+     * @param message The {@link SessionMessage}.
+     * @param now The current time, in epoch milliseconds.
+     * @return The {@link List} of {@link PlayerTransition}s that were resolved.
+     */
+    public synchronized @NotNull List<PlayerTransition> handleRemoteMessage(@NotNull SessionMessage message, long now) {
+        UUID uuid = message.uuid();
+        Session session = sessions.get(uuid);
+
+        if(message.arrived()) {
+            if(session != null && session.state == SessionState.PENDING_QUIT) {
+                sessions.remove(uuid);
+                return List.of(new PlayerTransition(uuid, TransitionType.SWITCH_OUT, message.serverName()));
+            }
+
+            recentArrivals.put(uuid, new RemoteEvent(message.serverName(), now));
+        } else {
+            if(session != null && session.state == SessionState.PENDING_JOIN) {
+                session.state = SessionState.ONLINE;
+                return List.of(new PlayerTransition(uuid, TransitionType.SWITCH_IN, message.serverName()));
+            }
+
+            recentDepartures.put(uuid, new RemoteEvent(message.serverName(), now));
+        }
+
+        return List.of();
+    }
+
+    /**
+     * Resolves the joins and leaves whose window passed without the other half of a switch, and forgets old messages from other servers.
+     * @param now The current time, in epoch milliseconds.
+     * @return The {@link List} of {@link PlayerTransition}s that were resolved.
+     */
+    public synchronized @NotNull List<PlayerTransition> expire(long now) {
+        List<PlayerTransition> transitions = new ArrayList<>();
+
+        Iterator<Map.Entry<UUID, Session>> iterator = sessions.entrySet().iterator();
+        while(iterator.hasNext()) {
+            Map.Entry<UUID, Session> entry = iterator.next();
+            Session session = entry.getValue();
+            if(session.state == SessionState.ONLINE || now - session.since < windowMillis) continue;
+
+            if(session.state == SessionState.PENDING_JOIN) {
+                session.state = SessionState.ONLINE;
+                transitions.add(new PlayerTransition(entry.getKey(), TransitionType.NETWORK_JOIN, null));
+            } else {
+                iterator.remove();
+                transitions.add(new PlayerTransition(entry.getKey(), TransitionType.NETWORK_QUIT, null));
+            }
+        }
+
+        recentArrivals.values().removeIf(remoteEvent -> remoteEvent.isExpired(now, windowMillis));
+        recentDepartures.values().removeIf(remoteEvent -> remoteEvent.isExpired(now, windowMillis));
+
+        return transitions;
+    }
+
+    /**
+     * Resolves every join and leave that is still waiting as a network join or leave, and forgets every message from other servers.
+     * @return The {@link List} of {@link PlayerTransition}s that were resolved.
+     */
+    public synchronized @NotNull List<PlayerTransition> resolveAll() {
+        return expire(Long.MAX_VALUE);
+    }
+
+    /**
+     * Forgets every session and message.
+     */
+    public synchronized void clear() {
+        sessions.clear();
+        recentArrivals.clear();
+        recentDepartures.clear();
+    }
+
+    /**
+     * A player's session on this server.
+     */
+    private static final class Session {
+        private @NotNull SessionState state;
+        private final long since;
+
+        /**
+         * Constructor
+         * @param state The {@link SessionState}.
+         * @param since The time the player joined or left this server, in epoch milliseconds.
+         */
+        private Session(@NotNull SessionState state, long since) {
+            this.state = state;
+            this.since = since;
+        }
+    }
+
+    /**
+     * A player joining or leaving another server.
+     * @param serverName The name of the other server.
+     * @param receivedAt The time the message was received, in epoch milliseconds. The clocks of the servers may differ, so the time it was sent isn't used.
+     */
+    private record RemoteEvent(@NotNull String serverName, long receivedAt) {
+        /**
+         * Checks if the event is too old to be part of a switch.
+         * @param now The current time, in epoch milliseconds.
+         * @param windowMillis The number of milliseconds to wait for the other half of a switch.
+         * @return true if the event is older than the window, otherwise false.
+         */
+        private boolean isExpired(long now, long windowMillis) {
+            return now - receivedAt > windowMillis;
+        }
+    }
+}
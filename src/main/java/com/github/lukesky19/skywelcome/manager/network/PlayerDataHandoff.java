@@ -0,0 +1,89 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skywelcome.data.player.PlayerData;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * This record contains the snapshot of a player's data that a server sends to the other servers when the player leaves it.
+ * @param uuid The {@link UUID} of the player.
+ * @param playerData The player's {@link PlayerData}, including changes that haven't been saved yet.
+ * @param origin The id of the server the player left.
+ * @param createdAt The time the snapshot was taken, in epoch milliseconds.
+ * @param version The number of times the player's data was handed off, as far as the origin knows. A handoff with a higher version replaces one with a lower version, since the clocks of the servers may differ.
+ */
+public record PlayerDataHandoff(@NotNull UUID uuid, @NotNull PlayerData playerData, @NotNull UUID origin, long createdAt, long version) {
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Encodes the snapshot to send it to another server.
+     * @return The encoded snapshot.
+     */
+    public byte @NotNull [] encode() {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(byteStream)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeLong(origin.getMostSignificantBits());
+            out.writeLong(origin.getLeastSignificantBits());
+            out.writeLong(createdAt);
+            out.writeLong(version);
+            out.writeBoolean(playerData.isSendJoin());
+            out.writeBoolean(playerData.isSendMotd());
+            out.writeBoolean(playerData.isSendLeave());
+            out.writeInt(playerData.getJoinMessageId());
+            out.writeInt(playerData.getLeaveMessageId());
+        } catch (IOException e) {
+            // Writing to a byte array never fails.
+            throw new UncheckedIOException(e);
+        }
+
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * Decodes a snapshot sent by another server.
+     * @param data The encoded snapshot.
+     * @return The {@link PlayerDataHandoff}.
+     * @throws IOException If the data is not a snapshot in a format this version of the plugin supports.
+     */
+    public static @NotNull PlayerDataHandoff decode(byte @NotNull [] data) throws IOException {
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int formatVersion = in.readUnsignedByte();
+            if(formatVersion != FORMAT_VERSION) throw new IOException("Unsupported player data snapshot format " + formatVersion + ".");
+
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            UUID origin = new UUID(in.readLong(), in.readLong());
+            long createdAt = in.readLong();
+            long version = in.readLong();
+            PlayerData playerData = new PlayerData(in.readBoolean(), in.readBoolean(), in.readBoolean(), in.readInt(), in.readInt());
+
+            return new PlayerDataHandoff(uuid, playerData, origin, createdAt, version);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * This interface sends messages to the other servers behind the same proxy.
+ * Messages are sent on named sub-channels, and each sub-channel has at most one handler.
+ * Delivery is best effort. A message can be lost, such as when no player is connected to carry it, so senders must have a fallback.
+ */
+public interface ProxyChannel {
+    /**
+     * Starts receiving messages. Messages received before this is called are dropped.
+     */
+    void start();
+
+    /**
+     * Sets the handler for the messages received on a sub-channel.
+     * @param subChannel The name of the sub-channel.
+     * @param handler The {@link Consumer} that is given each message's data. It may be called from any thread.
+     */
+    void registerHandler(@NotNull String subChannel, @NotNull Consumer<byte[]> handler);
+
+    /**
+     * Sends a message to every other server behind the proxy.
+     * @param subChannel The name of the sub-channel.
+     * @param data The message's data.
+     * @param leavingPlayer The {@link UUID} of a player that is leaving this server, who should not carry the message if another player can.
+     * @return true if the message was handed to the proxy, false if it could not be sent.
+     */
+    boolean send(@NotNull String subChannel, byte @NotNull [] data, @Nullable UUID leavingPlayer);
+
+    /**
+     * Stops receiving messages.
+     */
+    void stop();
+}
@@ -0,0 +1,77 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * This record contains the message a server sends to the other servers when a player joins or leaves it.
+ * @param uuid The {@link UUID} of the player.
+ * @param serverName The name of the server the player joined or left.
+ * @param arrived true if the player joined the server, false if they left it.
+ */
+public record SessionMessage(@NotNull UUID uuid, @NotNull String serverName, boolean arrived) {
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Encodes the message to send it to another server.
+     * @return The encoded message.
+     */
+    public byte @NotNull [] encode() {
+        ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(byteStream)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+            out.writeUTF(serverName);
+            out.writeBoolean(arrived);
+        } catch (IOException e) {
+            // Writing to a byte array never fails.
+            throw new UncheckedIOException(e);
+        }
+
+        return byteStream.toByteArray();
+    }
+
+    /**
+     * Decodes a message sent by another server.
+     * @param data The encoded message.
+     * @return The {@link SessionMessage}.
+     * @throws IOException If the data is not a message in a format this version of the plugin supports.
+     */
+    public static @NotNull SessionMessage decode(byte @NotNull [] data) throws IOException {
+        try(DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            int formatVersion = in.readUnsignedByte();
+            if(formatVersion != FORMAT_VERSION) throw new IOException("Unsupported session message format " + formatVersion + ".");
+
+            UUID uuid = new UUID(in.readLong(), in.readLong());
+            String serverName = in.readUTF();
+            boolean arrived = in.readBoolean();
+
+            return new SessionMessage(uuid, serverName, arrived);
+        }
+    }
+}
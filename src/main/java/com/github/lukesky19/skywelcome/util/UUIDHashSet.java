@@ -0,0 +1,258 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * A compact set of {@link UUID}s that stores each {@link UUID} as two primitive longs in an open-addressing hash table.
+ * This avoids allocating an object per entry, so large numbers of {@link UUID}s can be held in memory cheaply.
+ * All methods are synchronized and safe to call from any thread.
+ */
+public class UUIDHashSet {
+    private static final int MINIMUM_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    // A slot is empty when both halves are 0. The nil UUID is tracked separately so it can still be stored.
+    private long[] mostSignificantBits;
+    private long[] leastSignificantBits;
+    private boolean containsNilUUID = false;
+    private int size = 0;
+    private int resizeThreshold;
+
+    /**
+     * Default Constructor.
+     * Creates an empty set with the minimum capacity.
+     */
+    public UUIDHashSet() {
+        this(MINIMUM_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * @param expectedSize The number of {@link UUID}s the set is expected to hold before it needs to grow.
+     */
+    public UUIDHashSet(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    /**
+     * Adds the {@link UUID} to the set.
+     * @param uuid The {@link UUID} to add.
+     * @return true if the {@link UUID} was added, false if it was already in the set.
+     */
+    public synchronized boolean add(@NotNull UUID uuid) {
+        long mostBits = uuid.getMostSignificantBits();
+        long leastBits = uuid.getLeastSignificantBits();
+
+        if(mostBits == 0L && leastBits == 0L) {
+            if(containsNilUUID) return false;
+            containsNilUUID = true;
+            size++;
+            return true;
+        }
+
+        if(insert(mostBits, leastBits)) {
+            if(++size > resizeThreshold) resize(mostSignificantBits.length * 2);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds every {@link UUID} in the provided {@link UUIDHashSet} to this set.
+     * @param other The {@link UUIDHashSet} to copy from.
+     */
+    public void addAll(@NotNull UUIDHashSet other) {
+        long[] otherMostBits;
+        long[] otherLeastBits;
+        boolean otherContainsNilUUID;
+        synchronized(other) {
+            otherMostBits = other.mostSignificantBits.clone();
+            otherLeastBits = other.leastSignificantBits.clone();
+            otherContainsNilUUID = other.containsNilUUID;
+        }
+
+        synchronized(this) {
+            if(otherContainsNilUUID && !containsNilUUID) {
+                containsNilUUID = true;
+                size++;
+            }
+
+            for(int i = 0; i < otherMostBits.length; i++) {
+                if(otherMostBits[i] == 0L && otherLeastBits[i] == 0L) continue;
+
+                if(insert(otherMostBits[i], otherLeastBits[i]) && ++size > resizeThreshold) {
+                    resize(mostSignificantBits.length * 2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the {@link UUID} from the set.
+     * @param uuid The {@link UUID} to remove.
+     * @return true if the {@link UUID} was removed, false if it was not in the set.
+     */
+    public synchronized boolean remove(@NotNull UUID uuid) {
+        long mostBits = uuid.getMostSignificantBits();
+        long leastBits = uuid.getLeastSignificantBits();
+
+        if(mostBits == 0L && leastBits == 0L) {
+            if(!containsNilUUID) return false;
+            containsNilUUID = false;
+            size--;
+            return true;
+        }
+
+        int mask = mostSignificantBits.length - 1;
+        int index = hash(mostBits, leastBits) & mask;
+        while(mostSignificantBits[index] != mostBits || leastSignificantBits[index] != leastBits) {
+            if(mostSignificantBits[index] == 0L && leastSignificantBits[index] == 0L) return false;
+            index = (index + 1) & mask;
+        }
+
+        // Shift later entries of the same probe run back into the freed slot so lookups never stop early at a gap.
+        int next = (index + 1) & mask;
+        while(mostSignificantBits[next] != 0L || leastSignificantBits[next] != 0L) {
+            int home = hash(mostSignificantBits[next], leastSignificantBits[next]) & mask;
+            if(((next - home) & mask) >= ((next - index) & mask)) {
+                mostSignificantBits[index] = mostSignificantBits[next];
+                leastSignificantBits[index] = leastSignificantBits[next];
+                index = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        mostSignificantBits[index] = 0L;
+        leastSignificantBits[index] = 0L;
+        size--;
+        return true;
+    }
+
+    /**
+     * Checks if the {@link UUID} is in the set.
+     * @param uuid The {@link UUID} to check.
+     * @return true if the {@link UUID} is in the set, false if not.
+     */
+    public synchronized boolean contains(@NotNull UUID uuid) {
+        long mostBits = uuid.getMostSignificantBits();
+        long leastBits = uuid.getLeastSignificantBits();
+
+        if(mostBits == 0L && leastBits == 0L) return containsNilUUID;
+
+        int mask = mostSignificantBits.length - 1;
+        int index = hash(mostBits, leastBits) & mask;
+        while(mostSignificantBits[index] != 0L || leastSignificantBits[index] != 0L) {
+            if(mostSignificantBits[index] == mostBits && leastSignificantBits[index] == leastBits) return true;
+            index = (index + 1) & mask;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes every {@link UUID} from the set and shrinks it to the minimum capacity.
+     */
+    public synchronized void clear() {
+        allocate(MINIMUM_CAPACITY);
+        containsNilUUID = false;
+        size = 0;
+    }
+
+    /**
+     * Get the number of {@link UUID}s in the set.
+     * @return The number of {@link UUID}s in the set.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Inserts the {@link UUID} halves into the table without checking if the table needs to grow.
+     * @param mostBits The most significant bits of the {@link UUID}.
+     * @param leastBits The least significant bits of the {@link UUID}.
+     * @return true if inserted, false if already present.
+     */
+    private boolean insert(long mostBits, long leastBits) {
+        int mask = mostSignificantBits.length - 1;
+        int index = hash(mostBits, leastBits) & mask;
+        while(mostSignificantBits[index] != 0L || leastSignificantBits[index] != 0L) {
+            if(mostSignificantBits[index] == mostBits && leastSignificantBits[index] == leastBits) return false;
+            index = (index + 1) & mask;
+        }
+
+        mostSignificantBits[index] = mostBits;
+        leastSignificantBits[index] = leastBits;
+        return true;
+    }
+
+    /**
+     * Grows the table to the capacity provided and re-inserts every {@link UUID}.
+     * @param capacity The new capacity. Must be a power of two.
+     */
+    private void resize(int capacity) {
+        long[] oldMostBits = mostSignificantBits;
+        long[] oldLeastBits = leastSignificantBits;
+
+        allocate(capacity);
+
+        for(int i = 0; i < oldMostBits.length; i++) {
+            if(oldMostBits[i] != 0L || oldLeastBits[i] != 0L) insert(oldMostBits[i], oldLeastBits[i]);
+        }
+    }
+
+    /**
+     * Allocates empty tables with the capacity provided.
+     * @param capacity The capacity. Must be a power of two.
+     */
+    private void allocate(int capacity) {
+        mostSignificantBits = new long[capacity];
+        leastSignificantBits = new long[capacity];
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Get the smallest power of two table size that can hold the expected number of {@link UUID}s.
+     * @param expectedSize The expected number of {@link UUID}s.
+     * @return The table size.
+     */
+    private static int tableSizeFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR) + 1L;
+        long capacity = Long.highestOneBit(Math.max(needed - 1L, 1L)) << 1;
+        return Math.clamp(capacity, MINIMUM_CAPACITY, 1 << 30);
+    }
+
+    /**
+     * Mixes both halves of a {@link UUID} into a well distributed hash.
+     * @param mostBits The most significant bits of the {@link UUID}.
+     * @param leastBits The least significant bits of the {@link UUID}.
+     * @return The hash.
+     */
+    private static int hash(long mostBits, long leastBits) {
+        long hash = mostBits * 0x9E3779B97F4A7C15L ^ leastBits;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * This class contains methods to convert {@link UUID}s to and from the 16-byte form they are stored in.
+ */
+public class UUIDUtils {
+    /**
+     * Default Constructor.
+     * Use of the default constructor is not allowed. This class only contains static methods.
+     * @deprecated Use of the default constructor is not allowed. This class only contains static methods.
+     */
+    @Deprecated
+    public UUIDUtils() {
+        throw new RuntimeException("The use of the default constructor is not allowed.");
+    }
+
+    /**
+     * Converts a {@link UUID} to 16 bytes, most significant bits first.
+     * @param uuid The {@link UUID} to convert.
+     * @return The 16 bytes.
+     */
+    public static byte @NotNull [] toBytes(@NotNull UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Converts 16 bytes created by {@link #toBytes(UUID)} back to a {@link UUID}.
+     * @param bytes The 16 bytes.
+     * @return The {@link UUID}.
+     * @throws IllegalArgumentException If there are not exactly 16 bytes.
+     */
+    public static @NotNull UUID fromBytes(byte @NotNull [] bytes) {
+        if(bytes.length != 16) throw new IllegalArgumentException("A UUID must be 16 bytes but was " + bytes.length + " bytes.");
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,205 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database;
+
+import com.github.lukesky19.skywelcome.manager.database.dialect.SqlDialect;
+import com.github.lukesky19.skywelcome.util.UUIDUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An in-memory H2 database running in the compatibility mode of one of the supported databases, with the player data table created by a {@link SqlDialect}.
+ * Rows are written and read the same way the plugin does, with player ids bound as 16 bytes.
+ */
+public final class H2Database implements AutoCloseable {
+    /**
+     * The name of the player data table.
+     */
+    public static final @NotNull String TABLE_NAME = "skywelcome_player_data";
+
+    private final @NotNull SqlDialect sqlDialect;
+    private final @NotNull Connection connection;
+
+    /**
+     * Constructor
+     * @param sqlDialect The {@link SqlDialect} to create the tables with.
+     * @param mode The H2 compatibility mode, such as MySQL or PostgreSQL.
+     * @throws SQLException If the database could not be created.
+     */
+    public H2Database(@NotNull SqlDialect sqlDialect, @NotNull String mode) throws SQLException {
+        this.sqlDialect = sqlDialect;
+        // An unnamed in-memory database belongs to this connection alone, so every test starts empty.
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:;MODE=" + mode + ";DATABASE_TO_LOWER=TRUE");
+
+        try(Statement statement = connection.createStatement()) {
+            statement.execute(sqlDialect.createPlayerDataTableSql(TABLE_NAME));
+        }
+    }
+
+    /**
+     * Get the {@link Connection} to the database.
+     * @return The {@link Connection}.
+     */
+    public @NotNull Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Runs the dialect's upsert once for each row as a single JDBC batch in one transaction, the same way a batch save is written.
+     * @param rows The {@link List} of {@link Row}s to save.
+     * @throws SQLException If the batch failed.
+     */
+    public void upsert(@NotNull List<Row> rows) throws SQLException {
+        write(sqlDialect.upsertPlayerDataSql(TABLE_NAME), rows);
+    }
+
+    /**
+     * Inserts each row with a plain insert, for dialects whose upsert H2 can't run.
+     * @param rows The {@link List} of {@link Row}s to insert.
+     * @throws SQLException If the batch failed.
+     */
+    public void insert(@NotNull List<Row> rows) throws SQLException {
+        write("INSERT INTO " + TABLE_NAME + " (player_id, send_join, send_motd, send_leave, join_message, leave_message, join_message_id, leave_message_id, last_updated) " +
+                "VALUES (?, ?, ?, ?, '', '', ?, ?, ?)", rows);
+    }
+
+    /**
+     * Runs a statement taking the player data parameters once for each row as a single JDBC batch in one transaction.
+     * @param sql The SQL statement.
+     * @param rows The {@link List} of {@link Row}s.
+     * @throws SQLException If the batch failed.
+     */
+    private void write(@NotNull String sql, @NotNull List<Row> rows) throws SQLException {
+        connection.setAutoCommit(false);
+        try(PreparedStatement statement = connection.prepareStatement(sql)) {
+            for(Row row : rows) {
+                statement.setBytes(1, UUIDUtils.toBytes(row.uuid()));
+                statement.setObject(2, row.sendJoin() ? 1 : 0);
+                statement.setObject(3, row.sendMotd() ? 1 : 0);
+                statement.setObject(4, row.sendLeave() ? 1 : 0);
+                statement.setObject(5, row.joinMessageId());
+                statement.setObject(6, row.leaveMessageId());
+                statement.setObject(7, row.lastUpdated());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Reads the saved row for a player.
+     * @param uuid The player's {@link UUID}.
+     * @return The saved {@link Row}, or null if the player has no row.
+     * @throws SQLException If the row could not be read.
+     */
+    public @Nullable Row read(@NotNull UUID uuid) throws SQLException {
+        try(PreparedStatement statement = connection.prepareStatement("SELECT send_join, send_motd, send_leave, join_message_id, leave_message_id, last_updated FROM " + TABLE_NAME + " WHERE player_id = ?")) {
+            statement.setBytes(1, UUIDUtils.toBytes(uuid));
+
+            try(ResultSet resultSet = statement.executeQuery()) {
+                if(!resultSet.next()) return null;
+
+                return new Row(
+                        uuid,
+                        resultSet.getInt("send_join") == 1,
+                        resultSet.getInt("send_motd") == 1,
+                        resultSet.getInt("send_leave") == 1,
+                        resultSet.getInt("join_message_id"),
+                        resultSet.getInt("leave_message_id"),
+                        resultSet.getLong("last_updated"));
+            }
+        }
+    }
+
+    /**
+     * Counts the rows in the player data table.
+     * @return The number of rows.
+     * @throws SQLException If the rows could not be counted.
+     */
+    public int countRows() throws SQLException {
+        try(Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE_NAME)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    /**
+     * Runs a delete with the parameters provided bound in order, the same way a prune chunk is deleted.
+     * @param sql The delete SQL.
+     * @param parameters The {@link List} of parameters.
+     * @return The number of rows deleted.
+     * @throws SQLException If the delete failed.
+     */
+    public int delete(@NotNull String sql, @NotNull List<Object> parameters) throws SQLException {
+        try(PreparedStatement statement = connection.prepareStatement(sql)) {
+            for(int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, parameters.get(i));
+            }
+
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Closes the connection, which drops the database.
+     * @throws SQLException If the connection could not be closed.
+     */
+    @Override
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * A player data row.
+     * @param uuid The player's {@link UUID}.
+     * @param sendJoin Whether join messages are sent.
+     * @param sendMotd Whether the motd is sent.
+     * @param sendLeave Whether leave messages are sent.
+     * @param joinMessageId The join message id.
+     * @param leaveMessageId The leave message id.
+     * @param lastUpdated The last updated time, in epoch milliseconds.
+     */
+    public record Row(@NotNull UUID uuid, boolean sendJoin, boolean sendMotd, boolean sendLeave, int joinMessageId, int leaveMessageId, long lastUpdated) {
+        /**
+         * Creates a row with the default settings and message ids.
+         * @param uuid The player's {@link UUID}.
+         * @param lastUpdated The last updated time, in epoch milliseconds.
+         * @return The {@link Row}.
+         */
+        public static @NotNull Row defaults(@NotNull UUID uuid, long lastUpdated) {
+            return new Row(uuid, true, true, true, 0, 0, lastUpdated);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.dialect;
+
+import com.github.lukesky19.skywelcome.manager.database.H2Database;
+import com.github.lukesky19.skywelcome.manager.database.H2Database.Row;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link MySqlDialect}'s upsert and limited delete against H2 in MySQL compatibility mode.
+ */
+public class MySqlDialectTest {
+    private H2Database database;
+
+    /**
+     * Creates an empty database with the player data table.
+     * @throws SQLException If the database could not be created.
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        database = new H2Database(new MySqlDialect(false), "MySQL");
+    }
+
+    /**
+     * Drops the database.
+     * @throws SQLException If the database could not be closed.
+     */
+    @AfterEach
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    /**
+     * A player without a row gets one.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void upsertInsertsNewRow() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        Row row = new Row(uuid, false, true, false, 3, 4, 1000L);
+
+        database.upsert(List.of(row));
+
+        assertEquals(row, database.read(uuid));
+    }
+
+    /**
+     * A save newer than the saved row replaces it.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void upsertReplacesOlderRow() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        Row newer = new Row(uuid, false, false, false, 5, 6, 2000L);
+
+        database.upsert(List.of(Row.defaults(uuid, 1000L)));
+        database.upsert(List.of(newer));
+
+        assertEquals(newer, database.read(uuid));
+    }
+
+    /**
+     * A save older than the saved row is ignored, so a late write can't undo a newer one.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void upsertIgnoresOlderSave() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        Row saved = new Row(uuid, false, true, true, 2, 2, 2000L);
+
+        database.upsert(List.of(saved));
+        database.upsert(List.of(new Row(uuid, true, false, false, 9, 9, 1999L)));
+
+        assertEquals(saved, database.read(uuid));
+    }
+
+    /**
+     * A save with the same time as the saved row replaces it, since the guard is not older rather than strictly newer.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void upsertReplacesRowWithSameTime() throws SQLException {
+        UUID uuid = UUID.randomUUID();
+        Row second = new Row(uuid, true, false, true, 7, 8, 1000L);
+
+        database.upsert(List.of(Row.defaults(uuid, 1000L)));
+        database.upsert(List.of(second));
+
+        assertEquals(second, database.read(uuid));
+    }
+
+    /**
+     * A batch save writes every row, and the guard applies to each row of the batch on its own.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void batchSaveWritesEveryRow() throws SQLException {
+        UUID stale = UUID.randomUUID();
+        Row saved = new Row(stale, false, false, false, 1, 1, 5000L);
+        database.upsert(List.of(saved));
+
+        List<Row> batch = new ArrayList<>();
+        for(int i = 0; i < 500; i++) {
+            batch.add(new Row(UUID.randomUUID(), i % 2 == 0, true, i % 3 == 0, i, i + 1, 4000L));
+        }
+        batch.add(Row.defaults(stale, 4000L));
+
+        database.upsert(batch);
+
+        assertEquals(501, database.countRows());
+        for(int i = 0; i < 500; i++) {
+            assertEquals(batch.get(i), database.read(batch.get(i).uuid()));
+        }
+        assertEquals(saved, database.read(stale));
+    }
+
+    /**
+     * The limited delete removes at most the limit, and only rows matching the condition.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void deleteLimitedDeletesAtMostLimit() throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        for(int i = 0; i < 25; i++) {
+            rows.add(Row.defaults(UUID.randomUUID(), i < 20 ? 1000L : 3000L));
+        }
+        database.upsert(rows);
+
+        String deleteSql = new MySqlDialect(false).deleteLimitedSql(H2Database.TABLE_NAME, "last_updated < ?");
+
+        assertEquals(8, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(8, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(4, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(0, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(5, database.countRows());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.dialect;
+
+import com.github.lukesky19.skywelcome.manager.database.H2Database;
+import com.github.lukesky19.skywelcome.manager.database.H2Database.Row;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests the {@link PostgreSqlDialect}'s tables and limited delete against H2 in PostgreSQL compatibility mode.
+ * H2 only supports ON CONFLICT DO NOTHING, so the upsert's guard is covered by {@link MySqlDialectTest} and rows are inserted directly here.
+ */
+public class PostgreSqlDialectTest {
+    private final PostgreSqlDialect sqlDialect = new PostgreSqlDialect();
+    private H2Database database;
+
+    /**
+     * Creates an empty database with the player data table.
+     * @throws SQLException If the database could not be created.
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        database = new H2Database(sqlDialect, "PostgreSQL");
+    }
+
+    /**
+     * Drops the database.
+     * @throws SQLException If the database could not be closed.
+     */
+    @AfterEach
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    /**
+     * Rows written to the dialect's table are read back with the same settings and message ids.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void tableStoresRows() throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        for(int i = 0; i < 25; i++) {
+            rows.add(new Row(UUID.randomUUID(), i % 2 == 0, true, i % 3 == 0, i, i + 1, 1000L + i));
+        }
+        database.insert(rows);
+
+        assertEquals(25, database.countRows());
+        for(Row row : rows) {
+            assertEquals(row, database.read(row.uuid()));
+        }
+    }
+
+    /**
+     * The limited delete removes at most the limit, and only rows matching the condition.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void deleteLimitedDeletesAtMostLimit() throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        for(int i = 0; i < 25; i++) {
+            rows.add(Row.defaults(UUID.randomUUID(), i < 20 ? 1000L : 3000L));
+        }
+        database.insert(rows);
+
+        String deleteSql = sqlDialect.deleteLimitedSql(H2Database.TABLE_NAME, "last_updated < ?");
+
+        assertEquals(8, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(8, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(4, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(0, database.delete(deleteSql, List.of(2000L, 8)));
+        assertEquals(5, database.countRows());
+    }
+}
@@ -0,0 +1,132 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import com.github.lukesky19.skywelcome.manager.database.tables.PlayerDataChangeTable.Change;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@link ChangeLogInvalidationTransport} delivers each change once, settles the watermark, and only prunes changes read a retention time ago.
+ */
+public class ChangeLogInvalidationTransportTest {
+    private static final long GRACE_MILLIS = 5000L;
+    private static final long GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(GRACE_MILLIS);
+    private static final long RETENTION_NANOS = TimeUnit.SECONDS.toNanos(300L);
+    private static final UUID ORIGIN = UUID.randomUUID();
+
+    /**
+     * Changes read again before the watermark passes them aren't delivered a second time.
+     */
+    @Test
+    public void handleChangesDeliversEachChangeOnce() {
+        ChangeLogWatermark watermark = new ChangeLogWatermark(0L, GRACE_MILLIS);
+        Set<Long> deliveredIds = new HashSet<>();
+        Change first = createChange(1L);
+        Change second = createChange(2L);
+        Change third = createChange(3L);
+
+        assertEquals(List.of(first.event(), second.event()), ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(first, second), 0L));
+        assertEquals(List.of(third.event()), ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(first, second, third), 1L));
+        assertTrue(ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(first, second, third), 2L).isEmpty());
+    }
+
+    /**
+     * A change that commits late with a lower id than the changes already delivered is still delivered.
+     */
+    @Test
+    public void handleChangesDeliversLateCommits() {
+        ChangeLogWatermark watermark = new ChangeLogWatermark(0L, GRACE_MILLIS);
+        Set<Long> deliveredIds = new HashSet<>();
+        Change early = createChange(1L);
+        Change late = createChange(2L);
+        Change next = createChange(3L);
+
+        ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(early, next), 0L);
+
+        assertEquals(List.of(late.event()), ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(early, late, next), GRACE_NANOS / 2));
+        assertEquals(0L, watermark.get());
+    }
+
+    /**
+     * The watermark only moves past the changes read once the grace period has passed, and the delivered ids at or below it are forgotten.
+     */
+    @Test
+    public void handleChangesSettlesWatermark() {
+        ChangeLogWatermark watermark = new ChangeLogWatermark(0L, GRACE_MILLIS);
+        Set<Long> deliveredIds = new HashSet<>();
+
+        ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(createChange(1L), createChange(2L)), 0L);
+        assertEquals(0L, watermark.get());
+        assertEquals(Set.of(1L, 2L), deliveredIds);
+
+        ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(createChange(3L)), GRACE_NANOS);
+        assertEquals(2L, watermark.get());
+        assertEquals(Set.of(3L), deliveredIds);
+
+        ChangeLogInvalidationTransport.handleChanges(watermark, deliveredIds, List.of(), GRACE_NANOS * 2);
+        assertEquals(3L, watermark.get());
+        assertTrue(deliveredIds.isEmpty());
+    }
+
+    /**
+     * A checkpoint is only pruned once the retention time has passed since it was taken.
+     */
+    @Test
+    public void takePruneCheckpointWaitsForRetention() {
+        ArrayDeque<long[]> pruneCheckpoints = new ArrayDeque<>();
+
+        assertEquals(-1L, ChangeLogInvalidationTransport.takePruneCheckpoint(pruneCheckpoints, 10L, 0L, RETENTION_NANOS));
+        assertEquals(-1L, ChangeLogInvalidationTransport.takePruneCheckpoint(pruneCheckpoints, 20L, RETENTION_NANOS - 1L, RETENTION_NANOS));
+        assertEquals(10L, ChangeLogInvalidationTransport.takePruneCheckpoint(pruneCheckpoints, 30L, RETENTION_NANOS, RETENTION_NANOS));
+        assertEquals(2, pruneCheckpoints.size());
+    }
+
+    /**
+     * When several checkpoints are old enough, the changes are pruned up to the newest of them, and they are all removed.
+     */
+    @Test
+    public void takePruneCheckpointPrunesUpToNewestExpired() {
+        ArrayDeque<long[]> pruneCheckpoints = new ArrayDeque<>();
+
+        ChangeLogInvalidationTransport.takePruneCheckpoint(pruneCheckpoints, 10L, 0L, RETENTION_NANOS);
+        ChangeLogInvalidationTransport.takePruneCheckpoint(pruneCheckpoints, 20L, 1L, RETENTION_NANOS);
+
+        assertEquals(20L, ChangeLogInvalidationTransport.takePruneCheckpoint(pruneCheckpoints, 30L, RETENTION_NANOS + 1L, RETENTION_NANOS));
+        assertEquals(1, pruneCheckpoints.size());
+        assertEquals(30L, pruneCheckpoints.getFirst()[1]);
+    }
+
+    /**
+     * Creates a change for a random player.
+     * @param id The id of the change's row.
+     * @return The {@link Change}.
+     */
+    private static Change createChange(long id) {
+        return new Change(id, new InvalidationEvent(UUID.randomUUID(), id, ORIGIN));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests that the {@link ChangeLogWatermark} only moves past ids once the grace period has passed on the local clock.
+ */
+public class ChangeLogWatermarkTest {
+    private static final long GRACE_MILLIS = 5000L;
+    private static final long GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(GRACE_MILLIS);
+
+    /**
+     * The watermark starts at the id provided.
+     */
+    @Test
+    public void startsAtStartId() {
+        ChangeLogWatermark watermark = new ChangeLogWatermark(42L, GRACE_MILLIS);
+
+        assertEquals(42L, watermark.get());
+        assertEquals(42L, watermark.settle(0L));
+    }
+
+    /**
+     * An id is only settled once the grace period has passed since it was first seen, so a lower id that commits late is still read.
+     */
+    @Test
+    public void settlesAfterGracePeriod() {
+        ChangeLogWatermark watermark = new ChangeLogWatermark(0L, GRACE_MILLIS);
+
+        watermark.observe(10L, 1000L);
+        assertEquals(0L, watermark.settle(1000L + GRACE_NANOS - 1L));
+        assertEquals(10L, watermark.settle(1000L + GRACE_NANOS));
+    }
+
+    /**
+     * Seeing an id again doesn't restart its grace period, and each id settles on its own schedule.
+     */
+    @Test
+    public void settlesEachObservationInOrder() {
+        ChangeLogWatermark watermark = new ChangeLogWatermark(0L, GRACE_MILLIS);
+
+        watermark.observe(10L, 0L);
+        watermark.observe(10L, GRACE_NANOS / 2);
+        watermark.observe(20L, GRACE_NANOS / 2);
+
+        assertEquals(10L, watermark.settle(GRACE_NANOS));
+        assertEquals(20L, watermark.settle(GRACE_NANOS + GRACE_NANOS / 2));
+    }
+
+    /**
+     * Ids at or below the watermark are ignored, so the watermark never moves backward.
+     */
+    @Test
+    public void neverMovesBackward() {
+        ChangeLogWatermark watermark = new ChangeLogWatermark(50L, GRACE_MILLIS);
+
+        watermark.observe(30L, 0L);
+
+        assertEquals(50L, watermark.settle(GRACE_NANOS * 2));
+    }
+}
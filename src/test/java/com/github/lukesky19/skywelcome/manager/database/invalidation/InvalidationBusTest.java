@@ -0,0 +1,100 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@link InvalidationBus} only gives listeners the players in events published by other servers that pass every filter.
+ */
+public class InvalidationBusTest {
+    private static final UUID SERVER_ID = UUID.randomUUID();
+    private static final UUID OTHER_SERVER_ID = UUID.randomUUID();
+
+    /**
+     * Events published by this server are skipped.
+     */
+    @Test
+    public void getRemoteUuidsSkipsOwnEvents() {
+        UUID ownPlayer = UUID.randomUUID();
+        UUID remotePlayer = UUID.randomUUID();
+
+        List<InvalidationEvent> events = List.of(
+                new InvalidationEvent(ownPlayer, 1L, SERVER_ID),
+                new InvalidationEvent(remotePlayer, 2L, OTHER_SERVER_ID));
+
+        assertEquals(List.of(remotePlayer), List.copyOf(InvalidationBus.getRemoteUuids(events, SERVER_ID, List.of())));
+    }
+
+    /**
+     * A player is only included once, in the order they were first received, however many events there are for them.
+     */
+    @Test
+    public void getRemoteUuidsCombinesEventsForSamePlayer() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        List<InvalidationEvent> events = List.of(
+                new InvalidationEvent(first, 1L, OTHER_SERVER_ID),
+                new InvalidationEvent(second, 2L, OTHER_SERVER_ID),
+                new InvalidationEvent(first, 3L, UUID.randomUUID()));
+
+        assertEquals(List.of(first, second), List.copyOf(InvalidationBus.getRemoteUuids(events, SERVER_ID, List.of())));
+    }
+
+    /**
+     * No players are included when every event was published by this server, or when there are no events.
+     */
+    @Test
+    public void getRemoteUuidsIsEmptyWithoutRemoteEvents() {
+        List<InvalidationEvent> events = List.of(
+                new InvalidationEvent(UUID.randomUUID(), 1L, SERVER_ID),
+                new InvalidationEvent(UUID.randomUUID(), 2L, SERVER_ID));
+
+        assertTrue(InvalidationBus.getRemoteUuids(events, SERVER_ID, List.of()).isEmpty());
+        assertTrue(InvalidationBus.getRemoteUuids(List.of(), SERVER_ID, List.of()).isEmpty());
+    }
+
+    /**
+     * An event is only included if every filter accepts it, while other events for the same player can still include them.
+     */
+    @Test
+    public void getRemoteUuidsAppliesEveryFilter() {
+        UUID filteredPlayer = UUID.randomUUID();
+        UUID keptPlayer = UUID.randomUUID();
+        UUID filteredServerId = UUID.randomUUID();
+
+        List<Predicate<InvalidationEvent>> filters = List.of(
+                event -> !event.origin().equals(filteredServerId),
+                event -> event.publishedAt() > 1L);
+        List<InvalidationEvent> events = List.of(
+                new InvalidationEvent(filteredPlayer, 2L, filteredServerId),
+                new InvalidationEvent(filteredPlayer, 1L, OTHER_SERVER_ID),
+                new InvalidationEvent(keptPlayer, 1L, OTHER_SERVER_ID),
+                new InvalidationEvent(keptPlayer, 2L, OTHER_SERVER_ID));
+
+        assertEquals(List.of(keptPlayer), List.copyOf(InvalidationBus.getRemoteUuids(events, SERVER_ID, filters)));
+    }
+}
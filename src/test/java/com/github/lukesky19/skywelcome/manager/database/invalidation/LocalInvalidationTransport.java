@@ -0,0 +1,109 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * This class is an {@link InvalidationTransport} that delivers events between transports in the same process, without a database.
+ * Transports created with {@link #connect()} share a network, and every event published by one is delivered to the others.
+ * It stands in for the change log in tests, where several transports run in the same process.
+ */
+public class LocalInvalidationTransport implements InvalidationTransport {
+    private final @NotNull Set<LocalInvalidationTransport> network;
+    private volatile @Nullable Consumer<List<InvalidationEvent>> listener;
+
+    /**
+     * Constructor
+     * Creates a transport on a new network of its own. Use {@link #connect()} to add other transports to it.
+     */
+    public LocalInvalidationTransport() {
+        this(ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Constructor
+     * @param network The {@link Set} of transports on the network this transport joins once started.
+     */
+    private LocalInvalidationTransport(@NotNull Set<LocalInvalidationTransport> network) {
+        this.network = network;
+    }
+
+    /**
+     * Creates a transport on the same network as this one.
+     * @return The new {@link LocalInvalidationTransport}.
+     */
+    public @NotNull LocalInvalidationTransport connect() {
+        return new LocalInvalidationTransport(network);
+    }
+
+    /**
+     * Joins the network and starts delivering the events published by other transports on it to the listener provided.
+     * @param listener The {@link Consumer} that is given each batch of received {@link InvalidationEvent}s.
+     */
+    @Override
+    public void start(@NotNull Consumer<List<InvalidationEvent>> listener) {
+        this.listener = listener;
+        network.add(this);
+    }
+
+    /**
+     * Delivers events to every other started transport on the network, asynchronously, as a real transport would.
+     * @param events The {@link List} of {@link InvalidationEvent}s to publish.
+     * @return A {@link CompletableFuture} that completes once every other transport's listener has been given the events.
+     */
+    @Override
+    public @NotNull CompletableFuture<Void> publish(@NotNull List<InvalidationEvent> events) {
+        List<InvalidationEvent> eventsCopy = List.copyOf(events);
+
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        for(LocalInvalidationTransport transport : network) {
+            if(transport == this) continue;
+
+            deliveries.add(CompletableFuture.runAsync(() -> transport.deliver(eventsCopy)));
+        }
+
+        return CompletableFuture.allOf(deliveries.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * Leaves the network. Events published by other transports are no longer delivered.
+     */
+    @Override
+    public void stop() {
+        network.remove(this);
+        listener = null;
+    }
+
+    /**
+     * Gives events published by another transport to this transport's listener, if it is started.
+     * @param events The {@link List} of {@link InvalidationEvent}s.
+     */
+    private void deliver(@NotNull List<InvalidationEvent> events) {
+        Consumer<List<InvalidationEvent>> currentListener = listener;
+        if(currentListener != null) currentListener.accept(events);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that the {@link LocalInvalidationTransport} delivers events between the started transports on a network.
+ */
+public class LocalInvalidationTransportTest {
+    private static final UUID ORIGIN = UUID.randomUUID();
+
+    /**
+     * An event published by one transport is delivered to every other started transport, but not back to the publisher.
+     * @throws Exception If the publish failed or timed out.
+     */
+    @Test
+    public void publishDeliversToOtherTransports() throws Exception {
+        LocalInvalidationTransport first = new LocalInvalidationTransport();
+        LocalInvalidationTransport second = first.connect();
+        LocalInvalidationTransport third = first.connect();
+        List<InvalidationEvent> firstReceived = new CopyOnWriteArrayList<>();
+        List<InvalidationEvent> secondReceived = new CopyOnWriteArrayList<>();
+        List<InvalidationEvent> thirdReceived = new CopyOnWriteArrayList<>();
+        first.start(firstReceived::addAll);
+        second.start(secondReceived::addAll);
+        third.start(thirdReceived::addAll);
+
+        InvalidationEvent event = new InvalidationEvent(UUID.randomUUID(), 1L, ORIGIN);
+        first.publish(List.of(event)).get(5, TimeUnit.SECONDS);
+
+        assertTrue(firstReceived.isEmpty());
+        assertEquals(List.of(event), secondReceived);
+        assertEquals(List.of(event), thirdReceived);
+    }
+
+    /**
+     * Transports that have been stopped receive nothing.
+     * @throws Exception If the publish failed or timed out.
+     */
+    @Test
+    public void publishSkipsStoppedTransports() throws Exception {
+        LocalInvalidationTransport publisher = new LocalInvalidationTransport();
+        LocalInvalidationTransport stopped = publisher.connect();
+        List<InvalidationEvent> stoppedReceived = new CopyOnWriteArrayList<>();
+        publisher.start(events -> {});
+        stopped.start(stoppedReceived::addAll);
+        stopped.stop();
+
+        publisher.publish(List.of(new InvalidationEvent(UUID.randomUUID(), 1L, ORIGIN))).get(5, TimeUnit.SECONDS);
+
+        assertTrue(stoppedReceived.isEmpty());
+    }
+
+    /**
+     * Transports on different networks don't receive each other's events.
+     * @throws Exception If the publish failed or timed out.
+     */
+    @Test
+    public void publishStaysOnItsNetwork() throws Exception {
+        LocalInvalidationTransport publisher = new LocalInvalidationTransport();
+        LocalInvalidationTransport otherNetwork = new LocalInvalidationTransport();
+        List<InvalidationEvent> otherReceived = new CopyOnWriteArrayList<>();
+        publisher.start(events -> {});
+        otherNetwork.start(otherReceived::addAll);
+
+        publisher.publish(List.of(new InvalidationEvent(UUID.randomUUID(), 1L, ORIGIN))).get(5, TimeUnit.SECONDS);
+
+        assertTrue(otherReceived.isEmpty());
+    }
+
+    /**
+     * The events are copied when published, so changing the list afterward doesn't change what is delivered.
+     * @throws Exception If the publish failed or timed out.
+     */
+    @Test
+    public void publishCopiesEvents() throws Exception {
+        LocalInvalidationTransport publisher = new LocalInvalidationTransport();
+        LocalInvalidationTransport receiver = publisher.connect();
+        List<InvalidationEvent> received = new CopyOnWriteArrayList<>();
+        publisher.start(events -> {});
+        receiver.start(received::addAll);
+
+        InvalidationEvent event = new InvalidationEvent(UUID.randomUUID(), 1L, ORIGIN);
+        List<InvalidationEvent> events = new ArrayList<>(List.of(event));
+        CompletableFuture<Void> publishFuture = publisher.publish(events);
+        events.clear();
+        publishFuture.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(event), received);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.database.tables;
+
+import com.github.lukesky19.skywelcome.manager.database.H2Database;
+import com.github.lukesky19.skywelcome.manager.database.H2Database.Row;
+import com.github.lukesky19.skywelcome.manager.database.dialect.MySqlDialect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests that pruning inactive rows against H2 only deletes the rows of inactive players whose data matches the defaults.
+ */
+public class PlayerDataTablePruneTest {
+    private static final long CUTOFF = 10_000L;
+    private static final int BATCH_SIZE = 4;
+
+    private final MySqlDialect sqlDialect = new MySqlDialect(false);
+    private H2Database database;
+
+    /**
+     * Creates an empty database with the player data table.
+     * @throws SQLException If the database could not be created.
+     */
+    @BeforeEach
+    public void setUp() throws SQLException {
+        database = new H2Database(sqlDialect, "MySQL");
+    }
+
+    /**
+     * Drops the database.
+     * @throws SQLException If the database could not be closed.
+     */
+    @AfterEach
+    public void tearDown() throws SQLException {
+        database.close();
+    }
+
+    /**
+     * Only rows last updated before the cutoff with the default settings and default message ids are deleted.
+     * A message id that is no longer configured resolves to the default message, so its row is deleted too.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void pruneDeletesOnlyInactiveDefaultRows() throws SQLException {
+        UUID inactiveDefault = UUID.randomUUID();
+        UUID inactiveRemovedMessage = UUID.randomUUID();
+        UUID inactiveToggled = UUID.randomUUID();
+        UUID inactiveCustomJoin = UUID.randomUUID();
+        UUID inactiveCustomLeave = UUID.randomUUID();
+        UUID active = UUID.randomUUID();
+
+        database.upsert(List.of(
+                Row.defaults(inactiveDefault, CUTOFF - 1),
+                new Row(inactiveRemovedMessage, true, true, true, 42, 0, CUTOFF - 1),
+                new Row(inactiveToggled, true, false, true, 0, 0, CUTOFF - 1),
+                new Row(inactiveCustomJoin, true, true, true, 1, 0, CUTOFF - 1),
+                new Row(inactiveCustomLeave, true, true, true, 0, 2, CUTOFF - 1),
+                Row.defaults(active, CUTOFF)));
+
+        assertEquals(2, prune());
+
+        assertNull(database.read(inactiveDefault));
+        assertNull(database.read(inactiveRemovedMessage));
+        assertNotNull(database.read(inactiveToggled));
+        assertNotNull(database.read(inactiveCustomJoin));
+        assertNotNull(database.read(inactiveCustomLeave));
+        assertNotNull(database.read(active));
+    }
+
+    /**
+     * Pruning more rows than fit in one chunk deletes them over several chunks.
+     * @throws SQLException If a query failed.
+     */
+    @Test
+    public void pruneDeletesInChunks() throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        for(int i = 0; i < BATCH_SIZE * 3 + 1; i++) {
+            rows.add(Row.defaults(UUID.randomUUID(), CUTOFF - 1));
+        }
+        rows.add(Row.defaults(UUID.randomUUID(), CUTOFF + 1));
+        database.upsert(rows);
+
+        assertEquals(BATCH_SIZE * 3 + 1, prune());
+        assertEquals(1, database.countRows());
+    }
+
+    /**
+     * Deletes the inactive rows one chunk at a time until a chunk isn't full, the same way the table prunes them.
+     * @return The number of rows deleted.
+     * @throws SQLException If a query failed.
+     */
+    private int prune() throws SQLException {
+        List<Object> parameters = new ArrayList<>();
+        String condition = PlayerDataTable.createInactiveRowCondition(CUTOFF, Set.of(1, 3), Set.of(2), parameters);
+        parameters.add(BATCH_SIZE);
+        String deleteSql = sqlDialect.deleteLimitedSql(H2Database.TABLE_NAME, condition);
+
+        int deletedRows = 0;
+        int chunkRows;
+        do {
+            chunkRows = database.delete(deleteSql, parameters);
+            deletedRows += chunkRows;
+        } while(chunkRows == BATCH_SIZE);
+
+        return deletedRows;
+    }
+}
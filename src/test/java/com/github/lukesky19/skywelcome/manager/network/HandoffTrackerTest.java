@@ -0,0 +1,338 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skywelcome.data.player.PlayerData;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that {@link HandoffTracker}s on servers connected by a {@link LoopbackProxyChannel} claim, expire and order handoffs.
+ */
+public class HandoffTrackerTest {
+    private static final long EXPIRY_MILLIS = 10000L;
+    private static final long LONG_WAIT_MILLIS = 10000L;
+
+    private final @NotNull AtomicLong clock = new AtomicLong(1000L);
+    private final @NotNull UUID uuid = UUID.randomUUID();
+    private Server first;
+    private Server second;
+    private Server third;
+
+    /**
+     * Starts three servers on the same network.
+     */
+    @BeforeEach
+    public void setUp() {
+        LoopbackProxyChannel channel = new LoopbackProxyChannel();
+        first = new Server(channel);
+        second = new Server(channel.connect());
+        third = new Server(channel.connect());
+    }
+
+    /**
+     * Stops the servers.
+     */
+    @AfterEach
+    public void tearDown() {
+        first.channel.stop();
+        second.channel.stop();
+        third.channel.stop();
+    }
+
+    /**
+     * A player no other server announced is joining the network, so the load doesn't wait for a handoff.
+     */
+    @Test
+    public void unannouncedPlayerDoesNotWait() {
+        CompletableFuture<@Nullable PlayerDataHandoff> future = second.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+
+        assertTrue(future.isDone());
+        assertNull(future.join());
+    }
+
+    /**
+     * A load for a player another server announced waits for the handoff sent when the player leaves that server.
+     * @throws Exception If the handoff didn't arrive in time.
+     */
+    @Test
+    public void announcedPlayerClaimsHandoff() throws Exception {
+        first.announce(uuid);
+        second.awaitDelivery();
+
+        CompletableFuture<@Nullable PlayerDataHandoff> future = second.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+        assertFalse(future.isDone());
+
+        PlayerDataHandoff handoff = first.sendHandoff(uuid);
+        assertHandoff(handoff, future.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * A handoff that arrives before the load is kept for it, and is only claimed once.
+     * @throws Exception If the handoff didn't arrive in time.
+     */
+    @Test
+    public void handoffBeforeLoadIsClaimedOnce() throws Exception {
+        first.announce(uuid);
+        second.awaitDelivery();
+        PlayerDataHandoff handoff = first.sendHandoff(uuid);
+        second.awaitDelivery();
+
+        CompletableFuture<@Nullable PlayerDataHandoff> future = second.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+        assertTrue(future.isDone());
+        assertHandoff(handoff, future.join());
+
+        // The server that announced the player handed their data off, so there is nothing left to wait for.
+        CompletableFuture<@Nullable PlayerDataHandoff> secondFuture = second.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+        assertTrue(secondFuture.isDone());
+        assertNull(secondFuture.join());
+    }
+
+    /**
+     * A handoff nothing claimed is dropped once it expires, and the load doesn't wait for another.
+     * @throws Exception If the handoff didn't arrive in time.
+     */
+    @Test
+    public void unclaimedHandoffExpires() throws Exception {
+        first.announce(uuid);
+        second.awaitDelivery();
+        first.sendHandoff(uuid);
+        second.awaitDelivery();
+
+        clock.addAndGet(EXPIRY_MILLIS + 1);
+        CompletableFuture<@Nullable PlayerDataHandoff> future = second.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+
+        assertTrue(future.isDone());
+        assertNull(future.join());
+    }
+
+    /**
+     * A load whose handoff never arrives gives up after the wait, and later loads don't wait for the same server again.
+     * @throws Exception If the announcement didn't arrive in time.
+     */
+    @Test
+    public void missedHandoffForgetsHolder() throws Exception {
+        first.announce(uuid);
+        second.awaitDelivery();
+
+        assertNull(second.tracker.awaitHandoff(uuid, 50L, clock.get()).get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<@Nullable PlayerDataHandoff> future = second.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+        assertTrue(future.isDone());
+        assertNull(future.join());
+    }
+
+    /**
+     * Each server hands a player's data off with a version one higher than the handoff it received.
+     * @throws Exception If a handoff didn't arrive in time.
+     */
+    @Test
+    public void versionIncreasesWithEachSwitch() throws Exception {
+        first.announce(uuid);
+        second.awaitDelivery();
+        third.awaitDelivery();
+
+        CompletableFuture<@Nullable PlayerDataHandoff> future = second.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+        PlayerDataHandoff firstHandoff = first.sendHandoff(uuid);
+        assertHandoff(firstHandoff, future.get(5, TimeUnit.SECONDS));
+        third.awaitDelivery();
+
+        second.announce(uuid);
+        third.awaitDelivery();
+        PlayerDataHandoff secondHandoff = second.sendHandoff(uuid);
+        third.awaitDelivery();
+
+        assertEquals(1L, firstHandoff.version());
+        assertEquals(2L, secondHandoff.version());
+        assertHandoff(secondHandoff, third.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get()).join());
+    }
+
+    /**
+     * A handoff that arrives after a newer one for the same player is ignored.
+     * @throws Exception If a handoff didn't arrive in time.
+     */
+    @Test
+    public void olderHandoffDoesNotReplaceNewer() throws Exception {
+        PlayerDataHandoff older = createHandoff(first, 1L);
+        PlayerDataHandoff newer = createHandoff(second, 2L);
+
+        second.send(newer);
+        third.awaitDelivery();
+        first.send(older);
+        third.awaitDelivery();
+
+        assertHandoff(newer, third.lastHandoff);
+        assertHandoff(newer, third.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get()).join());
+    }
+
+    /**
+     * A handoff that arrives after the newer one was claimed is ignored, instead of being kept for a later load.
+     * @throws Exception If a handoff didn't arrive in time.
+     */
+    @Test
+    public void olderHandoffAfterClaimIsIgnored() throws Exception {
+        second.send(createHandoff(second, 2L));
+        third.awaitDelivery();
+        assertNotNull(third.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get()).join());
+
+        first.send(createHandoff(first, 1L));
+        third.awaitDelivery();
+
+        CompletableFuture<@Nullable PlayerDataHandoff> future = third.tracker.awaitHandoff(uuid, LONG_WAIT_MILLIS, clock.get());
+        assertTrue(future.isDone());
+        assertNull(future.join());
+    }
+
+    /**
+     * Checks that a handoff is the one that was sent. {@link PlayerData} isn't compared by value, so the fields that identify the handoff are compared instead.
+     * @param expected The {@link PlayerDataHandoff} that was sent.
+     * @param actual The {@link PlayerDataHandoff} that was received.
+     */
+    private static void assertHandoff(@NotNull PlayerDataHandoff expected, @Nullable PlayerDataHandoff actual) {
+        assertNotNull(actual);
+        assertEquals(expected.uuid(), actual.uuid());
+        assertEquals(expected.origin(), actual.origin());
+        assertEquals(expected.version(), actual.version());
+        assertEquals(expected.playerData().getJoinMessageId(), actual.playerData().getJoinMessageId());
+    }
+
+    /**
+     * Creates a handoff for the test player.
+     * @param origin The {@link Server} the handoff is from.
+     * @param version The version of the handoff.
+     * @return The {@link PlayerDataHandoff}.
+     */
+    private @NotNull PlayerDataHandoff createHandoff(@NotNull Server origin, long version) {
+        return new PlayerDataHandoff(uuid, new PlayerData(true, true, true, (int) version, 0), origin.serverId, clock.get(), version);
+    }
+
+    /**
+     * A server with a {@link HandoffTracker}, which is given the handoffs and announcements its {@link LoopbackProxyChannel} receives.
+     */
+    private final class Server {
+        private final @NotNull UUID serverId = UUID.randomUUID();
+        private final @NotNull LoopbackProxyChannel channel;
+        private final @NotNull HandoffTracker tracker = new HandoffTracker(EXPIRY_MILLIS);
+        private final @NotNull BlockingQueue<Object> deliveries = new LinkedBlockingQueue<>();
+        private volatile @Nullable PlayerDataHandoff lastHandoff;
+
+        /**
+         * Constructor
+         * @param channel The {@link LoopbackProxyChannel} of the server.
+         */
+        private Server(@NotNull LoopbackProxyChannel channel) {
+            this.channel = channel;
+
+            channel.registerHandler("handoff", data -> {
+                PlayerDataHandoff handoff = decode(() -> PlayerDataHandoff.decode(data));
+                if(tracker.handleHandoff(handoff, clock.get())) lastHandoff = handoff;
+                deliveries.add(handoff);
+            });
+            channel.registerHandler("handoff-announcement", data -> {
+                HandoffAnnouncement announcement = decode(() -> HandoffAnnouncement.decode(data));
+                tracker.handleAnnouncement(announcement);
+                deliveries.add(announcement);
+            });
+            channel.start();
+        }
+
+        /**
+         * Tells the other servers the player joined this server.
+         * @param uuid The {@link UUID} of the player.
+         */
+        private void announce(@NotNull UUID uuid) {
+            tracker.hold(uuid);
+            assertTrue(channel.send("handoff-announcement", new HandoffAnnouncement(uuid, serverId).encode(), null));
+        }
+
+        /**
+         * Hands a player's data off to the other servers as the player leaves this server.
+         * @param uuid The {@link UUID} of the player.
+         * @return The {@link PlayerDataHandoff} that was sent.
+         */
+        private @NotNull PlayerDataHandoff sendHandoff(@NotNull UUID uuid) {
+            long now = clock.get();
+            PlayerDataHandoff handoff = new PlayerDataHandoff(uuid, new PlayerData(true, false, true, 1, 2), serverId, now, tracker.nextVersion(uuid, now));
+            tracker.release(uuid);
+            send(handoff);
+            return handoff;
+        }
+
+        /**
+         * Sends a handoff to the other servers.
+         * @param handoff The {@link PlayerDataHandoff}.
+         */
+        private void send(@NotNull PlayerDataHandoff handoff) {
+            assertTrue(channel.send("handoff", handoff.encode(), handoff.uuid()));
+        }
+
+        /**
+         * Waits for this server to handle the next message sent to it.
+         * @throws InterruptedException If the thread was interrupted while waiting.
+         */
+        private void awaitDelivery() throws InterruptedException {
+            assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Decodes a message, failing the test if it can't be decoded.
+     * @param decoder The {@link Decoder} to call.
+     * @return The decoded message.
+     * @param <T> The type of the message.
+     */
+    private static <T> @NotNull T decode(@NotNull Decoder<T> decoder) {
+        try {
+            return decoder.decode();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes a message.
+     * @param <T> The type of the message.
+     */
+    @FunctionalInterface
+    private interface Decoder<T> {
+        /**
+         * Decodes the message.
+         * @return The decoded message.
+         * @throws IOException If the message can't be decoded.
+         */
+        @NotNull T decode() throws IOException;
+    }
+}
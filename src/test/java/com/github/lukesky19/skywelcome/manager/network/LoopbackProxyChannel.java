@@ -0,0 +1,119 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * This class is a {@link ProxyChannel} that delivers messages between channels in the same process, without a proxy.
+ * Channels created with {@link #connect()} share a network, and every message sent by one is delivered to the others.
+ * It stands in for a proxy in tests, where several servers run in the same process.
+ */
+public class LoopbackProxyChannel implements ProxyChannel {
+    private final @NotNull Set<LoopbackProxyChannel> network;
+    private final @NotNull Map<String, Consumer<byte[]>> handlers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor
+     * Creates a channel on a new network of its own. Use {@link #connect()} to add other channels to it.
+     */
+    public LoopbackProxyChannel() {
+        this(ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Constructor
+     * @param network The {@link Set} of channels on the network this channel joins once started.
+     */
+    private LoopbackProxyChannel(@NotNull Set<LoopbackProxyChannel> network) {
+        this.network = network;
+    }
+
+    /**
+     * Creates a channel on the same network as this one.
+     * @return The new {@link LoopbackProxyChannel}.
+     */
+    public @NotNull LoopbackProxyChannel connect() {
+        return new LoopbackProxyChannel(network);
+    }
+
+    /**
+     * Joins the network.
+     */
+    @Override
+    public void start() {
+        network.add(this);
+    }
+
+    /**
+     * Sets the handler for the messages received on a sub-channel.
+     * @param subChannel The name of the sub-channel.
+     * @param handler The {@link Consumer} that is given each message's data.
+     */
+    @Override
+    public void registerHandler(@NotNull String subChannel, @NotNull Consumer<byte[]> handler) {
+        handlers.put(subChannel, handler);
+    }
+
+    /**
+     * Delivers a message to every other started channel on the network, asynchronously, as a proxy would.
+     * @param subChannel The name of the sub-channel.
+     * @param data The message's data.
+     * @param leavingPlayer Unused, since no player is needed to carry the message.
+     * @return true if this channel is started, otherwise false.
+     */
+    @Override
+    public boolean send(@NotNull String subChannel, byte @NotNull [] data, @Nullable UUID leavingPlayer) {
+        if(!network.contains(this)) return false;
+
+        byte[] dataCopy = data.clone();
+        for(LoopbackProxyChannel channel : network) {
+            if(channel == this) continue;
+
+            CompletableFuture.runAsync(() -> channel.deliver(subChannel, dataCopy));
+        }
+
+        return true;
+    }
+
+    /**
+     * Leaves the network.
+     */
+    @Override
+    public void stop() {
+        network.remove(this);
+    }
+
+    /**
+     * Gives a message sent by another channel to the handler of its sub-channel, if there is one.
+     * @param subChannel The name of the sub-channel.
+     * @param data The message's data.
+     */
+    private void deliver(@NotNull String subChannel, byte @NotNull [] data) {
+        Consumer<byte[]> handler = handlers.get(subChannel);
+        if(handler != null) handler.accept(data);
+    }
+}
@@ -0,0 +1,277 @@
+/*
+    SkyWelcome allows players to toggle join, leave, MOTD messages, and to choose custom join and leave messages.
+    Copyright (C) 2024 lukeskywlker19
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU Affero General Public License as published
+    by the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU Affero General Public License for more details.
+
+    You should have received a copy of the GNU Affero General Public License
+    along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+package com.github.lukesky19.skywelcome.manager.network;
+
+import com.github.lukesky19.skywelcome.enums.SessionState;
+import com.github.lukesky19.skywelcome.enums.TransitionType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests that {@link NetworkSessionTracker}s on servers connected by a {@link LoopbackProxyChannel} tell network joins and leaves apart from switches.
+ */
+public class NetworkSessionTrackerTest {
+    private static final long WINDOW_MILLIS = 1000L;
+
+    private final @NotNull AtomicLong clock = new AtomicLong(1000L);
+    private final @NotNull UUID uuid = UUID.randomUUID();
+    private Server lobby;
+    private Server survival;
+
+    /**
+     * Starts two servers on the same network.
+     */
+    @BeforeEach
+    public void setUp() {
+        LoopbackProxyChannel channel = new LoopbackProxyChannel();
+        lobby = new Server("lobby", channel);
+        survival = new Server("survival", channel.connect());
+    }
+
+    /**
+     * Stops the servers.
+     */
+    @AfterEach
+    public void tearDown() {
+        lobby.channel.stop();
+        survival.channel.stop();
+    }
+
+    /**
+     * A player joining a server that no other server saw leave joined the network once the window passes.
+     * @throws Exception If a message didn't arrive in time.
+     */
+    @Test
+    public void firstJoinIsNetworkJoin() throws Exception {
+        lobby.join(uuid);
+        survival.awaitDelivery();
+        assertTrue(lobby.transitions.isEmpty());
+        assertEquals(SessionState.PENDING_JOIN, lobby.tracker.getState(uuid));
+
+        clock.addAndGet(WINDOW_MILLIS + 1);
+        lobby.expire();
+        survival.expire();
+
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.NETWORK_JOIN, null)), lobby.transitions);
+        assertEquals(SessionState.ONLINE, lobby.tracker.getState(uuid));
+        assertTrue(survival.transitions.isEmpty());
+    }
+
+    /**
+     * A player that joins the new server before leaving the old one, as Velocity does, switched servers.
+     * @throws Exception If a message didn't arrive in time.
+     */
+    @Test
+    public void serverSwitchIsResolvedOnBothServers() throws Exception {
+        joinNetwork(lobby);
+
+        survival.join(uuid);
+        lobby.awaitDelivery();
+        lobby.quit(uuid);
+        survival.awaitDelivery();
+
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.SWITCH_OUT, "survival")), lobby.transitions);
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.SWITCH_IN, "lobby")), survival.transitions);
+        assertNull(lobby.tracker.getState(uuid));
+        assertEquals(SessionState.ONLINE, survival.tracker.getState(uuid));
+    }
+
+    /**
+     * A switch whose halves arrive in the other order, as when BungeeCord disconnects the player from the old server first, is resolved the same way.
+     * @throws Exception If a message didn't arrive in time.
+     */
+    @Test
+    public void reorderedSwitchIsResolvedOnBothServers() throws Exception {
+        joinNetwork(lobby);
+
+        lobby.quit(uuid);
+        survival.awaitDelivery();
+        assertEquals(SessionState.PENDING_QUIT, lobby.tracker.getState(uuid));
+        survival.join(uuid);
+        lobby.awaitDelivery();
+
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.SWITCH_OUT, "survival")), lobby.transitions);
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.SWITCH_IN, "lobby")), survival.transitions);
+    }
+
+    /**
+     * A player leaving a server that no other server saw them join left the network once the window passes.
+     * @throws Exception If a message didn't arrive in time.
+     */
+    @Test
+    public void quitIsNetworkQuit() throws Exception {
+        joinNetwork(lobby);
+
+        lobby.quit(uuid);
+        survival.awaitDelivery();
+        lobby.expire();
+        assertTrue(lobby.transitions.isEmpty());
+
+        clock.addAndGet(WINDOW_MILLIS + 1);
+        lobby.expire();
+        survival.expire();
+
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.NETWORK_QUIT, null)), lobby.transitions);
+        assertNull(lobby.tracker.getState(uuid));
+        assertTrue(survival.transitions.isEmpty());
+    }
+
+    /**
+     * A player that reconnects to the same server before their leave is resolved left and joined the network.
+     * @throws Exception If a message didn't arrive in time.
+     */
+    @Test
+    public void quitThenRejoinIsNetworkQuitAndJoin() throws Exception {
+        joinNetwork(lobby);
+
+        lobby.quit(uuid);
+        survival.awaitDelivery();
+        lobby.join(uuid);
+        survival.awaitDelivery();
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.NETWORK_QUIT, null)), lobby.transitions);
+
+        clock.addAndGet(WINDOW_MILLIS + 1);
+        lobby.expire();
+        survival.expire();
+
+        assertEquals(List.of(
+                new PlayerTransition(uuid, TransitionType.NETWORK_QUIT, null),
+                new PlayerTransition(uuid, TransitionType.NETWORK_JOIN, null)), lobby.transitions);
+        assertTrue(survival.transitions.isEmpty());
+    }
+
+    /**
+     * A message from another server that arrives after the window isn't matched with a join that was already resolved.
+     * @throws Exception If a message didn't arrive in time.
+     */
+    @Test
+    public void lateMessageIsNotSwitch() throws Exception {
+        joinNetwork(lobby);
+
+        survival.join(uuid);
+        lobby.awaitDelivery();
+        clock.addAndGet(WINDOW_MILLIS + 1);
+        survival.expire();
+        lobby.quit(uuid);
+        survival.awaitDelivery();
+
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.NETWORK_JOIN, null)), survival.transitions);
+        assertEquals(SessionState.ONLINE, survival.tracker.getState(uuid));
+    }
+
+    /**
+     * Has the test player join the network on a server, and forgets the transitions every server resolved.
+     * @param server The {@link Server} the player joins.
+     * @throws Exception If a message didn't arrive in time.
+     */
+    private void joinNetwork(@NotNull Server server) throws Exception {
+        server.join(uuid);
+        (server == lobby ? survival : lobby).awaitDelivery();
+        clock.addAndGet(WINDOW_MILLIS + 1);
+        lobby.expire();
+        survival.expire();
+        assertEquals(List.of(new PlayerTransition(uuid, TransitionType.NETWORK_JOIN, null)), server.transitions);
+
+        lobby.transitions.clear();
+        survival.transitions.clear();
+    }
+
+    /**
+     * A server with a {@link NetworkSessionTracker}, which is given the {@link SessionMessage}s its {@link LoopbackProxyChannel} receives.
+     */
+    private final class Server {
+        private final @NotNull String name;
+        private final @NotNull LoopbackProxyChannel channel;
+        private final @NotNull NetworkSessionTracker tracker = new NetworkSessionTracker(WINDOW_MILLIS);
+        private final @NotNull List<PlayerTransition> transitions = new CopyOnWriteArrayList<>();
+        private final @NotNull BlockingQueue<SessionMessage> deliveries = new LinkedBlockingQueue<>();
+
+        /**
+         * Constructor
+         * @param name The name of the server.
+         * @param channel The {@link LoopbackProxyChannel} of the server.
+         */
+        private Server(@NotNull String name, @NotNull LoopbackProxyChannel channel) {
+            this.name = name;
+            this.channel = channel;
+
+            channel.registerHandler("session", data -> {
+                SessionMessage message;
+                try {
+                    message = SessionMessage.decode(data);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+
+                transitions.addAll(tracker.handleRemoteMessage(message, clock.get()));
+                deliveries.add(message);
+            });
+            channel.start();
+        }
+
+        /**
+         * Has a player join this server and tells the other servers.
+         * @param uuid The {@link UUID} of the player.
+         */
+        private void join(@NotNull UUID uuid) {
+            transitions.addAll(tracker.handleLocalJoin(uuid, clock.get()));
+            assertTrue(channel.send("session", new SessionMessage(uuid, name, true).encode(), null));
+        }
+
+        /**
+         * Has a player leave this server and tells the other servers.
+         * @param uuid The {@link UUID} of the player.
+         */
+        private void quit(@NotNull UUID uuid) {
+            transitions.addAll(tracker.handleLocalQuit(uuid, clock.get()));
+            assertTrue(channel.send("session", new SessionMessage(uuid, name, false).encode(), uuid));
+        }
+
+        /**
+         * Resolves the joins and leaves whose window passed.
+         */
+        private void expire() {
+            transitions.addAll(tracker.expire(clock.get()));
+        }
+
+        /**
+         * Waits for this server to handle the next message sent to it.
+         * @throws InterruptedException If the thread was interrupted while waiting.
+         */
+        private void awaitDelivery() throws InterruptedException {
+            assertNotNull(deliveries.poll(5, TimeUnit.SECONDS));
+        }
+    }
+}